@@ -0,0 +1,137 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package controller;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded mailbox of commands that any number of threads can post to and one
+ * thread takes from, without locking.  Each command is a single int.  Every
+ * slot has a sequence number that says whether it is ready to be written or
+ * ready to be read, so posting is one compare and set on the tail and taking
+ * is plain reads and writes by the one reader.  A post to a full mailbox fails
+ * rather than waits.
+ *
+ * @author agent
+ * @version 1.0
+ */
+class CommandMailbox {
+    /** The value taken from an empty mailbox. */
+    static final int EMPTY = -1;
+
+    /** Holds the commands. */
+    private final int[] commands;
+    /** Holds the sequence number of each slot. */
+    private final AtomicLongArray sequences;
+    /** Holds the number of slots less one. */
+    private final int mask;
+    /** Holds the number of commands posted. */
+    private final AtomicLong tail = new AtomicLong();
+    /** Holds the number of commands taken, used only by the reader. */
+    private long head;
+    /** Holds the number of commands dropped because the mailbox was full. */
+    private final AtomicLong dropped = new AtomicLong();
+
+    //Constructor.
+    /**
+     * Creates a mailbox.
+     *
+     * @param capacity The number of commands that can wait, which is rounded up
+     * to a power of two.
+     */
+    CommandMailbox(int capacity) {
+        //Declarations.
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+
+        commands = new int[size];
+        sequences = new AtomicLongArray(size);
+        mask = size - 1;
+        for (int i = 0; i < size; i++)
+            sequences.set(i, i);
+    }
+
+    /**
+     * Posts a command.  Safe to call from any thread.
+     *
+     * @param command The command, which must not be negative.
+     * @return False if the mailbox was full and the command was dropped.
+     */
+    boolean offer(int command) {
+        //Declarations.
+        long position;
+        long difference;
+        int slot;
+
+        while (true) {
+            position = tail.get();
+            slot = (int)(position & mask);
+            difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                //The slot is free.  Claim it and then write it.
+                if (tail.compareAndSet(position, position + 1)) {
+                    commands[slot] = command;
+                    sequences.lazySet(slot, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                //The slot still holds a command that has not been taken.
+                dropped.incrementAndGet();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Takes the oldest command.  Only called by the one reader.
+     *
+     * @return The command, or EMPTY if there is none.
+     */
+    int poll() {
+        //Declarations.
+        int slot = (int)(head & mask);
+        int command;
+
+        if (sequences.get(slot) != head + 1)
+            return EMPTY;
+        command = commands[slot];
+        sequences.lazySet(slot, head + mask + 1);
+        head++;
+        return command;
+    }
+
+    /**
+     * Gets the number of commands dropped because the mailbox was full.
+     *
+     * @return The number of commands.
+     */
+    long getDroppedCommands() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package controller;
+
+import eventlog.EventTrail;
+import java.util.concurrent.ScheduledFuture;
+import model.GoblinModel;
+import model.GoblinModelAdapter;
+import net.GameFeed;
+
+/**
+ * A single game hosted by the session host.  A session owns a model and a
+ * player but no view and no thread of its own.  Each tick is a one shot task on
+ * the scheduler shared by the host, and the next tick is only scheduled once
+ * the current one has finished, so the model is never used by two threads at
+ * the same time.  The delays between ticks are the same as the ones the
+ * controller uses, divided by the time scale of the host.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class GameSession {
+    /** Holds the number that identifies the session in the host. */
+    private final long id;
+    /** Holds the host that runs the session. */
+    private final SessionHost host;
+    /** Holds the model of the game. */
+    private final GoblinModel model;
+    /** Holds the player that makes the moves. */
+    private final SessionPlayer player;
+    /** Holds the delay in milliseconds before the next tick. */
+    private int nextDelay;
+    /** Holds the boolean value that indicates if the game is over. */
+    private boolean gameOver;
+    /** Holds the boolean value that indicates if the session is running. */
+    private volatile boolean running;
+    /** Holds the next scheduled tick so it can be cancelled. */
+    private volatile ScheduledFuture<?> nextTick;
+    /** Holds the score of the game, readable from any thread. */
+    private volatile int score;
+    /** Holds the level of the game, readable from any thread. */
+    private volatile int level;
+    /** Holds the number of ticks run, readable from any thread. */
+    private volatile long ticks;
+    /** Holds the error that ended the session, if there was one. */
+    private volatile RuntimeException failure;
+    /** Holds the feed the game updates are sent to spectators through. */
+    private volatile GameFeed spectatorFeed;
+    /** Holds the trail the game events are logged to. */
+    private volatile EventTrail eventTrail;
+
+    //Constructor.
+    /**
+     * Creates a session.  The session does not run until it is started.
+     *
+     * @param id The number that identifies the session in the host.
+     * @param host The host that runs the session.
+     * @param gridSize The size of the game grid.
+     * @param player The player that makes the moves.
+     */
+    GameSession(long id, SessionHost host, int gridSize, SessionPlayer player) {
+        this.id = id;
+        this.host = host;
+        this.player = player;
+
+        //Set up the model and listen to it to work out the tick delays.
+        model = new GoblinModel();
+        model.setGameGridSize(gridSize);
+        model.buildGameGrid();
+        model.addModelListener(new SessionListener());
+    }
+
+    /**
+     * Method that starts a new game and schedules the first tick.
+     */
+    void start() {
+        running = true;
+        model.reset();
+        schedule(0);
+    }
+
+    /**
+     * Method that stops the session.  A tick that is already running finishes
+     * but no more are run.
+     */
+    void stop() {
+        //Declarations.
+        ScheduledFuture<?> tick;
+
+        running = false;
+        tick = nextTick;
+        if (tick != null) {
+            tick.cancel(false);
+        }
+    }
+
+    /**
+     * Method run by the scheduler for each tick.  The player is asked for its
+     * input if the goblin is about to move and then the model is advanced.
+     */
+    private void tick() {
+        //Declarations.
+        int keyPress;
+
+        if (!running) {
+            return;
+        }
+
+        try {
+            //Ask the player for its move before the goblin moves.
+            switch (model.getCurrentState()) {
+                case GoblinModel.STATE_BEGIN_LEVEL:
+                case GoblinModel.STATE_LEVEL_RUNNING:
+                case GoblinModel.STATE_GOBLIN_GOT_FACE:
+                    keyPress = player.nextKeyPress(model);
+                    if (keyPress != 0) {
+                        model.setKeyPress(keyPress);
+                    }
+                    break;
+            }
+
+            //Unless the model listener says otherwise the next tick comes after
+            //the normal delay for the level.
+            nextDelay = GoblinController.getLevelDelay(model.getLevel());
+            GoblinController.advanceModel(model);
+            ticks++;
+
+            //Send the changes to anyone watching.
+            if (spectatorFeed != null) {
+                spectatorFeed.publish(model);
+            }
+        } catch (RuntimeException e) {
+            //Something went wrong in the game.  End the session rather than
+            //leave it stuck in the host.
+            failure = e;
+            gameOver = true;
+        }
+
+        if (gameOver) {
+            running = false;
+            host.sessionFinished(this);
+        } else if (running) {
+            schedule(nextDelay);
+        }
+    }
+
+    /**
+     * Method that schedules the next tick on the scheduler of the host.
+     *
+     * @param delay The delay in milliseconds before the time scale is applied.
+     */
+    private void schedule(int delay) {
+        nextTick = host.schedule(this::tick, delay);
+
+        //If the session was stopped while scheduling make sure the tick does
+        //not stay in the scheduler.
+        if (!running) {
+            nextTick.cancel(false);
+        }
+    }
+
+    /**
+     * Sets the feed the game updates are sent to spectators through.
+     *
+     * @param spectatorFeed The feed, or null for none.
+     */
+    void setSpectatorFeed(GameFeed spectatorFeed) {
+        this.spectatorFeed = spectatorFeed;
+    }
+
+    /**
+     * Sets the trail the game events are logged to.  Must be called before the
+     * session is started.
+     *
+     * @param eventTrail The trail.
+     */
+    void setEventTrail(EventTrail eventTrail) {
+        this.eventTrail = eventTrail;
+        model.addModelListener(eventTrail);
+    }
+
+    /**
+     * Gets the trail the game events are logged to.
+     *
+     * @return The trail, or null if the events are not being logged.
+     */
+    EventTrail getEventTrail() {
+        return eventTrail;
+    }
+
+    /**
+     * Gets the number that identifies the session in the host.
+     *
+     * @return The session number.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the model of the session.  The model must only be used after the
+     * session has finished or been stopped.
+     *
+     * @return The model.
+     */
+    public GoblinModel getModel() {
+        return model;
+    }
+
+    /**
+     * Gets the player of the session.
+     *
+     * @return The player.
+     */
+    public SessionPlayer getPlayer() {
+        return player;
+    }
+
+    /**
+     * Gets the boolean value that indicates if the session is running.
+     *
+     * @return True if the session is running.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Gets the score of the game.
+     *
+     * @return The score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the level of the game.
+     *
+     * @return The level.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the number of ticks the session has run.
+     *
+     * @return The number of ticks.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Gets the error that ended the session.
+     *
+     * @return The error, or null if the session did not end with an error.
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Inner class that receives the events from the model of the session and
+     * works out the delay before the next tick the same way the controller
+     * does.
+     */
+    private class SessionListener extends GoblinModelAdapter {
+        @Override
+        public void levelBuilt(int newLevel) {
+            //Give the player time to look at the new level.
+            level = newLevel;
+            nextDelay = GoblinController.THREE_SECOND_DELAY;
+        }
+
+        @Override
+        public void goblinDestroyed(int x, int y) {
+            //Leave the explosion up for a moment.
+            nextDelay = GoblinController.ONE_SECOND_DELAY;
+        }
+
+        @Override
+        public void scoreChanged(int newScore) {
+            score = newScore;
+        }
+
+        @Override
+        public void stateChanged(int previousState, int newState) {
+            if (newState == GoblinModel.STATE_GAME_OVER) {
+                gameOver = true;
+            }
+        }
+    }
+}
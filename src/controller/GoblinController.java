@@ -36,20 +36,44 @@ import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import eventlog.GameEventLog;
+import metrics.GoblinMetrics;
+import metrics.Heatmap;
+import metrics.TickEvent;
 import model.GoblinModel;
+import model.GoblinModelAdapter;
+import net.GameFeed;
+import net.SharedBoard;
+import net.SpectatorServer;
+import replay.ReplayRecorder;
+import score.HighScoreStore;
+import view.FramePublisher;
 import view.GoblinView;
 
 /**
  * The controller in the game MVC architecture.  This class is responsible for
  * managing the operation of both the view and the model.  This class contains
- * the listeners from the view and the timer that controls the operation speed of
- * the model.  When the timer triggers the model is told to update its state and
- * when it is completed the controller looks at the new state of the model and
- * determines what action(s) need to taken in both the view and model.  The
- * controller also determines what action(s) to take based on the events passed
- * from the view listeners.
+ * the listeners from the view and the game loop thread that controls the
+ * operation speed of the model.  When it is time the model is told to update its
+ * state and as it does the model tells the controller, through a model listener,
+ * what changed so the controller can determine what action(s) need to taken in
+ * the view.  The controller also determines what action(s) to take based on the
+ * events passed from the view listeners.
+ * 
+ * Only the game loop thread changes the model.  The view listeners run on the
+ * AWT event thread, so they post commands to a mailbox that the game loop takes
+ * them from each time it wakes up.
  * 
  * @author Donald J Bartley
  * @version 1.0
@@ -57,40 +81,101 @@ import view.GoblinView;
 public class GoblinController {
 
     /** The value in milliseconds for a one second delay. */
-    private final int ONE_SECOND_DELAY = 1000;
+    static final int ONE_SECOND_DELAY = 1000;
     /** The value in milliseconds for a three second delay. */
-    private final int THREE_SECOND_DELAY = 3000;
+    static final int THREE_SECOND_DELAY = 3000;
     /** The value in milliseconds used between goblin movements in level 1. */
-    private final int LEVEL_ONE_DELAY = 400;
+    static final int LEVEL_ONE_DELAY = 400;
     /** The value in milliseconds used between goblin movements in level 2. */
-    private final int LEVEL_TWO_DELAY = 330;
+    static final int LEVEL_TWO_DELAY = 330;
     /** The value in milliseconds used between goblin movements in level 3. */
-    private final int LEVEL_THREE_DELAY = 250;
+    static final int LEVEL_THREE_DELAY = 250;
     /** The value in milliseconds used between goblin movements in level 4. */
-    private final int LEVEL_FOUR_DELAY = 170;
+    static final int LEVEL_FOUR_DELAY = 170;
     /** the value in milliseconds used between goblin movements in levels 5 and
      * up.
      */
-    private final int LEVEL_FIVE_AND_UP_DELAY = 80;
+    static final int LEVEL_FIVE_AND_UP_DELAY = 80;
+    /** The number spectators send to watch the game in the window. */
+    static final long SPECTATOR_GAME_ID = 0L;
+    /** The number of commands that can wait in the mailbox. */
+    private static final int MAILBOX_CAPACITY = 64;
+    /** The command that adds a key press to the model.  The key is the value. */
+    private static final int COMMAND_KEY = 1;
+    /**
+     * The command that adds a key press repeated by holding the key down.  The
+     * key is the value.
+     */
+    private static final int COMMAND_REPEATED_KEY = 2;
+    /** The command that starts a new game. */
+    private static final int COMMAND_NEW_GAME = 3;
+    /** The command that changes the tile size.  The size is the value. */
+    private static final int COMMAND_TILE_SIZE = 4;
+    /** The command that changes the grid size.  The size is the value. */
+    private static final int COMMAND_GRID_SIZE = 5;
+    /**
+     * The command that turns practice mode on or off.  The value is one for on
+     * and zero for off.
+     */
+    private static final int COMMAND_PRACTICE_MODE = 6;
+    /** The command that exits the game. */
+    private static final int COMMAND_EXIT = 7;
+    /** The number of bits the command is shifted left of its value. */
+    private static final int COMMAND_SHIFT = 16;
+    /**
+     * The most milliseconds between the release of a key and a press of the same
+     * key for the press to be taken as the key repeating.  Some systems send a
+     * release and a press for every repeat of a held key, at the same time or
+     * nearly so, while a person pressing the key again takes far longer.
+     */
+    private static final long REPEAT_WINDOW = 20L;
     /**
-     * Holds the boolean value that determines whether the timer should increment
-     * its counter.
+     * Holds the boolean value that determines whether the game loop should run
+     * the model state checks.  Only used by the game loop thread.
      */
     private boolean timerEnabled;
-    /** Holds the current timer count in milliseconds. */
-    private int eventTimerCount;
-    /** Holds the value that will trigger a timed event. */
+    /**
+     * Holds the delay in milliseconds before the next model state check.  Only
+     * used by the game loop thread.
+     */
     private int triggerValue;
+    /** Holds the commands waiting for the game loop thread. */
+    private final CommandMailbox mailbox = new CommandMailbox(MAILBOX_CAPACITY);
+    /**
+     * Holds true while a repeated key press is waiting in the mailbox, so that
+     * holding a key down only ever has one of them waiting.
+     */
+    private final AtomicBoolean repeatedKeyWaiting = new AtomicBoolean();
+    /** Holds the thread that runs the game. */
+    private final Thread gameLoop = new Thread(this::runGameLoop, "goblin-game-loop");
     /** Instance of the goblin model object. */
     private GoblinModel model;
-    /** Instance of the goblin view object. */
+    /** Instance of the goblin view object, or null if there is no window. */
     private GoblinView view;
-    /** Instance of the timer object. */
-    private Timer eventTimer = new Timer(true);
-
-    //Constructor.
     /**
-     * Sole constructor.
+     * Takes the frame snapshots of the model when there is no window, or null
+     * if there is one.
+     */
+    private FramePublisher frames;
+    /** The feed the game updates are sent to spectators through, if any. */
+    private GameFeed spectatorFeed;
+    /**
+     * The memory mapped file the game is published to for other processes, if
+     * any.
+     */
+    private SharedBoard sharedBoard;
+    /** The directory the game replays are saved in, if any. */
+    private File replayDirectory;
+    /** The recorder of the game replays, if they are being saved. */
+    private ReplayRecorder replayRecorder;
+    /** The store the high scores are kept in, if it could be opened. */
+    private HighScoreStore highScores;
+    /** The log the game events are written to, if any. */
+    private GameEventLog eventLog;
+
+    //Constructors.
+    /**
+     * Constructor for the game in a window.
      */
     public GoblinController() {
         //Create an instance of the goblin model.
@@ -100,12 +185,126 @@ public class GoblinController {
         //model to its constructor.
         view = new GoblinView(model);
 
+        //Add the listener instance for the model events.
+        model.addModelListener(new ModelListener());
+
         //Add the listeners instances for the keyboard, window, and pull-down
         //menus.
         view.addKeyboardListener(new KeyboardListener());
         view.addGameWindowListener(new GameWindowListener());
         view.addGameMenuListener(new GameMenuListener());
         view.addOptionsMenuListener(new OptionsMenuListener());
+
+        //If the game was started with a replay directory then record each game
+        //so it can be played back or exported.
+        String replayPath = System.getProperty("goblin.replay.dir");
+        if (replayPath != null) {
+            replayDirectory = new File(replayPath);
+            replayRecorder = new ReplayRecorder();
+            model.addModelListener(replayRecorder);
+        }
+
+        //Open the high scores kept from earlier games.
+        try {
+            highScores = new HighScoreStore(new File(System.getProperty("goblin.scores.dir", System.getProperty("user.home") + File.separator + ".goblin")));
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+
+        //If the game was started with an event log file then write the events
+        //of the game to it for analytics, under the same number spectators
+        //use for it.
+        String eventPath = System.getProperty("goblin.events.file");
+        if (eventPath != null) {
+            try {
+                eventLog = new GameEventLog(new File(eventPath), GameEventLog.DEFAULT_TRAIL_CAPACITY);
+                model.addModelListener(eventLog.openTrail(SPECTATOR_GAME_ID));
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+
+        //If the game was started with a shared board file then publish the
+        //game into it for programs in other processes to read.
+        String boardPath = System.getProperty("goblin.board.file");
+        if (boardPath != null) {
+            try {
+                sharedBoard = new SharedBoard(new File(boardPath));
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+
+        //If the game was started with a heatmap directory then draw the
+        //heatmap of each grid size found there over the game grid.
+        String heatmapPath = System.getProperty("goblin.heatmap.dir");
+        if (heatmapPath != null) {
+            loadHeatmaps(new File(heatmapPath), System.getProperty("goblin.heatmap.layer", "deaths"));
+        }
+
+        //If the game was started with a spectator port then let other
+        //processes on this machine watch the game.
+        int spectatorPort = Integer.getInteger("goblin.spectator.port", -1);
+        if (spectatorPort >= 0) {
+            try {
+                SpectatorServer server = new SpectatorServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), spectatorPort), SpectatorServer.DEFAULT_BUFFER_SIZE);
+                spectatorFeed = server.addGame(SPECTATOR_GAME_ID);
+                server.start();
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Constructor for a game with no window.  Each tick does the same work as
+     * it does with a window, including taking a snapshot of the model for the
+     * frame, but nothing is drawn.  The game loop thread is not started and
+     * none of the features turned on by system properties are used, so the
+     * ticks are run by calling doModelStateCheck().  This is used to check the
+     * tick without a display.
+     *
+     * @param gridSize The size of the game grid.
+     */
+    public GoblinController(int gridSize) {
+        model = new GoblinModel();
+        model.setGameGridSize(gridSize);
+        model.buildGameGrid();
+        frames = new FramePublisher();
+        model.addModelListener(new ModelListener());
+    }
+
+    /**
+     * Method used to give the view the heatmap of each grid size that has one
+     * in a directory, as written by the difficulty sweep.
+     *
+     * @param directory The directory.
+     * @param layerName The layer to draw, deaths, moves, or faces.
+     */
+    private void loadHeatmaps(File directory, String layerName) {
+        //Declarations.
+        int layer;
+        File file;
+
+        if (layerName.equals("moves")) {
+            layer = Heatmap.LAYER_OCCUPANCY;
+        } else if (layerName.equals("faces")) {
+            layer = Heatmap.LAYER_FACES;
+        } else {
+            layer = Heatmap.LAYER_DEATHS;
+        }
+
+        for (int gridSize : new int[] { GoblinModel.SMALL_GRID_SIZE, GoblinModel.MEDIUM_GRID_SIZE, GoblinModel.LARGE_GRID_SIZE }) {
+            file = new File(directory, Heatmap.getFileName(gridSize));
+            if (!file.exists()) {
+                continue;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                view.setHeatmapOverlay(Heatmap.read(in), layer);
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+        }
     }
 
     /**
@@ -117,58 +316,126 @@ public class GoblinController {
         //Instruct the model to build the initial game grid.
         model.buildGameGrid();
 
-        //Setup the timer to trigger at a fixed rate of 10 milliseconds.
-        eventTimer.scheduleAtFixedRate(new EventTimer(), 10, 10);
-
-        //Tell the view that the model is ready and repaint the entire screen.
+        //Tell the view that the model is ready and give it the first frame to
+        //draw.  This is done before the game loop starts because only one
+        //thread at a time can publish frames, and once the loop is running it
+        //is the only one that does.
         view.setIsReady(true);
-        view.repaint();
+        view.publishFrame();
+
+        //Start the thread that runs the game.  From here on only it changes
+        //the model and publishes frames.
+        gameLoop.setDaemon(true);
+        gameLoop.start();
     }
 
     /**
-     * Method used to check the current state of the model, tell the model to
-     * perform an action based on that state, check the state of the model after
-     * the task is complete, and then determine which action(s) the view and
-     * model should performed based on that state.  This method is called solely
-     * from the timer event.
+     * Gets the model the controller drives.
+     *
+     * @return The model.
+     */
+    public GoblinModel getModel() {
+        return model;
+    }
+
+    /**
+     * Method used to check the current state of the model and tell the model to
+     * perform an action based on that state.  The model tells the controller
+     * what changed through the model listener, which determines which action(s)
+     * the view should perform.  This method is called solely from the game
+     * loop thread.
      */
     public void doModelStateCheck() {
         //Declarations.
-        int levelDelay;
+        long tickStart = 0L;
+        TickEvent event = null;
+
+        //Start timing the tick for the flight recorder.  No event is made
+        //unless a recording is taking them.
+        if (TickEvent.TYPE.isEnabled()) {
+            event = new TickEvent();
+            event.begin();
+        }
 
-        //Based on the current game level get the delay between each goblin
-        //movement and store it in the level delay variable.
-        switch (model.getLevel()) {
-            case 1:
-                levelDelay = LEVEL_ONE_DELAY;
-                break;
-            case 2:
-                levelDelay = LEVEL_TWO_DELAY;
-                break;
-            case 3:
-                levelDelay = LEVEL_THREE_DELAY;
-                break;
-            case 4:
-                levelDelay = LEVEL_FOUR_DELAY;
-                break;
-            default:
-                levelDelay = LEVEL_FIVE_AND_UP_DELAY;
-                break;
+        //If the metrics are on note when the tick started.
+        if (GoblinMetrics.ENABLED) {
+            tickStart = System.nanoTime();
+        }
+
+        //Tell the model to perform the action for its current state.
+        advanceModel(model);
+
+        //Give the view a snapshot of the model to draw.  With no window the
+        //snapshot is still taken.
+        if (view != null) {
+            view.publishFrame();
+        } else {
+            frames.publish(model);
+        }
+
+        //Send the changes to anyone watching.
+        if (spectatorFeed != null) {
+            spectatorFeed.publish(model);
+        }
+        if (sharedBoard != null) {
+            sharedBoard.publish(model);
+        }
+
+        //If the metrics are on record how long the whole tick took, including
+        //publishing the frame for the view.
+        if (GoblinMetrics.ENABLED) {
+            GoblinMetrics.TICK.record(System.nanoTime() - tickStart);
         }
 
-        //Check the current state of the model before making any changes.
+        //If the flight recorder wants the event then fill it in and send it.
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.level = model.getLevel();
+                event.state = model.getCurrentState();
+                event.gridSize = model.getNumberOfRows();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Method used to check the current state of a model and tell the model to
+     * perform an action based on that state.  This is shared by every game loop
+     * that drives a model, with or without a view.
+     *
+     * @param model The model to be advanced.
+     */
+    public static void advanceModel(GoblinModel model) {
+        //Declarations.
+        long stepStart = 0L;
+
+        //Check the current state of the model and make the change.
         switch (model.getCurrentState()) {
             case GoblinModel.STATE_BUILD_LEVEL:
                 //The model is in a state where it is ready to build a new level.
                 //Execute the level builder.
+                if (GoblinMetrics.ENABLED) {
+                    stepStart = System.nanoTime();
+                }
                 model.buildLevel();
+                if (GoblinMetrics.ENABLED) {
+                    GoblinMetrics.BUILD_LEVEL.record(System.nanoTime() - stepStart);
+                    GoblinMetrics.BUILD_ATTEMPTS.record(model.getBuildAttempts());
+                }
                 break;
             case GoblinModel.STATE_BEGIN_LEVEL:
             case GoblinModel.STATE_LEVEL_RUNNING:
             case GoblinModel.STATE_GOBLIN_GOT_FACE:
                 //The model is in a state where the goblin can be moved.
                 //Move the goblin.
+                if (GoblinMetrics.ENABLED) {
+                    stepStart = System.nanoTime();
+                }
                 model.moveGoblin();
+                if (GoblinMetrics.ENABLED) {
+                    GoblinMetrics.MOVE_GOBLIN.record(System.nanoTime() - stepStart);
+                }
                 break;
             case GoblinModel.STATE_GOBLIN_DESTROYED:
                 //The model is in a state where the last move resulted in the
@@ -183,107 +450,321 @@ public class GoblinController {
                 model.changeStateToBuildLevel();
                 break;
         }
+    }
+
+    /**
+     * Method that gets the delay between each goblin movement for a game level.
+     *
+     * @param level The game level.
+     * @return The delay in milliseconds.
+     */
+    public static int getLevelDelay(int level) {
+        switch (level) {
+            case 1:
+                return LEVEL_ONE_DELAY;
+            case 2:
+                return LEVEL_TWO_DELAY;
+            case 3:
+                return LEVEL_THREE_DELAY;
+            case 4:
+                return LEVEL_FOUR_DELAY;
+            default:
+                return LEVEL_FIVE_AND_UP_DELAY;
+        }
+    }
 
-        //Now check the state of the model after the changes.
+    /**
+     * Method that gets the delay before the next state check of a model that
+     * has just been advanced, the same as the game in the window uses.
+     *
+     * @param model The model.
+     * @return The delay in milliseconds.
+     */
+    public static int getStepDelay(GoblinModel model) {
         switch (model.getCurrentState()) {
             case GoblinModel.STATE_BEGIN_LEVEL:
-                //When a level begins the level number is updated.  Since the
-                //level number in the model changed tell the view to update the
-                //window title where the level is shown.
-                view.updateTitle();
-
-                //Tell the view to repaint the entire screen since it is a new
-                //level and everything on the screen changed.
-                view.repaint();
-
-                //Load a three second delay to allow the player time to prepare
-                //before the first move.
-                triggerValue = THREE_SECOND_DELAY;
-                break;
-            case GoblinModel.STATE_LEVEL_RUNNING:
-                //A goblin move occured.  Tell the view to redraw only the
-                //affected area of the screen.
-                view.redrawArea();
+                //A level was just built.  Give the player time to look at it.
+                return THREE_SECOND_DELAY;
+            case GoblinModel.STATE_GOBLIN_DESTROYED:
+                //Leave the explosion up for a moment.
+                return ONE_SECOND_DELAY;
+            default:
+                return getLevelDelay(model.getLevel());
+        }
+    }
 
-                //Load the level delay into the timer delay.
-                triggerValue = levelDelay;
-                break;
-            case GoblinModel.STATE_GOBLIN_GOT_FACE:
-                //Tell the view to change the title since the score changed.
-                view.updateTitle();
+    /**
+     * The loop run by the game loop thread.  Each time it wakes up it carries
+     * out the commands waiting in the mailbox and, when the delay loaded by the
+     * model listener has passed, checks the state of the model.  It sleeps until
+     * the next state check is due or a command is posted.
+     */
+    private void runGameLoop() {
+        //Declarations.
+        long nextCheckTime = System.nanoTime();
+        long now, wait;
+
+        while (true) {
+            //Carry out the commands first so the state check sees them.  A new
+            //game checks the state right away and loads the delay before the
+            //next check.
+            if (takeCommands()) {
+                nextCheckTime = System.nanoTime() + triggerValue * 1000000L;
+            }
 
-                //Tell the view to redraw only the affected area of the screen.
-                view.redrawArea();
+            if (!timerEnabled) {
+                //The game is over so there is nothing to do until a command is
+                //posted.
+                LockSupport.park(this);
+                continue;
+            }
 
-                //Load the level delay into the timer delay.
-                triggerValue = levelDelay;
-                break;
-            case GoblinModel.STATE_GOBLIN_DESTROYED:
-                //The goblin was detsroyed so all the shocked faces turned into
-                //happy faces.  Tell the view to redraw the whole screen.
-                view.repaint();
-
-                //Load a one second delay into the timer delay to allow the
-                //explosion to stay on the screen long enough for the player to
-                //see it.
-                triggerValue = ONE_SECOND_DELAY;
-                break;
-            case GoblinModel.STATE_LEVEL_CLEARED:
-                //The goblin got the last face.  Tell the view to change the
-                //title since the score would have changed.
-                view.updateTitle();
+            now = System.nanoTime();
+            wait = nextCheckTime - now;
+            if (wait > 0L) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
 
-                //Tell the view to redraw only the affected area of the screen.
-                view.redrawArea();
-                break;
-            case GoblinModel.STATE_GAME_OVER:
-                //Tell the view to change the title to display that the game is
-                //over.
-                view.updateTitle();
-
-                //The explosion was cleared off the screen so have the view
-                //redraw the affected area.
-                view.redrawArea();
-
-                //Stop the timer from counting since the game is over.  Either
-                //the key listener or the pull-down event listener will start a
-                //new game and re-trigger the timer.
-                timerEnabled = false;
-                break;
+            //If the metrics are on record how late this wake up is compared to
+            //when the state check was due.
+            if (GoblinMetrics.ENABLED) {
+                GoblinMetrics.TIMER_LATENESS.record(-wait);
+            }
+
+            doModelStateCheck();
+
+            //Load the next check from when this one was due so the game keeps
+            //its pace, unless the loop has fallen a whole delay behind.
+            nextCheckTime = Math.max(nextCheckTime + triggerValue * 1000000L, now);
         }
     }
 
     /**
-     * Inner class that handles the timer event.  It is setup to trigger an event
-     * every ten milliseconds in this game.  When the trigger value is reached it
-     * called the doModelStateCheck() method and resets itself.
-     * 
+     * Posts a command to the game loop thread and wakes it up.
+     *
+     * @param command The command, one of the command constants of this class.
+     * @param value The value that goes with the command.
+     * @return False if the mailbox was full and the command was dropped.
+     */
+    private boolean postCommand(int command, int value) {
+        if (!mailbox.offer((command << COMMAND_SHIFT) | value)) {
+            return false;
+        }
+        LockSupport.unpark(gameLoop);
+        return true;
+    }
+
+    /**
+     * Carries out the commands waiting in the mailbox.  Only called by the game
+     * loop thread.
+     *
+     * @return True if a new game was started.
+     */
+    private boolean takeCommands() {
+        //Declarations.
+        int command, value;
+        boolean started = false;
+
+        for (command = mailbox.poll(); command != CommandMailbox.EMPTY; command = mailbox.poll()) {
+            value = command & ((1 << COMMAND_SHIFT) - 1);
+            switch (command >>> COMMAND_SHIFT) {
+                case COMMAND_KEY:
+                    //Each key press is kept so moves can be entered ahead of
+                    //the goblin, until the model's key press buffer is full.
+                    if (model.getCurrentState() != GoblinModel.STATE_GAME_OVER) {
+                        model.setKeyPress(value);
+                    }
+                    break;
+                case COMMAND_REPEATED_KEY:
+                    //A key being held down only moves the goblin once per move
+                    //rather than piling up moves in the model.
+                    repeatedKeyWaiting.set(false);
+                    if (model.getCurrentState() != GoblinModel.STATE_GAME_OVER
+                            && model.getKeyPressCount() == 0) {
+                        model.setKeyPress(value);
+                    }
+                    break;
+                case COMMAND_NEW_GAME:
+                    if (model.getCurrentState() == GoblinModel.STATE_GAME_OVER) {
+                        //Tell the model to reset itself and call the model state
+                        //checker so the first level is drawn.
+                        startNewGame();
+                        doModelStateCheck();
+
+                        //Enable the state checks that keep time for the game.
+                        timerEnabled = true;
+                        started = true;
+                    }
+                    break;
+                case COMMAND_TILE_SIZE:
+                case COMMAND_GRID_SIZE:
+                case COMMAND_PRACTICE_MODE:
+                    changeOption(command >>> COMMAND_SHIFT, value);
+                    break;
+                case COMMAND_EXIT:
+                    exitGame();
+                    break;
+            }
+        }
+
+        return started;
+    }
+
+    /**
+     * Changes one of the options if the game is over, otherwise puts the check
+     * marks in the Options menu back to the options of the model.  Only called
+     * by the game loop thread.
+     *
+     * @param command The command for the option.
+     * @param value The new value of the option.
+     */
+    private void changeOption(int command, int value) {
+        if (model.getCurrentState() == GoblinModel.STATE_GAME_OVER) {
+            //The model is in the proper state.  Change the model and tell the
+            //view to update the check marks in the Options menu.
+            if (command == COMMAND_TILE_SIZE) {
+                model.setTileSize(value);
+                view.setOptionsMenuTileSizeItem();
+            } else if (command == COMMAND_GRID_SIZE) {
+                model.setGameGridSize(value);
+                view.setOptionsMenuGridSizeItem();
+            } else {
+                model.setPracticeMode(value != 0);
+                view.setOptionsMenuPracticeModeItem();
+            }
+
+            //Since the user changed an option tell the model to build a whole
+            //new game grid and give the view a snapshot of it, which resizes
+            //the window if the size changed.
+            model.buildGameGrid();
+            view.publishFrame();
+        } else {
+            //The model is not in the right state, make sure the option check
+            //marks do not change.  Call the methods in the view that set the
+            //check marks to the state of the current model.
+            view.setOptionsMenuTileSizeItem();
+            view.setOptionsMenuGridSizeItem();
+            view.setOptionsMenuPracticeModeItem();
+        }
+    }
+
+    /**
+     * Method that resets the model for a new game and, if replays are being
+     * saved, starts recording it.
+     */
+    private void startNewGame() {
+        if (replayRecorder != null) {
+            replayRecorder.begin(model);
+        }
+        model.reset();
+    }
+
+    /**
+     * Method that writes out any high scores and events still waiting and exits
+     * the game.
+     */
+    private void exitGame() {
+        if (highScores != null) {
+            try {
+                highScores.close();
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+        if (eventLog != null) {
+            try {
+                eventLog.close();
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Method that saves the replay of the game that just ended, if replays are
+     * being saved.
+     */
+    private void saveReplay() {
+        if (replayRecorder == null || replayRecorder.getReplay() == null) {
+            return;
+        }
+
+        if (!replayDirectory.isDirectory() && !replayDirectory.mkdirs()) {
+            System.out.println("Could not create " + replayDirectory);
+            return;
+        }
+        try (OutputStream out = new FileOutputStream(new File(replayDirectory, "goblin-" + System.currentTimeMillis() + ".replay"))) {
+            replayRecorder.getReplay().write(out);
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Inner class that receives the events from the model.  Based on what
+     * changed in the model it loads the delay before the next model state
+     * check.  The view finds what to redraw from the frame published after the
+     * state check.
+     *
      * @author Donald J Bartley
      * @version 1.0
      */
-    private class EventTimer extends TimerTask {
+    private class ModelListener extends GoblinModelAdapter {
+        /**
+         * Overrides the levelBuilt() method of GoblinModelAdapter.  Loads the
+         * delay before the first move.
+         */
+        @Override
+        public void levelBuilt(int level) {
+            //Load a three second delay to allow the player time to prepare
+            //before the first move.
+            triggerValue = THREE_SECOND_DELAY;
+        }
+
         /**
-         * Overrides the run() method of TimerTask.  Contains the code for
-         * incrementing the count by 10, checking if the counter matches the
-         * trigger value, and then executing the doModelStateCheck() method if it
-         * does.
+         * Overrides the goblinMoved() method of GoblinModelAdapter.  Loads the
+         * level delay.
          */
         @Override
-        public void run() {
-            //If the timer is no enabled do nothing.
-            if (timerEnabled) {
-                //The timer triggered, increment the counter by ten (10) since
-                //this timer fires every ten (10) milliseconds.
-                eventTimerCount += 10;
-
-                //If the count equals the trigger value then run the model state
-                //checker and reset the counter.
-                if (eventTimerCount == triggerValue) {
-                    doModelStateCheck();
-
-                    //Reset the counter.
-                    eventTimerCount = 0;
+        public void goblinMoved(int lastX, int lastY, int x, int y) {
+            //Load the level delay into the timer delay.
+            triggerValue = getLevelDelay(model.getLevel());
+        }
+
+        /**
+         * Overrides the goblinDestroyed() method of GoblinModelAdapter.  Loads
+         * the delay that keeps the explosion on the screen.
+         */
+        @Override
+        public void goblinDestroyed(int x, int y) {
+            //Load a one second delay into the timer delay to allow the explosion
+            //to stay on the screen long enough for the player to see it.
+            triggerValue = ONE_SECOND_DELAY;
+        }
+
+        /**
+         * Overrides the stateChanged() method of GoblinModelAdapter.  When the
+         * game is over keeps the score and stops the state checks.
+         */
+        @Override
+        public void stateChanged(int previousState, int newState) {
+            if (newState == GoblinModel.STATE_GAME_OVER) {
+                //Keep the score and show the best one for this size along with
+                //it.
+                if (highScores != null) {
+                    highScores.record(model.getScore(), model.getLevel(), model.getNumberOfRows(), model.getTileSize());
+                    view.setBestScore(Math.max(highScores.getBestScore(model.getNumberOfRows(), model.getTileSize()), model.getScore()));
                 }
+
+                //Stop the state checks since the game is over.  Either the key
+                //listener or the pull-down event listener will post a new game
+                //which starts them again.
+                timerEnabled = false;
+
+                //Save the replay of the game.
+                saveReplay();
             }
         }
     }
@@ -291,51 +772,67 @@ public class GoblinController {
     /**
      * Inner class responsible for capturing keyboard events from the view.  When
      * a keyboard event is captured the key press is compared with the ones used
-     * by this game.  If it is either <A> or <L> and a game level is running then
-     * they are added to the FIFO buffer of the model.  If it is the <Enter> key
-     * and the game is over a new game is started.
+     * by this game.  If it is either <A> or <L> it is posted to the game loop,
+     * which adds it to the FIFO buffer of the model if a game level is running.
+     * If it is the <Enter> key a new game is posted, which the game loop starts
+     * if the game is over.  A key held down repeats, and a repeat is only posted
+     * if the last one has been taken.
      * 
      * @author Donald J Bartley
      * @version 1.0
      */
     private class KeyboardListener extends KeyAdapter {
+        /** Holds the key that is being held down, or zero if none. */
+        private int heldKey;
+        /** Holds the key that was released last, or zero if none. */
+        private int releasedKey;
+        /** Holds the time in milliseconds the last key was released. */
+        private long releaseTime;
+
         /**
          * Overrides the keyPressed() method of KeyAdapter.  Contains the code
          * for determining if the key press if one of the keys used by the game
-         * and what action to take based on it and the state of the model.
+         * and posting it to the game loop.
          */
         @Override
         public void keyPressed(KeyEvent e) {
             //There are only three keys that are needed for the game.  During
             //normal game play they are the 'A' and the 'L' keys.  When the game
             //is over the only key used is the enter key to start a new game.
-            //Based of the state of the model check if the keypress is valid.
-            if (model.getCurrentState() == GoblinModel.STATE_GAME_OVER) {
-                //The game is over, if the key pressed was enter then start a new
-                //game.
-                if (e.getKeyCode() == GoblinModel.NEW_GAME) {
-                    //Enter was pressed which means the user wants to play a new
-                    //game.  Tell the model to reset itself.
-                    model.reset();
-
-                    //Call the model state checker so the game can be restarted
-                    //and the first level drawn.
-                    doModelStateCheck();
-
-                    //Enable the timer that will be used to keep time for the
-                    //game.
-                    timerEnabled = true;
+            if (e.getKeyCode() == GoblinModel.NEW_GAME) {
+                postCommand(COMMAND_NEW_GAME, 0);
+            } else if (e.getKeyCode() == GoblinModel.MOVE_LEFT
+                    || e.getKeyCode() == GoblinModel.MOVE_RIGHT) {
+                //A press straight after the release of the same key is the key
+                //repeating, the same as a second press without a release.
+                if (e.getKeyCode() == releasedKey && e.getWhen() - releaseTime <= REPEAT_WINDOW) {
+                    heldKey = releasedKey;
                 }
-            } else {
-                //The game is running, if it was either the A or the L key then
-                //send the keypress to the model.  'A' is for move left and 'L'
-                //is for move right.
-                if (e.getKeyCode() == GoblinModel.MOVE_LEFT
-                        || e.getKeyCode() == GoblinModel.MOVE_RIGHT) {
-                    model.setKeyPress(e.getKeyCode());
+                releasedKey = 0;
+
+                //Only let one repeat wait at a time.
+                if (e.getKeyCode() != heldKey) {
+                    heldKey = e.getKeyCode();
+                    postCommand(COMMAND_KEY, e.getKeyCode());
+                } else if (repeatedKeyWaiting.compareAndSet(false, true)
+                        && !postCommand(COMMAND_REPEATED_KEY, e.getKeyCode())) {
+                    repeatedKeyWaiting.set(false);
                 }
             }
         }
+
+        /**
+         * Overrides the keyReleased() method of KeyAdapter.  Notes that the key
+         * is no longer being held down and when it was released.
+         */
+        @Override
+        public void keyReleased(KeyEvent e) {
+            if (e.getKeyCode() == heldKey) {
+                heldKey = 0;
+            }
+            releasedKey = e.getKeyCode();
+            releaseTime = e.getWhen();
+        }
     }
 
     /**
@@ -352,7 +849,7 @@ public class GoblinController {
          */
         @Override
         public void windowClosing(WindowEvent e) {
-            System.exit(0);
+            postCommand(COMMAND_EXIT, 0);
         }
     }
 
@@ -370,21 +867,13 @@ public class GoblinController {
          */
         @Override
         public void actionPerformed(ActionEvent ae) {
-            //If the Start menu item is selected and the model is in a state of
-            //game over then start a new game.
-            if (ae.getActionCommand().equals(GoblinView.START_GAME_MENU_ITEM)
-                    && model.getCurrentState() == GoblinModel.STATE_GAME_OVER) {
-                //Tell the model to reset itself.
-                model.reset();
-
-                //Clear the timer counter, load in a trigger value that will
-                //cause it to trigger quickly, and then enabled the timer.
-                eventTimerCount = 0;
-                triggerValue = 100;
-                timerEnabled = true;
+            //If the Start menu item is selected then post a new game, which
+            //the game loop starts if the game is over.
+            if (ae.getActionCommand().equals(GoblinView.START_GAME_MENU_ITEM)) {
+                postCommand(COMMAND_NEW_GAME, 0);
             } else if (ae.getActionCommand().equals(GoblinView.EXIT_GAME_MENU_ITEM)) {
                 //The Exit menu item was selected, exit the game.
-                System.exit(0);
+                postCommand(COMMAND_EXIT, 0);
             }
         }
     }
@@ -404,63 +893,33 @@ public class GoblinController {
          */
         @Override
         public void itemStateChanged(ItemEvent ie) {
-            //If the model is in a state of game over then accept and change in
-            //options.
-            if (model.getCurrentState() == GoblinModel.STATE_GAME_OVER) {
-                //The model is in the proper state.  Determine which option is
-                //was that was selected and do the appropriate task.
-                if (ie.getItem().toString().equals(GoblinView.SMALL_TILES_MENU_ITEM)) {
-                    //The user set the tile size to small.  Change the model and
-                    //tell the view to update the check marks in the Options
-                    //menu.
-                    model.setTileSize(GoblinModel.SMALL_TILE_SIZE);
-                    view.setOptionsMenuTileSizeItem();
-                } else if (ie.getItem().toString().equals(GoblinView.MEDIUM_TILES_MENU_ITEM)) {
-                    //The user set the tile size to medium.  Change the model and
-                    //tell the view to update the check marks in the Options
-                    //menu.
-                    model.setTileSize(GoblinModel.MEDIUM_TILE_SIZE);
-                    view.setOptionsMenuTileSizeItem();
-                } else if (ie.getItem().toString().equals(GoblinView.LARGE_TILES_MENU_ITEM)) {
-                    //The user set the tile size to large.  Change the model and
-                    //tell the view to update the check marks in the Options
-                    //menu.
-                    model.setTileSize(GoblinModel.LARGE_TILE_SIZE);
-                    view.setOptionsMenuTileSizeItem();
-                } else if (ie.getItem().toString().equals(GoblinView.SMALL_GRID_MENU_ITEM)) {
-                    //The user set the tile grid to small.  Change the model and
-                    //tell the view to update the check marks in the Options
-                    //menu.
-                    model.setGameGridSize(GoblinModel.SMALL_GRID_SIZE);
-                    view.setOptionsMenuGridSizeItem();
-                } else if (ie.getItem().toString().equals(GoblinView.MEDIUM_GRID_MENU_ITEM)) {
-                    //The user set the grid size to medium.  Change the model and
-                    //tell the view to update the check marks in the Options
-                    //menu.
-                    model.setGameGridSize(GoblinModel.MEDIUM_GRID_SIZE);
-                    view.setOptionsMenuGridSizeItem();
-                } else {
-                    //The user set the grid size to large.  Change the model and
-                    //tell the view to update the check marks in the Options
-                    //menu.
-                    model.setGameGridSize(GoblinModel.LARGE_GRID_SIZE);
-                    view.setOptionsMenuGridSizeItem();
-                }
-
-                //Since the user changed either the grid size or the tile size
-                //tell the model to build a whole new game grid, tell the view
-                //the window size will need to be reset by changing the size set
-                //value to false, and then tell the view to repaint the whole
-                //screen.
-                model.buildGameGrid();
-                view.setSizeSet(false);
-                view.repaint();
+            //Declarations.
+            boolean posted;
+
+            //Determine which option was selected and post it to the game loop,
+            //which changes it if the game is over.
+            if (ie.getItem().toString().equals(GoblinView.SMALL_TILES_MENU_ITEM)) {
+                posted = postCommand(COMMAND_TILE_SIZE, GoblinModel.SMALL_TILE_SIZE);
+            } else if (ie.getItem().toString().equals(GoblinView.MEDIUM_TILES_MENU_ITEM)) {
+                posted = postCommand(COMMAND_TILE_SIZE, GoblinModel.MEDIUM_TILE_SIZE);
+            } else if (ie.getItem().toString().equals(GoblinView.LARGE_TILES_MENU_ITEM)) {
+                posted = postCommand(COMMAND_TILE_SIZE, GoblinModel.LARGE_TILE_SIZE);
+            } else if (ie.getItem().toString().equals(GoblinView.SMALL_GRID_MENU_ITEM)) {
+                posted = postCommand(COMMAND_GRID_SIZE, GoblinModel.SMALL_GRID_SIZE);
+            } else if (ie.getItem().toString().equals(GoblinView.PRACTICE_MODE_MENU_ITEM)) {
+                posted = postCommand(COMMAND_PRACTICE_MODE, (ie.getStateChange() == ItemEvent.SELECTED) ? 1 : 0);
+            } else if (ie.getItem().toString().equals(GoblinView.MEDIUM_GRID_MENU_ITEM)) {
+                posted = postCommand(COMMAND_GRID_SIZE, GoblinModel.MEDIUM_GRID_SIZE);
             } else {
-                //The model is not in the right state, make sure the option check
-                //marks do not change.  Call the methods in the view that set the
-                //check marks to the state of the current model.
+                posted = postCommand(COMMAND_GRID_SIZE, GoblinModel.LARGE_GRID_SIZE);
+            }
+
+            //If the mailbox was full the option did not change, so put the
+            //check marks back.
+            if (!posted) {
                 view.setOptionsMenuTileSizeItem();
                 view.setOptionsMenuGridSizeItem();
+                view.setOptionsMenuPracticeModeItem();
             }
         }
     }
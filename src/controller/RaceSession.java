@@ -0,0 +1,493 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package controller;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import model.GoblinModel;
+import net.LockstepLink;
+
+/**
+ * A head-to-head race between two players on the same level.  Both players
+ * build the level from the same seed and whoever collects all of the shocked
+ * faces first, or survives longer, wins.
+ *
+ * Each player runs two models, its own and a copy of the other player's.  The
+ * players only send each other the key press used for each game step and a
+ * checksum of the board after it.  The copy of the other player's model is
+ * stepped with those key presses and its checksum compared, so any difference
+ * between the two is found on the step it happens.  Since the two boards never
+ * affect each other the player's own model never needs the other player's key
+ * presses, so nothing has to be predicted or rolled back.  To keep the two
+ * players in step a player only runs a step once the other player's step from
+ * the input delay number of steps before has arrived.  The input delay is
+ * worked out from the round trip time and the delay between goblin moves for
+ * the level, so on any reasonable connection nobody ever waits.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class RaceSession {
+    /** The outcome while the race is still running. */
+    public static final int OUTCOME_RUNNING = 0;
+    /** The outcome when this player won. */
+    public static final int OUTCOME_WIN = 1;
+    /** The outcome when the other player won. */
+    public static final int OUTCOME_LOSS = 2;
+    /** The outcome when neither player won. */
+    public static final int OUTCOME_TIE = 3;
+    /** The outcome when the two copies of a board were found to differ. */
+    public static final int OUTCOME_DESYNC = 4;
+    /** The outcome when the connection to the other player was lost. */
+    public static final int OUTCOME_DISCONNECTED = 5;
+
+    /** The number of pings used to measure the round trip time. */
+    private static final int PINGS = 5;
+    /** The extra time in milliseconds allowed for the connection to vary. */
+    private static final int JITTER_MARGIN = 20;
+    /** The largest input delay in steps. */
+    private static final int MAX_INPUT_DELAY = 64;
+    /** The time in milliseconds to wait for the other player before giving up. */
+    private static final int DISCONNECT_TIMEOUT = 10000;
+
+    /** Holds the connection to the other player. */
+    private final LockstepLink link;
+    /** Holds the player that makes this player's moves. */
+    private final SessionPlayer player;
+    /** Holds this player's model. */
+    private final GoblinModel localModel;
+    /** Holds the copy of the other player's model. */
+    private final GoblinModel remoteModel;
+    /** Holds the thread that runs the race. */
+    private Thread thread;
+    /** Holds the outcome of the race. */
+    private volatile int outcome = OUTCOME_RUNNING;
+    /** Holds the number of steps this player has run. */
+    private volatile int localSteps;
+    /** Holds the number of steps of the other player that have been run. */
+    private volatile int remoteSteps;
+    /** Holds the number of times this player had to wait for the other. */
+    private volatile int stalls;
+    /** Holds the step this player finished on, or -1 if it has not. */
+    private int localFinishStep = -1;
+    /** Holds the step the other player finished on, or -1 if it has not. */
+    private int remoteFinishStep = -1;
+    /** Holds the boolean value that indicates this player cleared the level. */
+    private boolean localCleared;
+    /** Holds the boolean value that indicates the other player cleared it. */
+    private boolean remoteCleared;
+    /** Holds the step the boards were found to differ on, or -1. */
+    private volatile int desyncStep = -1;
+
+    //Constructor.
+    /**
+     * Creates a race over a link that has exchanged the race settings.
+     *
+     * @param link The connection to the other player.
+     * @param player The player that makes this player's moves.
+     */
+    private RaceSession(LockstepLink link, SessionPlayer player) {
+        this.link = link;
+        this.player = player;
+        localModel = createModel(link);
+        remoteModel = createModel(link);
+    }
+
+    /**
+     * Waits for the other player to connect and then sets up the race.
+     *
+     * @param address The address to listen on.
+     * @param gridSize The size of the game grid.
+     * @param level The level to race on, one or more.
+     * @param player The player that makes this player's moves.
+     * @return The race, ready to be started.
+     * @throws IOException If the connection failed.
+     */
+    public static RaceSession host(InetSocketAddress address, int gridSize, int level, SessionPlayer player) throws IOException {
+        try (ServerSocket server = new ServerSocket()) {
+            server.bind(address);
+            return host(server, gridSize, level, player);
+        }
+    }
+
+    /**
+     * Waits for the other player to connect to a server socket that is already
+     * listening and then sets up the race.
+     *
+     * @param server The server socket.
+     * @param gridSize The size of the game grid.
+     * @param level The level to race on, one or more.
+     * @param player The player that makes this player's moves.
+     * @return The race, ready to be started.
+     * @throws IOException If the connection failed.
+     */
+    public static RaceSession host(ServerSocket server, int gridSize, int level, SessionPlayer player) throws IOException {
+        //Declarations.
+        LockstepLink link = LockstepLink.accept(server);
+        long roundTrip = link.measureRoundTrip(PINGS);
+
+        link.sendStart(System.nanoTime(), gridSize, level, getInputDelay(roundTrip, level));
+        return new RaceSession(link, player);
+    }
+
+    /**
+     * Connects to the player hosting a race and sets up the race.
+     *
+     * @param address The address of the host.
+     * @param player The player that makes this player's moves.
+     * @return The race, ready to be started.
+     * @throws IOException If the connection failed.
+     */
+    public static RaceSession join(InetSocketAddress address, SessionPlayer player) throws IOException {
+        //Declarations.
+        LockstepLink link = LockstepLink.connect(address);
+
+        link.awaitStart();
+        return new RaceSession(link, player);
+    }
+
+    /**
+     * Works out the input delay for a level.  This is the number of goblin
+     * moves it takes for a step to reach the other player, plus a margin, so
+     * that on a steady connection the other player's steps always arrive
+     * before they are needed.
+     *
+     * @param roundTrip The round trip time in nanoseconds.
+     * @param level The level to race on.
+     * @return The input delay in steps.
+     */
+    static int getInputDelay(long roundTrip, int level) {
+        //Declarations.
+        long oneWay = roundTrip / 2000000L + JITTER_MARGIN;
+        int levelDelay = GoblinController.getLevelDelay(level);
+
+        return (int) Math.min(MAX_INPUT_DELAY, Math.max(1L, (oneWay + levelDelay - 1) / levelDelay));
+    }
+
+    /**
+     * Creates a model for the race from the race settings.
+     *
+     * @param link The link that holds the race settings.
+     * @return The model, ready to build the level.
+     */
+    private static GoblinModel createModel(LockstepLink link) {
+        //Declarations.
+        GoblinModel model = new GoblinModel();
+
+        model.setGameGridSize(link.getGridSize());
+        model.buildGameGrid();
+        model.setSeed(link.getSeed());
+        model.reset();
+        model.setLevel(link.getLevel() - 1);
+        return model;
+    }
+
+    /**
+     * Starts the race on a thread of its own.
+     */
+    public synchronized void start() {
+        if (thread == null) {
+            thread = new Thread(this::run, "goblin-race");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Waits for the race to finish.
+     *
+     * @return The outcome.
+     * @throws InterruptedException If the wait was interrupted.
+     */
+    public int awaitOutcome() throws InterruptedException {
+        //Declarations.
+        Thread running;
+
+        synchronized (this) {
+            running = thread;
+        }
+        if (running != null) {
+            running.join();
+        }
+        return outcome;
+    }
+
+    /**
+     * The loop run by the race thread.
+     */
+    private void run() {
+        //Declarations.
+        long nextStepTime = System.currentTimeMillis();
+        long wait;
+
+        try {
+            while (outcome == OUTCOME_RUNNING) {
+                if (localFinishStep < 0) {
+                    //Wait until it is time for the next step and then run it.
+                    wait = nextStepTime - System.currentTimeMillis();
+                    if (wait > 0L) {
+                        Thread.sleep(wait);
+                    }
+                    if (!runLocalStep()) {
+                        break;
+                    }
+                    nextStepTime += GoblinController.getStepDelay(localModel);
+                } else if (!link.awaitSteps(remoteSteps + 1, DISCONNECT_TIMEOUT) && !link.isRemoteDone()) {
+                    //This player has finished but the other player's steps have
+                    //stopped coming.
+                    outcome = OUTCOME_DISCONNECTED;
+                    break;
+                }
+
+                runRemoteSteps();
+                decideOutcome();
+            }
+        } catch (IOException e) {
+            outcome = OUTCOME_DISCONNECTED;
+        } catch (InterruptedException e) {
+            outcome = OUTCOME_DISCONNECTED;
+        }
+
+        //Say goodbye and give the other player a moment to do the same.
+        try {
+            link.sendBye();
+            link.awaitSteps(Integer.MAX_VALUE, DISCONNECT_TIMEOUT);
+        } catch (IOException e) {
+            //The other player has already gone.
+        } catch (InterruptedException e) {
+            //Give up waiting.
+        }
+        try {
+            link.close();
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Runs one step of this player's model and sends it to the other player.
+     * Waits first if the other player is more than the input delay behind.
+     *
+     * @return False if the other player could not be waited for.
+     * @throws IOException If the connection failed.
+     * @throws InterruptedException If the wait was interrupted.
+     */
+    private boolean runLocalStep() throws IOException, InterruptedException {
+        //Declarations.
+        int needed = localSteps - link.getInputDelay() + 1;
+        int keyPress = 0;
+        int input = LockstepLink.INPUT_NONE;
+
+        //Wait for the other player's step from the input delay steps ago,
+        //unless it has already finished.
+        if (needed > 0 && remoteFinishStep < 0 && link.getReceivedSteps() < needed) {
+            stalls++;
+            if (!link.awaitSteps(needed, DISCONNECT_TIMEOUT) && !link.isRemoteDone()) {
+                outcome = OUTCOME_DISCONNECTED;
+                return false;
+            }
+        }
+
+        //Ask the player for its move if the goblin is about to move.
+        if (isMoveState(localModel)) {
+            keyPress = player.nextKeyPress(localModel);
+            if (keyPress == GoblinModel.MOVE_LEFT) {
+                input = LockstepLink.INPUT_LEFT;
+            } else if (keyPress == GoblinModel.MOVE_RIGHT) {
+                input = LockstepLink.INPUT_RIGHT;
+            }
+        }
+        step(localModel, input);
+        link.sendStep(input, localModel.getBoardChecksum());
+
+        if (isFinished(localModel)) {
+            localFinishStep = localSteps;
+            localCleared = localModel.getCurrentState() == GoblinModel.STATE_LEVEL_CLEARED;
+        }
+        localSteps++;
+        return true;
+    }
+
+    /**
+     * Runs the steps of the copy of the other player's model that have arrived
+     * and checks each one against the other player's checksum.
+     */
+    private void runRemoteSteps() {
+        //Declarations.
+        int checksum;
+
+        while (remoteFinishStep < 0 && desyncStep < 0 && remoteSteps < link.getReceivedSteps()) {
+            checksum = link.getStepChecksum(remoteSteps);
+            step(remoteModel, link.useStepInput(remoteSteps));
+            if (remoteModel.getBoardChecksum() != checksum) {
+                desyncStep = remoteSteps;
+            } else if (isFinished(remoteModel)) {
+                remoteFinishStep = remoteSteps;
+                remoteCleared = remoteModel.getCurrentState() == GoblinModel.STATE_LEVEL_CLEARED;
+            }
+            remoteSteps++;
+        }
+    }
+
+    /**
+     * Works out the outcome once enough of both races is known.  The player
+     * that finished on the earliest step decides it.  Clearing the level wins
+     * and being destroyed loses.  If both finish on the same step, clearing
+     * the level beats being destroyed and otherwise it is a tie.
+     */
+    private void decideOutcome() {
+        if (desyncStep >= 0) {
+            outcome = OUTCOME_DESYNC;
+        } else if (localFinishStep >= 0 && remoteFinishStep >= 0 && localFinishStep == remoteFinishStep) {
+            if (localCleared == remoteCleared) {
+                outcome = OUTCOME_TIE;
+            } else {
+                outcome = localCleared ? OUTCOME_WIN : OUTCOME_LOSS;
+            }
+        } else if (localFinishStep >= 0 && (remoteFinishStep > localFinishStep || (remoteFinishStep < 0 && remoteSteps > localFinishStep))) {
+            //This player finished first.
+            outcome = localCleared ? OUTCOME_WIN : OUTCOME_LOSS;
+        } else if (remoteFinishStep >= 0 && (localFinishStep > remoteFinishStep || (localFinishStep < 0 && localSteps > remoteFinishStep))) {
+            //The other player finished first.
+            outcome = remoteCleared ? OUTCOME_LOSS : OUTCOME_WIN;
+        } else if (link.isBroken()) {
+            outcome = OUTCOME_DISCONNECTED;
+        }
+    }
+
+    /**
+     * Runs one game step of a model with a key press.
+     *
+     * @param model The model.
+     * @param input The key press, one of the input constants of the link.
+     */
+    private static void step(GoblinModel model, int input) {
+        if (input == LockstepLink.INPUT_LEFT) {
+            model.setKeyPress(GoblinModel.MOVE_LEFT);
+        } else if (input == LockstepLink.INPUT_RIGHT) {
+            model.setKeyPress(GoblinModel.MOVE_RIGHT);
+        }
+        GoblinController.advanceModel(model);
+    }
+
+    /**
+     * Gets whether the goblin of a model is about to move.
+     *
+     * @param model The model.
+     * @return True if the next step moves the goblin.
+     */
+    private static boolean isMoveState(GoblinModel model) {
+        switch (model.getCurrentState()) {
+            case GoblinModel.STATE_BEGIN_LEVEL:
+            case GoblinModel.STATE_LEVEL_RUNNING:
+            case GoblinModel.STATE_GOBLIN_GOT_FACE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Gets whether a model has finished the race.
+     *
+     * @param model The model.
+     * @return True if the level was cleared or the goblin destroyed.
+     */
+    private static boolean isFinished(GoblinModel model) {
+        return model.getCurrentState() == GoblinModel.STATE_LEVEL_CLEARED
+                || model.getCurrentState() == GoblinModel.STATE_GOBLIN_DESTROYED;
+    }
+
+    /**
+     * Gets the outcome of the race.
+     *
+     * @return One of the outcome constants.
+     */
+    public int getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Gets this player's model.  The model must only be used after the race has
+     * finished.
+     *
+     * @return The model.
+     */
+    public GoblinModel getLocalModel() {
+        return localModel;
+    }
+
+    /**
+     * Gets the copy of the other player's model.  The model must only be used
+     * after the race has finished.
+     *
+     * @return The model.
+     */
+    public GoblinModel getRemoteModel() {
+        return remoteModel;
+    }
+
+    /**
+     * Gets the number of steps this player has run.
+     *
+     * @return The number of steps.
+     */
+    public int getLocalSteps() {
+        return localSteps;
+    }
+
+    /**
+     * Gets the number of times this player had to wait for the other player.
+     *
+     * @return The number of waits.
+     */
+    public int getStalls() {
+        return stalls;
+    }
+
+    /**
+     * Gets the number of steps the other player's steps may run behind before
+     * this player waits for them.
+     *
+     * @return The input delay in steps.
+     */
+    public int getInputDelay() {
+        return link.getInputDelay();
+    }
+
+    /**
+     * Gets the step the two copies of a board were found to differ on.
+     *
+     * @return The step, or -1 if they never differed.
+     */
+    public int getDesyncStep() {
+        return desyncStep;
+    }
+}
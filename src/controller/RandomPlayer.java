@@ -0,0 +1,75 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package controller;
+
+import java.util.concurrent.ThreadLocalRandom;
+import model.GoblinModel;
+
+/**
+ * Session player that picks its moves at random.  It holds no state so one
+ * instance can play any number of sessions at the same time, which makes it
+ * useful for load testing the session host.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class RandomPlayer implements SessionPlayer {
+    /** Holds the percentage of moves that turn the goblin left or right. */
+    private final int turnPercent;
+
+    //Constructor.
+    /**
+     * Sole constructor.
+     *
+     * @param turnPercent The percentage, from zero to one hundred, of moves
+     * that turn the goblin left or right instead of going straight up.
+     */
+    public RandomPlayer(int turnPercent) {
+        this.turnPercent = Math.max(0, Math.min(100, turnPercent));
+    }
+
+    /**
+     * Gets a random key press.  Half of the turns go left and half go right.
+     *
+     * @param model The model of the session being played.
+     * @return GoblinModel.MOVE_LEFT, GoblinModel.MOVE_RIGHT, or zero.
+     */
+    @Override
+    public int nextKeyPress(GoblinModel model) {
+        //Declarations.
+        int roll = ThreadLocalRandom.current().nextInt(200);
+
+        if (roll < turnPercent) {
+            return GoblinModel.MOVE_LEFT;
+        } else if (roll < turnPercent * 2) {
+            return GoblinModel.MOVE_RIGHT;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package controller;
+
+import eventlog.EventTrail;
+import eventlog.GameEventLog;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import net.SpectatorServer;
+import score.Leaderboard;
+
+/**
+ * Class used to host many independent game sessions in one JVM, such as for
+ * bots, load tests and remote players.  Every session has its own model and
+ * player but none has a view or a thread of its own.  All of the sessions share
+ * one small pool of scheduler threads and one set of game tile images, so the
+ * memory used by a session is just its model and the host can run many
+ * thousands of sessions at the same time.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SessionHost {
+    /** Holds the scheduler shared by all of the sessions. */
+    private final ScheduledThreadPoolExecutor scheduler;
+    /** Holds the running sessions by session number. */
+    private final ConcurrentHashMap<Long, GameSession> sessions = new ConcurrentHashMap<Long, GameSession>();
+    /** Holds the number of the next session to be started. */
+    private final AtomicLong nextId = new AtomicLong(1L);
+    /**
+     * Holds the number the game delays are divided by.  One runs the sessions
+     * at the normal game speed.
+     */
+    private final int timeScale;
+    /** Holds the callback told when a session finishes on its own. */
+    private volatile Consumer<GameSession> finishedListener;
+    /** Holds the server the sessions can be watched through. */
+    private volatile SpectatorServer spectatorServer;
+    /** Holds the leaderboard the scores of finished sessions are recorded in. */
+    private volatile Leaderboard leaderboard;
+    /** Holds the log the events of the sessions are written to. */
+    private volatile GameEventLog eventLog;
+
+    //Constructor.
+    /**
+     * Creates a host.
+     *
+     * @param threads The number of scheduler threads shared by the sessions.
+     * @param timeScale The number the game delays are divided by, one for the
+     * normal game speed.
+     */
+    public SessionHost(int threads, int timeScale) {
+        //Declarations.
+        final AtomicInteger threadNumber = new AtomicInteger(1);
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "goblin-session-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        this.timeScale = Math.max(1, timeScale);
+        scheduler = new ScheduledThreadPoolExecutor(Math.max(1, threads), factory);
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Starts a new game session.
+     *
+     * @param gridSize The size of the game grid, one of the grid size constants
+     * of the model.
+     * @param player The player that makes the moves.
+     * @return The session.
+     */
+    public GameSession startSession(int gridSize, SessionPlayer player) {
+        //Declarations.
+        GameSession session = new GameSession(nextId.getAndIncrement(), this, gridSize, player);
+        GameEventLog log = eventLog;
+
+        //Let spectators watch the session by its number.
+        if (spectatorServer != null) {
+            session.setSpectatorFeed(spectatorServer.addGame(session.getId()));
+        }
+
+        //Log the events of the session by its number.
+        if (log != null) {
+            session.setEventTrail(log.openTrail(session.getId()));
+        }
+
+        sessions.put(session.getId(), session);
+        session.start();
+        return session;
+    }
+
+    /**
+     * Stops a game session.  The finished callback is not told.
+     *
+     * @param id The session number.
+     * @return True if the session was running.
+     */
+    public boolean stopSession(long id) {
+        //Declarations.
+        GameSession session = sessions.remove(id);
+
+        if (session == null) {
+            return false;
+        }
+        session.stop();
+        removeSpectatorFeed(session);
+        closeEventTrail(session);
+        return true;
+    }
+
+    /**
+     * Gets a running game session.
+     *
+     * @param id The session number.
+     * @return The session, or null if there is no running session with that
+     * number.
+     */
+    public GameSession getSession(long id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * Gets the number of running game sessions.
+     *
+     * @return The number of sessions.
+     */
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Sets the callback told when a session finishes on its own, which is when
+     * its game is over.  The callback is run on a scheduler thread.
+     *
+     * @param listener The callback, or null for none.
+     */
+    public void setSessionFinishedListener(Consumer<GameSession> listener) {
+        finishedListener = listener;
+    }
+
+    /**
+     * Stops all of the game sessions and the scheduler threads.
+     */
+    public void shutdown() {
+        for (GameSession session : new ArrayList<GameSession>(sessions.values())) {
+            stopSession(session.getId());
+        }
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Method called by a session when its game is over.
+     *
+     * @param session The session that finished.
+     */
+    void sessionFinished(GameSession session) {
+        //Declarations.
+        Consumer<GameSession> listener = finishedListener;
+        Leaderboard board = leaderboard;
+
+        //Only tell the callback if the session had not already been stopped.
+        if (sessions.remove(session.getId(), session)) {
+            removeSpectatorFeed(session);
+            closeEventTrail(session);
+            if (board != null) {
+                board.record(session.getScore(), session.getLevel(), session.getModel().getNumberOfRows(), session.getModel().getTileSize());
+            }
+            if (listener != null) {
+                listener.accept(session);
+            }
+        }
+    }
+
+    /**
+     * Sets the server that sessions started from now on can be watched through.
+     * Spectators watch a session by sending its number.
+     *
+     * @param spectatorServer The server, or null for none.
+     */
+    public void setSpectatorServer(SpectatorServer spectatorServer) {
+        this.spectatorServer = spectatorServer;
+    }
+
+    /**
+     * Sets the leaderboard the score of each session that finishes on its own
+     * is recorded in.
+     *
+     * @param leaderboard The leaderboard, or null for none.
+     */
+    public void setLeaderboard(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    /**
+     * Sets the log the events of sessions started from now on are written to.
+     * Each session is logged by its number.
+     *
+     * @param eventLog The log, or null for none.
+     */
+    public void setEventLog(GameEventLog eventLog) {
+        this.eventLog = eventLog;
+    }
+
+    /**
+     * Method that closes the event trail of a session that has ended.  The
+     * events already in it are still written.
+     *
+     * @param session The session.
+     */
+    private void closeEventTrail(GameSession session) {
+        //Declarations.
+        EventTrail trail = session.getEventTrail();
+
+        if (trail != null) {
+            trail.close();
+        }
+    }
+
+    /**
+     * Method that stops spectators from watching a session that has ended.
+     *
+     * @param session The session.
+     */
+    private void removeSpectatorFeed(GameSession session) {
+        //Declarations.
+        SpectatorServer server = spectatorServer;
+
+        if (server != null) {
+            server.removeGame(session.getId());
+        }
+    }
+
+    /**
+     * Method used by the sessions to schedule their next tick.
+     *
+     * @param tick The tick to be run.
+     * @param delay The delay in milliseconds before the time scale is applied.
+     * @return The scheduled tick.
+     */
+    ScheduledFuture<?> schedule(Runnable tick, int delay) {
+        return scheduler.schedule(tick, (long) delay * 1000000L / timeScale, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package controller;
+
+import model.GoblinModel;
+
+/**
+ * Interface for anything that plays a game session hosted by the session host,
+ * such as a bot or a remote player.  The player is asked for its input once
+ * before each goblin move.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public interface SessionPlayer {
+    /**
+     * Gets the key press the player wants to make before the next goblin move.
+     * Called from the thread running the session so the model may be read but
+     * must not be changed.
+     *
+     * @param model The model of the session being played.
+     * @return GoblinModel.MOVE_LEFT, GoblinModel.MOVE_RIGHT, or zero to let the
+     * goblin move straight up.
+     */
+    int nextKeyPress(GoblinModel model);
+}
@@ -0,0 +1,262 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import model.GoblinModel;
+import model.GoblinModelAdapter;
+import view.TerminalView;
+
+/**
+ * The controller used when the game is played in a terminal instead of a
+ * window.  It drives the model with the same state checks and delays as the
+ * window controller and has the terminal view draw the changes after each one.
+ * Keys are read from standard input with the terminal in raw mode so they take
+ * effect without Enter being pressed.  A and L, or the left and right arrow
+ * keys, move the goblin, Enter starts a new game, and Q quits.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class TerminalController {
+    /** The delay in milliseconds between key checks while the game is over. */
+    private static final int IDLE_DELAY = 50;
+    /** The value of the escape key. */
+    private static final int ESCAPE_KEY = 27;
+
+    /** Instance of the goblin model object. */
+    private final GoblinModel model = new GoblinModel();
+    /** Instance of the terminal view object. */
+    private final TerminalView view;
+    /** Holds the thread that runs the game. */
+    private final ScheduledExecutorService timer;
+    /** Holds the key presses waiting for the game thread. */
+    private final ConcurrentLinkedQueue<Integer> keyPresses = new ConcurrentLinkedQueue<Integer>();
+    /** Holds the stream the keys are read from. */
+    private final InputStream in;
+    /** Holds the terminal settings to put back when the game ends. */
+    private String savedTerminalSettings;
+    /** Holds the delay in milliseconds before the next state check. */
+    private int nextDelay;
+    /** Holds the boolean value that indicates if the terminal was put back. */
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    //Constructor.
+    /**
+     * Sole constructor.
+     *
+     * @param gridSize The size of the game grid.
+     */
+    public TerminalController(int gridSize) {
+        model.setGameGridSize(gridSize);
+        model.buildGameGrid();
+        model.addModelListener(new ModelListener());
+        view = new TerminalView(model, System.out);
+        in = System.in;
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "goblin-terminal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Method that runs the game until Q is pressed or standard input ends.  The
+     * game runs on a thread of its own while the calling thread reads the keys.
+     */
+    public void run() {
+        //Declarations.
+        int key, escapeState = 0;
+
+        setRawMode();
+
+        //Ctrl+C ends the program without Q being read, so the terminal is also
+        //put back when the program ends.
+        Runtime.getRuntime().addShutdownHook(new Thread(this::finish, "goblin-terminal-restore"));
+
+        timer.execute(view::redraw);
+        timer.execute(this::doModelStateCheck);
+
+        try {
+            while((key = in.read()) >= 0) {
+                //The arrow keys arrive as escape, '[', and then 'D' for left
+                //or 'C' for right.
+                if(key == ESCAPE_KEY) {
+                    escapeState = 1;
+                    continue;
+                } else if(escapeState == 1 && key == '[') {
+                    escapeState = 2;
+                    continue;
+                } else if(escapeState == 2) {
+                    escapeState = 0;
+                    if(key == 'D')
+                        keyPresses.add(GoblinModel.MOVE_LEFT);
+                    else if(key == 'C')
+                        keyPresses.add(GoblinModel.MOVE_RIGHT);
+                    continue;
+                }
+                escapeState = 0;
+
+                if(key == 'q' || key == 'Q')
+                    break;
+                else if(key == 'a' || key == 'A')
+                    keyPresses.add(GoblinModel.MOVE_LEFT);
+                else if(key == 'l' || key == 'L')
+                    keyPresses.add(GoblinModel.MOVE_RIGHT);
+                else if(key == '\r' || key == '\n')
+                    keyPresses.add(GoblinModel.NEW_GAME);
+            }
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+
+        finish();
+    }
+
+    /**
+     * Method that stops the game thread and puts the terminal back.  It is
+     * called when Q is pressed or standard input ends, and again when the
+     * program ends, but only does anything the first time.
+     */
+    private void finish() {
+        if(!finished.compareAndSet(false, true))
+            return;
+
+        //Stop the game thread first so it is not drawing while the terminal is
+        //put back.
+        timer.shutdown();
+        try {
+            timer.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            //Carry on and put the terminal back.
+        }
+        view.restore();
+        restoreTerminal();
+    }
+
+    /**
+     * Method run on the game thread that hands the waiting key presses to the
+     * model, checks the state of the model, and draws the changes.
+     */
+    private void doModelStateCheck() {
+        //Declarations.
+        Integer keyPress;
+
+        //Hand over the key presses.  Enter only starts a new game when the game
+        //is over, just like in the window.
+        while((keyPress = keyPresses.poll()) != null) {
+            if(keyPress == GoblinModel.NEW_GAME) {
+                if(model.getCurrentState() == GoblinModel.STATE_GAME_OVER)
+                    model.reset();
+            } else if(model.getCurrentState() != GoblinModel.STATE_GAME_OVER) {
+                model.setKeyPress(keyPress);
+            }
+        }
+
+        //Advance the model if a game is running, otherwise just keep checking
+        //for keys.
+        if(model.getCurrentState() == GoblinModel.STATE_GAME_OVER) {
+            nextDelay = IDLE_DELAY;
+        } else {
+            nextDelay = GoblinController.getLevelDelay(model.getLevel());
+            GoblinController.advanceModel(model);
+        }
+        view.update();
+
+        if(!timer.isShutdown())
+            timer.schedule(this::doModelStateCheck, nextDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Method that puts the terminal in raw mode with no echo so each key is
+     * read as soon as it is pressed.  If there is no terminal, such as when
+     * standard input is a pipe, the keys are read a line at a time.
+     */
+    private void setRawMode() {
+        savedTerminalSettings = stty("-g");
+        if(savedTerminalSettings != null)
+            stty("-icanon -echo min 1");
+    }
+
+    /**
+     * Method that puts the terminal settings back the way they were.
+     */
+    private void restoreTerminal() {
+        if(savedTerminalSettings != null)
+            stty(savedTerminalSettings);
+    }
+
+    /**
+     * Runs the stty command on the terminal.
+     *
+     * @param arguments The arguments to stty.
+     * @return The output of the command, or null if it failed.
+     */
+    private static String stty(String arguments) {
+        //Declarations.
+        ProcessBuilder builder = new ProcessBuilder("sh", "-c", "stty " + arguments + " < /dev/tty");
+        Process process;
+        byte[] result;
+
+        try {
+            process = builder.redirectErrorStream(true).start();
+            result = process.getInputStream().readAllBytes();
+            if(process.waitFor() != 0)
+                return null;
+            return new String(result).trim();
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Inner class that receives the events from the model and works out the
+     * delay before the next state check the same way the window controller
+     * does.
+     */
+    private class ModelListener extends GoblinModelAdapter {
+        @Override
+        public void levelBuilt(int level) {
+            nextDelay = GoblinController.THREE_SECOND_DELAY;
+        }
+
+        @Override
+        public void goblinDestroyed(int x, int y) {
+            nextDelay = GoblinController.ONE_SECOND_DELAY;
+        }
+    }
+}
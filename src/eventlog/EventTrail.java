@@ -0,0 +1,300 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package eventlog;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import model.GoblinModel;
+import model.GoblinModelAdapter;
+
+/**
+ * The events of one game, such as the game in the window or one session of the
+ * session host.  A trail listens to the model of the game and puts each event
+ * in a ring buffer that was allocated when the trail was opened.  Only the
+ * thread that runs the game puts events in, and only the writer thread of the
+ * log takes them out, so neither ever locks or waits.  If the ring buffer is
+ * full the event is dropped and counted.
+ *
+ * Each event takes three longs in the ring buffer: the time, the type and
+ * value, and the four positions packed sixteen bits each.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class EventTrail extends GoblinModelAdapter {
+    /** The event type for a level that was built.  The value is the level. */
+    public static final int LEVEL_BUILT = 1;
+    /** The event type for a goblin move.  The positions are from and to. */
+    public static final int MOVE = 2;
+    /**
+     * The event type for a shocked face that was collected.  The value is the
+     * number of faces left and the position is the face.
+     */
+    public static final int FACE_COLLECTED = 3;
+    /** The event type for the goblin being destroyed.  The position is where. */
+    public static final int DESTROYED = 4;
+    /** The event type for the end of the game.  The value is the score. */
+    public static final int GAME_OVER = 5;
+
+    /** The number of longs each event takes in the ring buffer. */
+    private static final int SLOTS = 3;
+
+    /** Holds the number of the game the events are for. */
+    private final long gameId;
+    /** Holds the ring buffer. */
+    private final long[] ring;
+    /** Holds the number of events the ring buffer has room for less one. */
+    private final int mask;
+    /** Holds the number of events put in, written only by the game thread. */
+    private final AtomicLong tail = new AtomicLong();
+    /** Holds the number of events taken out, written only by the writer. */
+    private final AtomicLong head = new AtomicLong();
+    /** Holds the last number taken out seen by the game thread. */
+    private long cachedHead;
+    /** Holds the number of events dropped because the ring buffer was full. */
+    private volatile long dropped;
+    /** Holds the most events that have been waiting in the ring buffer. */
+    private volatile int highWaterMark;
+    /** Holds the boolean value that indicates if the game has ended. */
+    private volatile boolean closed;
+    /** Holds the score of the game, set only by the game thread. */
+    private int score;
+
+    //Constructor.
+    /**
+     * Creates a trail.  Trails are opened through the log.
+     *
+     * @param gameId The number of the game the events are for.
+     * @param capacity The number of events the ring buffer has room for, a
+     * power of two.
+     */
+    EventTrail(long gameId, int capacity) {
+        this.gameId = gameId;
+        ring = new long[capacity * SLOTS];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Overrides the levelBuilt() method of GoblinModelAdapter.
+     *
+     * @param level The number of the level that was built.
+     */
+    @Override
+    public void levelBuilt(int level) {
+        put(LEVEL_BUILT, level, 0, 0, 0, 0);
+    }
+
+    /**
+     * Overrides the goblinMoved() method of GoblinModelAdapter.
+     *
+     * @param lastX The column the goblin moved from.
+     * @param lastY The row the goblin moved from.
+     * @param x The column the goblin moved to.
+     * @param y The row the goblin moved to.
+     */
+    @Override
+    public void goblinMoved(int lastX, int lastY, int x, int y) {
+        put(MOVE, 0, lastX, lastY, x, y);
+    }
+
+    /**
+     * Overrides the faceCollected() method of GoblinModelAdapter.
+     *
+     * @param x The column of the face.
+     * @param y The row of the face.
+     * @param remainingFaces The number of shocked faces left on the game grid.
+     */
+    @Override
+    public void faceCollected(int x, int y, int remainingFaces) {
+        put(FACE_COLLECTED, remainingFaces, 0, 0, x, y);
+    }
+
+    /**
+     * Overrides the goblinDestroyed() method of GoblinModelAdapter.
+     *
+     * @param x The column of the explosion.
+     * @param y The row of the explosion.
+     */
+    @Override
+    public void goblinDestroyed(int x, int y) {
+        put(DESTROYED, 0, 0, 0, x, y);
+    }
+
+    /**
+     * Overrides the scoreChanged() method of GoblinModelAdapter.  Keeps the
+     * score so it can be logged when the game is over.
+     *
+     * @param score The new score.
+     */
+    @Override
+    public void scoreChanged(int score) {
+        this.score = score;
+    }
+
+    /**
+     * Overrides the stateChanged() method of GoblinModelAdapter.
+     *
+     * @param previousState The state the model was in.
+     * @param newState The state the model is now in.
+     */
+    @Override
+    public void stateChanged(int previousState, int newState) {
+        if(newState == GoblinModel.STATE_GAME_OVER)
+            put(GAME_OVER, score, 0, 0, 0, 0);
+    }
+
+    /**
+     * Puts an event in the ring buffer, or drops it if the ring buffer is full.
+     * Only called by the game thread.
+     *
+     * @param type The event type.
+     * @param value The value of the event.
+     * @param lastX The column the goblin moved from.
+     * @param lastY The row the goblin moved from.
+     * @param x The column of the event.
+     * @param y The row of the event.
+     */
+    private void put(int type, int value, int lastX, int lastY, int x, int y) {
+        //Declarations.
+        long position = tail.get();
+        int waiting, slot;
+
+        //Only read where the writer is if the ring buffer looks full.
+        if(position - cachedHead > mask) {
+            cachedHead = head.get();
+            if(position - cachedHead > mask) {
+                dropped++;
+                return;
+            }
+        }
+
+        slot = (int)(position & mask) * SLOTS;
+        ring[slot] = System.nanoTime();
+        ring[slot + 1] = ((long)type << 32) | (value & 0xFFFFFFFFL);
+        ring[slot + 2] = ((long)(lastX & 0xFFFF) << 48) | ((long)(lastY & 0xFFFF) << 32) | ((long)(x & 0xFFFF) << 16) | (y & 0xFFFF);
+        tail.lazySet(position + 1);
+
+        waiting = (int)(position + 1 - cachedHead);
+        if(waiting > highWaterMark)
+            highWaterMark = waiting;
+    }
+
+    /**
+     * Takes as many events out of the ring buffer as there is room for and
+     * puts them in a buffer as log records.  Only called by the writer thread.
+     *
+     * @param buffer The buffer the records are put in.
+     * @return The number of events taken out.
+     */
+    int drainTo(ByteBuffer buffer) {
+        //Declarations.
+        long first = head.get();
+        long last = Math.min(tail.get(), first + buffer.remaining() / GameEventLog.RECORD_SIZE);
+        long packed;
+        int slot;
+
+        for(long position = first; position < last; position++) {
+            slot = (int)(position & mask) * SLOTS;
+            packed = ring[slot + 2];
+            buffer.putLong(ring[slot]);
+            buffer.putLong(gameId);
+            buffer.putInt((int)(ring[slot + 1] >>> 32));
+            buffer.putInt((int)ring[slot + 1]);
+            buffer.putShort((short)(packed >>> 48));
+            buffer.putShort((short)(packed >>> 32));
+            buffer.putShort((short)(packed >>> 16));
+            buffer.putShort((short)packed);
+        }
+        head.lazySet(last);
+        return (int)(last - first);
+    }
+
+    /**
+     * Gets whether there are events waiting to be written.
+     *
+     * @return True if there are events in the ring buffer.
+     */
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    /**
+     * Gets the number of the game the events are for.
+     *
+     * @return The game number.
+     */
+    public long getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Gets the number of events dropped because the ring buffer was full.
+     *
+     * @return The number of events dropped.
+     */
+    public long getDroppedEvents() {
+        return dropped;
+    }
+
+    /**
+     * Gets the most events that have been waiting in the ring buffer to be
+     * written at one time.
+     *
+     * @return The number of events.
+     */
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * Gets the number of events the ring buffer has room for.
+     *
+     * @return The number of events.
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Gets whether the game has ended.
+     *
+     * @return True if the trail was closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the trail once the game has ended.  The events still in the ring
+     * buffer are written before the log lets the trail go.
+     */
+    public void close() {
+        closed = true;
+    }
+}
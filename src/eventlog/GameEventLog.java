@@ -0,0 +1,262 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package eventlog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A file the events of any number of games are written to for analytics.  Each
+ * game has a trail of its own that it puts its events in without ever waiting,
+ * and one writer thread takes the events out of every trail, puts them in a
+ * direct buffer that is reused, and writes the buffer to the file in one call
+ * when it is full or every trail is empty.
+ *
+ * The file starts with a header and then holds one record per event:
+ * <pre>
+ *   header  int magic "GBEV", int version, long wall clock time in
+ *           milliseconds and long System.nanoTime() when the log was opened
+ *   record  long System.nanoTime(), long game number, int event type,
+ *           int value, short last column, short last row, short column,
+ *           short row
+ * </pre>
+ * All numbers are big endian.  The wall clock time of an event is the time in
+ * the header plus the difference between the two nano times.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class GameEventLog {
+    /** The number at the start of the file. */
+    public static final int MAGIC = 0x47424556;
+    /** The version of the file layout. */
+    public static final int VERSION = 1;
+    /** The number of bytes in the header. */
+    public static final int HEADER_SIZE = 24;
+    /** The number of bytes in each record. */
+    public static final int RECORD_SIZE = 32;
+    /** The default number of events each trail has room for. */
+    public static final int DEFAULT_TRAIL_CAPACITY = 1024;
+
+    /** The number of bytes in the buffer the writer fills before writing. */
+    private static final int BATCH_SIZE = 2048 * RECORD_SIZE;
+    /** The time in nanoseconds the writer sleeps when every trail is empty. */
+    private static final long IDLE_NANOS = 1000000L;
+
+    /** Holds the file. */
+    private final FileChannel file;
+    /** Holds the trails being written. */
+    private final CopyOnWriteArrayList<EventTrail> trails = new CopyOnWriteArrayList<EventTrail>();
+    /** Holds the number of events each trail has room for, a power of two. */
+    private final int trailCapacity;
+    /** Holds the writer thread. */
+    private final Thread writer;
+    /** Holds the boolean value that indicates if the log is open. */
+    private volatile boolean running = true;
+    /** Holds the number of records written, set only by the writer. */
+    private volatile long recordsWritten;
+    /** Holds the number of writes to the file, set only by the writer. */
+    private volatile long batches;
+    /** Holds the number of events dropped by trails that have been let go. */
+    private volatile long closedTrailDrops;
+
+    //Constructor.
+    /**
+     * Opens a log, replacing any file already there, and starts the writer.
+     *
+     * @param path The file.
+     * @param trailCapacity The number of events each trail has room for, which
+     * is rounded up to a power of two.
+     * @throws IOException If the file could not be opened.
+     */
+    public GameEventLog(File path, int trailCapacity) throws IOException {
+        //Declarations.
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        this.trailCapacity = Integer.highestOneBit(Math.max(2, trailCapacity) - 1) << 1;
+        file = FileChannel.open(path.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putLong(System.currentTimeMillis());
+        header.putLong(System.nanoTime());
+        header.flip();
+        while(header.hasRemaining())
+            file.write(header);
+
+        writer = new Thread(this::writeEvents, "goblin-event-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Opens the trail of a game.  The trail must be added to the model of the
+     * game as a listener, and closed when the game has ended.
+     *
+     * @param gameId The number of the game.
+     * @return The trail.
+     */
+    public EventTrail openTrail(long gameId) {
+        //Declarations.
+        EventTrail trail = new EventTrail(gameId, trailCapacity);
+
+        trails.add(trail);
+        return trail;
+    }
+
+    /**
+     * Gets the number of records written to the file.
+     *
+     * @return The number of records.
+     */
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    /**
+     * Gets the number of writes made to the file.  Each write is a batch of
+     * records.
+     *
+     * @return The number of writes.
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * Gets the number of events dropped by every trail because its ring buffer
+     * was full.
+     *
+     * @return The number of events dropped.
+     */
+    public long getDroppedEvents() {
+        //Declarations.
+        long total = closedTrailDrops;
+
+        for(EventTrail trail : trails)
+            total += trail.getDroppedEvents();
+        return total;
+    }
+
+    /**
+     * Gets the number of trails still being written.
+     *
+     * @return The number of trails.
+     */
+    public int getTrailCount() {
+        return trails.size();
+    }
+
+    /**
+     * Writes the events still waiting, stops the writer and closes the file.
+     *
+     * @throws IOException If the file could not be closed.
+     */
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        file.close();
+    }
+
+    /**
+     * The loop run by the writer thread.  Each pass takes the events out of
+     * every trail, writing the buffer whenever it fills, and sleeps for a
+     * moment if there were none.
+     */
+    private void writeEvents() {
+        //Declarations.
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BATCH_SIZE);
+        int drained;
+        boolean stopping;
+
+        try {
+            while(true) {
+                //Read the flag before draining so nothing put in before the
+                //log was closed is missed.
+                stopping = !running;
+                drained = 0;
+                for(EventTrail trail : trails) {
+                    //A closed trail that is empty has nothing more coming.
+                    if(trail.isClosed() && trail.isEmpty()) {
+                        closedTrailDrops += trail.getDroppedEvents();
+                        trails.remove(trail);
+                        continue;
+                    }
+
+                    //Take what is waiting, and if the buffer filled up write it
+                    //and take the rest.  A busy game does not keep the writer
+                    //from the other trails since it only gets one more turn.
+                    drained += trail.drainTo(buffer);
+                    if(buffer.remaining() < RECORD_SIZE) {
+                        write(buffer);
+                        drained += trail.drainTo(buffer);
+                    }
+                }
+                write(buffer);
+
+                if(stopping)
+                    break;
+                if(drained == 0)
+                    LockSupport.parkNanos(IDLE_NANOS);
+            }
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the records in the buffer to the file and empties it.
+     *
+     * @param buffer The buffer.
+     * @throws IOException If the file could not be written.
+     */
+    private void write(ByteBuffer buffer) throws IOException {
+        //Declarations.
+        int records = buffer.position() / RECORD_SIZE;
+
+        if(records == 0)
+            return;
+        buffer.flip();
+        while(buffer.hasRemaining())
+            file.write(buffer);
+        buffer.clear();
+        recordsWritten += records;
+        batches++;
+    }
+}
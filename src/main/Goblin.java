@@ -29,6 +29,7 @@
 package main;
 
 import controller.GoblinController;
+import metrics.GoblinMetrics;
 
 /**
  * Goblin is a fun, challenging, and entertaining maze game.  The object is to
@@ -44,14 +45,15 @@ import controller.GoblinController;
  * buffer built into the game you can cue up moves ahead of time.  When the
  * Goblin reaches the top of the screen it starts again at the bottom.  <b>Beware
  * of brick wall obstacles at the bottom of the screen!</b>  As each shocked face
- * is captured by the Goblin the score is updated in the window title bar.  If
- * the Goblin successfully clears the playing field of all the shocked faces an
- * entirely new field will be drawn and the level increased.  With each level
- * there will be more brick wall obstacles drawn and the speed of the Goblin
- * increases.  The game ends when the Goblin crashes into one of the brick wall
- * obstacles and explodes.  With the Goblin destroyed the remaining faces smile.
- * "GAME OVER" will appear in the window title bar along with the final score and
- * level.
+ * is captured by the Goblin the score is updated in the strip under the playing
+ * field, which also shows the level.  If the Goblin successfully clears the
+ * playing field of all the shocked faces an entirely new field will be drawn
+ * and the level increased.  With each level there will be more brick wall
+ * obstacles drawn and the speed of the Goblin increases.  The game ends when
+ * the Goblin crashes into one of the brick wall obstacles and explodes.  With
+ * the Goblin destroyed the remaining faces smile.  "GAME OVER" and the best
+ * score will appear in the strip under the playing field next to the final
+ * score and level.
  * 
  * The menu bar contains game control and game option pull-down menu.  In the
  * Game menu there is Start and Exit.  Start will start a new game and Exit will
@@ -70,6 +72,9 @@ public class Goblin {
      * @param args Arguments passed from the command line (these are not used).
      */
     public static void main(String[] args) {
+        //Publish the game metrics if they are turned on.
+        GoblinMetrics.register();
+
         //Instantiate the controller.
         GoblinController controller = new GoblinController();
 
@@ -0,0 +1,238 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+
+package main;
+
+import controller.GoblinController;
+import java.lang.management.ManagementFactory;
+import model.GoblinModel;
+import model.MoveAdvisor;
+
+/**
+ * Plays games without a display and checks that the steady state game loop
+ * does not allocate.  Each tick the goblin is steered by the practice mode
+ * advice and the tick of a controller with no window is run, so the ticks take
+ * in moves, key presses, faces, explosions, level builds, the model listeners,
+ * the metrics, and the frame snapshots the window paints from.  The bytes
+ * allocated by the thread are measured over each round of ticks after the just
+ * in time compiler has warmed up, and the check fails if any round allocated
+ * anything.  Each setting is given as name=value.
+ *
+ * Painting needs a window so it is not checked.  Asking the window to repaint
+ * always allocates, since AWT posts an event for each request, and that is the
+ * only part of publishing a frame left out.  The flight recorder events are
+ * only made while a recording wants them, so the check must be run without one.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class GoblinAllocationCheck {
+    /**
+     * The default number of ticks run before measuring.  Until the just in time
+     * compiler has finished with the game loop the requests it makes from the
+     * game thread can allocate a few bytes once, so the warm up is long.
+     */
+    private static final int DEFAULT_WARMUP = 3000000;
+    /** The default number of ticks in each measured round. */
+    private static final int DEFAULT_TICKS = 200000;
+    /** The default number of measured rounds. */
+    private static final int DEFAULT_ROUNDS = 8;
+
+    /** Holds the controller that runs the ticks. */
+    private final GoblinController controller;
+    /** Holds the model being played. */
+    private final GoblinModel model;
+    /**
+     * Holds the state of the generator used to choose between equal moves.  It
+     * is kept in a field so choosing does not allocate.
+     */
+    private int choice;
+    /** Holds the number of games played. */
+    private int games;
+    /** Holds the highest level reached. */
+    private int highestLevel;
+
+    //Constructor.
+    /**
+     * Sole constructor.
+     *
+     * @param gridSize The size of the game grid.
+     */
+    private GoblinAllocationCheck(int gridSize) {
+        controller = new GoblinController(gridSize);
+        model = controller.getModel();
+        model.setSeed(gridSize);
+        model.setPracticeMode(true);
+        model.reset();
+    }
+
+    /**
+     * Main method used to run the check.  The program exits with a status of
+     * one if any round allocated.
+     *
+     * @param args Any of the settings grid (20, 30, or 40), warmup (the ticks
+     * before measuring), ticks (the ticks in each round), rounds, and metrics
+     * (true, the default, to record the game metrics during the ticks, or
+     * false).
+     */
+    public static void main(String[] args) {
+        //Declarations.
+        com.sun.management.ThreadMXBean threads;
+        GoblinAllocationCheck check;
+        String name, value, metrics = "true";
+        int split, gridSize = GoblinModel.SMALL_GRID_SIZE, warmup = DEFAULT_WARMUP, ticks = DEFAULT_TICKS;
+        int rounds = DEFAULT_ROUNDS, failedRounds = 0;
+        long threadId, start, overhead, allocated;
+
+        //There is no window so make sure none is needed.
+        System.setProperty("java.awt.headless", "true");
+
+        try {
+            for(String arg : args) {
+                split = arg.indexOf('=');
+                if(split < 0) {
+                    System.out.println("Usage: GoblinAllocationCheck [grid=20] [warmup=3000000] [ticks=200000] [rounds=8] [metrics=true]");
+                    return;
+                }
+                name = arg.substring(0, split);
+                value = arg.substring(split + 1);
+                if(name.equals("grid"))
+                    gridSize = Integer.parseInt(value);
+                else if(name.equals("warmup"))
+                    warmup = Integer.parseInt(value);
+                else if(name.equals("ticks"))
+                    ticks = Integer.parseInt(value);
+                else if(name.equals("rounds"))
+                    rounds = Integer.parseInt(value);
+                else if(name.equals("metrics"))
+                    metrics = value;
+                else {
+                    System.out.println("Unknown setting " + name);
+                    return;
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Unknown number " + e.getMessage());
+            return;
+        }
+
+        //The metrics are turned on by the system property, which is read when
+        //the metrics class loads during the first tick.
+        System.setProperty("goblin.metrics", metrics);
+
+        threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        if(!threads.isThreadAllocatedMemorySupported()) {
+            System.out.println("Allocated bytes can not be measured on this virtual machine");
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        threadId = Thread.currentThread().getId();
+
+        check = new GoblinAllocationCheck(gridSize);
+        check.tick(warmup);
+
+        //Reading the allocated bytes can itself allocate, so measure that and
+        //take it off each round.
+        start = threads.getThreadAllocatedBytes(threadId);
+        overhead = threads.getThreadAllocatedBytes(threadId) - start;
+
+        for(int round = 1; round <= rounds; round++) {
+            start = threads.getThreadAllocatedBytes(threadId);
+            check.tick(ticks);
+            allocated = threads.getThreadAllocatedBytes(threadId) - start - overhead;
+            if(allocated > 0L)
+                failedRounds++;
+            System.out.println("Round " + round + ": " + ticks + " ticks allocated " + Math.max(0L, allocated) + " bytes");
+        }
+
+        System.out.println(check.games + " games played, highest level " + check.highestLevel);
+        if(failedRounds > 0) {
+            System.out.println(failedRounds + " of " + rounds + " rounds allocated");
+            System.exit(1);
+        }
+        System.out.println("No allocations in " + rounds + " rounds");
+    }
+
+    /**
+     * Runs a number of ticks of the game, steering the goblin by the practice
+     * mode advice and starting a new game whenever one ends, the same way the
+     * game loop does when Enter is pressed.
+     *
+     * @param ticks The number of ticks.
+     */
+    private void tick(int ticks) {
+        for(int i = 0; i < ticks; i++) {
+            switch(model.getCurrentState()) {
+                case GoblinModel.STATE_BEGIN_LEVEL:
+                case GoblinModel.STATE_LEVEL_RUNNING:
+                case GoblinModel.STATE_GOBLIN_GOT_FACE:
+                    steer();
+                    break;
+                case GoblinModel.STATE_GAME_OVER:
+                    highestLevel = Math.max(highestLevel, model.getLevel());
+                    games++;
+                    model.reset();
+                    break;
+            }
+            controller.doModelStateCheck();
+        }
+    }
+
+    /**
+     * Queues the key press for the best advised move.  Moves that are safe and
+     * still reach every face come first, then moves that are only safe.  Equal
+     * moves are chosen between at random so the goblin does not always favour
+     * one side, and every so often the goblin is left to go straight so it is
+     * sometimes destroyed.
+     */
+    private void steer() {
+        //Declarations.
+        int direction, best = -1, bestRating = -1, rating;
+
+        choice = choice * 1103515245 + 12345;
+        if(!model.hasAdvice() || ((choice >>> 8) & 63) == 0)
+            return;
+
+        for(int i = 0; i < 3; i++) {
+            direction = ((choice >>> 16) + i) % 3;
+            rating = model.getAdvice(direction);
+            if((rating & MoveAdvisor.ADVICE_SAFE) == 0)
+                continue;
+            if(rating > bestRating) {
+                bestRating = rating;
+                best = direction;
+            }
+        }
+
+        if(best == MoveAdvisor.DIRECTION_LEFT)
+            model.setKeyPress(GoblinModel.MOVE_LEFT);
+        else if(best == MoveAdvisor.DIRECTION_RIGHT)
+            model.setKeyPress(GoblinModel.MOVE_RIGHT);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package main;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import model.GoblinModel;
+import replay.FrameExporter;
+import replay.Replay;
+
+/**
+ * Exports a recorded game to a sequence of PNG frames without a display.  The
+ * replays are saved by starting the game with the goblin.replay.dir system
+ * property set to a directory.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class GoblinExport {
+
+    /**
+     * Main method used to export a replay.
+     *
+     * @param args The replay file, the directory for the frames, and optionally
+     * the tile size, 16, 24, or 32, and the number of writer threads.
+     */
+    public static void main(String[] args) {
+        //Declarations.
+        Replay replay;
+        int tileSize = GoblinModel.MEDIUM_TILE_SIZE;
+        int workers = Runtime.getRuntime().availableProcessors();
+        int frames;
+        long start;
+
+        if(args.length < 2) {
+            System.out.println("Usage: GoblinExport replay-file frame-directory [tile-size] [threads]");
+            return;
+        }
+
+        //There is no window so make sure none is needed.
+        System.setProperty("java.awt.headless", "true");
+
+        try (InputStream in = new FileInputStream(args[0])) {
+            if(args.length > 2)
+                tileSize = Integer.parseInt(args[2]);
+            if(args.length > 3)
+                workers = Integer.parseInt(args[3]);
+            replay = Replay.read(in);
+
+            start = System.currentTimeMillis();
+            frames = new FrameExporter(tileSize, workers, workers * 2).export(replay, new File(args[1]));
+            System.out.println(frames + " frames written in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        } catch (NumberFormatException e) {
+            System.out.println("Unknown number " + e.getMessage());
+        } catch (InterruptedException e) {
+            System.out.println("Export interrupted");
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package main;
+
+import model.GoblinModel;
+import model.LevelChecker;
+import training.LevelGeneratorCheck;
+
+/**
+ * Builds a very large number of levels without a display and checks that each
+ * one follows every rule of the level builder, reporting the first level that
+ * does not.  Each setting is given as name=value.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class GoblinLevelCheck {
+
+    /**
+     * Main method used to run the check.
+     *
+     * @param args Any of the settings grid (a list such as 20,30,40), levels
+     * (the highest level number), count (the levels per grid size and level
+     * number), check (none, reject, or repair), and threads.
+     */
+    public static void main(String[] args) {
+        //Declarations.
+        LevelGeneratorCheck check = new LevelGeneratorCheck();
+        String[] parts;
+        int[] gridSizes;
+        String name, value;
+        int split;
+        long start, elapsed;
+
+        //There is no window so make sure none is needed.
+        System.setProperty("java.awt.headless", "true");
+
+        try {
+            for(String arg : args) {
+                split = arg.indexOf('=');
+                if(split < 0) {
+                    System.out.println("Usage: GoblinLevelCheck [grid=20,30,40] [levels=50] [count=100000] [check=none|reject|repair] [threads=N]");
+                    return;
+                }
+                name = arg.substring(0, split);
+                value = arg.substring(split + 1);
+                if(name.equals("grid")) {
+                    parts = value.split(",");
+                    gridSizes = new int[parts.length];
+                    for(int i = 0; i < parts.length; i++)
+                        gridSizes[i] = Integer.parseInt(parts[i]);
+                    check.setGridSizes(gridSizes);
+                } else if(name.equals("levels")) {
+                    check.setMaxLevel(Integer.parseInt(value));
+                } else if(name.equals("count")) {
+                    check.setLevels(Long.parseLong(value));
+                } else if(name.equals("check")) {
+                    if(value.equals("none"))
+                        check.setLevelCheck(GoblinModel.LEVEL_CHECK_NONE);
+                    else if(value.equals("repair"))
+                        check.setLevelCheck(GoblinModel.LEVEL_CHECK_REPAIR);
+                    else
+                        check.setLevelCheck(GoblinModel.LEVEL_CHECK_REJECT);
+                } else if(name.equals("threads")) {
+                    check.setThreads(Integer.parseInt(value));
+                } else {
+                    System.out.println("Unknown setting " + name);
+                    return;
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Unknown number " + e.getMessage());
+            return;
+        }
+
+        start = System.currentTimeMillis();
+        if(check.run()) {
+            elapsed = Math.max(1L, System.currentTimeMillis() - start);
+            System.out.println(check.getLevelsChecked() + " levels checked in " + elapsed + " ms, "
+                    + (check.getLevelsChecked() * 1000L / elapsed) + " a second, no violations, "
+                    + check.getDuplicateLevels() + " duplicate levels");
+        } else {
+            System.out.println("Grid size " + check.getFailedGridSize() + " level " + check.getFailedLevel()
+                    + " seed " + check.getFailedSeed() + ": " + LevelChecker.describe(check.getViolation())
+                    + " at row " + check.getViolationRow() + " column " + check.getViolationColumn());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package main;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import metrics.Heatmap;
+import model.GoblinModel;
+import training.DifficultySweep;
+
+/**
+ * Plays a very large number of games without a display for every combination
+ * of a set of difficulty settings and writes the results to a file.  Each
+ * setting is given as name=value, where the value is a single number, a list
+ * such as 20,30,40, or a range such as 10:40:5 for ten to forty in steps of
+ * five.  Heatmaps of where the goblins die, move, and collect faces can also be
+ * written to a directory, one file for each grid size.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class GoblinSweep {
+
+    /**
+     * Main method used to run a sweep.
+     *
+     * @param args The results file followed by any of the settings grid, walls,
+     * add, faces, delay, player (random or advisor), reaction, levels, games,
+     * threads, and heatmaps (a directory).
+     */
+    public static void main(String[] args) {
+        //Declarations.
+        DifficultySweep sweep = new DifficultySweep();
+        String name, value;
+        File heatmapDirectory = null;
+        Heatmap heatmap;
+        int split, combinations;
+        long start;
+
+        if(args.length < 1) {
+            System.out.println("Usage: GoblinSweep results-file [grid=20,30,40] [walls=10:40:5] [add=2:10:2] [faces=10]"
+                    + " [delay=50:150:25] [player=random|advisor] [reaction=150] [levels=30] [games=1000000] [threads=N] [heatmaps=dir]");
+            return;
+        }
+
+        //There is no window so make sure none is needed.
+        System.setProperty("java.awt.headless", "true");
+
+        try {
+            for(int i = 1; i < args.length; i++) {
+                split = args[i].indexOf('=');
+                if(split < 0) {
+                    System.out.println("Unknown setting " + args[i]);
+                    return;
+                }
+                name = args[i].substring(0, split);
+                value = args[i].substring(split + 1);
+                if(name.equals("grid"))
+                    sweep.setGridSizes(parseValues(value));
+                else if(name.equals("walls"))
+                    sweep.setBaseWalls(parseValues(value));
+                else if(name.equals("add"))
+                    sweep.setWallsPerLevel(parseValues(value));
+                else if(name.equals("faces"))
+                    sweep.setFacesPerLevel(parseValues(value));
+                else if(name.equals("delay"))
+                    sweep.setDelayPercents(parseValues(value));
+                else if(name.equals("player"))
+                    sweep.setPlayer(value.equals("random") ? DifficultySweep.PLAYER_RANDOM : DifficultySweep.PLAYER_ADVISOR);
+                else if(name.equals("reaction"))
+                    sweep.setReactionTime(Integer.parseInt(value));
+                else if(name.equals("levels"))
+                    sweep.setMaxLevel(Integer.parseInt(value));
+                else if(name.equals("games"))
+                    sweep.setGames(Long.parseLong(value));
+                else if(name.equals("threads"))
+                    sweep.setThreads(Integer.parseInt(value));
+                else if(name.equals("heatmaps"))
+                    heatmapDirectory = new File(value);
+                else {
+                    System.out.println("Unknown setting " + name);
+                    return;
+                }
+            }
+
+            start = System.currentTimeMillis();
+            sweep.setKeepHeatmaps(heatmapDirectory != null);
+            combinations = sweep.run(new File(args[0]));
+            System.out.println(combinations + " combinations written in " + (System.currentTimeMillis() - start) + " ms");
+
+            //Write the heatmap of each grid size that was played.
+            if(heatmapDirectory != null) {
+                heatmapDirectory.mkdirs();
+                for(int gridSize = 0; gridSize <= GoblinModel.LARGE_GRID_SIZE; gridSize++) {
+                    heatmap = sweep.getHeatmap(gridSize);
+                    if(heatmap == null)
+                        continue;
+                    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(heatmapDirectory, Heatmap.getFileName(gridSize)))))) {
+                        heatmap.write(out);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        } catch (NumberFormatException e) {
+            System.out.println("Unknown number " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parses the value of a setting.
+     *
+     * @param value A number, a list of numbers separated by commas, or a range
+     * given as from:to:step, where the step may be left off.
+     * @return The numbers.
+     */
+    private static int[] parseValues(String value) {
+        //Declarations.
+        String[] parts;
+        int[] values;
+
+        if(value.indexOf(':') >= 0) {
+            parts = value.split(":");
+            return DifficultySweep.range(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                    (parts.length > 2) ? Integer.parseInt(parts[2]) : 1);
+        }
+
+        parts = value.split(",");
+        values = new int[parts.length];
+        for(int i = 0; i < parts.length; i++)
+            values[i] = Integer.parseInt(parts[i]);
+        return values;
+    }
+}
@@ -22,54 +22,44 @@
  ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
  ** 02110-1301, USA.
  ********************************************************************************
- ** DJB 03/17/2012 Created.
+ ** DJB 10/18/2026 Created.
  ********************************************************************************
  */
 
-package model;
+package main;
 
-import java.awt.image.BufferedImage;
+import controller.TerminalController;
+import model.GoblinModel;
 
 /**
- * Class used to hold information about a game tile.
- * 
+ * Starts the game in a terminal instead of a window, for machines with no
+ * display.  The game grid is drawn with ANSI escape sequences so the terminal
+ * must support them, which nearly all do.
+ *
  * @author Donald J Bartley
  * @version 1.0
  */
-public class Tile {
-    /** Holds information about the image type for this tile. */
-    private int imageType;
-    /** Holds information about the image size for this tile. */
-    private int imageSize;
-    
-    /**
-     * Gets the image type for this tile.
-     * 
-     * @return An integer indicating the image type which corresponds to
-     * constants set in the Images Class.
-     */
-    public int getImageType() {
-        return imageType;
-    }
+public class GoblinTerminal {
 
     /**
-     * Sets the image type and image size for the tile.
-     * @param imageSize An integer indicating the image size which corresponds to
-     * constants set in the Image Class.
-     * @param imageType An integer indicating the image type which corresponds to
-     * constants set in the Image Class.
-     */
-    public void setImageType(int imageSize, int imageType) {
-        this.imageSize = imageSize;
-        this.imageType = imageType;
-    }
-    
-    /**
-     * Gets the image for the tile.
-     * 
-     * @return Graphic image for the tile.
+     * Main method used to start the game in the terminal.
+     *
+     * @param args The size of the game grid, 20, 30, or 40, may be given as the
+     * first argument.  The medium size is used if it is not.
      */
-    public BufferedImage getImage() {
-        return Images.getImage(imageSize, imageType);
+    public static void main(String[] args) {
+        //Declarations.
+        int gridSize = GoblinModel.MEDIUM_GRID_SIZE;
+
+        if(args.length > 0) {
+            try {
+                gridSize = Integer.parseInt(args[0]);
+            } catch (NumberFormatException e) {
+                System.out.println("Unknown grid size " + args[0]);
+            }
+        }
+
+        //Run the game until the player quits.
+        new TerminalController(gridSize).run();
     }
-}
\ No newline at end of file
+}
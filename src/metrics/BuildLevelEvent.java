@@ -0,0 +1,67 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for building one level.
+ *
+ * @author agent
+ * @version 1.0
+ */
+@Name("goblin.BuildLevel")
+@Label("Build Level")
+@Category("Goblin")
+@Description("Placement of the shrubs, walls, faces, and goblin for a level")
+@StackTrace(false)
+public class BuildLevelEvent extends jdk.jfr.Event {
+    /**
+     * The type of the event, used to check that a recording wants the event
+     * before one is made.
+     */
+    public static final EventType TYPE = EventType.getEventType(BuildLevelEvent.class);
+
+    /** The level that was built. */
+    @Label("Level")
+    public int level;
+
+    /** The number of horizontal and vertical tiles in the game grid. */
+    @Label("Grid Size")
+    public int gridSize;
+
+    /** The number of built levels thrown away because faces were stranded. */
+    @Label("Rejection Count")
+    public int rejectionCount;
+}
@@ -0,0 +1,204 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Class that holds the metrics recorded while the game runs and publishes them
+ * through a platform MBean.  Metrics are turned on by starting the game with the
+ * system property goblin.metrics set to true.  The code being measured checks
+ * the ENABLED field before reading the clock.  It is read from the system
+ * property when the class loads so the Java compiler keeps the checks, but the
+ * just in time compiler treats the static final field as a constant and removes
+ * them from the compiled code when the metrics are off.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class GoblinMetrics implements GoblinMetricsMXBean {
+    /** The value that indicates if the metrics are being recorded. */
+    public static final boolean ENABLED = Boolean.getBoolean("goblin.metrics");
+    /** The name the MBean is registered under. */
+    public static final String OBJECT_NAME = "goblin:type=GoblinMetrics";
+
+    /** Histogram of the time taken by each model state check. */
+    public static final LatencyHistogram TICK = new LatencyHistogram();
+    /** Histogram of the time taken to build each level. */
+    public static final LatencyHistogram BUILD_LEVEL = new LatencyHistogram();
+    /** Histogram of the number of attempts taken to build each level. */
+    public static final LatencyHistogram BUILD_ATTEMPTS = new LatencyHistogram();
+    /** Histogram of the time taken by each goblin move. */
+    public static final LatencyHistogram MOVE_GOBLIN = new LatencyHistogram();
+    /** Histogram of the time taken by each paint of the view. */
+    public static final LatencyHistogram PAINT = new LatencyHistogram();
+    /** Histogram of how late each wake up of the game loop was. */
+    public static final LatencyHistogram TIMER_LATENESS = new LatencyHistogram();
+    /** Histogram of the area drawn by each paint of part of the view. */
+    public static final LatencyHistogram DIRTY_AREA = new LatencyHistogram();
+    /** Counter of the times the whole game grid was painted. */
+    public static final LongAdder FULL_PAINTS = new LongAdder();
+    /** Counter of the times part of the game grid was painted. */
+    public static final LongAdder AREA_PAINTS = new LongAdder();
+
+    /**
+     * Registers the metrics MBean with the platform MBean server if the metrics
+     * are enabled.  Does nothing if they are not.
+     */
+    public static void register() {
+        if(!ENABLED)
+            return;
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new GoblinMetrics(), new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Gets whether the metrics are being recorded.
+     *
+     * @return True if the metrics are being recorded, false if not.
+     */
+    @Override
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Gets the histogram of the time taken by each model state check.
+     *
+     * @return Snapshot of the histogram in nanoseconds.
+     */
+    @Override
+    public HistogramSnapshot getTickLatency() {
+        return TICK.snapshot();
+    }
+
+    /**
+     * Gets the histogram of the time taken to build each level.
+     *
+     * @return Snapshot of the histogram in nanoseconds.
+     */
+    @Override
+    public HistogramSnapshot getBuildLevelLatency() {
+        return BUILD_LEVEL.snapshot();
+    }
+
+    /**
+     * Gets the histogram of the number of times each level was built before it
+     * was accepted.
+     *
+     * @return Snapshot of the histogram of attempts.
+     */
+    @Override
+    public HistogramSnapshot getBuildLevelAttempts() {
+        return BUILD_ATTEMPTS.snapshot();
+    }
+
+    /**
+     * Gets the histogram of the time taken by each goblin move.
+     *
+     * @return Snapshot of the histogram in nanoseconds.
+     */
+    @Override
+    public HistogramSnapshot getMoveGoblinLatency() {
+        return MOVE_GOBLIN.snapshot();
+    }
+
+    /**
+     * Gets the histogram of the time taken by each paint of the view.
+     *
+     * @return Snapshot of the histogram in nanoseconds.
+     */
+    @Override
+    public HistogramSnapshot getPaintLatency() {
+        return PAINT.snapshot();
+    }
+
+    /**
+     * Gets the histogram of how late each wake up of the game loop was.
+     *
+     * @return Snapshot of the histogram in nanoseconds.
+     */
+    @Override
+    public HistogramSnapshot getTimerLateness() {
+        return TIMER_LATENESS.snapshot();
+    }
+
+    /**
+     * Gets the histogram of the area drawn by each paint of part of the view.
+     *
+     * @return Snapshot of the histogram in pixels.
+     */
+    @Override
+    public HistogramSnapshot getDirtyArea() {
+        return DIRTY_AREA.snapshot();
+    }
+
+    /**
+     * Gets the number of times the whole game grid was painted.
+     *
+     * @return The number of full paints.
+     */
+    @Override
+    public long getFullPaintCount() {
+        return FULL_PAINTS.sum();
+    }
+
+    /**
+     * Gets the number of times part of the game grid was painted.
+     *
+     * @return The number of area paints.
+     */
+    @Override
+    public long getAreaPaintCount() {
+        return AREA_PAINTS.sum();
+    }
+
+    /**
+     * Clears all of the metrics.
+     */
+    @Override
+    public void reset() {
+        TICK.reset();
+        BUILD_LEVEL.reset();
+        BUILD_ATTEMPTS.reset();
+        MOVE_GOBLIN.reset();
+        PAINT.reset();
+        TIMER_LATENESS.reset();
+        DIRTY_AREA.reset();
+        FULL_PAINTS.reset();
+        AREA_PAINTS.reset();
+    }
+}
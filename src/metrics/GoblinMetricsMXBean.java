@@ -0,0 +1,114 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package metrics;
+
+/**
+ * The management interface of the game metrics.  The latency histograms are in
+ * nanoseconds.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public interface GoblinMetricsMXBean {
+    /**
+     * Gets whether the metrics are being recorded.
+     *
+     * @return True if the metrics are being recorded, false if not.
+     */
+    boolean isEnabled();
+
+    /**
+     * Gets the histogram of the time taken by each model state check.
+     *
+     * @return Snapshot of the histogram in nanoseconds.
+     */
+    HistogramSnapshot getTickLatency();
+
+    /**
+     * Gets the histogram of the time taken to build each level.
+     *
+     * @return Snapshot of the histogram in nanoseconds.
+     */
+    HistogramSnapshot getBuildLevelLatency();
+
+    /**
+     * Gets the histogram of the number of times each level was built before it
+     * was accepted.
+     *
+     * @return Snapshot of the histogram of attempts.
+     */
+    HistogramSnapshot getBuildLevelAttempts();
+
+    /**
+     * Gets the histogram of the time taken by each goblin move.
+     *
+     * @return Snapshot of the histogram in nanoseconds.
+     */
+    HistogramSnapshot getMoveGoblinLatency();
+
+    /**
+     * Gets the histogram of the time taken by each paint of the view.
+     *
+     * @return Snapshot of the histogram in nanoseconds.
+     */
+    HistogramSnapshot getPaintLatency();
+
+    /**
+     * Gets the histogram of how late each wake up of the game loop was.
+     *
+     * @return Snapshot of the histogram in nanoseconds.
+     */
+    HistogramSnapshot getTimerLateness();
+
+    /**
+     * Gets the histogram of the area drawn by each paint of part of the view.
+     *
+     * @return Snapshot of the histogram in pixels.
+     */
+    HistogramSnapshot getDirtyArea();
+
+    /**
+     * Gets the number of times the whole game grid was painted.
+     *
+     * @return The number of full paints.
+     */
+    long getFullPaintCount();
+
+    /**
+     * Gets the number of times part of the game grid was painted.
+     *
+     * @return The number of area paints.
+     */
+    long getAreaPaintCount();
+
+    /**
+     * Clears all of the metrics.
+     */
+    void reset();
+}
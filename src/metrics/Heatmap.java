@@ -0,0 +1,259 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package metrics;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import model.GoblinModelAdapter;
+
+/**
+ * Class that counts, for each tile of a game grid of one size, how many goblins
+ * were destroyed on it, how many times a goblin moved onto it, and how many
+ * shocked faces were collected on it, over any number of games.  It shows level
+ * designers where goblins die and which columns they use.
+ *
+ * Games played on many threads at once each count into a recorder of their
+ * own, which is a plain array only its thread touches, so counting costs an
+ * increment and no thread ever waits on another.  The recorder is merged into
+ * the heatmap when its thread is done with a batch of games.
+ *
+ * The counts are written as the magic number GBHM, the version, the grid size,
+ * and the number of layers as ints, followed by each layer in turn as one long
+ * per tile, row by row.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class Heatmap {
+    /** The layer of the number of goblins destroyed on each tile. */
+    public static final int LAYER_DEATHS = 0;
+    /** The layer of the number of times a goblin moved onto each tile. */
+    public static final int LAYER_OCCUPANCY = 1;
+    /** The layer of the number of shocked faces collected on each tile. */
+    public static final int LAYER_FACES = 2;
+    /** The number of layers. */
+    public static final int NUMBER_OF_LAYERS = 3;
+    /** The number that starts the file, GBHM in ASCII. */
+    public static final int MAGIC = 0x4742484D;
+    /** The version of the file layout. */
+    public static final int VERSION = 1;
+
+    /** Holds the number of rows and columns of the game grid. */
+    private final int gridSize;
+    /** Holds the counts of each layer, row by row. */
+    private final long[][] counts;
+
+    //Constructor.
+    /**
+     * Creates a heatmap with every count zero.
+     *
+     * @param gridSize The number of rows and columns of the game grid.
+     */
+    public Heatmap(int gridSize) {
+        this.gridSize = gridSize;
+        counts = new long[NUMBER_OF_LAYERS][gridSize * gridSize];
+    }
+
+    /**
+     * Gets the name of the file the heatmap of a grid size is kept in.
+     *
+     * @param gridSize The grid size.
+     * @return The file name.
+     */
+    public static String getFileName(int gridSize) {
+        return "heatmap-" + gridSize + ".bin";
+    }
+
+    /**
+     * Reads a heatmap written by write().
+     *
+     * @param in The stream to read from.
+     * @return The heatmap.
+     * @throws IOException If the stream could not be read or does not hold a
+     * heatmap.
+     */
+    public static Heatmap read(DataInputStream in) throws IOException {
+        //Declarations.
+        Heatmap heatmap;
+        int gridSize;
+
+        if(in.readInt() != MAGIC || in.readInt() != VERSION)
+            throw new IOException("Not a heatmap");
+        gridSize = in.readInt();
+        if(gridSize < 1 || gridSize > 64 || in.readInt() != NUMBER_OF_LAYERS)
+            throw new IOException("Not a heatmap");
+
+        heatmap = new Heatmap(gridSize);
+        for(long[] layer : heatmap.counts) {
+            for(int i = 0; i < layer.length; i++)
+                layer[i] = in.readLong();
+        }
+        return heatmap;
+    }
+
+    /**
+     * Gets the number of rows and columns of the game grid.
+     *
+     * @return The grid size.
+     */
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Creates a recorder for one thread to count into.  It must listen to a
+     * model with the grid size of this heatmap.
+     *
+     * @return The recorder.
+     */
+    public Recorder newRecorder() {
+        return new Recorder(gridSize);
+    }
+
+    /**
+     * Adds the counts of a recorder to this heatmap and sets the recorder back
+     * to zero so it can go on counting.
+     *
+     * @param recorder The recorder, which must not be counting while it is
+     * merged.
+     */
+    public synchronized void merge(Recorder recorder) {
+        for(int layer = 0; layer < NUMBER_OF_LAYERS; layer++) {
+            for(int i = 0; i < counts[layer].length; i++) {
+                counts[layer][i] += recorder.counts[layer][i];
+                recorder.counts[layer][i] = 0L;
+            }
+        }
+    }
+
+    /**
+     * Gets the count of a tile.
+     *
+     * @param layer One of the layer constants of this class.
+     * @param row The row of the tile.
+     * @param col The column of the tile.
+     * @return The count.
+     */
+    public synchronized long getCount(int layer, int row, int col) {
+        return counts[layer][row * gridSize + col];
+    }
+
+    /**
+     * Gets the counts of every tile of a layer.
+     *
+     * @param layer One of the layer constants of this class.
+     * @return A copy of the counts, row by row.
+     */
+    public synchronized long[] getCounts(int layer) {
+        return counts[layer].clone();
+    }
+
+    /**
+     * Writes the counts.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the stream could not be written.
+     */
+    public synchronized void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(gridSize);
+        out.writeInt(NUMBER_OF_LAYERS);
+        for(long[] layer : counts) {
+            for(long count : layer)
+                out.writeLong(count);
+        }
+        out.flush();
+    }
+
+    /**
+     * Class that counts the events of the models one thread plays, to be
+     * merged into a heatmap later.  Only that thread may use it.
+     *
+     * @author agent
+     * @version 1.0
+     */
+    public static final class Recorder extends GoblinModelAdapter {
+        /** Holds the number of rows and columns of the game grid. */
+        private final int gridSize;
+        /** Holds the counts of each layer, row by row. */
+        private final long[][] counts;
+
+        //Constructor.
+        /**
+         * Sole constructor.
+         *
+         * @param gridSize The number of rows and columns of the game grid.
+         */
+        private Recorder(int gridSize) {
+            this.gridSize = gridSize;
+            counts = new long[NUMBER_OF_LAYERS][gridSize * gridSize];
+        }
+
+        /**
+         * Overrides the goblinMoved() method of GoblinModelAdapter.  Counts the
+         * tile the goblin moved onto.
+         *
+         * @param lastX The column the goblin moved from.
+         * @param lastY The row the goblin moved from.
+         * @param x The column the goblin moved to.
+         * @param y The row the goblin moved to.
+         */
+        @Override
+        public void goblinMoved(int lastX, int lastY, int x, int y) {
+            counts[LAYER_OCCUPANCY][y * gridSize + x]++;
+        }
+
+        /**
+         * Overrides the faceCollected() method of GoblinModelAdapter.  Counts
+         * the tile of the face.
+         *
+         * @param x The column of the face.
+         * @param y The row of the face.
+         * @param remainingFaces The number of shocked faces left.
+         */
+        @Override
+        public void faceCollected(int x, int y, int remainingFaces) {
+            counts[LAYER_FACES][y * gridSize + x]++;
+        }
+
+        /**
+         * Overrides the goblinDestroyed() method of GoblinModelAdapter.  Counts
+         * the tile of the explosion.
+         *
+         * @param x The column of the explosion.
+         * @param y The row of the explosion.
+         */
+        @Override
+        public void goblinDestroyed(int x, int y) {
+            counts[LAYER_DEATHS][y * gridSize + x]++;
+        }
+    }
+}
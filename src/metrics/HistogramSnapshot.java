@@ -0,0 +1,140 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Class that holds the summary of a latency histogram at one point in time.  It
+ * is the type used for the histogram attributes of the metrics MBean.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class HistogramSnapshot {
+    /** Holds the number of values recorded. */
+    private final long count;
+    /** Holds the mean of the values recorded. */
+    private final double mean;
+    /** Holds the 50th percentile. */
+    private final long p50;
+    /** Holds the 90th percentile. */
+    private final long p90;
+    /** Holds the 99th percentile. */
+    private final long p99;
+    /** Holds the 99.9th percentile. */
+    private final long p999;
+    /** Holds the largest value recorded. */
+    private final long max;
+
+    /**
+     * Sole constructor.
+     *
+     * @param count The number of values recorded.
+     * @param mean The mean of the values recorded.
+     * @param p50 The 50th percentile.
+     * @param p90 The 90th percentile.
+     * @param p99 The 99th percentile.
+     * @param p999 The 99.9th percentile.
+     * @param max The largest value recorded.
+     */
+    @ConstructorProperties({"count", "mean", "p50", "p90", "p99", "p999", "max"})
+    public HistogramSnapshot(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    /**
+     * Gets the number of values recorded.
+     *
+     * @return The number of values recorded.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the mean of the values recorded.
+     *
+     * @return The mean of the values recorded.
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Gets the 50th percentile.
+     *
+     * @return The 50th percentile.
+     */
+    public long getP50() {
+        return p50;
+    }
+
+    /**
+     * Gets the 90th percentile.
+     *
+     * @return The 90th percentile.
+     */
+    public long getP90() {
+        return p90;
+    }
+
+    /**
+     * Gets the 99th percentile.
+     *
+     * @return The 99th percentile.
+     */
+    public long getP99() {
+        return p99;
+    }
+
+    /**
+     * Gets the 99.9th percentile.
+     *
+     * @return The 99.9th percentile.
+     */
+    public long getP999() {
+        return p999;
+    }
+
+    /**
+     * Gets the largest value recorded.
+     *
+     * @return The largest value recorded.
+     */
+    public long getMax() {
+        return max;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for a key press taken out of the key press buffer
+ * and used to move the goblin.
+ *
+ * @author agent
+ * @version 1.0
+ */
+@Name("goblin.Input")
+@Label("Input Consumed")
+@Category("Goblin")
+@Description("A key press used to move the goblin")
+@StackTrace(false)
+public class InputEvent extends jdk.jfr.Event {
+    /**
+     * The type of the event, used to check that a recording wants the event
+     * before one is made.
+     */
+    public static final EventType TYPE = EventType.getEventType(InputEvent.class);
+
+    /** The key press that was used. */
+    @Label("Key Press")
+    public int keyPress;
+
+    /** The number of key presses still waiting in the buffer. */
+    @Label("Queued Key Presses")
+    public int queued;
+
+    /** The level the model is on. */
+    @Label("Level")
+    public int level;
+}
@@ -0,0 +1,206 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class that records values, such as latencies in nanoseconds, into a histogram
+ * with log-linear buckets in the style of an HDR histogram.  Values below 32 get
+ * a bucket each.  Above that every power of two is split into 16 buckets, so a
+ * value is always within about 6% of the bucket it is counted in.  Recording a
+ * value is a few shifts and one atomic increment, and nothing is created, so it
+ * is safe to use from the game loop and the AWT thread at the same time.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class LatencyHistogram {
+    /** The number of buckets each power of two is split into. */
+    private static final int SUB_BUCKETS = 16;
+    /** The number of bits used to pick a bucket within a power of two. */
+    private static final int SUB_BUCKET_BITS = 4;
+    /** The highest bit of the largest value that gets its own bucket. */
+    private static final int MAX_VALUE_BIT = 40;
+    /** The number of buckets in the histogram. */
+    private static final int NUMBER_OF_BUCKETS = (MAX_VALUE_BIT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    /** Holds the count of values recorded in each bucket. */
+    private final AtomicLongArray buckets = new AtomicLongArray(NUMBER_OF_BUCKETS);
+    /** Holds the count of values recorded. */
+    private final LongAdder count = new LongAdder();
+    /** Holds the sum of the values recorded. */
+    private final LongAdder sum = new LongAdder();
+    /** Holds the largest value recorded. */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value.  Negative values are recorded as zero and values larger
+     * than the largest bucket are counted in the largest bucket.
+     *
+     * @param value The value to be recorded.
+     */
+    public void record(long value) {
+        //Declarations.
+        long current;
+
+        if(value < 0L)
+            value = 0L;
+
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+
+        //Only try to change the largest value if this one is larger.
+        current = max.get();
+        while(value > current && !max.compareAndSet(current, value))
+            current = max.get();
+    }
+
+    /**
+     * Gets the number of values recorded.
+     *
+     * @return The number of values recorded.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the largest value recorded.
+     *
+     * @return The largest value recorded.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the mean of the values recorded.
+     *
+     * @return The mean, or zero if nothing has been recorded.
+     */
+    public double getMean() {
+        //Declarations.
+        long n = count.sum();
+
+        return (n == 0L) ? 0.0 : (double)sum.sum() / n;
+    }
+
+    /**
+     * Gets the value below which a percentage of the recorded values fall.  The
+     * value returned is the upper end of the bucket the percentile lands in.
+     *
+     * @param percentile The percentile from 0.0 to 100.0.
+     * @return The value at the percentile, or zero if nothing has been recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        //Declarations.
+        long total = 0L, target, seen = 0L;
+
+        for(int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++)
+            total += buckets.get(bucket);
+        if(total == 0L)
+            return 0L;
+
+        //Walk the buckets until the count reaches the target.
+        target = Math.max(1L, (long)Math.ceil(total * percentile / 100.0));
+        for(int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+            seen += buckets.get(bucket);
+            if(seen >= target)
+                return Math.min(highestValueIn(bucket), max.get());
+        }
+
+        return max.get();
+    }
+
+    /**
+     * Takes a snapshot of the histogram.
+     *
+     * @return The snapshot.
+     */
+    public HistogramSnapshot snapshot() {
+        return new HistogramSnapshot(getCount(), getMean(), getValueAtPercentile(50.0),
+                getValueAtPercentile(90.0), getValueAtPercentile(99.0),
+                getValueAtPercentile(99.9), getMax());
+    }
+
+    /**
+     * Clears all of the values recorded.
+     */
+    public void reset() {
+        for(int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++)
+            buckets.set(bucket, 0L);
+        count.reset();
+        sum.reset();
+        max.set(0L);
+    }
+
+    /**
+     * Gets the bucket a value is counted in.
+     *
+     * @param value The value, zero or more.
+     * @return The bucket number.
+     */
+    private static int bucketOf(long value) {
+        //Declarations.
+        int shift;
+
+        //Small values get a bucket each.
+        if(value < 2 * SUB_BUCKETS)
+            return (int)value;
+
+        //Larger values keep the top five bits.  The shift picks the power of
+        //two and the four bits below the top one pick the bucket within it.
+        shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        if(shift > MAX_VALUE_BIT - SUB_BUCKET_BITS)
+            return NUMBER_OF_BUCKETS - 1;
+
+        return (shift + 1) * SUB_BUCKETS + (int)(value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Gets the largest value that is counted in a bucket.
+     *
+     * @param bucket The bucket number.
+     * @return The largest value in the bucket.
+     */
+    private static long highestValueIn(int bucket) {
+        //Declarations.
+        int shift;
+
+        if(bucket < 2 * SUB_BUCKETS)
+            return bucket;
+
+        shift = bucket / SUB_BUCKETS - 1;
+        return ((long)(bucket % SUB_BUCKETS + SUB_BUCKETS + 1) << shift) - 1L;
+    }
+}
@@ -0,0 +1,543 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package model;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Class that runs an arena where many goblins share one game grid, its wall
+ * obstacles, and its shocked faces.  The game grid can be much larger than the
+ * ones of the model.  Each goblin is either steered by the arena or controlled
+ * by a player who sets its horizontal velocity.
+ *
+ * The goblins are kept as parallel arrays of primitives, one entry per goblin,
+ * for the position, horizontal velocity, alive flag, controlled flag, and
+ * score, so a tick walks straight through memory however many goblins there
+ * are.  A tick is split into passes over the goblins: working out where each
+ * one moves and if it hit a wall, moving them on the occupancy grid and
+ * finding goblins that moved onto the same tile, and collecting the faces.
+ * Each pass is linear in the number of goblins and nothing is allocated while
+ * ticking.
+ *
+ * The tiles that changed on each tick are kept in a list with no repeats so a
+ * view only has to redraw them.  A goblin that hits a wall or another goblin
+ * is destroyed and leaves an explosion for one tick.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class GoblinArena {
+    /** The velocity that moves a goblin diagonally to the left. */
+    public static final int VELOCITY_LEFT = -1;
+    /** The velocity that moves a goblin straight up. */
+    public static final int VELOCITY_STRAIGHT = 0;
+    /** The velocity that moves a goblin diagonally to the right. */
+    public static final int VELOCITY_RIGHT = 1;
+
+    /** The number of random tiles tried before searching for a free tile. */
+    private static final int SPAWN_ATTEMPTS = 64;
+
+    /** Holds the number of rows in the game grid. */
+    private final int numberOfRows;
+    /** Holds the number of columns in the game grid. */
+    private final int numberOfColumns;
+    /** Holds the image type of each tile, row by row, not counting goblins. */
+    private final byte[] board;
+    /** Holds, for each tile, one more than the goblin on it or zero if none. */
+    private final int[] occupant;
+    /** Holds, for each tile, the tick it was last added to the dirty list. */
+    private final int[] dirtyTick;
+    /** Holds the column of each goblin. */
+    private final int[] goblinX;
+    /** Holds the row of each goblin. */
+    private final int[] goblinY;
+    /** Holds the horizontal velocity of each goblin. */
+    private final byte[] velocity;
+    /** Holds one for each goblin that is alive, zero if not. */
+    private final byte[] alive;
+    /** Holds one for each goblin controlled by a player, zero if not. */
+    private final byte[] controlled;
+    /** Holds the number of faces each goblin collected. */
+    private final int[] score;
+    /** Holds the tile each goblin moves from on this tick. */
+    private final int[] fromTile;
+    /** Holds the tile each goblin moves to on this tick. */
+    private final int[] toTile;
+    /** Holds the tiles changed on the last tick. */
+    private final int[] dirtyTiles;
+    /** Holds the tiles that have an explosion on them. */
+    private final int[] explosionTiles;
+    /** Holds the image type under each explosion. */
+    private final byte[] explosionImages;
+    /** Holds the random number generator used to build levels and place goblins. */
+    private final Random random = new LevelRandom();
+    /** Holds the number of goblins that can be added. */
+    private final int capacity;
+    /** Holds the number of goblins added. */
+    private int goblinCount;
+    /** Holds the number of goblins alive. */
+    private int aliveCount;
+    /** Holds the number of shocked faces left on the game grid. */
+    private int remainingFaces;
+    /** Holds the number of tiles in the dirty list. */
+    private int dirtyCount;
+    /** Holds the number of explosions. */
+    private int explosionCount;
+    /** Holds the number of ticks run, which starts at one. */
+    private int tick = 1;
+
+    //Constructor.
+    /**
+     * Creates an empty arena.  buildLevel() must be called before goblins are
+     * added.
+     *
+     * @param numberOfRows The number of rows in the game grid.
+     * @param numberOfColumns The number of columns in the game grid, including
+     * the shrubs in the first and last columns.  At least three.
+     * @param capacity The most goblins that can be added.
+     */
+    public GoblinArena(int numberOfRows, int numberOfColumns, int capacity) {
+        this.numberOfRows = numberOfRows;
+        this.numberOfColumns = numberOfColumns;
+        this.capacity = capacity;
+
+        board = new byte[numberOfRows * numberOfColumns];
+        occupant = new int[board.length];
+        dirtyTick = new int[board.length];
+        goblinX = new int[capacity];
+        goblinY = new int[capacity];
+        velocity = new byte[capacity];
+        alive = new byte[capacity];
+        controlled = new byte[capacity];
+        score = new int[capacity];
+        fromTile = new int[capacity];
+        toTile = new int[capacity];
+        dirtyTiles = new int[3 * capacity];
+        explosionTiles = new int[capacity];
+        explosionImages = new byte[capacity];
+    }
+
+    /**
+     * Builds a new level and takes away all the goblins.  Shrubs go in the
+     * first and last columns and the wall obstacles and shocked faces are put
+     * on random tiles between them.  The same seed builds the same level.
+     *
+     * @param seed The seed of the level.
+     * @param numberOfWalls The number of wall obstacles.
+     * @param numberOfFaces The number of shocked faces.
+     */
+    public void buildLevel(long seed, int numberOfWalls, int numberOfFaces) {
+        //Declarations.
+        int free = numberOfRows * (numberOfColumns - 2);
+
+        random.setSeed(seed);
+        for(int row = 0; row < numberOfRows; row++) {
+            for(int col = 0; col < numberOfColumns; col++)
+                board[row * numberOfColumns + col] = (byte)Images.STONE;
+            board[row * numberOfColumns] = (byte)Images.SHRUB;
+            board[row * numberOfColumns + numberOfColumns - 1] = (byte)Images.SHRUB;
+        }
+
+        //Never fill the whole game grid, leave room for the goblins.
+        numberOfWalls = Math.min(numberOfWalls, free / 2);
+        numberOfFaces = Math.min(numberOfFaces, free / 4);
+        placeTiles(Images.WALL, numberOfWalls);
+        placeTiles(Images.SHOCKED_FACE, numberOfFaces);
+        remainingFaces = numberOfFaces;
+
+        //Take away the goblins and their explosions.
+        Arrays.fill(occupant, 0);
+        goblinCount = 0;
+        aliveCount = 0;
+        explosionCount = 0;
+        dirtyCount = 0;
+    }
+
+    /**
+     * Adds a goblin on a random stone tile no other goblin is on.
+     *
+     * @param isControlled True if a player sets the velocity of the goblin,
+     * false if the arena steers it.
+     * @return The number of the goblin, or -1 if the arena is full.
+     */
+    public int addGoblin(boolean isControlled) {
+        //Declarations.
+        int tile = -1, candidate, goblin;
+
+        if(goblinCount == capacity)
+            return -1;
+
+        //Try a few random tiles and then search from the last one tried.
+        for(int attempt = 0; attempt < SPAWN_ATTEMPTS && tile < 0; attempt++) {
+            candidate = random.nextInt(board.length);
+            if(board[candidate] == Images.STONE && occupant[candidate] == 0)
+                tile = candidate;
+        }
+        for(int step = 0, start = random.nextInt(board.length); step < board.length && tile < 0; step++) {
+            candidate = (start + step) % board.length;
+            if(board[candidate] == Images.STONE && occupant[candidate] == 0)
+                tile = candidate;
+        }
+        if(tile < 0)
+            return -1;
+
+        goblin = goblinCount++;
+        goblinX[goblin] = tile % numberOfColumns;
+        goblinY[goblin] = tile / numberOfColumns;
+        velocity[goblin] = VELOCITY_STRAIGHT;
+        alive[goblin] = 1;
+        controlled[goblin] = (byte)(isControlled ? 1 : 0);
+        score[goblin] = 0;
+        fromTile[goblin] = tile;
+        toTile[goblin] = tile;
+        occupant[tile] = goblin + 1;
+        aliveCount++;
+        return goblin;
+    }
+
+    /**
+     * Sets the horizontal velocity of a goblin, which it keeps until it is set
+     * again.
+     *
+     * @param goblin The number of the goblin.
+     * @param velocity One of the velocity constants of this class.
+     */
+    public void setVelocity(int goblin, int velocity) {
+        this.velocity[goblin] = (byte)Math.max(VELOCITY_LEFT, Math.min(VELOCITY_RIGHT, velocity));
+    }
+
+    /**
+     * Sets the velocity of every goblin the arena steers.  Each one moves onto
+     * a shocked face on the row above if it can, otherwise keeps going the way
+     * it was going unless that hits a wall, otherwise takes the first move that
+     * does not.
+     */
+    public void steer() {
+        //Declarations.
+        int row, best, move, tile;
+        byte image;
+
+        for(int goblin = 0; goblin < goblinCount; goblin++) {
+            if(alive[goblin] == 0 || controlled[goblin] != 0)
+                continue;
+
+            row = (goblinY[goblin] == 0) ? numberOfRows - 1 : goblinY[goblin] - 1;
+            best = Integer.MIN_VALUE;
+            for(int choice = 0; choice < 4; choice++) {
+                //The current velocity is tried first, then left, straight, and
+                //right.
+                move = (choice == 0) ? velocity[goblin] : choice - 2;
+                tile = row * numberOfColumns + targetColumn(goblinX[goblin], move);
+                image = board[tile];
+                if(image == Images.SHOCKED_FACE) {
+                    best = move;
+                    break;
+                }
+                if(best == Integer.MIN_VALUE && image != Images.WALL)
+                    best = move;
+            }
+            velocity[goblin] = (byte)((best == Integer.MIN_VALUE) ? VELOCITY_STRAIGHT : best);
+        }
+    }
+
+    /**
+     * Moves every goblin that is alive up one row with its velocity and works
+     * out what it hit.  A goblin that moves onto a wall, or onto the same tile
+     * as another goblin, is destroyed.  A goblin that moves alone onto a shocked
+     * face collects it.
+     */
+    public void tick() {
+        //Declarations.
+        int tile, other;
+
+        tick++;
+        dirtyCount = 0;
+
+        //Clear the explosions of the last tick back to what was under them.
+        for(int explosion = 0; explosion < explosionCount; explosion++) {
+            board[explosionTiles[explosion]] = explosionImages[explosion];
+            markDirty(explosionTiles[explosion]);
+        }
+        explosionCount = 0;
+
+        //Work out where each goblin moves.
+        for(int goblin = 0; goblin < goblinCount; goblin++) {
+            if(alive[goblin] == 0)
+                continue;
+
+            goblinY[goblin] = (goblinY[goblin] == 0) ? numberOfRows - 1 : goblinY[goblin] - 1;
+            goblinX[goblin] = targetColumn(goblinX[goblin], velocity[goblin]);
+            toTile[goblin] = goblinY[goblin] * numberOfColumns + goblinX[goblin];
+        }
+
+        //Take every goblin off the tile it was on.
+        for(int goblin = 0; goblin < goblinCount; goblin++) {
+            if(alive[goblin] != 0) {
+                occupant[fromTile[goblin]] = 0;
+                markDirty(fromTile[goblin]);
+            }
+        }
+
+        //Put each goblin on its new tile.  A goblin that hit a wall or found
+        //another goblin already there is destroyed, along with that goblin.
+        //Any more goblins that move onto the tile find the explosion.
+        for(int goblin = 0; goblin < goblinCount; goblin++) {
+            if(alive[goblin] == 0)
+                continue;
+
+            tile = toTile[goblin];
+            markDirty(tile);
+            if(board[tile] == Images.WALL || board[tile] == Images.EXPLOSION) {
+                destroy(goblin, tile);
+                continue;
+            }
+            other = occupant[tile] - 1;
+            if(other < 0) {
+                occupant[tile] = goblin + 1;
+            } else {
+                if(alive[other] != 0)
+                    destroy(other, tile);
+                destroy(goblin, tile);
+            }
+        }
+
+        //Each goblin still alive collects the face it is on and takes its new
+        //tile as the one it moves from next time.
+        for(int goblin = 0; goblin < goblinCount; goblin++) {
+            if(alive[goblin] == 0)
+                continue;
+
+            tile = toTile[goblin];
+            if(board[tile] == Images.SHOCKED_FACE) {
+                board[tile] = (byte)Images.STONE;
+                score[goblin]++;
+                remainingFaces--;
+            }
+            fromTile[goblin] = tile;
+        }
+    }
+
+    /**
+     * Gets the image type of a tile, which is a goblin if one is on it.
+     *
+     * @param row The row of the tile.
+     * @param col The column of the tile.
+     * @return An integer indicating the image type which corresponds to
+     * constants set in the Images Class.
+     */
+    public int getTile(int row, int col) {
+        //Declarations.
+        int tile = row * numberOfColumns + col;
+
+        return (occupant[tile] != 0) ? Images.GOBLIN : board[tile];
+    }
+
+    /**
+     * Gets the number of tiles that changed on the last tick.
+     *
+     * @return The number of tiles.
+     */
+    public int getDirtyCount() {
+        return dirtyCount;
+    }
+
+    /**
+     * Gets a tile that changed on the last tick.
+     *
+     * @param index The place in the list of changed tiles, less than the dirty
+     * count.
+     * @return The tile as its row times the number of columns plus its column.
+     */
+    public int getDirtyTile(int index) {
+        return dirtyTiles[index];
+    }
+
+    /**
+     * Gets the column of a goblin.
+     *
+     * @param goblin The number of the goblin.
+     * @return The column.
+     */
+    public int getGoblinX(int goblin) {
+        return goblinX[goblin];
+    }
+
+    /**
+     * Gets the row of a goblin.
+     *
+     * @param goblin The number of the goblin.
+     * @return The row.
+     */
+    public int getGoblinY(int goblin) {
+        return goblinY[goblin];
+    }
+
+    /**
+     * Gets the horizontal velocity of a goblin.
+     *
+     * @param goblin The number of the goblin.
+     * @return One of the velocity constants of this class.
+     */
+    public int getVelocity(int goblin) {
+        return velocity[goblin];
+    }
+
+    /**
+     * Checks if a goblin is alive.
+     *
+     * @param goblin The number of the goblin.
+     * @return True if the goblin is alive.
+     */
+    public boolean isAlive(int goblin) {
+        return alive[goblin] != 0;
+    }
+
+    /**
+     * Gets the number of faces a goblin collected.
+     *
+     * @param goblin The number of the goblin.
+     * @return The score.
+     */
+    public int getScore(int goblin) {
+        return score[goblin];
+    }
+
+    /**
+     * Gets the number of goblins added since the level was built.
+     *
+     * @return The number of goblins.
+     */
+    public int getGoblinCount() {
+        return goblinCount;
+    }
+
+    /**
+     * Gets the number of goblins alive.
+     *
+     * @return The number of goblins.
+     */
+    public int getAliveCount() {
+        return aliveCount;
+    }
+
+    /**
+     * Gets the number of shocked faces left on the game grid.
+     *
+     * @return The number of faces.
+     */
+    public int getRemainingFaces() {
+        return remainingFaces;
+    }
+
+    /**
+     * Gets the number of rows in the game grid.
+     *
+     * @return The number of rows.
+     */
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    /**
+     * Gets the number of columns in the game grid.
+     *
+     * @return The number of columns.
+     */
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    /**
+     * Works out the column a goblin moves to.  A move into a shrub leaves the
+     * goblin in the same column.
+     *
+     * @param col The column the goblin is in.
+     * @param move The horizontal velocity of the goblin.
+     * @return The column.
+     */
+    private int targetColumn(int col, int move) {
+        //Declarations.
+        int target = col + move;
+
+        return (target == 0 || target == numberOfColumns - 1) ? col : target;
+    }
+
+    /**
+     * Puts image types on random stone tiles between the shrubs.
+     *
+     * @param imageType The image type.
+     * @param count The number of tiles.
+     */
+    private void placeTiles(int imageType, int count) {
+        //Declarations.
+        int tile;
+
+        while(count > 0) {
+            tile = random.nextInt(numberOfRows) * numberOfColumns + random.nextInt(numberOfColumns - 2) + 1;
+            if(board[tile] == Images.STONE) {
+                board[tile] = (byte)imageType;
+                count--;
+            }
+        }
+    }
+
+    /**
+     * Destroys a goblin and leaves an explosion on the tile.  A tile gets only
+     * one explosion however many goblins are destroyed on it, and whatever was
+     * under it, a wall or a face included, comes back when it is cleared.
+     *
+     * @param goblin The number of the goblin.
+     * @param tile The tile.
+     */
+    private void destroy(int goblin, int tile) {
+        alive[goblin] = 0;
+        aliveCount--;
+        occupant[tile] = 0;
+        if(board[tile] != Images.EXPLOSION) {
+            explosionTiles[explosionCount] = tile;
+            explosionImages[explosionCount] = board[tile];
+            explosionCount++;
+            board[tile] = (byte)Images.EXPLOSION;
+        }
+    }
+
+    /**
+     * Adds a tile to the list of tiles that changed on this tick, unless it is
+     * already on it.
+     *
+     * @param tile The tile.
+     */
+    private void markDirty(int tile) {
+        if(dirtyTick[tile] != tick) {
+            dirtyTick[tile] = tick;
+            dirtyTiles[dirtyCount++] = tile;
+        }
+    }
+}
@@ -29,7 +29,9 @@
 package model;
 
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
+import java.util.Random;
+import metrics.BuildLevelEvent;
+import metrics.InputEvent;
 
 /**
  * The model in the game MVC architecture.  This class is responsible for
@@ -123,6 +125,40 @@ public class GoblinModel {
     /** The value that represents the 'Enter' key on the keyboard. */
     public static final int NEW_GAME = 10;
     
+    /**
+     * The value that represents that built levels are not checked to see if the
+     * goblin can reach all the shocked faces.
+     */
+    public static final int LEVEL_CHECK_NONE = 0;
+    /**
+     * The value that represents that built levels where the goblin can not reach
+     * all the shocked faces are thrown away and built again.
+     */
+    public static final int LEVEL_CHECK_REJECT = 1;
+    /**
+     * The value that represents that built levels where the goblin can not reach
+     * all the shocked faces are repaired by moving the stranded faces to tiles
+     * the goblin can reach.
+     */
+    public static final int LEVEL_CHECK_REPAIR = 2;
+    
+    /** The default number of shocked faces placed on each level. */
+    public static final int DEFAULT_FACES_PER_LEVEL = 10;
+    /** The largest number of shocked faces that can be placed on each level. */
+    public static final int MAX_FACES_PER_LEVEL = 100;
+    
+    /**
+     * The number of times a level will be thrown away and built again before the
+     * stranded faces are repaired instead.
+     */
+    private static final int MAX_BUILD_ATTEMPTS = 100;
+    /**
+     * The most key presses the key press buffer holds.  Key presses made while
+     * it is full are dropped so holding a key down can not queue up moves
+     * without end.
+     */
+    public static final int KEY_BUFFER_SIZE = 64;
+    
     /** Holds the number of rows in the current game grid. */
     private int numberOfRows;
     /** Holds the number of columns in the current game grid. */
@@ -157,10 +193,78 @@ public class GoblinModel {
      * multiplied by the level number.
      */
     private int additionalNumberOfWallsPerLevel;
-    /** Two-dimensional array that holds the game grid. */
-    private Tile[][] tile;
-    /** First-in first-out buffer that holds the key presses. */
-    private ArrayList<Integer> keyPresses = new ArrayList<Integer>();
+    /**
+     * Array that holds the image type of each tile of the game grid.  Each row
+     * takes up the width of the largest game grid so the tile at a row and
+     * column is at row times the largest grid size plus column.
+     */
+    private byte[] board;
+    /**
+     * Holds the Zobrist hash of the board, which is kept up to date each time
+     * a tile changes.
+     */
+    private long boardHash;
+    /**
+     * Holds the random number generator used to build the levels.  Two models
+     * given the same seed build the same levels.
+     */
+    private Random random = new LevelRandom();
+    /**
+     * First-in first-out ring buffer that holds the key presses.  Its length is
+     * the buffer size, which is a power of two.
+     */
+    private final int[] keyPresses = new int[KEY_BUFFER_SIZE];
+    /** Holds the place in the key press buffer of the oldest key press. */
+    private int keyPressHead;
+    /** Holds the number of key presses in the key press buffer. */
+    private int keyPressCount;
+    /** Holds the bit mask of the wall obstacles in each row of the game grid. */
+    private long[] wallRows = new long[LARGE_GRID_SIZE];
+    /** Holds the bit mask of the shocked faces in each row of the game grid. */
+    private long[] faceRows = new long[LARGE_GRID_SIZE];
+    /** Holds the number of shocked faces placed on each level. */
+    private int facesPerLevel = DEFAULT_FACES_PER_LEVEL;
+    /** Holds the number of shocked faces left on the game grid. */
+    private int remainingFaces;
+    /**
+     * Holds the row of each shocked face left on the game grid.  Only the first
+     * remaining faces entries are used.
+     */
+    private int[] faceRowIndex = new int[MAX_FACES_PER_LEVEL];
+    /**
+     * Holds the column of each shocked face left on the game grid.  Only the
+     * first remaining faces entries are used.
+     */
+    private int[] faceColIndex = new int[MAX_FACES_PER_LEVEL];
+    /** Holds the bit mask of the tiles the goblin can move onto in each row. */
+    private long[] openRows = new long[LARGE_GRID_SIZE];
+    /** Analyzer used to check that the goblin can reach all the faces. */
+    private LevelAnalyzer levelAnalyzer = new LevelAnalyzer();
+    /** Holds the value that represents how built levels are checked. */
+    private int levelCheck = LEVEL_CHECK_REJECT;
+    /** Holds the number of times the last level was built before it passed. */
+    private int buildAttempts;
+    /**
+     * Holds the boolean value that indicates if the last level built had
+     * shocked faces that could not be reached moved to tiles that can be.
+     */
+    private boolean levelRepaired;
+    /** Advisor used in practice mode to work out which moves are safe. */
+    private MoveAdvisor moveAdvisor = new MoveAdvisor();
+    /** Holds the boolean value that indicates if practice mode is on. */
+    private boolean practiceMode;
+    /**
+     * Holds the boolean value that indicates if the move advisor was given the
+     * current level, which is only the case if practice mode was on when the
+     * level was built.
+     */
+    private boolean advising;
+    /**
+     * Holds the listeners that receive events from the model.  The array is
+     * replaced, never changed, when a listener is added or removed so that
+     * delivering an event never needs a lock or a copy.
+     */
+    private volatile GoblinModelListener[] listeners = new GoblinModelListener[0];
     
     //Constructor.
     /**
@@ -190,14 +294,12 @@ public class GoblinModel {
         //Instruct the Images class to build all the game tile images.
         Images.buildGameImages();
         
-        //Instantiate the game grid array to the largest size possible.
-        tile = new Tile[LARGE_GRID_SIZE][LARGE_GRID_SIZE];
-        
-        //Initilize each element of the game grid array with a Tile object.
-        for(int row = 0; row < tile.length; row++) {
-            for(int col = 0; col < tile[row].length; col++) {
-		tile[row][col] = new Tile();
-            }
+        //Instantiate the game grid array to the largest size possible, all
+        //stone, and work out its hash.
+        board = new byte[LARGE_GRID_SIZE * LARGE_GRID_SIZE];
+        for(int tile = 0; tile < board.length; tile++) {
+            board[tile] = (byte)Images.STONE;
+            boardHash ^= ZobristKeys.tile(tile, Images.STONE);
         }
     }
     
@@ -207,10 +309,12 @@ public class GoblinModel {
      */
     public void buildGameGrid() {
         //Show a game grid that is comprised of stone tiles in the size of the
-        //current game grid.
-        for(int row = 0; row < numberOfRows; row++) {
-            for(int col = 0; col < numberOfColumns; col++) {
-                tile[row][col].setImageType(imageSize, Images.STONE);
+        //current game grid.  The tiles past it, left over from a larger game
+        //grid, are cleared too so the board hash only depends on the tiles in
+        //the game grid.
+        for(int row = 0; row < LARGE_GRID_SIZE; row++) {
+            for(int col = 0; col < LARGE_GRID_SIZE; col++) {
+                setImageType(row, col, Images.STONE);
             }
         }
 
@@ -218,6 +322,9 @@ public class GoblinModel {
         //column number for the right shrubs.  They are always in the right-most
         //column which is the number of columns minus one.
         rightShrubColumn = numberOfColumns - 1;
+        
+        //There is no level for the move advisor to advise on.
+        advising = false;
     }
     
     /**
@@ -248,23 +355,104 @@ public class GoblinModel {
     
     /**
      * Method that builds the game level.  Shrubs, wall obstacles, shocked faces,
-     * and the goblin are all placed on the game grid.
+     * and the goblin are all placed on the game grid.  Depending on the level
+     * check setting the level is then checked to make sure the goblin can reach
+     * all of the shocked faces and is either built again or repaired if it can
+     * not.
      */
     public void buildLevel() {
+        //Declarations.
+        int strandedFaces = 0;
+        BuildLevelEvent event = null;
+        
+        //Start timing the build for the flight recorder.  No event is made
+        //unless a recording is taking them.
+        if(BuildLevelEvent.TYPE.isEnabled()) {
+            event = new BuildLevelEvent();
+            event.begin();
+        }
+        
+        //Place everything on the game grid.  If levels are being rejected then
+        //keep building until every face can be reached or the number of attempts
+        //runs out.
+        buildAttempts = 0;
+        do {
+            placeLevel();
+            buildAttempts++;
+            
+            if(levelCheck != LEVEL_CHECK_NONE)
+                strandedFaces = countStrandedFaces();
+        } while(strandedFaces > 0 && levelCheck == LEVEL_CHECK_REJECT && buildAttempts < MAX_BUILD_ATTEMPTS);
+        
+        //If there are still faces that can not be reached then move them to
+        //tiles that can be reached.
+        levelRepaired = strandedFaces > 0;
+        if(levelRepaired)
+            repairStrandedFaces();
+        
+        //In practice mode give the advisor the new level and the starting
+        //position of the goblin.
+        advising = practiceMode;
+        if(advising) {
+            updateOpenRows();
+            moveAdvisor.levelBuilt(openRows, faceRows, numberOfRows, numberOfColumns);
+            moveAdvisor.update(currentGoblinX, currentGoblinY);
+        }
+        
+        //Increase the level number.
+        level++;
+        
+        //Clear the key press buffer.
+        keyPressHead = 0;
+        keyPressCount = 0;
+        
+        //The level is built.  If the flight recorder wants the event then fill
+        //it in and send it.
+        if(event != null) {
+            event.end();
+            if(event.shouldCommit()) {
+                event.level = level;
+                event.gridSize = numberOfRows;
+                event.rejectionCount = buildAttempts - 1;
+                event.commit();
+            }
+        }
+        
+        //Game board ready, tell the listeners and change the state of the
+        //model.
+        for(GoblinModelListener listener : listeners)
+            listener.levelBuilt(level);
+        setState(STATE_BEGIN_LEVEL);
+    }
+    
+    /**
+     * Method that places the shrubs, wall obstacles, shocked faces, and the
+     * goblin on the game grid.  The bit masks of the wall obstacles and shocked
+     * faces are kept up to date as they are placed.
+     */
+    private void placeLevel() {
         //Declarations.
         boolean goblinPlaced = false;
-        int row, col, wallCount = 0, faceCount = 0;
+        int row, col, wallCount = 0;
+        
+        //Start with no wall obstacles or shocked faces in the bit masks or the
+        //face index.
+        for(row = 0; row < numberOfRows; row++) {
+            wallRows[row] = 0L;
+            faceRows[row] = 0L;
+        }
+        remainingFaces = 0;
         
         //Shrubs go down each side.
         for(row = 0; row < numberOfRows; row++) {
-            tile[row][leftShrubColumn].setImageType(imageSize, Images.SHRUB);
-            tile[row][rightShrubColumn].setImageType(imageSize, Images.SHRUB);
+            setImageType(row, leftShrubColumn, Images.SHRUB);
+            setImageType(row, rightShrubColumn, Images.SHRUB);
         }
         
         //Place blank stone tiles on the rest of the screen.
         for(row = 0; row < numberOfRows; row++) {
             for(col = leftShrubColumn + 1; col < rightShrubColumn; col++) {
-                tile[row][col].setImageType(imageSize, Images.STONE);
+                setImageType(row, col, Images.STONE);
             }
         }
         
@@ -275,15 +463,15 @@ public class GoblinModel {
         //3.  There can not be three (3) walls in a row anywhere.
         while(wallCount < baseNumberOfWalls + additionalNumberOfWallsPerLevel * level) {
             //Get a random row number from zero (0) to number of rows.
-            row = (int)(Math.random() * numberOfRows);
+            row = (int)(random.nextDouble() * numberOfRows);
             
             //Get a random column number from one (1) to right shrub column minus
             //one (1).
-            col = (int)(Math.random() * (rightShrubColumn - 1)) + 1;
+            col = (int)(random.nextDouble() * (rightShrubColumn - 1)) + 1;
             
             //Check the first rule.  If a wall already exists in this spot then
             //skip the rest of the loop and start over.
-            if(tile[row][col].getImageType() == Images.WALL)
+            if(getImageType(row, col) == Images.WALL)
                 continue;
             
             //The space is empty, check rule two.
@@ -295,28 +483,28 @@ public class GoblinModel {
                 //the space directly to the right of the proposed location in the
                 //same row.  If a wall is found then skip the rest of the loop
                 //and start over.
-                if(tile[row][col + 1].getImageType() == Images.WALL)
+                if(getImageType(row, col + 1) == Images.WALL)
                     continue;
             } else if(col == rightShrubColumn - 1){
                 //The proposed wall location is up against the right shrubs.
                 //Check the space directly to the left of the proposed location
                 //in the same row.  If a wall is found then skip the rest of the
                 //loop and start over.
-                if(tile[row][col - 1].getImageType() == Images.WALL)
+                if(getImageType(row, col - 1) == Images.WALL)
                     continue;
             } else if(col == leftShrubColumn + 2) {
                 //The proposed wall location is the second column from the left
                 //shrub.  Check the space directly next to the left shrub in the
                 //same row.  If a wall is found then skip the rest of the loop
                 //and start over.
-                if(tile[row][leftShrubColumn + 1].getImageType() == Images.WALL)
+                if(getImageType(row, leftShrubColumn + 1) == Images.WALL)
                     continue;
             } else if(col == rightShrubColumn - 2) {
                 //The proposed wall location is the second column from the right
                 //shrub.  Check the space directly next to the right shrub in the
                 //same row.  If a wall is found then skip the rest of the loop
                 //and start over.
-                if(tile[row][rightShrubColumn - 1].getImageType() == Images.WALL)
+                if(getImageType(row, rightShrubColumn - 1) == Images.WALL)
                     continue;
             }
             
@@ -344,8 +532,8 @@ public class GoblinModel {
                 //The proposed location could be located to the left of two (2)
                 //exisiting walls.  Check in the same row and if two (2) walls
                 //are found then skip the rest of the loop and start over.
-                if(tile[row][col + 1].getImageType() == Images.WALL &&
-                        tile[row][col + 2].getImageType() == Images.WALL)
+                if(getImageType(row, col + 1) == Images.WALL &&
+                        getImageType(row, col + 2) == Images.WALL)
                     continue;
             }
             
@@ -353,8 +541,8 @@ public class GoblinModel {
                 //The proposed location could be located to the right of two (2)
                 //existing walls.  Check in the same row and if two (2) walls are
                 //found then skip the rest of the loop and start over.
-                if(tile[row][col - 1].getImageType() == Images.WALL &&
-                        tile[row][col - 2].getImageType() == Images.WALL)
+                if(getImageType(row, col - 1) == Images.WALL &&
+                        getImageType(row, col - 2) == Images.WALL)
                     continue;
             }
             
@@ -362,41 +550,46 @@ public class GoblinModel {
                 //The proposed location could be located in between two (2)
                 //existing walls.  Check in the same row and if two (2) walls are
                 //found then skip the rest of the loop and start over.
-                if(tile[row][col + 1].getImageType() == Images.WALL &&
-                        tile[row][col - 1].getImageType() == Images.WALL)
+                if(getImageType(row, col + 1) == Images.WALL &&
+                        getImageType(row, col - 1) == Images.WALL)
                     continue;
             }
             
             //The proposed location for the wall is acceptable.  Place it and
             //then increment the counter.
-            tile[row][col].setImageType(imageSize, Images.WALL);
+            setImageType(row, col, Images.WALL);
+            wallRows[row] |= 1L << col;
             wallCount++;
         }
         
-        //Place ten (10) shocked faces randomly on the playing field.  The two
-        //rules are:
+        //Place the number of shocked faces per level, ten (10) by default,
+        //randomly on the playing field.  The two rules are:
         //1.  A shocked face cannot be placed where there is a wall.
         //2.  A shocked face cannot be placed where there is another shocked
         //    face.
-        while(faceCount < 10) {
+        while(remainingFaces < facesPerLevel) {
             //Get a random row number from zero (0) to number of rows.
-            row = (int)(Math.random() * numberOfRows);
+            row = (int)(random.nextDouble() * numberOfRows);
             
             //Get a random column number from one (1) to right shrub column minus
             //one (1).
-            col = (int)(Math.random() * (rightShrubColumn - 1)) + 1;
+            col = (int)(random.nextDouble() * (rightShrubColumn - 1)) + 1;
             
             //Check if there is a wall at the proposed location.  If there is
             //then skip the rest of the loop and start over.  Otherwise, place
             //the face.
-            if(tile[row][col].getImageType() == Images.WALL ||
-                    tile[row][col].getImageType() == Images.SHOCKED_FACE)
+            if(getImageType(row, col) == Images.WALL ||
+                    getImageType(row, col) == Images.SHOCKED_FACE)
                 continue;
             else
-                tile[row][col].setImageType(imageSize, Images.SHOCKED_FACE);
+                setImageType(row, col, Images.SHOCKED_FACE);
             
-            //The face has been placed, increment the counter.
-            faceCount++;
+            //The face has been placed, mark it in the bit mask and add it to the
+            //face index.
+            faceRows[row] |= 1L << col;
+            faceRowIndex[remainingFaces] = row;
+            faceColIndex[remainingFaces] = col;
+            remainingFaces++;
         }
 
         //Place the goblin at a random spot on the last row which is the number
@@ -405,31 +598,101 @@ public class GoblinModel {
         while(!goblinPlaced) {
             //Get a random column number from one (1) to right shrub column minus
             //one (1).
-            col = (int)(Math.random() * (rightShrubColumn - 1)) + 1;
+            col = (int)(random.nextDouble() * (rightShrubColumn - 1)) + 1;
             
             //Check if the proposed location is already occupied.  If it is then
             //skip the rest of the loop and start over. Otherwise, place the
             //goblin.
-            if(tile[numberOfRows - 1][col].getImageType() == Images.WALL ||
-                    tile[numberOfRows - 1][col].getImageType() == Images.SHOCKED_FACE)
+            if(getImageType(numberOfRows - 1, col) == Images.WALL ||
+                    getImageType(numberOfRows - 1, col) == Images.SHOCKED_FACE)
                 continue;
             else
-                tile[numberOfRows - 1][col].setImageType(imageSize, Images.GOBLIN);
+                setImageType(numberOfRows - 1, col, Images.GOBLIN);
             
             //Mark the goblin's location and indicate that it has been placed.
             currentGoblinX = col;
             currentGoblinY = numberOfRows - 1;
             goblinPlaced = true;
         }
+    }
+    
+    /**
+     * Method that works out which tiles the goblin can reach from its starting
+     * position and counts the shocked faces that can not be reached.
+     * 
+     * @return The number of shocked faces the goblin can not reach.
+     */
+    private int countStrandedFaces() {
+        updateOpenRows();
+        return levelAnalyzer.analyze(openRows, faceRows, numberOfRows, currentGoblinX);
+    }
+    
+    /**
+     * Method that works out the bit mask of the tiles the goblin can move onto
+     * in each row from the bit mask of the wall obstacles.
+     */
+    private void updateOpenRows() {
+        //Declarations.
+        long interior;
         
-        //Game board ready, change the state of the model.
-        currentState = STATE_BEGIN_LEVEL;
+        //The goblin can move onto any tile between the shrubs that does not
+        //have a wall obstacle on it.
+        interior = ((1L << rightShrubColumn) - 1L) & ~(1L << leftShrubColumn);
+        for(int row = 0; row < numberOfRows; row++)
+            openRows[row] = interior & ~wallRows[row];
+    }
+    
+    /**
+     * Method that moves every shocked face the goblin can not reach to a random
+     * stone tile that the goblin can reach.  The reachable tiles are taken from
+     * the last analysis of the level.
+     */
+    private void repairStrandedFaces() {
+        //Declarations.
+        int row, col, face, target, freeTiles = 0;
+        long stranded, free;
         
-        //Increase the level number.
-        level++;
+        //Count the stone tiles that can be reached.  These are the reachable
+        //tiles less the shocked faces and the goblin.
+        for(row = 0; row < numberOfRows; row++)
+            freeTiles += Long.bitCount(levelAnalyzer.getReachableRow(row) & ~faceRows[row]);
+        freeTiles--;
         
-        //Clear the key press buffer.
-        keyPresses.clear();
+        for(row = 0; row < numberOfRows; row++) {
+            stranded = faceRows[row] & ~levelAnalyzer.getReachableRow(row);
+            while(stranded != 0L && freeTiles > 0) {
+                //Take the stranded face off the game grid.
+                col = Long.numberOfTrailingZeros(stranded);
+                stranded &= stranded - 1L;
+                setImageType(row, col, Images.STONE);
+                faceRows[row] &= ~(1L << col);
+                face = findFace(row, col);
+                
+                //Pick one of the free reachable tiles at random and find it by
+                //counting through the rows.
+                target = (int)(random.nextDouble() * freeTiles);
+                for(int r = 0; r < numberOfRows; r++) {
+                    free = levelAnalyzer.getReachableRow(r) & ~faceRows[r];
+                    if(r == currentGoblinY)
+                        free &= ~(1L << currentGoblinX);
+                    
+                    if(target < Long.bitCount(free)) {
+                        //The tile is in this row.  Drop the lowest columns until
+                        //the target is reached and place the face there.
+                        for(; target > 0; target--)
+                            free &= free - 1L;
+                        col = Long.numberOfTrailingZeros(free);
+                        setImageType(r, col, Images.SHOCKED_FACE);
+                        faceRows[r] |= 1L << col;
+                        faceRowIndex[face] = r;
+                        faceColIndex[face] = col;
+                        break;
+                    }
+                    target -= Long.bitCount(free);
+                }
+                freeTiles--;
+            }
+        }
     }
     
     /**
@@ -438,10 +701,13 @@ public class GoblinModel {
      * shocked faces.
      */
     public void moveGoblin() {
+        //Declarations.
+        int face, newState;
+        
         //Store the current goblin location and change the tile to stone.
         lastGoblinX = currentGoblinX;
         lastGoblinY = currentGoblinY;
-        tile[currentGoblinY][currentGoblinX].setImageType(imageSize, Images.STONE);
+        setImageType(currentGoblinY, currentGoblinX, Images.STONE);
         
         //Automatically move the goblin up one.  If the end of the rows has been
         //reached, which is equal to zero (0), then restart the goblin at the
@@ -452,80 +718,154 @@ public class GoblinModel {
             currentGoblinY--;
         
         //Now check if there was any left or right movement.
-        if(!keyPresses.isEmpty()) {
+        if(keyPressCount != 0) {
             //There is at least one movement in the cue.  Adjust the X of the
             //goblin based on the movement direction.
-            if(keyPresses.get(0) == MOVE_LEFT)
+            if(keyPresses[keyPressHead] == MOVE_LEFT)
                 currentGoblinX--;
             else
                 currentGoblinX++;
             
+            //If the flight recorder wants the event then fill it in and send
+            //it.  No event is made unless a recording is taking them.
+            if(InputEvent.TYPE.isEnabled()) {
+                InputEvent event = new InputEvent();
+                if(event.shouldCommit()) {
+                    event.keyPress = keyPresses[keyPressHead];
+                    event.queued = keyPressCount - 1;
+                    event.level = level;
+                    event.commit();
+                }
+            }
+            
             //Clear the key press from the buffer.
-            keyPresses.remove(0);            
+            keyPressHead = (keyPressHead + 1) & (KEY_BUFFER_SIZE - 1);
+            keyPressCount--;
         }
         
-        //Before placeing the goblin in the new location check for any shrub,
-        //shocked faces, or walls.
-        switch(tile[currentGoblinY][currentGoblinX].getImageType()) {
-            case Images.SHRUB:
-                //Shrub found, don't allow the goblin to move there by changing
-                //the current X position to the last one.  Change the model state
-                //to level running to indicate nothing of interest happened.
-                currentGoblinX = lastGoblinX;
-                tile[currentGoblinY][currentGoblinX].setImageType(imageSize, Images.GOBLIN);
-                currentState = STATE_LEVEL_RUNNING;
-                break;
+        //Check for a shrub in the new location.  If one is found don't allow
+        //the goblin to move there by changing the current X position to the
+        //last one.  The goblin still moves up so the tile directly above it is
+        //checked the same as any other move.
+        if(getImageType(currentGoblinY, currentGoblinX) == Images.SHRUB)
+            currentGoblinX = lastGoblinX;
+        
+        //Before placeing the goblin in the new location check for any shocked
+        //faces or walls.
+        switch(getImageType(currentGoblinY, currentGoblinX)) {
             case Images.SHOCKED_FACE:
                 //Shocked face found.  Increase the score and draw the goblin in
                 //the new location.
                 score++;
-                tile[currentGoblinY][currentGoblinX].setImageType(imageSize, Images.GOBLIN);
+                setImageType(currentGoblinY, currentGoblinX, Images.GOBLIN);
+                faceRows[currentGoblinY] &= ~(1L << currentGoblinX);
+                if(advising)
+                    moveAdvisor.facesChanged(faceRows);
+                
+                //Take the face out of the face index by moving the last face in
+                //the index into its place.
+                face = findFace(currentGoblinY, currentGoblinX);
+                remainingFaces--;
+                faceRowIndex[face] = faceRowIndex[remainingFaces];
+                faceColIndex[face] = faceColIndex[remainingFaces];
                 
                 //The state will either be that the goblin got a face if there
                 //are more faces left on the game grid, or level cleared if there
-                //are no faces left.  Taking the score mod 10 will indicate if
-                //there are faces left.  If 0 is returned then all the faces have
-                //been gotten.
-                currentState = (score % 10 == 0) ? STATE_LEVEL_CLEARED : STATE_GOBLIN_GOT_FACE;
+                //are no faces left.
+                newState = (remainingFaces == 0) ? STATE_LEVEL_CLEARED : STATE_GOBLIN_GOT_FACE;
                 break;
             case Images.WALL:
                 //Wall obstacle found.  Draw an explosion in the new location,
                 //make all the remaining faces happy, and then change the state
                 //of the model to goblin destroyed.
-                tile[currentGoblinY][currentGoblinX].setImageType(imageSize, Images.EXPLOSION);
+                setImageType(currentGoblinY, currentGoblinX, Images.EXPLOSION);
                 makeAllFacesHappy();
-                currentState = STATE_GOBLIN_DESTROYED;
+                newState = STATE_GOBLIN_DESTROYED;
                 break;
             default:
                 //Nothing found, move the goblin to the new location and change
                 //the state to level running to indicate that nothing interesting
                 //happened.
-                tile[currentGoblinY][currentGoblinX].setImageType(imageSize, Images.GOBLIN);
-                currentState = STATE_LEVEL_RUNNING;
+                setImageType(currentGoblinY, currentGoblinX, Images.GOBLIN);
+                newState = STATE_LEVEL_RUNNING;
                 break;
         }
+        
+        //In practice mode work out the advice for the next move.
+        if(advising)
+            moveAdvisor.update(currentGoblinX, currentGoblinY);
+        
+        //Tell the listeners what happened.  The goblin always moves, then
+        //either a face was collected or the goblin was destroyed, and the
+        //state change is always last.
+        for(GoblinModelListener listener : listeners) {
+            listener.goblinMoved(lastGoblinX, lastGoblinY, currentGoblinX, currentGoblinY);
+            
+            if(newState == STATE_GOBLIN_GOT_FACE || newState == STATE_LEVEL_CLEARED) {
+                listener.faceCollected(currentGoblinX, currentGoblinY, remainingFaces);
+                listener.scoreChanged(score);
+            } else if(newState == STATE_GOBLIN_DESTROYED) {
+                listener.goblinDestroyed(currentGoblinX, currentGoblinY);
+            }
+        }
+        setState(newState);
     }
     
     /**
      * Method that changes the state of the model to ready to build level.
      */
     public void changeStateToBuildLevel() {
-        currentState = STATE_BUILD_LEVEL;
+        setState(STATE_BUILD_LEVEL);
     }
     
     /**
-     * Method that scans the entire game grid for shocked faces and if found
-     * changes them to happy faces.
+     * Method that changes the state of the model and, if it is different from
+     * the last state, tells the listeners.
+     * 
+     * @param newState The value that represents the new state of the model.
+     */
+    private void setState(int newState) {
+        //Declarations.
+        int previousState = currentState;
+        
+        currentState = newState;
+        if(previousState != newState) {
+            for(GoblinModelListener listener : listeners)
+                listener.stateChanged(previousState, newState);
+        }
+    }
+    
+    /**
+     * Method that changes all the shocked faces left on the game grid to happy
+     * faces.  The faces are found through the face index.
      */
     public void makeAllFacesHappy() {
-        //Go through each tile and if a shocked face is found change it to a
-        //happy face tile.
-        for(int row = 0; row < numberOfRows; row++) {
-            for(int col = 0; col < numberOfColumns; col++) {
-                if(tile[row][col].getImageType() == Images.SHOCKED_FACE)
-                    tile[row][col].setImageType(imageSize, Images.HAPPY_FACE);
-            }
+        //Go through each face in the index and change it to a happy face tile.
+        for(int face = 0; face < remainingFaces; face++) {
+            setImageType(faceRowIndex[face], faceColIndex[face], Images.HAPPY_FACE);
+            faceRows[faceRowIndex[face]] = 0L;
         }
+        
+        //There are no shocked faces left.
+        remainingFaces = 0;
+    }
+    
+    /**
+     * Method that finds a shocked face in the face index.
+     * 
+     * @param row The row of the shocked face.
+     * @param col The column of the shocked face.
+     * @return The position of the face in the face index, or -1 if it is not
+     * found.
+     */
+    private int findFace(int row, int col) {
+        //Check each face in the index.
+        for(int face = 0; face < remainingFaces; face++) {
+            if(faceRowIndex[face] == row && faceColIndex[face] == col)
+                return face;
+        }
+        
+        return -1;
     }
     
     /**
@@ -535,8 +875,8 @@ public class GoblinModel {
     public void clearExplosion() {
         //The explosion will be in the current goblin X,Y coordinate.  Clear it
         //to a stone tile and change the state of the model to game over.
-        tile[currentGoblinY][currentGoblinX].setImageType(imageSize, Images.STONE);
-        currentState = STATE_GAME_OVER;
+        setImageType(currentGoblinY, currentGoblinX, Images.STONE);
+        setState(STATE_GAME_OVER);
     }
     
     /**
@@ -545,9 +885,56 @@ public class GoblinModel {
      */
     public void reset() {
         //Set score and level to zero, and change state to ready to build level.
-        score = 0;
+        //If the score changed tell the listeners.
+        if(score != 0) {
+            score = 0;
+            for(GoblinModelListener listener : listeners)
+                listener.scoreChanged(score);
+        }
         level = 0;
-        currentState = STATE_BUILD_LEVEL;
+        setState(STATE_BUILD_LEVEL);
+    }
+    
+    /**
+     * Adds a listener to receive events from the model.
+     * 
+     * @param listener The listener to be added.
+     */
+    public synchronized void addModelListener(GoblinModelListener listener) {
+        //Declarations.
+        GoblinModelListener[] newListeners = new GoblinModelListener[listeners.length + 1];
+        
+        //Copy the current listeners into a new array with room for one more.
+        System.arraycopy(listeners, 0, newListeners, 0, listeners.length);
+        newListeners[listeners.length] = listener;
+        listeners = newListeners;
+    }
+    
+    /**
+     * Removes a listener so it no longer receives events from the model.
+     * 
+     * @param listener The listener to be removed.
+     */
+    public synchronized void removeModelListener(GoblinModelListener listener) {
+        //Declarations.
+        GoblinModelListener[] newListeners;
+        int index = -1;
+        
+        //Find the listener.  If it is not there then there is nothing to do.
+        for(int i = 0; i < listeners.length; i++) {
+            if(listeners[i] == listener) {
+                index = i;
+                break;
+            }
+        }
+        if(index < 0)
+            return;
+        
+        //Copy all the other listeners into a new array.
+        newListeners = new GoblinModelListener[listeners.length - 1];
+        System.arraycopy(listeners, 0, newListeners, 0, index);
+        System.arraycopy(listeners, index + 1, newListeners, index, listeners.length - index - 1);
+        listeners = newListeners;
     }
     
     /**
@@ -577,6 +964,17 @@ public class GoblinModel {
         return tileSize;
     }
     
+    /**
+     * Sets the current level number.  The next level built is one higher, so a
+     * game can be started from a later level by setting this after a reset.
+     * 
+     * @param level The level number, zero or more.
+     */
+    public void setLevel(int level) {
+        if(level >= 0)
+            this.level = level;
+    }
+    
     /**
      * Gets the current level the model is in.
      * 
@@ -648,7 +1046,140 @@ public class GoblinModel {
      * @return Image of the tile at the row and column position.
      */
     public BufferedImage getTile(int row, int col) {
-        return tile[row][col].getImage();
+        return Images.getImage(imageSize, board[row * LARGE_GRID_SIZE + col]);
+    }
+    
+    /**
+     * Gets the image type of the tile at the row and column position.
+     * 
+     * @param row The row of the tile.
+     * @param col The column of the tile.
+     * @return An integer indicating the image type which corresponds to
+     * constants set in the Images Class.
+     */
+    public int getImageType(int row, int col) {
+        return board[row * LARGE_GRID_SIZE + col];
+    }
+    
+    /**
+     * Copies the image types of every tile of the game grid, row by row, into
+     * an array.
+     * 
+     * @param destination The array the image types are copied into.
+     * @param offset The place in the array of the first tile.
+     */
+    public void copyImageTypes(byte[] destination, int offset) {
+        for(int row = 0; row < numberOfRows; row++)
+            System.arraycopy(board, row * LARGE_GRID_SIZE, destination, offset + row * numberOfColumns, numberOfColumns);
+    }
+    
+    /**
+     * Gets a checksum of everything that decides how the game plays out, which
+     * is the game grid, the goblin position, the score, and the state.  Two
+     * models given the same seed and the same key presses have the same
+     * checksum after each step, so comparing them finds any difference.
+     * 
+     * @return The checksum.
+     */
+    public int getBoardChecksum() {
+        //Declarations.
+        int hash = 0x811C9DC5;
+        
+        //FNV-1a hash of the tiles followed by the other values.
+        for(int row = 0; row < numberOfRows; row++) {
+            for(int col = 0; col < numberOfColumns; col++)
+                hash = (hash ^ board[row * LARGE_GRID_SIZE + col]) * 0x01000193;
+        }
+        hash = (hash ^ currentGoblinX) * 0x01000193;
+        hash = (hash ^ currentGoblinY) * 0x01000193;
+        hash = (hash ^ score) * 0x01000193;
+        hash = (hash ^ currentState) * 0x01000193;
+        
+        return hash;
+    }
+    
+    /**
+     * Sets the image type of the tile at the row and column position.
+     * 
+     * @param row The row of the tile.
+     * @param col The column of the tile.
+     * @param imageType An integer indicating the image type which corresponds to
+     * constants set in the Images Class.
+     */
+    private void setImageType(int row, int col, int imageType) {
+        //Declarations.
+        int tile = row * LARGE_GRID_SIZE + col;
+        
+        //Take the old image type out of the hash and put the new one in.
+        boardHash ^= ZobristKeys.tile(tile, board[tile]) ^ ZobristKeys.tile(tile, imageType);
+        board[tile] = (byte)imageType;
+    }
+    
+    /**
+     * Gets the Zobrist hash of the game grid.  Two game grids with the same
+     * tiles have the same hash, and two that differ almost certainly do not.
+     * It is kept up to date as tiles change so getting it costs nothing.
+     * 
+     * @return The hash.
+     */
+    public long getBoardHash() {
+        return boardHash;
+    }
+    
+    /**
+     * Gets the Zobrist hash of everything that decides what the next moves of
+     * the goblin do, which is the game grid, with the goblin on it, the state,
+     * and the key presses waiting in the buffer.  Two models with the same hash
+     * play out the same from here given the same key presses, so a search can
+     * use it to find positions it has already looked at.
+     * 
+     * @return The hash.
+     */
+    public long getStateHash() {
+        //Declarations.
+        long hash = boardHash ^ ZobristKeys.state(currentState);
+        
+        //The buffer is almost always empty or holds one key press.
+        for(int i = 0; i < keyPressCount; i++)
+            hash ^= ZobristKeys.keyPress(i, keyPresses[(keyPressHead + i) & (KEY_BUFFER_SIZE - 1)]);
+        
+        return hash;
+    }
+    
+    /**
+     * Makes the game in this model the same as the game in another, so moves
+     * can be tried on this one without changing the other.  The settings, the
+     * random number generator, and the listeners are not copied, and there is
+     * no practice mode advice for the copy.
+     * 
+     * @param source The model to copy the game from.
+     */
+    public void copyStateFrom(GoblinModel source) {
+        numberOfRows = source.numberOfRows;
+        numberOfColumns = source.numberOfColumns;
+        leftShrubColumn = source.leftShrubColumn;
+        rightShrubColumn = source.rightShrubColumn;
+        level = source.level;
+        score = source.score;
+        currentState = source.currentState;
+        currentGoblinX = source.currentGoblinX;
+        currentGoblinY = source.currentGoblinY;
+        lastGoblinX = source.lastGoblinX;
+        lastGoblinY = source.lastGoblinY;
+        System.arraycopy(source.board, 0, board, 0, board.length);
+        boardHash = source.boardHash;
+        System.arraycopy(source.wallRows, 0, wallRows, 0, wallRows.length);
+        System.arraycopy(source.faceRows, 0, faceRows, 0, faceRows.length);
+        remainingFaces = source.remainingFaces;
+        System.arraycopy(source.faceRowIndex, 0, faceRowIndex, 0, remainingFaces);
+        System.arraycopy(source.faceColIndex, 0, faceColIndex, 0, remainingFaces);
+        advising = false;
+        
+        //Copy the key presses in order to the front of the buffer.
+        for(int i = 0; i < source.keyPressCount; i++)
+            keyPresses[i] = source.keyPresses[(source.keyPressHead + i) & (KEY_BUFFER_SIZE - 1)];
+        keyPressHead = 0;
+        keyPressCount = source.keyPressCount;
     }
     
     /**
@@ -674,11 +1205,257 @@ public class GoblinModel {
     }
     
     /**
-     * Adds a new key press to the FIFO buffer.
+     * Sets the number of wall obstacles placed on each level in place of the
+     * ones for the grid size, which are set again whenever the grid size is
+     * set.  Takes effect when the next level is built.  Too many walls for the
+     * game grid can not all be placed, so levels past the highest buildable
+     * level should not be built.
+     * 
+     * @param baseNumberOfWalls The number of walls on the first level.
+     * @param additionalWallsPerLevel The number of walls added for each level
+     * after the first.
+     */
+    public void setNumberOfWalls(int baseNumberOfWalls, int additionalWallsPerLevel) {
+        if(baseNumberOfWalls >= 0 && additionalWallsPerLevel >= 0) {
+            this.baseNumberOfWalls = baseNumberOfWalls;
+            additionalNumberOfWallsPerLevel = additionalWallsPerLevel;
+        }
+    }
+    
+    /**
+     * Gets the number of wall obstacles placed on the first level.
+     * 
+     * @return The number of walls.
+     */
+    public int getBaseNumberOfWalls() {
+        return baseNumberOfWalls;
+    }
+    
+    /**
+     * Gets the number of wall obstacles added for each level after the first.
+     * 
+     * @return The number of walls.
+     */
+    public int getAdditionalWallsPerLevel() {
+        return additionalNumberOfWallsPerLevel;
+    }
+    
+    /**
+     * Gets the highest level whose wall obstacles take up no more than a third
+     * of the playing field.  Past that the walls may not all fit within the
+     * placement rules and building the level might never finish.
+     * 
+     * @return The level, zero if even the first level has too many walls.
+     */
+    public int getHighestBuildableLevel() {
+        //Declarations.
+        int limit = numberOfRows * (numberOfColumns - 2) / 3;
+        
+        if(baseNumberOfWalls > limit)
+            return 0;
+        if(additionalNumberOfWallsPerLevel == 0)
+            return Integer.MAX_VALUE;
+        return (limit - baseNumberOfWalls) / additionalNumberOfWallsPerLevel + 1;
+    }
+    
+    /**
+     * Sets the number of shocked faces placed on each level.  Takes effect when
+     * the next level is built.
+     * 
+     * @param facesPerLevel The number of faces, from one to the largest number
+     * of faces per level.
+     */
+    public void setFacesPerLevel(int facesPerLevel) {
+        if(facesPerLevel >= 1 && facesPerLevel <= MAX_FACES_PER_LEVEL)
+            this.facesPerLevel = facesPerLevel;
+    }
+    
+    /**
+     * Gets the number of shocked faces placed on each level.
+     * 
+     * @return The number of faces placed on each level.
+     */
+    public int getFacesPerLevel() {
+        return facesPerLevel;
+    }
+    
+    /**
+     * Gets the number of shocked faces left on the game grid.
+     * 
+     * @return The number of shocked faces left.
+     */
+    public int getRemainingFaces() {
+        return remainingFaces;
+    }
+    
+    /**
+     * Gets the least number of moves the goblin needs to reach one of the
+     * remaining shocked faces without hitting a wall.  The goblin moves up one
+     * row each move and at most one column across, so the tiles it can be on
+     * after each move are a bit mask of one row, worked out from the mask of
+     * the row before the same way the level analyzer does.
+     * 
+     * @return The number of moves, zero if there are no faces left, or four
+     * times the number of rows if no face can be reached in that many moves.
+     */
+    int getMovesToNearestFace() {
+        //Declarations.
+        int row = currentGoblinY, limit = numberOfRows * 4;
+        long interior, reach = 1L << currentGoblinX;
+        
+        if(remainingFaces == 0)
+            return 0;
+        
+        interior = ((1L << rightShrubColumn) - 1L) & ~(1L << leftShrubColumn);
+        for(int moves = 1; moves < limit; moves++) {
+            row = (row == 0) ? numberOfRows - 1 : row - 1;
+            reach = (reach | (reach << 1) | (reach >>> 1)) & interior & ~wallRows[row];
+            if((reach & faceRows[row]) != 0L)
+                return moves;
+            if(reach == 0L)
+                break;
+        }
+        
+        return limit;
+    }
+    
+    /**
+     * Sets how built levels are checked to make sure the goblin can reach all
+     * the shocked faces.
+     * 
+     * @param levelCheck Value that represents the level check which is one of
+     * the level check constants of this class.
+     */
+    public void setLevelCheck(int levelCheck) {
+        //If the level check is one of the known types then make the change.
+        if(levelCheck == LEVEL_CHECK_NONE || levelCheck == LEVEL_CHECK_REJECT || levelCheck == LEVEL_CHECK_REPAIR)
+            this.levelCheck = levelCheck;
+    }
+    
+    /**
+     * Gets how built levels are checked to make sure the goblin can reach all
+     * the shocked faces.
+     * 
+     * @return Value that represents the level check.
+     */
+    public int getLevelCheck() {
+        return levelCheck;
+    }
+    
+    /**
+     * Gets the number of times the last level was built before it was accepted.
+     * 
+     * @return Number of times the last level was built.
+     */
+    public int getBuildAttempts() {
+        return buildAttempts;
+    }
+    
+    /**
+     * Checks if the last level built had shocked faces the goblin could not
+     * reach, which were then moved to tiles it can reach.
+     * 
+     * @return True if the level was repaired.
+     */
+    public boolean isLevelRepaired() {
+        return levelRepaired;
+    }
+    
+    /**
+     * Turns practice mode on or off.  In practice mode the model advises which
+     * moves are safe.  The change takes effect when the next level is built.
+     * 
+     * @param practiceMode True to turn practice mode on, false to turn it off.
+     */
+    public void setPracticeMode(boolean practiceMode) {
+        this.practiceMode = practiceMode;
+    }
+    
+    /**
+     * Gets whether practice mode is on.
+     * 
+     * @return True if practice mode is on, false if not.
+     */
+    public boolean isPracticeMode() {
+        return practiceMode;
+    }
+    
+    /**
+     * Sets the number of rows the goblin must survive for a move to be advised
+     * as safe in practice mode.
+     * 
+     * @param rows The number of rows, from one to the largest grid size.
+     */
+    public void setPracticeLookahead(int rows) {
+        moveAdvisor.setLookahead(rows);
+    }
+    
+    /**
+     * Gets the practice mode advice for the next move from the goblin's current
+     * position.
+     * 
+     * @param direction One of the direction constants of the MoveAdvisor class.
+     * @return The advice flags from the MoveAdvisor class for the direction.
+     */
+    public int getAdvice(int direction) {
+        return moveAdvisor.getAdvice(direction);
+    }
+    
+    /**
+     * Finds which of some of the directions reach one of the remaining shocked
+     * faces in the fewest moves from the goblin's current position.  Only
+     * worked out in practice mode.
+     * 
+     * @param directions Bit mask of the directions to choose from, with bit N
+     * set for the MoveAdvisor direction constant N.
+     * @return Bit mask of the nearest directions from the MoveAdvisor class.
+     */
+    public int getNearestToFace(int directions) {
+        return moveAdvisor.getNearestToFace(directions);
+    }
+    
+    /**
+     * Gets whether there is practice mode advice for the current level.  This
+     * is only the case if practice mode was on when the level was built.
+     * 
+     * @return True if there is advice, false if not.
+     */
+    public boolean hasAdvice() {
+        return advising;
+    }
+    
+    /**
+     * Sets the seed of the random number generator used to build the levels.
+     * Models given the same seed build the same levels from then on.
+     * 
+     * @param seed The seed.
+     */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+    
+    /**
+     * Gets the number of key presses waiting in the FIFO buffer.
+     * 
+     * @return The number of key presses.
+     */
+    public int getKeyPressCount() {
+        return keyPressCount;
+    }
+    
+    /**
+     * Adds a new key press to the FIFO buffer.  If the buffer is full the key
+     * press is dropped.
      * 
      * @param keyPress Key press to be added to the FIFO buffer.
+     * @return True if the key press was added, false if it was dropped.
      */
-    public void setKeyPress(int keyPress) {
-        keyPresses.add(keyPress);
+    public boolean setKeyPress(int keyPress) {
+        if(keyPressCount == KEY_BUFFER_SIZE)
+            return false;
+        
+        keyPresses[(keyPressHead + keyPressCount) & (KEY_BUFFER_SIZE - 1)] = keyPress;
+        keyPressCount++;
+        return true;
     }
 }
\ No newline at end of file
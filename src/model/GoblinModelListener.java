@@ -0,0 +1,95 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package model;
+
+/**
+ * The listener interface for receiving events from the model in the game MVC
+ * architecture.  Events are delivered on the thread that runs the model, in the
+ * order they happen, and carry everything the listener needs as primitive
+ * arguments so nothing is created to deliver them.  A class that is only
+ * interested in some of the events can extend the GoblinModelAdapter class
+ * instead.
+ * 
+ * @author agent
+ * @version 1.0
+ */
+public interface GoblinModelListener {
+    /**
+     * Invoked when the goblin has moved.  The goblin may not have changed
+     * column if it was blocked by a shrub, and the new position may hold an
+     * explosion if it ran into a wall obstacle.
+     * 
+     * @param lastX The column the goblin moved from.
+     * @param lastY The row the goblin moved from.
+     * @param x The column the goblin moved to.
+     * @param y The row the goblin moved to.
+     */
+    void goblinMoved(int lastX, int lastY, int x, int y);
+    
+    /**
+     * Invoked when the goblin has collected a shocked face.
+     * 
+     * @param x The column of the face.
+     * @param y The row of the face.
+     * @param remainingFaces The number of shocked faces left on the game grid.
+     */
+    void faceCollected(int x, int y, int remainingFaces);
+    
+    /**
+     * Invoked when the goblin has run into a wall obstacle and was destroyed.
+     * The remaining shocked faces have already been made happy.
+     * 
+     * @param x The column of the explosion.
+     * @param y The row of the explosion.
+     */
+    void goblinDestroyed(int x, int y);
+    
+    /**
+     * Invoked when a new level has been built.
+     * 
+     * @param level The number of the level that was built.
+     */
+    void levelBuilt(int level);
+    
+    /**
+     * Invoked when the score has changed.
+     * 
+     * @param score The new score.
+     */
+    void scoreChanged(int score);
+    
+    /**
+     * Invoked when the state of the model has changed.  This is always the last
+     * event delivered for a change so the rest of the model is up to date.
+     * 
+     * @param previousState The state the model was in.
+     * @param newState The state the model is now in.
+     */
+    void stateChanged(int previousState, int newState);
+}
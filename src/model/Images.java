@@ -32,12 +32,15 @@ import java.awt.Graphics;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import javax.imageio.ImageIO;
+import metrics.BuildImagesEvent;
 
 /**
  * Class that holds static methods and constants used to access the graphic
  * images for this game.  Handles loading the images from the files, merging them
  * together to make specific game tiles, and storing the finished game tile
- * graphics in a array of buffered images for access through the Tile Objects.
+ * graphics in a array of buffered images for access through the model.  The
+ * images are only built once and are never changed after that, so every model
+ * in the same JVM shares the one set of images.
  * 
  * @author Donald J Bartley
  * @version 1.0
@@ -83,19 +86,31 @@ public class Images {
      */
     public static final int WALL = 6;
     
-    /** An array of file names for the images. */
-    private static String[][] fileNames = new String[3][7];
     /** 
-     * An array of finished buffered images that the Tile Objects can use to
-     * access tile images.
+     * An array of finished buffered images that the model can use to access tile
+     * images.  It is null until the images have been built and is never changed
+     * after it is set.
      */
-    private static BufferedImage[][] images = new BufferedImage[3][7];
+    private static volatile BufferedImage[][] images;
 
     /**
-     * Static method called from the controller in the game MVC architecture that
-     * constructs all the game tile images.
+     * Static method called from the model in the game MVC architecture that
+     * constructs all the game tile images.  The images are only built the first
+     * time this is called.
      */
-    public static void buildGameImages() {
+    public static synchronized void buildGameImages() {
+        //If the images have already been built there is nothing to do.
+        if(images != null)
+            return;
+        
+        //Start timing the build for the flight recorder.
+        BuildImagesEvent event = new BuildImagesEvent();
+        event.begin();
+        
+        //Declare the arrays for the file names and the finished images.
+        String[][] fileNames = new String[3][7];
+        BufferedImage[][] builtImages = new BufferedImage[3][7];
+        
         //Load all the file names in the array.
         fileNames[0][0] = "images/Explosion_16x16.png";
         fileNames[0][1] = "images/Goblin_16x16.png";
@@ -168,9 +183,20 @@ public class Images {
                 g.dispose();
                 
                 //Save the new combined tile in the image array.
-                images[size][image] = combinedImage;
+                builtImages[size][image] = combinedImage;
             }            
         }
+        
+        //All of the images are built, make them available.
+        images = builtImages;
+        
+        //The images are built.  If the flight recorder wants the event then
+        //fill it in and send it.
+        event.end();
+        if(event.shouldCommit()) {
+            event.imageCount = 3 * 7;
+            event.commit();
+        }
     }
 
     /**
@@ -185,7 +211,7 @@ public class Images {
     public static BufferedImage getImage(int size, int image) {
         //Make sure the values passed fit within the rage for both size and
         //image.
-        if (size < 3 && image < 7) {
+        if (images != null && size < 3 && image < 7) {
             //The values passed are good, return the proper image from the array.
             return images[size][image];
         } else {
@@ -0,0 +1,114 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package model;
+
+/**
+ * Class used to work out which tiles of a game grid the goblin can reach.  Each
+ * row of the game grid is held as a bit mask in a long where bit N is column N.
+ * Since the goblin always moves up one row per move and at most one column to
+ * the left or right, the tiles reachable on the next row are found by shifting
+ * the reachable mask of the current row left and right by one and masking off
+ * the tiles that are not open.  One row of the largest game grid is therefore a
+ * single long operation.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class LevelAnalyzer {
+    /** Holds the bit mask of the tiles reachable in each row. */
+    private final long[] reachRows = new long[GoblinModel.LARGE_GRID_SIZE];
+
+    /**
+     * Works out every tile the goblin can reach from its starting position on
+     * the last row and counts the shocked faces that can not be reached.  The
+     * goblin wraps from the top row back to the last row so the propagation is
+     * repeated until a complete pass over the rows adds no new tiles.
+     *
+     * @param openRows Bit mask per row of the tiles the goblin can move onto.
+     * Walls and shrubs must not be set.
+     * @param faceRows Bit mask per row of the tiles holding shocked faces.
+     * @param numberOfRows The number of rows in the game grid.
+     * @param goblinX The column the goblin starts in on the last row.
+     * @return The number of shocked faces the goblin can not reach.
+     */
+    public int analyze(long[] openRows, long[] faceRows, int numberOfRows, int goblinX) {
+        //Declarations.
+        int row, nextRow, strandedFaces = 0;
+        long reach, next;
+        boolean changed = true;
+
+        //Nothing is reachable to begin with except the goblin itself.
+        for(row = 0; row < numberOfRows; row++)
+            reachRows[row] = 0L;
+        reachRows[numberOfRows - 1] = 1L << goblinX;
+
+        //Walk up the rows, wrapping from the top row back to the bottom, until a
+        //complete pass has not added any new tiles.
+        while(changed) {
+            changed = false;
+            row = numberOfRows - 1;
+            for(int step = 0; step < numberOfRows; step++) {
+                //The next row is one up unless this is the top row, in which
+                //case it is the bottom row.
+                nextRow = (row == 0) ? numberOfRows - 1 : row - 1;
+
+                //Anything reachable on this row can move straight up or
+                //diagonally to either side.  A move into a shrub leaves the
+                //goblin in the same column which is already covered by the
+                //straight move.
+                reach = reachRows[row];
+                next = (reach | (reach << 1) | (reach >>> 1)) & openRows[nextRow];
+
+                //Merge in the new tiles and note if anything changed.
+                if((next & ~reachRows[nextRow]) != 0L) {
+                    reachRows[nextRow] |= next;
+                    changed = true;
+                }
+
+                row = nextRow;
+            }
+        }
+
+        //Count the faces that are not on a reachable tile.
+        for(row = 0; row < numberOfRows; row++)
+            strandedFaces += Long.bitCount(faceRows[row] & ~reachRows[row]);
+
+        return strandedFaces;
+    }
+
+    /**
+     * Gets the bit mask of the reachable tiles in a row from the last analysis.
+     *
+     * @param row The row of the game grid.
+     * @return Bit mask of the reachable tiles where bit N is column N.
+     */
+    public long getReachableRow(int row) {
+        return reachRows[row];
+    }
+}
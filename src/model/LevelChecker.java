@@ -0,0 +1,278 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package model;
+
+/**
+ * Class used to check that a level built by the model follows every rule of
+ * the level builder.  It is used to make sure a change to the level builder
+ * still builds levels the same game would, and checks only what is on the game
+ * grid so it does not depend on how the level was built.  The rules are:
+ * 1.  The first and last columns are shrubs and there are no other shrubs.
+ * 2.  Every other tile is stone, a wall, a shocked face, or the goblin.
+ * 3.  Two walls in a row do not extend from either shrub column.
+ * 4.  There are never three walls in a row.
+ * 5.  The number of walls is the base number plus the additional number for
+ *     each level before this one.
+ * 6.  The number of shocked faces is the number per level.
+ * 7.  There is one goblin, on the last row, where the model says it is.
+ * 8.  Unless levels are not being checked, the goblin can reach every face.
+ *
+ * Like the level analyzer each row is held as bit masks in longs, so most of
+ * the rules are a few long operations per row.  Nothing is allocated after the
+ * checker is created.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class LevelChecker {
+    /** The value that indicates the level follows every rule. */
+    public static final int VIOLATION_NONE = 0;
+    /** The value that indicates a shrub is missing or out of place. */
+    public static final int VIOLATION_SHRUB = 1;
+    /** The value that indicates a tile that should not be on a new level. */
+    public static final int VIOLATION_TILE = 2;
+    /** The value that indicates two walls in a row extend from a shrub. */
+    public static final int VIOLATION_WALLS_AT_SHRUB = 3;
+    /** The value that indicates three walls in a row. */
+    public static final int VIOLATION_THREE_WALLS = 4;
+    /** The value that indicates the wrong number of walls. */
+    public static final int VIOLATION_WALL_COUNT = 5;
+    /** The value that indicates the wrong number of shocked faces. */
+    public static final int VIOLATION_FACE_COUNT = 6;
+    /** The value that indicates the goblin is missing or out of place. */
+    public static final int VIOLATION_GOBLIN = 7;
+    /** The value that indicates a shocked face the goblin can not reach. */
+    public static final int VIOLATION_STRANDED_FACE = 8;
+
+    /** Holds the description of each violation. */
+    private static final String[] DESCRIPTIONS = {
+        "no violation",
+        "shrub missing or out of place",
+        "unexpected tile",
+        "two walls in a row extend from a shrub",
+        "three walls in a row",
+        "wrong number of walls",
+        "wrong number of shocked faces",
+        "goblin missing or out of place",
+        "shocked face can not be reached"
+    };
+
+    /** Holds the image type of each tile, packed row by row. */
+    private final byte[] tiles = new byte[GoblinModel.LARGE_GRID_SIZE * GoblinModel.LARGE_GRID_SIZE];
+    /** Holds the bit mask of the tiles the goblin can move onto in each row. */
+    private final long[] openRows = new long[GoblinModel.LARGE_GRID_SIZE];
+    /** Holds the bit mask of the shocked faces in each row. */
+    private final long[] faceRows = new long[GoblinModel.LARGE_GRID_SIZE];
+    /** Holds the bit mask of the tiles the goblin can reach in each row. */
+    private final long[] reachRows = new long[GoblinModel.LARGE_GRID_SIZE];
+    /** Holds the row of the last violation found, or -1 if it has no row. */
+    private int violationRow;
+    /** Holds the column of the last violation found, or -1 if it has none. */
+    private int violationColumn;
+
+    /**
+     * Gets the description of a violation.
+     *
+     * @param violation One of the violation constants of this class.
+     * @return The description.
+     */
+    public static String describe(int violation) {
+        return DESCRIPTIONS[violation];
+    }
+
+    /**
+     * Checks the level the model has just built.
+     *
+     * @param model The model, in the state it is left in by buildLevel().
+     * @return One of the violation constants of this class, VIOLATION_NONE if
+     * the level follows every rule.
+     */
+    public int check(GoblinModel model) {
+        //Declarations.
+        int numberOfRows = model.getNumberOfRows();
+        int numberOfColumns = model.getNumberOfColumns();
+        int rightShrubColumn = numberOfColumns - 1;
+        int wallCount = 0, faceCount = 0, goblinCount = 0, goblinRow = -1, goblinCol = -1;
+        long shrubs = 1L | (1L << rightShrubColumn);
+        long interior = shrubs ^ ((1L << numberOfColumns) - 1L);
+        long rightPair = 3L << (rightShrubColumn - 2);
+        long wall, face, shrub, goblin, other, bit, triple;
+
+        model.copyImageTypes(tiles, 0);
+        for(int row = 0; row < numberOfRows; row++) {
+            //Sort the tiles of the row into bit masks.
+            wall = 0L;
+            face = 0L;
+            shrub = 0L;
+            goblin = 0L;
+            other = 0L;
+            for(int col = 0; col < numberOfColumns; col++) {
+                bit = 1L << col;
+                switch(tiles[row * numberOfColumns + col]) {
+                    case Images.WALL:
+                        wall |= bit;
+                        break;
+                    case Images.SHOCKED_FACE:
+                        face |= bit;
+                        break;
+                    case Images.SHRUB:
+                        shrub |= bit;
+                        break;
+                    case Images.GOBLIN:
+                        goblin |= bit;
+                        break;
+                    case Images.STONE:
+                        break;
+                    default:
+                        other |= bit;
+                        break;
+                }
+            }
+
+            //Rules one and two.
+            if(shrub != shrubs)
+                return violation(VIOLATION_SHRUB, row, Long.numberOfTrailingZeros(shrub ^ shrubs));
+            if(other != 0L)
+                return violation(VIOLATION_TILE, row, Long.numberOfTrailingZeros(other));
+
+            //Rule three, the two columns next to each shrub.
+            if((wall & 6L) == 6L)
+                return violation(VIOLATION_WALLS_AT_SHRUB, row, 1);
+            if((wall & rightPair) == rightPair)
+                return violation(VIOLATION_WALLS_AT_SHRUB, row, rightShrubColumn - 2);
+
+            //Rule four.  A bit is left set where it and the two columns to its
+            //right are all walls.
+            triple = wall & (wall >>> 1) & (wall >>> 2);
+            if(triple != 0L)
+                return violation(VIOLATION_THREE_WALLS, row, Long.numberOfTrailingZeros(triple));
+
+            wallCount += Long.bitCount(wall);
+            faceCount += Long.bitCount(face);
+            if(goblin != 0L) {
+                goblinCount += Long.bitCount(goblin);
+                goblinRow = row;
+                goblinCol = Long.numberOfTrailingZeros(goblin);
+            }
+            openRows[row] = interior & ~wall;
+            faceRows[row] = face;
+        }
+
+        //Rules five, six, and seven.
+        if(wallCount != model.getBaseNumberOfWalls() + model.getAdditionalWallsPerLevel() * (model.getLevel() - 1))
+            return violation(VIOLATION_WALL_COUNT, -1, -1);
+        if(faceCount != model.getFacesPerLevel() || faceCount != model.getRemainingFaces())
+            return violation(VIOLATION_FACE_COUNT, -1, -1);
+        if(goblinCount != 1 || goblinRow != numberOfRows - 1 || goblinCol != model.getcurrentGoblinX() ||
+                model.getcurrentGoblinY() != numberOfRows - 1)
+            return violation(VIOLATION_GOBLIN, goblinRow, goblinCol);
+
+        //Rule eight.
+        if(model.getLevelCheck() != GoblinModel.LEVEL_CHECK_NONE)
+            return findStrandedFace(numberOfRows, goblinCol);
+
+        return violation(VIOLATION_NONE, -1, -1);
+    }
+
+    /**
+     * Gets the row of the last violation found.
+     *
+     * @return The row, or -1 if the violation is not in one row.
+     */
+    public int getViolationRow() {
+        return violationRow;
+    }
+
+    /**
+     * Gets the column of the last violation found.
+     *
+     * @return The column, or -1 if the violation is not in one column.
+     */
+    public int getViolationColumn() {
+        return violationColumn;
+    }
+
+    /**
+     * Works out the tiles the goblin can reach and looks for a shocked face
+     * that is not on one.  This is worked out here rather than by the level
+     * analyzer so that a mistake in either one is caught by the other.
+     *
+     * @param numberOfRows The number of rows in the game grid.
+     * @param goblinCol The column the goblin starts in on the last row.
+     * @return VIOLATION_STRANDED_FACE if a face can not be reached, otherwise
+     * VIOLATION_NONE.
+     */
+    private int findStrandedFace(int numberOfRows, int goblinCol) {
+        //Declarations.
+        int row, nextRow;
+        long reach, stranded;
+        boolean changed = true;
+
+        for(row = 0; row < numberOfRows; row++)
+            reachRows[row] = 0L;
+        reachRows[numberOfRows - 1] = 1L << goblinCol;
+
+        //The goblin moves up a row, wrapping from the top row to the last,
+        //straight or diagonally.  A move into a shrub keeps it in the same
+        //column.  Keep going round until nothing new is reached.
+        while(changed) {
+            changed = false;
+            for(row = numberOfRows - 1; row >= 0; row--) {
+                nextRow = (row == 0) ? numberOfRows - 1 : row - 1;
+                reach = reachRows[row];
+                reach = (reach | (reach << 1) | (reach >>> 1)) & openRows[nextRow] & ~reachRows[nextRow];
+                if(reach != 0L) {
+                    reachRows[nextRow] |= reach;
+                    changed = true;
+                }
+            }
+        }
+
+        for(row = 0; row < numberOfRows; row++) {
+            stranded = faceRows[row] & ~reachRows[row];
+            if(stranded != 0L)
+                return violation(VIOLATION_STRANDED_FACE, row, Long.numberOfTrailingZeros(stranded));
+        }
+        return violation(VIOLATION_NONE, -1, -1);
+    }
+
+    /**
+     * Records where a violation was found.
+     *
+     * @param violation The violation.
+     * @param row The row, or -1 if none.
+     * @param col The column, or -1 if none.
+     * @return The violation.
+     */
+    private int violation(int violation, int row, int col) {
+        violationRow = row;
+        violationColumn = col;
+        return violation;
+    }
+}
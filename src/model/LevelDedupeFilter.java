@@ -0,0 +1,121 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class that finds levels that have been built before, by the board hash of the
+ * model, so a bulk generator can skip them.  It is a fixed size set of hashes
+ * that many threads can add to at once without locks.
+ *
+ * Once the set is nearly full a new level may not find a free place, in which
+ * case it is taken as new without being kept, so a duplicate may be missed but
+ * a new level is only taken as a duplicate if two boards have the same 64 bit
+ * hash.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class LevelDedupeFilter {
+    /** The number of places tried for a hash before it is taken as new. */
+    private static final int MAX_PROBES = 16;
+
+    /** Holds the hashes, zero where there is none. */
+    private final AtomicLongArray hashes;
+    /** Holds the number of places less one, used to find a place. */
+    private final int mask;
+
+    //Constructor.
+    /**
+     * Creates an empty filter.
+     *
+     * @param levels The number of levels it should hold.  Twice as many
+     * places, rounded up to a power of two, are made so few probes are needed.
+     */
+    public LevelDedupeFilter(int levels) {
+        //Declarations.
+        int capacity = Integer.highestOneBit(Math.max(2, Math.min(levels, 1 << 29)) * 4 - 1);
+
+        hashes = new AtomicLongArray(capacity);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds the level a model has just built.
+     *
+     * @param model The model.
+     * @return True if the level is new, false if it was added before.
+     */
+    public boolean add(GoblinModel model) {
+        return add(model.getBoardHash());
+    }
+
+    /**
+     * Adds a board hash.
+     *
+     * @param hash The board hash.
+     * @return True if the hash is new, false if it was added before.
+     */
+    public boolean add(long hash) {
+        //Declarations.
+        int place;
+        long found;
+
+        //Zero marks an empty place so it can not be kept as a hash.
+        if(hash == 0L)
+            hash = 1L;
+
+        place = (int)(hash ^ (hash >>> 32)) & mask;
+        for(int probe = 0; probe < MAX_PROBES; probe++) {
+            found = hashes.get(place);
+            if(found == hash)
+                return false;
+            if(found == 0L) {
+                if(hashes.compareAndSet(place, 0L, hash))
+                    return true;
+
+                //Another thread took the place, look at what it put there.
+                if(hashes.get(place) == hash)
+                    return false;
+            }
+            place = (place + 1) & mask;
+        }
+
+        return true;
+    }
+
+    /**
+     * Empties the filter.  It must not be in use while it is emptied.
+     */
+    public void clear() {
+        for(int i = 0; i < hashes.length(); i++)
+            hashes.set(i, 0L);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package model;
+
+import java.util.Random;
+
+/**
+ * Random number generator used to build the levels.  It gives exactly the same
+ * numbers as Random for the same seed, so levels and replays are unchanged, but
+ * keeps its seed in a plain field instead of an atomic one.  A level takes a
+ * few hundred random numbers and the atomic update of each was most of the
+ * time it took to build one.  A model is only used by one thread at a time so
+ * nothing is lost.
+ *
+ * @author agent
+ * @version 1.0
+ */
+class LevelRandom extends Random {
+    /** The version of the serialized form of the class. */
+    private static final long serialVersionUID = 1L;
+    /** The multiplier of the linear congruential generator used by Random. */
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    /** The addend of the linear congruential generator used by Random. */
+    private static final long ADDEND = 0xBL;
+    /** The mask that keeps the 48 bits of the seed. */
+    private static final long MASK = (1L << 48) - 1;
+
+    /**
+     * Holds the seed.  It is set by the constructor of Random through setSeed()
+     * so it must not be given a value here.
+     */
+    private long state;
+
+    /**
+     * Sets the seed the same way Random does.
+     *
+     * @param seed The seed.
+     */
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    /**
+     * Gets the next random bits the same way Random does.
+     *
+     * @param bits The number of random bits.
+     * @return The random bits.
+     */
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int)(state >>> (48 - bits));
+    }
+}
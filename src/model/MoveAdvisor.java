@@ -0,0 +1,367 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package model;
+
+/**
+ * Class used in practice mode to advise the player which of the three possible
+ * moves keeps the goblin alive for the next number of rows and still lets it
+ * reach all of the remaining shocked faces.  Like the level analyzer each row of
+ * the game grid is held as a bit mask in a long.
+ *
+ * The work is split so that very little is done on each move.  When a level is
+ * built the tiles that survive the look ahead are worked out for every row, and
+ * for each shocked face the tiles that can reach it are worked out.  When a face
+ * is collected only the combined face mask is rebuilt.  When the goblin moves
+ * the advice is just three bit tests.  Which move is nearest to a face is only
+ * worked out when it is asked for.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class MoveAdvisor {
+    /** The value that indicates a move diagonally to the left. */
+    public static final int DIRECTION_LEFT = 0;
+    /** The value that indicates a move straight up. */
+    public static final int DIRECTION_STRAIGHT = 1;
+    /** The value that indicates a move diagonally to the right. */
+    public static final int DIRECTION_RIGHT = 2;
+
+    /** The advice flag set when the move keeps the goblin alive. */
+    public static final int ADVICE_SAFE = 1;
+    /**
+     * The advice flag set when all of the remaining shocked faces can still be
+     * reached after the move.
+     */
+    public static final int ADVICE_REACHES_FACES = 2;
+
+    /** The default number of rows the goblin must survive for a safe move. */
+    public static final int DEFAULT_LOOKAHEAD = 6;
+
+    /** Holds the bit mask of the tiles the goblin can move onto in each row. */
+    private long[] openRows;
+    /** Holds the bit mask of the tiles holding shocked faces in each row. */
+    private long[] faceRows;
+    /** Holds the number of rows in the game grid. */
+    private int numberOfRows;
+    /** Holds the number of columns in the game grid. */
+    private int numberOfColumns;
+    /** Holds the number of rows the goblin must survive for a safe move. */
+    private int lookahead = DEFAULT_LOOKAHEAD;
+    /**
+     * Holds the bit mask per row of the tiles that survive the look ahead when
+     * the goblin is on them.
+     */
+    private long[] safeRows = new long[GoblinModel.LARGE_GRID_SIZE];
+    /** Scratch bit masks used while working out the safe tiles. */
+    private long[] scratchRows = new long[GoblinModel.LARGE_GRID_SIZE];
+    /**
+     * Holds the bit mask per row of the tiles that can reach all of the
+     * remaining shocked faces.
+     */
+    private long[] allFacesRows = new long[GoblinModel.LARGE_GRID_SIZE];
+    /** Holds, for each shocked face, the bit mask per row that can reach it. */
+    private long[][] faceReachRows = new long[0][];
+    /** Holds the row of each shocked face. */
+    private int[] faceRow = new int[0];
+    /** Holds the column of each shocked face. */
+    private int[] faceCol = new int[0];
+    /** Holds the number of shocked faces on the level. */
+    private int numberOfFaces;
+    /** Holds the advice flags for each of the three directions. */
+    private int[] advice = new int[3];
+    /** Holds the column the goblin was in at the last update. */
+    private int goblinX;
+    /** Holds the row the goblin was in at the last update. */
+    private int goblinY;
+
+    /**
+     * Sets the number of rows the goblin must survive for a move to be safe.
+     * Takes effect when the next level is built.
+     *
+     * @param lookahead The number of rows, from one to the largest grid size.
+     */
+    public void setLookahead(int lookahead) {
+        if(lookahead >= 1 && lookahead <= GoblinModel.LARGE_GRID_SIZE)
+            this.lookahead = lookahead;
+    }
+
+    /**
+     * Gets the number of rows the goblin must survive for a move to be safe.
+     *
+     * @return The number of rows.
+     */
+    public int getLookahead() {
+        return lookahead;
+    }
+
+    /**
+     * Method called when a level has been built.  Works out the safe tiles for
+     * every row and the tiles that can reach each shocked face.
+     *
+     * @param openRows Bit mask per row of the tiles the goblin can move onto.
+     * The array is kept and must not change until the next level is built.
+     * @param faceRows Bit mask per row of the tiles holding shocked faces.  The
+     * array is kept and must have the faces taken out of it as they are
+     * collected.
+     * @param numberOfRows The number of rows in the game grid.
+     * @param numberOfColumns The number of columns in the game grid.
+     */
+    public void levelBuilt(long[] openRows, long[] faceRows, int numberOfRows, int numberOfColumns) {
+        //Declarations.
+        int row, face;
+        long faces;
+        long[] swap;
+
+        this.openRows = openRows;
+        this.faceRows = faceRows;
+        this.numberOfRows = numberOfRows;
+        this.numberOfColumns = numberOfColumns;
+
+        //A goblin on an open tile survives one row.  Each extra row of look
+        //ahead keeps the open tiles that can move to a tile that survived the
+        //row above.
+        for(row = 0; row < numberOfRows; row++)
+            safeRows[row] = openRows[row];
+        for(int k = 1; k < lookahead; k++) {
+            for(row = 0; row < numberOfRows; row++)
+                scratchRows[row] = openRows[row] & spread(safeRows[nextRow(row)]);
+            swap = safeRows;
+            safeRows = scratchRows;
+            scratchRows = swap;
+        }
+
+        //Count the faces and make sure there is room to hold them.
+        numberOfFaces = 0;
+        for(row = 0; row < numberOfRows; row++)
+            numberOfFaces += Long.bitCount(faceRows[row]);
+        if(faceReachRows.length < numberOfFaces) {
+            faceReachRows = new long[numberOfFaces][GoblinModel.LARGE_GRID_SIZE];
+            faceRow = new int[numberOfFaces];
+            faceCol = new int[numberOfFaces];
+        }
+
+        //Work out the tiles that can reach each face.
+        face = 0;
+        for(row = 0; row < numberOfRows; row++) {
+            faces = faceRows[row];
+            while(faces != 0L) {
+                faceRow[face] = row;
+                faceCol[face] = Long.numberOfTrailingZeros(faces);
+                faces &= faces - 1L;
+                findTilesReaching(faceRow[face], faceCol[face], faceReachRows[face]);
+                face++;
+            }
+        }
+
+        //Combine the faces into a single mask.
+        facesChanged(faceRows);
+    }
+
+    /**
+     * Method called when the shocked faces on the level change, such as when
+     * one is collected.  Rebuilds the mask of tiles that can reach all of the
+     * remaining faces.
+     *
+     * @param faceRows Bit mask per row of the tiles holding shocked faces.
+     */
+    public void facesChanged(long[] faceRows) {
+        for(int row = 0; row < numberOfRows; row++)
+            allFacesRows[row] = -1L;
+
+        //Only the faces still on the game grid count.
+        for(int face = 0; face < numberOfFaces; face++) {
+            if((faceRows[faceRow[face]] & (1L << faceCol[face])) != 0L) {
+                for(int row = 0; row < numberOfRows; row++)
+                    allFacesRows[row] &= faceReachRows[face][row];
+            }
+        }
+    }
+
+    /**
+     * Method called when the goblin is in a new position.  Works out the advice
+     * for each of the three directions.
+     *
+     * @param goblinX The column the goblin is in.
+     * @param goblinY The row the goblin is in.
+     */
+    public void update(int goblinX, int goblinY) {
+        //Declarations.
+        int targetRow, targetCol;
+
+        this.goblinX = goblinX;
+        this.goblinY = goblinY;
+        targetRow = nextRow(goblinY);
+        for(int direction = DIRECTION_LEFT; direction <= DIRECTION_RIGHT; direction++) {
+            targetCol = targetColumn(direction);
+            advice[direction] = 0;
+            if((safeRows[targetRow] & (1L << targetCol)) != 0L)
+                advice[direction] |= ADVICE_SAFE;
+            if((allFacesRows[targetRow] & (1L << targetCol)) != 0L)
+                advice[direction] |= ADVICE_REACHES_FACES;
+        }
+    }
+
+    /**
+     * Gets the advice for a direction from the last update.
+     *
+     * @param direction One of the direction constants of this class.
+     * @return The advice flags for the direction.
+     */
+    public int getAdvice(int direction) {
+        return advice[direction];
+    }
+
+    /**
+     * Finds which of some of the directions, from the position of the last
+     * update, reach one of the remaining shocked faces in the fewest moves
+     * without hitting a wall.  The tiles the goblin can be on after each move
+     * are walked up the rows as a bit mask of one row for each direction, the
+     * same way the tiles that reach a face are walked down them, and the walk
+     * stops at the first row where a face is reached.
+     *
+     * @param directions Bit mask of the directions to choose from, with bit N
+     * set for direction N.
+     * @return Bit mask of the directions that reach a face first, or the
+     * directions given if none reaches a face within four times the number of
+     * rows.
+     */
+    public int getNearestToFace(int directions) {
+        //Declarations.
+        int row = nextRow(goblinY), limit = numberOfRows * 4, nearest;
+        long leftReach = reachFrom(directions, DIRECTION_LEFT);
+        long straightReach = reachFrom(directions, DIRECTION_STRAIGHT);
+        long rightReach = reachFrom(directions, DIRECTION_RIGHT);
+        long faces, open;
+
+        //The three directions are walked together so each row is read once.
+        for(int moves = 1; moves < limit && (leftReach | straightReach | rightReach) != 0L; moves++) {
+            faces = faceRows[row];
+            nearest = 0;
+            if((leftReach & faces) != 0L)
+                nearest |= 1 << DIRECTION_LEFT;
+            if((straightReach & faces) != 0L)
+                nearest |= 1 << DIRECTION_STRAIGHT;
+            if((rightReach & faces) != 0L)
+                nearest |= 1 << DIRECTION_RIGHT;
+            if(nearest != 0)
+                return nearest;
+
+            row = nextRow(row);
+            open = openRows[row];
+            leftReach = open & spread(leftReach);
+            straightReach = open & spread(straightReach);
+            rightReach = open & spread(rightReach);
+        }
+
+        return directions;
+    }
+
+    /**
+     * Works out every tile that can reach a tile by walking down the rows from
+     * it, wrapping from the bottom row back to the top, until a complete pass
+     * adds no new tiles.
+     *
+     * @param row The row of the tile to be reached.
+     * @param col The column of the tile to be reached.
+     * @param reachRows Array that receives the bit mask per row.
+     */
+    private void findTilesReaching(int row, int col, long[] reachRows) {
+        //Declarations.
+        int r, previousRow;
+        long reach;
+        boolean changed = true;
+
+        for(r = 0; r < numberOfRows; r++)
+            reachRows[r] = 0L;
+        reachRows[row] = 1L << col;
+
+        while(changed) {
+            changed = false;
+            r = row;
+            for(int step = 0; step < numberOfRows; step++) {
+                //The goblin reaches this row from the row below it, or from the
+                //top row if this is the bottom row.
+                previousRow = (r == numberOfRows - 1) ? 0 : r + 1;
+                reach = openRows[previousRow] & spread(reachRows[r]);
+                if((reach & ~reachRows[previousRow]) != 0L) {
+                    reachRows[previousRow] |= reach;
+                    changed = true;
+                }
+                r = previousRow;
+            }
+        }
+    }
+
+    /**
+     * Gets the tile the goblin moves to in a direction as a bit mask of its row,
+     * if the direction is one of those asked about.
+     *
+     * @param directions Bit mask of the directions asked about.
+     * @param direction One of the direction constants of this class.
+     * @return The bit mask, or zero if the direction was not asked about.
+     */
+    private long reachFrom(int directions, int direction) {
+        return ((directions & (1 << direction)) == 0) ? 0L : 1L << targetColumn(direction);
+    }
+
+    /**
+     * Gets the column the goblin moves to in a direction from the position of
+     * the last update.  A move into a shrub, which are always in the first and
+     * last columns, leaves the goblin in the same column.
+     *
+     * @param direction One of the direction constants of this class.
+     * @return The column.
+     */
+    private int targetColumn(int direction) {
+        //Declarations.
+        int targetCol = goblinX + direction - DIRECTION_STRAIGHT;
+
+        return (targetCol == 0 || targetCol == numberOfColumns - 1) ? goblinX : targetCol;
+    }
+
+    /**
+     * Gets the row the goblin moves to from a row.
+     *
+     * @param row The row the goblin is in.
+     * @return The row one up, or the bottom row if it is in the top row.
+     */
+    private int nextRow(int row) {
+        return (row == 0) ? numberOfRows - 1 : row - 1;
+    }
+
+    /**
+     * Spreads a row bit mask one column to either side.
+     *
+     * @param mask The row bit mask.
+     * @return The bit mask with each set column and its neighbours set.
+     */
+    private static long spread(long mask) {
+        return mask | (mask << 1) | (mask >>> 1);
+    }
+}
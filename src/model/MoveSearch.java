@@ -0,0 +1,187 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package model;
+
+/**
+ * Class that looks a number of moves ahead from a game to find the move that
+ * collects the most shocked faces without the goblin being destroyed.  Every
+ * combination of left, straight, and right is tried by making the moves on
+ * copies of the model, one copy for each move ahead, so the game itself is
+ * never changed.  Where the search stops, a position is worth less the more
+ * moves the goblin still needs to get around the walls to the nearest face, so
+ * that with no face in reach it still heads for one rather than going around
+ * the game grid forever.  Positions already searched are found in a transposition
+ * table by their state hash, which cuts out the many ways of reaching the same
+ * tile by different paths.
+ *
+ * A search is used by one thread at a time, but searches on many threads can
+ * share one table.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class MoveSearch {
+    /** The value of a line of moves that ends with the goblin destroyed. */
+    public static final int DESTROYED_VALUE = -1000000;
+    /**
+     * The value of collecting a shocked face.  It is more than the number of
+     * moves to any face so a face collected always counts for more.
+     */
+    public static final int FACE_VALUE = 1000;
+
+    /** Holds the transposition table. */
+    private final TranspositionTable table;
+    /** Holds a copy of the model for each move ahead. */
+    private final GoblinModel[] models;
+    /** Holds the number of positions searched, not counting table hits. */
+    private long positions;
+
+    //Constructor.
+    /**
+     * Creates a search.
+     *
+     * @param table The transposition table.
+     * @param maxDepth The largest number of moves that will be searched ahead.
+     */
+    public MoveSearch(TranspositionTable table, int maxDepth) {
+        this.table = table;
+        models = new GoblinModel[Math.min(Math.max(1, maxDepth), TranspositionTable.MAX_DEPTH) + 1];
+        for(int i = 0; i < models.length; i++)
+            models[i] = new GoblinModel();
+    }
+
+    /**
+     * Finds the best next move.
+     *
+     * @param model The game, in a state where the goblin can be moved.
+     * @param depth The number of moves to search ahead, up to the largest
+     * given when the search was created.
+     * @return One of the direction constants of the MoveAdvisor class.
+     */
+    public int findBestMove(GoblinModel model, int depth) {
+        //Declarations.
+        int state = model.getCurrentState();
+        int value, bestValue = Integer.MIN_VALUE, bestMove = MoveAdvisor.DIRECTION_STRAIGHT;
+
+        if(state != GoblinModel.STATE_BEGIN_LEVEL && state != GoblinModel.STATE_LEVEL_RUNNING && state != GoblinModel.STATE_GOBLIN_GOT_FACE)
+            return bestMove;
+
+        depth = Math.min(Math.max(1, depth), models.length - 1);
+        models[0].copyStateFrom(model);
+
+        //Try straight first so it is kept when the moves are as good.
+        for(int i = 0; i < 3; i++) {
+            int direction = (i + MoveAdvisor.DIRECTION_STRAIGHT) % 3;
+            value = tryMove(0, direction, depth);
+            if(value > bestValue) {
+                bestValue = value;
+                bestMove = direction;
+            }
+        }
+
+        return bestMove;
+    }
+
+    /**
+     * Gets the number of positions searched, not counting the ones found in the
+     * transposition table.
+     *
+     * @return The number of positions.
+     */
+    public long getPositions() {
+        return positions;
+    }
+
+    /**
+     * Gets the value of a position, which is the most faces that can be
+     * collected over a number of moves from it, less the moves to the nearest
+     * face left where the search stops.
+     *
+     * @param ply The number of moves made since the start of the search.
+     * @param depth The number of moves left to search.
+     * @return The value.
+     */
+    private int search(int ply, int depth) {
+        //Declarations.
+        long key, entry;
+        int value, bestValue = Integer.MIN_VALUE, bestMove = MoveAdvisor.DIRECTION_STRAIGHT;
+
+        //The value depends on the moves left, so they are part of the key.
+        key = models[ply].getStateHash() ^ (depth * 0x9E3779B97F4A7C15L);
+        entry = table.probe(key);
+        if(entry != TranspositionTable.NOT_FOUND)
+            return TranspositionTable.getValue(entry);
+
+        positions++;
+        for(int direction = MoveAdvisor.DIRECTION_LEFT; direction <= MoveAdvisor.DIRECTION_RIGHT; direction++) {
+            value = tryMove(ply, direction, depth);
+            if(value > bestValue) {
+                bestValue = value;
+                bestMove = direction;
+            }
+        }
+
+        table.store(key, depth, bestValue, TranspositionTable.BOUND_EXACT, bestMove);
+        return bestValue;
+    }
+
+    /**
+     * Makes a move on a copy of a position and gets its value.
+     *
+     * @param ply The number of moves made since the start of the search.
+     * @param direction The direction of the move.
+     * @param depth The number of moves left to search, including this one.
+     * @return The value of the faces collected by the move plus the value of
+     * the position it leads to.
+     */
+    private int tryMove(int ply, int direction, int depth) {
+        //Declarations.
+        GoblinModel child = models[ply + 1];
+        int faces;
+
+        child.copyStateFrom(models[ply]);
+        if(direction == MoveAdvisor.DIRECTION_LEFT)
+            child.setKeyPress(GoblinModel.MOVE_LEFT);
+        else if(direction == MoveAdvisor.DIRECTION_RIGHT)
+            child.setKeyPress(GoblinModel.MOVE_RIGHT);
+        child.moveGoblin();
+        faces = (child.getScore() - models[ply].getScore()) * FACE_VALUE;
+
+        //Being destroyed sooner is worse than being destroyed later.  Where
+        //the search stops being nearer a face is better.
+        switch(child.getCurrentState()) {
+            case GoblinModel.STATE_GOBLIN_DESTROYED:
+                return DESTROYED_VALUE - depth;
+            case GoblinModel.STATE_LEVEL_CLEARED:
+                return faces;
+            default:
+                return (depth == 1) ? faces - child.getMovesToNearestFace() : faces + search(ply + 1, depth - 1);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class that remembers what a search found for positions it has already looked
+ * at, found by the state hash of the model.  The table has a fixed number of
+ * entries and a newer entry takes the place of an older one that lands on the
+ * same place, unless the older one is for the same position and was searched
+ * deeper.
+ *
+ * Many search threads can share one table without locks.  Each entry is two
+ * longs, the hash exclusive or'd with the data and the data itself.  An entry
+ * that is read while another thread is writing it has halves that do not
+ * match, so it is taken as not found rather than as the wrong data.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class TranspositionTable {
+    /** The value that indicates the stored value is exact. */
+    public static final int BOUND_EXACT = 0;
+    /** The value that indicates the true value is at least the stored one. */
+    public static final int BOUND_LOWER = 1;
+    /** The value that indicates the true value is at most the stored one. */
+    public static final int BOUND_UPPER = 2;
+    /** The largest depth that can be stored. */
+    public static final int MAX_DEPTH = 255;
+    /** The value probe() returns when the position is not in the table. */
+    public static final long NOT_FOUND = 0L;
+
+    /** The bit set in the data of every entry so it is never NOT_FOUND. */
+    private static final long VALID = 1L << 63;
+    /** The number of bits the depth is shifted left in the data. */
+    private static final int DEPTH_SHIFT = 40;
+    /** The number of bits the bound is shifted left in the data. */
+    private static final int BOUND_SHIFT = 36;
+    /** The number of bits the move is shifted left in the data. */
+    private static final int MOVE_SHIFT = 32;
+
+    /** Holds two longs for each entry. */
+    private final AtomicLongArray slots;
+    /** Holds the number of entries less one, used to find an entry. */
+    private final int mask;
+
+    //Constructor.
+    /**
+     * Creates an empty table.
+     *
+     * @param entries The number of entries, rounded up to a power of two.
+     */
+    public TranspositionTable(int entries) {
+        //Declarations.
+        int capacity = Integer.highestOneBit(Math.max(1, Math.min(entries, 1 << 29)) * 2 - 1);
+
+        slots = new AtomicLongArray(capacity * 2);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Stores what a search found for a position.
+     *
+     * @param hash The state hash of the position.
+     * @param depth The number of moves searched from it, up to MAX_DEPTH.
+     * @param value The value found.
+     * @param bound One of the bound constants of this class.
+     * @param move The best move found, one of the direction constants of the
+     * MoveAdvisor class, or -1 if there is none.
+     */
+    public void store(long hash, int depth, int value, int bound, int move) {
+        //Declarations.
+        int slot = ((int)hash & mask) << 1;
+        long old = slots.get(slot + 1);
+        long data;
+
+        //Keep a deeper search of the same position.
+        if((slots.get(slot) ^ old) == hash && getDepth(old) > depth)
+            return;
+
+        data = VALID | ((long)Math.min(depth, MAX_DEPTH) << DEPTH_SHIFT) | ((long)(bound & 3) << BOUND_SHIFT)
+                | ((long)((move + 1) & 15) << MOVE_SHIFT) | (value & 0xFFFFFFFFL);
+        slots.lazySet(slot, hash ^ data);
+        slots.lazySet(slot + 1, data);
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param hash The state hash of the position.
+     * @return The entry, to be read with the static getters of this class, or
+     * NOT_FOUND.
+     */
+    public long probe(long hash) {
+        //Declarations.
+        int slot = ((int)hash & mask) << 1;
+        long data = slots.get(slot + 1);
+
+        return ((slots.get(slot) ^ data) == hash && data != NOT_FOUND) ? data : NOT_FOUND;
+    }
+
+    /**
+     * Empties the table.  It must not be in use while it is emptied.
+     */
+    public void clear() {
+        for(int i = 0; i < slots.length(); i++)
+            slots.set(i, 0L);
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return The number of entries.
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Gets the value of an entry.
+     *
+     * @param entry An entry returned by probe().
+     * @return The value.
+     */
+    public static int getValue(long entry) {
+        return (int)entry;
+    }
+
+    /**
+     * Gets the depth of an entry.
+     *
+     * @param entry An entry returned by probe().
+     * @return The number of moves searched.
+     */
+    public static int getDepth(long entry) {
+        return (int)(entry >>> DEPTH_SHIFT) & MAX_DEPTH;
+    }
+
+    /**
+     * Gets the bound of an entry.
+     *
+     * @param entry An entry returned by probe().
+     * @return One of the bound constants of this class.
+     */
+    public static int getBound(long entry) {
+        return (int)(entry >>> BOUND_SHIFT) & 3;
+    }
+
+    /**
+     * Gets the best move of an entry.
+     *
+     * @param entry An entry returned by probe().
+     * @return One of the direction constants of the MoveAdvisor class, or -1.
+     */
+    public static int getMove(long entry) {
+        return ((int)(entry >>> MOVE_SHIFT) & 15) - 1;
+    }
+}
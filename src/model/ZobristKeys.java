@@ -0,0 +1,120 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package model;
+
+/**
+ * Class that holds the random keys used to hash the game.  There is a key for
+ * each image type on each tile, and the hash of a game grid is all the keys of
+ * its tiles exclusive or'd together, so changing one tile changes the hash by
+ * two exclusive ors whatever the size of the game grid.  The keys are worked
+ * out from a fixed seed so a hash means the same in every run of the game.
+ *
+ * @author agent
+ * @version 1.0
+ */
+final class ZobristKeys {
+    /** The number of image types. */
+    static final int NUMBER_OF_IMAGE_TYPES = Images.WALL + 1;
+    /** The number of states of the model. */
+    static final int NUMBER_OF_STATES = GoblinModel.STATE_GAME_OVER + 1;
+
+    /** Holds the key of each image type on each tile of the largest grid. */
+    private static final long[] TILE_KEYS = new long[GoblinModel.LARGE_GRID_SIZE * GoblinModel.LARGE_GRID_SIZE * NUMBER_OF_IMAGE_TYPES];
+    /** Holds the key of each state of the model. */
+    private static final long[] STATE_KEYS = new long[NUMBER_OF_STATES];
+    /** Holds the key of a left or right key press at each place in the queue. */
+    private static final long[] KEY_PRESS_KEYS = new long[2 * 64];
+
+    static {
+        //Declarations.
+        long seed = 0x476F626C696E4C4CL;
+
+        //Fill the keys from a SplitMix64 sequence.
+        for(int i = 0; i < TILE_KEYS.length; i++)
+            TILE_KEYS[i] = mix(seed += 0x9E3779B97F4A7C15L);
+        for(int i = 0; i < STATE_KEYS.length; i++)
+            STATE_KEYS[i] = mix(seed += 0x9E3779B97F4A7C15L);
+        for(int i = 0; i < KEY_PRESS_KEYS.length; i++)
+            KEY_PRESS_KEYS[i] = mix(seed += 0x9E3779B97F4A7C15L);
+    }
+
+    //Constructor.
+    /**
+     * Private constructor since the class only has static members.
+     */
+    private ZobristKeys() {
+    }
+
+    /**
+     * Gets the key of an image type on a tile.
+     *
+     * @param tile The place of the tile in the board of the model, which is
+     * row times the largest grid size plus column.
+     * @param imageType The image type.
+     * @return The key.
+     */
+    static long tile(int tile, int imageType) {
+        return TILE_KEYS[tile * NUMBER_OF_IMAGE_TYPES + imageType];
+    }
+
+    /**
+     * Gets the key of a state of the model.
+     *
+     * @param state The state.
+     * @return The key.
+     */
+    static long state(int state) {
+        return STATE_KEYS[state];
+    }
+
+    /**
+     * Gets the key of a key press at a place in the key press queue.  Places
+     * past the number of keys wrap around, which only happens if more key
+     * presses are waiting than a player could ever queue up.
+     *
+     * @param place The place in the queue, zero for the next key press.
+     * @param keyPress GoblinModel.MOVE_LEFT or GoblinModel.MOVE_RIGHT.
+     * @return The key.
+     */
+    static long keyPress(int place, int keyPress) {
+        return KEY_PRESS_KEYS[((place & 63) << 1) | ((keyPress == GoblinModel.MOVE_LEFT) ? 0 : 1)];
+    }
+
+    /**
+     * Mixes a number with the SplitMix64 finalizer.
+     *
+     * @param z The number.
+     * @return The mixed number.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
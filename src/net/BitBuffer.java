@@ -0,0 +1,99 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package net;
+
+/**
+ * Class used to pack values of any number of bits, most significant bit first,
+ * into a byte array and to unpack them again.  The spectator frames use it so
+ * that a tile type takes three bits and a tile position only as many bits as
+ * the game grid needs.
+ *
+ * @author agent
+ * @version 1.0
+ */
+class BitBuffer {
+    /** Holds the bytes being packed or unpacked. */
+    private final byte[] data;
+    /** Holds the position of the next bit from the start of the array. */
+    private long bitPosition;
+
+    //Constructor.
+    /**
+     * Creates a bit buffer over part of a byte array.  When packing, the bytes
+     * from the offset on must be zero.
+     *
+     * @param data The bytes to be packed or unpacked.
+     * @param offset The index of the first byte to use.
+     */
+    BitBuffer(byte[] data, int offset) {
+        this.data = data;
+        bitPosition = (long) offset * 8L;
+    }
+
+    /**
+     * Packs a value into the buffer.
+     *
+     * @param value The value, of which only the low bits are used.
+     * @param bits The number of bits, from one to thirty one.
+     */
+    void write(int value, int bits) {
+        for(int bit = bits - 1; bit >= 0; bit--) {
+            if(((value >>> bit) & 1) != 0)
+                data[(int) (bitPosition >>> 3)] |= (byte) (0x80 >>> (bitPosition & 7));
+            bitPosition++;
+        }
+    }
+
+    /**
+     * Unpacks a value from the buffer.
+     *
+     * @param bits The number of bits, from one to thirty one.
+     * @return The value.
+     */
+    int read(int bits) {
+        //Declarations.
+        int value = 0;
+
+        for(int bit = 0; bit < bits; bit++) {
+            value = (value << 1) | ((data[(int) (bitPosition >>> 3)] >>> (7 - (bitPosition & 7))) & 1);
+            bitPosition++;
+        }
+        return value;
+    }
+
+    /**
+     * Gets the index of the byte after the last one used, counting a partly
+     * used byte as used.
+     *
+     * @return The index of the next free byte.
+     */
+    int getEnd() {
+        return (int) ((bitPosition + 7L) >>> 3);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package net;
+
+/**
+ * Class that holds one encoded frame on its way from a game to the spectator
+ * server thread.
+ *
+ * @author agent
+ * @version 1.0
+ */
+class Frame {
+    /** Holds the game the frame belongs to. */
+    final GameFeed feed;
+    /** Holds the sequence number of the game update. */
+    final int sequence;
+    /** Holds the encoded frame, or null when the game has ended. */
+    final byte[] data;
+
+    //Constructor.
+    /**
+     * Sole constructor.
+     *
+     * @param feed The game the frame belongs to.
+     * @param sequence The sequence number of the game update.
+     * @param data The encoded frame, or null when the game has ended.
+     */
+    Frame(GameFeed feed, int sequence, byte[] data) {
+        this.feed = feed;
+        this.sequence = sequence;
+        this.data = data;
+    }
+}
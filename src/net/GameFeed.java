@@ -0,0 +1,215 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package net;
+
+import java.util.Arrays;
+import model.GoblinModel;
+
+/**
+ * Class that turns the updates of one game into spectator frames.  The thread
+ * running the game calls publish after each update.  The game grid is compared
+ * against the one last published and only the changed tiles, along with the
+ * score, level and state, are encoded into a delta frame that is handed to the
+ * spectator server.  The last published game grid is also used to build a key
+ * frame whenever a spectator needs one, so the model is only ever read by the
+ * thread running the game.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class GameFeed {
+    /** The largest number of bytes any frame can take. */
+    static final int MAX_FRAME_SIZE = SpectatorProtocol.HEADER_SIZE + 2
+            + (GoblinModel.LARGE_GRID_SIZE * GoblinModel.LARGE_GRID_SIZE
+            * (SpectatorProtocol.positionBits(GoblinModel.LARGE_GRID_SIZE * GoblinModel.LARGE_GRID_SIZE)
+            + SpectatorProtocol.TYPE_BITS) + 7) / 8;
+
+    /** Holds the number of the game. */
+    private final long id;
+    /** Holds the server the frames are sent to. */
+    private final SpectatorServer server;
+    /** Holds the tile types of the game grid last published. */
+    private final byte[] board = new byte[GoblinModel.LARGE_GRID_SIZE * GoblinModel.LARGE_GRID_SIZE];
+    /** Holds the positions of the tiles changed by the update being published. */
+    private final int[] changedTiles = new int[GoblinModel.LARGE_GRID_SIZE * GoblinModel.LARGE_GRID_SIZE];
+    /** Holds the array frames are built in before being copied out. */
+    private final byte[] frameData = new byte[MAX_FRAME_SIZE];
+    /** Holds the number of rows last published. */
+    private int numberOfRows;
+    /** Holds the number of columns last published. */
+    private int numberOfColumns;
+    /** Holds the score last published. */
+    private int score;
+    /** Holds the level last published. */
+    private int level;
+    /** Holds the state of the model last published. */
+    private int state;
+    /** Holds the sequence number of the last update published. */
+    private int sequence;
+    /** Holds the boolean value that indicates the game has been removed. */
+    private volatile boolean closed;
+
+    //Constructor.
+    /**
+     * Creates a feed.  Feeds are created by the spectator server.
+     *
+     * @param id The number of the game.
+     * @param server The server the frames are sent to.
+     */
+    GameFeed(long id, SpectatorServer server) {
+        this.id = id;
+        this.server = server;
+    }
+
+    /**
+     * Method called by the thread running the game after each update to send
+     * the changes to the spectators.  Nothing is sent if nothing changed.  A
+     * change in the size of the game grid is sent as a key frame.
+     *
+     * @param model The model of the game.
+     */
+    public synchronized void publish(GoblinModel model) {
+        //Declarations.
+        int rows = model.getNumberOfRows();
+        int cols = model.getNumberOfColumns();
+        int count = 0, tile, type;
+        boolean newGrid = sequence == 0 || rows != numberOfRows || cols != numberOfColumns;
+
+        //Find the tiles that changed since the last update.
+        for(int row = 0; row < rows; row++) {
+            for(int col = 0; col < cols; col++) {
+                tile = row * cols + col;
+                type = model.getImageType(row, col);
+                if(newGrid || board[tile] != type) {
+                    board[tile] = (byte) type;
+                    changedTiles[count++] = tile;
+                }
+            }
+        }
+
+        //Skip the update if nothing a spectator can see has changed.
+        if(count == 0 && score == model.getScore() && level == model.getLevel() && state == model.getCurrentState())
+            return;
+
+        numberOfRows = rows;
+        numberOfColumns = cols;
+        score = model.getScore();
+        level = model.getLevel();
+        state = model.getCurrentState();
+        sequence++;
+
+        if(newGrid)
+            server.enqueue(new Frame(this, sequence, encodeKeyFrame()));
+        else
+            server.enqueue(new Frame(this, sequence, encodeDeltaFrame(count)));
+    }
+
+    /**
+     * Method that builds a key frame from the game grid last published.  Called
+     * by the spectator server thread when a spectator needs one.
+     *
+     * @return The key frame.
+     */
+    synchronized Frame getKeyFrame() {
+        return new Frame(this, sequence, encodeKeyFrame());
+    }
+
+    /**
+     * Encodes a key frame of the game grid last published.
+     *
+     * @return The encoded frame.
+     */
+    private byte[] encodeKeyFrame() {
+        //Declarations.
+        BitBuffer bits;
+        int length;
+
+        Arrays.fill(frameData, (byte) 0);
+        frameData[SpectatorProtocol.HEADER_SIZE] = (byte) numberOfRows;
+        frameData[SpectatorProtocol.HEADER_SIZE + 1] = (byte) numberOfColumns;
+        bits = new BitBuffer(frameData, SpectatorProtocol.HEADER_SIZE + 2);
+        for(int tile = 0; tile < numberOfRows * numberOfColumns; tile++)
+            bits.write(board[tile], SpectatorProtocol.TYPE_BITS);
+
+        length = bits.getEnd();
+        SpectatorProtocol.writeHeader(frameData, length, SpectatorProtocol.FRAME_KEY, sequence, score, level, state);
+        return Arrays.copyOf(frameData, length);
+    }
+
+    /**
+     * Encodes a delta frame of the tiles that changed.
+     *
+     * @param count The number of changed tiles.
+     * @return The encoded frame.
+     */
+    private byte[] encodeDeltaFrame(int count) {
+        //Declarations.
+        BitBuffer bits;
+        int positionBits = SpectatorProtocol.positionBits(numberOfRows * numberOfColumns);
+        int length;
+
+        Arrays.fill(frameData, (byte) 0);
+        frameData[SpectatorProtocol.HEADER_SIZE] = (byte) (count >>> 8);
+        frameData[SpectatorProtocol.HEADER_SIZE + 1] = (byte) count;
+        bits = new BitBuffer(frameData, SpectatorProtocol.HEADER_SIZE + 2);
+        for(int i = 0; i < count; i++) {
+            bits.write(changedTiles[i], positionBits);
+            bits.write(board[changedTiles[i]], SpectatorProtocol.TYPE_BITS);
+        }
+
+        length = bits.getEnd();
+        SpectatorProtocol.writeHeader(frameData, length, SpectatorProtocol.FRAME_DELTA, sequence, score, level, state);
+        return Arrays.copyOf(frameData, length);
+    }
+
+    /**
+     * Gets the number of the game.
+     *
+     * @return The game number.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Method called by the spectator server when the game is removed.
+     */
+    void close() {
+        closed = true;
+    }
+
+    /**
+     * Gets the boolean value that indicates the game has been removed.
+     *
+     * @return True if the game has been removed.
+     */
+    boolean isClosed() {
+        return closed;
+    }
+}
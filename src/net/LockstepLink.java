@@ -0,0 +1,432 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package net;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * Connection between the two players of a race.  Only the key presses and a
+ * checksum of the board are sent for each game step, so a step takes five
+ * bytes on the wire.  The step number is not sent since the connection keeps
+ * the steps in order.
+ *
+ * The player hosting the race measures the round trip time with a few pings
+ * and then sends the seed, game grid size, level, and input delay so both
+ * players build the same level and wait for each other the same way.  The steps
+ * from the other player are then read by a thread of their own and held until
+ * the race asks for them.
+ *
+ * <pre>
+ * PING   byte 1, long time
+ * PONG   byte 2, long time echoed back
+ * START  byte 3, long seed, byte grid size, byte level, byte input delay
+ * STEP   byte 4 plus the key press, int board checksum
+ * BYE    byte 8
+ * </pre>
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class LockstepLink implements Closeable {
+    /** The key press value that means no key was pressed. */
+    public static final int INPUT_NONE = 0;
+    /** The key press value that means the goblin moves left. */
+    public static final int INPUT_LEFT = 1;
+    /** The key press value that means the goblin moves right. */
+    public static final int INPUT_RIGHT = 2;
+
+    /** The message type of a ping. */
+    private static final int MESSAGE_PING = 1;
+    /** The message type of the answer to a ping. */
+    private static final int MESSAGE_PONG = 2;
+    /** The message type of the race settings. */
+    private static final int MESSAGE_START = 3;
+    /** The message type of a step, with the key press in the low two bits. */
+    private static final int MESSAGE_STEP = 4;
+    /** The message type sent when a player has finished the race. */
+    private static final int MESSAGE_BYE = 8;
+    /** The number of steps from the other player that can be held. */
+    private static final int STEP_BUFFER_SIZE = 1024;
+
+    /** Holds the connection to the other player. */
+    private final Socket socket;
+    /** Holds the stream the messages are read from. */
+    private final DataInputStream input;
+    /** Holds the stream the messages are written to. */
+    private final DataOutputStream output;
+    /** Holds the key presses of the steps from the other player. */
+    private final byte[] remoteInputs = new byte[STEP_BUFFER_SIZE];
+    /** Holds the board checksums of the steps from the other player. */
+    private final int[] remoteChecksums = new int[STEP_BUFFER_SIZE];
+    /** Holds the number of steps received from the other player. */
+    private int receivedSteps;
+    /** Holds the number of steps from the other player that have been used. */
+    private int usedSteps;
+    /** Holds the boolean value that indicates the other player said bye. */
+    private boolean remoteDone;
+    /** Holds the boolean value that indicates the connection was lost. */
+    private boolean broken;
+    /** Holds the seed of the race. */
+    private long seed;
+    /** Holds the game grid size of the race. */
+    private int gridSize;
+    /** Holds the level of the race. */
+    private int level;
+    /** Holds the number of steps the other player's steps may run behind. */
+    private int inputDelay;
+
+    //Constructor.
+    /**
+     * Creates a link over a connected socket.
+     *
+     * @param socket The connection to the other player.
+     * @throws IOException If the streams could not be opened.
+     */
+    private LockstepLink(Socket socket) throws IOException {
+        this.socket = socket;
+        socket.setTcpNoDelay(true);
+        input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Waits for the other player to connect.
+     *
+     * @param address The address to listen on.
+     * @return The link.
+     * @throws IOException If the connection failed.
+     */
+    public static LockstepLink accept(InetSocketAddress address) throws IOException {
+        try (ServerSocket server = new ServerSocket()) {
+            server.bind(address);
+            return new LockstepLink(server.accept());
+        }
+    }
+
+    /**
+     * Waits for the other player to connect to a server socket that is already
+     * listening.
+     *
+     * @param server The server socket.
+     * @return The link.
+     * @throws IOException If the connection failed.
+     */
+    public static LockstepLink accept(ServerSocket server) throws IOException {
+        return new LockstepLink(server.accept());
+    }
+
+    /**
+     * Connects to the player hosting the race.
+     *
+     * @param address The address of the host.
+     * @return The link.
+     * @throws IOException If the connection failed.
+     */
+    public static LockstepLink connect(InetSocketAddress address) throws IOException {
+        //Declarations.
+        Socket socket = new Socket();
+
+        socket.connect(address);
+        return new LockstepLink(socket);
+    }
+
+    /**
+     * Measures the round trip time to the other player, which must be waiting
+     * in awaitStart.
+     *
+     * @param pings The number of pings to send.
+     * @return The longest round trip time in nanoseconds.
+     * @throws IOException If the connection failed.
+     */
+    public long measureRoundTrip(int pings) throws IOException {
+        //Declarations.
+        long longest = 0L;
+
+        for(int i = 0; i < pings; i++) {
+            output.writeByte(MESSAGE_PING);
+            output.writeLong(System.nanoTime());
+            output.flush();
+            if(input.readByte() != MESSAGE_PONG)
+                throw new IOException("Expected a pong from the other player");
+            longest = Math.max(longest, System.nanoTime() - input.readLong());
+        }
+        return longest;
+    }
+
+    /**
+     * Sends the race settings to the other player and starts reading its steps.
+     *
+     * @param seed The seed of the race.
+     * @param gridSize The game grid size of the race.
+     * @param level The level of the race.
+     * @param inputDelay The number of steps the other player's steps may run
+     * behind.
+     * @throws IOException If the connection failed.
+     */
+    public void sendStart(long seed, int gridSize, int level, int inputDelay) throws IOException {
+        this.seed = seed;
+        this.gridSize = gridSize;
+        this.level = level;
+        this.inputDelay = inputDelay;
+
+        output.writeByte(MESSAGE_START);
+        output.writeLong(seed);
+        output.writeByte(gridSize);
+        output.writeByte(level);
+        output.writeByte(inputDelay);
+        output.flush();
+        startReading();
+    }
+
+    /**
+     * Answers pings until the race settings arrive from the player hosting the
+     * race, then starts reading its steps.
+     *
+     * @throws IOException If the connection failed.
+     */
+    public void awaitStart() throws IOException {
+        //Declarations.
+        int type;
+
+        while((type = input.readByte()) == MESSAGE_PING) {
+            output.writeByte(MESSAGE_PONG);
+            output.writeLong(input.readLong());
+            output.flush();
+        }
+        if(type != MESSAGE_START)
+            throw new IOException("Expected the race settings from the host");
+
+        seed = input.readLong();
+        gridSize = input.readUnsignedByte();
+        level = input.readUnsignedByte();
+        inputDelay = input.readUnsignedByte();
+        startReading();
+    }
+
+    /**
+     * Starts the thread that reads the steps from the other player.
+     */
+    private void startReading() {
+        //Declarations.
+        Thread reader = new Thread(this::readSteps, "goblin-lockstep");
+
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * The loop run by the reading thread.
+     */
+    private void readSteps() {
+        //Declarations.
+        int type, checksum;
+
+        try {
+            while(true) {
+                type = input.readByte();
+                if(type == MESSAGE_BYE) {
+                    synchronized(this) {
+                        remoteDone = true;
+                        notifyAll();
+                    }
+                    return;
+                }
+                if((type & ~3) != MESSAGE_STEP)
+                    throw new IOException("Unknown message from the other player");
+                checksum = input.readInt();
+
+                synchronized(this) {
+                    //The other player can never be more than the input delay
+                    //ahead, so the buffer only fills if something is wrong.
+                    if(receivedSteps - usedSteps >= STEP_BUFFER_SIZE)
+                        throw new IOException("The other player is too far ahead");
+                    remoteInputs[receivedSteps % STEP_BUFFER_SIZE] = (byte) (type & 3);
+                    remoteChecksums[receivedSteps % STEP_BUFFER_SIZE] = checksum;
+                    receivedSteps++;
+                    notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            synchronized(this) {
+                broken = true;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Sends a step to the other player.
+     *
+     * @param keyPress The key press used for the step, one of the input
+     * constants.
+     * @param checksum The board checksum after the step.
+     * @throws IOException If the connection failed.
+     */
+    public void sendStep(int keyPress, int checksum) throws IOException {
+        output.writeByte(MESSAGE_STEP | keyPress);
+        output.writeInt(checksum);
+        output.flush();
+    }
+
+    /**
+     * Tells the other player that no more steps are coming.
+     *
+     * @throws IOException If the connection failed.
+     */
+    public void sendBye() throws IOException {
+        output.writeByte(MESSAGE_BYE);
+        output.flush();
+    }
+
+    /**
+     * Waits until a number of steps have been received from the other player,
+     * the other player has said bye, or the connection is lost.
+     *
+     * @param steps The number of steps to wait for.
+     * @param timeoutMillis The longest time to wait in milliseconds.
+     * @return True if the steps have been received.
+     * @throws InterruptedException If the wait was interrupted.
+     */
+    public synchronized boolean awaitSteps(int steps, long timeoutMillis) throws InterruptedException {
+        //Declarations.
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long remaining = timeoutMillis;
+
+        while(receivedSteps < steps && !remoteDone && !broken && remaining > 0L) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return receivedSteps >= steps;
+    }
+
+    /**
+     * Gets the number of steps received from the other player.
+     *
+     * @return The number of steps.
+     */
+    public synchronized int getReceivedSteps() {
+        return receivedSteps;
+    }
+
+    /**
+     * Gets the key press of a step from the other player and lets the buffer
+     * reuse its space.  Steps must be used in order.
+     *
+     * @param step The step number, less than the number of steps received.
+     * @return The key press, one of the input constants.
+     */
+    public synchronized int useStepInput(int step) {
+        usedSteps = step + 1;
+        return remoteInputs[step % STEP_BUFFER_SIZE];
+    }
+
+    /**
+     * Gets the board checksum of a step from the other player.  Must be called
+     * before the step is used.
+     *
+     * @param step The step number, less than the number of steps received.
+     * @return The board checksum after the step.
+     */
+    public synchronized int getStepChecksum(int step) {
+        return remoteChecksums[step % STEP_BUFFER_SIZE];
+    }
+
+    /**
+     * Gets the boolean value that indicates the other player said bye.
+     *
+     * @return True if the other player said bye.
+     */
+    public synchronized boolean isRemoteDone() {
+        return remoteDone;
+    }
+
+    /**
+     * Gets the boolean value that indicates the connection was lost.
+     *
+     * @return True if the connection was lost.
+     */
+    public synchronized boolean isBroken() {
+        return broken;
+    }
+
+    /**
+     * Gets the seed of the race.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the game grid size of the race.
+     *
+     * @return The game grid size.
+     */
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Gets the level of the race.
+     *
+     * @return The level.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the number of steps the other player's steps may run behind before
+     * a player waits for them.
+     *
+     * @return The input delay in steps.
+     */
+    public int getInputDelay() {
+        return inputDelay;
+    }
+
+    /**
+     * Closes the connection.
+     *
+     * @throws IOException If the connection could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package net;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import model.GoblinModel;
+
+/**
+ * Class that publishes the game grid, goblin position, score, level, and state
+ * of one game into a memory mapped file, so programs in other processes and
+ * other languages can read the live game without sockets or decoding.  The
+ * thread running the game calls publish after each update and only the tiles
+ * that changed are written.
+ *
+ * The file is little endian and laid out as:
+ *     0   int   magic number GBSB
+ *     4   int   version
+ *     8   long  sequence
+ *     16  int   number of rows
+ *     20  int   number of columns
+ *     24  int   goblin column
+ *     28  int   goblin row
+ *     32  int   score
+ *     36  int   level
+ *     40  int   state, one of the state constants of the model
+ *     64  byte  image type of each tile, row by row, rows times columns long
+ *
+ * The sequence works as a seqlock.  It is odd while an update is being written
+ * and even once it is done, and goes up by two with each update.  A reader
+ * reads the sequence, and if it is even reads what it wants and then reads the
+ * sequence again.  If it is the same the values read were all from one
+ * update, otherwise the reader tries again.  Readers never hold up the game.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SharedBoard {
+    /** The number that starts the file, GBSB in ASCII. */
+    public static final int MAGIC = 0x47425342;
+    /** The version of the file layout. */
+    public static final int VERSION = 1;
+    /** The place in the file of the sequence. */
+    public static final int SEQUENCE_OFFSET = 8;
+    /** The place in the file of the number of rows. */
+    public static final int ROWS_OFFSET = 16;
+    /** The place in the file of the number of columns. */
+    public static final int COLUMNS_OFFSET = 20;
+    /** The place in the file of the goblin column. */
+    public static final int GOBLIN_X_OFFSET = 24;
+    /** The place in the file of the goblin row. */
+    public static final int GOBLIN_Y_OFFSET = 28;
+    /** The place in the file of the score. */
+    public static final int SCORE_OFFSET = 32;
+    /** The place in the file of the level. */
+    public static final int LEVEL_OFFSET = 36;
+    /** The place in the file of the state. */
+    public static final int STATE_OFFSET = 40;
+    /** The place in the file of the first tile. */
+    public static final int BOARD_OFFSET = 64;
+    /** The size of the file. */
+    public static final int FILE_SIZE = BOARD_OFFSET + GoblinModel.LARGE_GRID_SIZE * GoblinModel.LARGE_GRID_SIZE;
+
+    /** Gives ordered access to the sequence in the mapped file. */
+    static final VarHandle SEQUENCE = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /** Holds the mapped file. */
+    private final MappedByteBuffer buffer;
+    /** Holds the tile types of the game grid last published. */
+    private final byte[] board = new byte[GoblinModel.LARGE_GRID_SIZE * GoblinModel.LARGE_GRID_SIZE];
+    /** Holds the sequence of the last update published. */
+    private long sequence;
+    /** Holds the number of rows last published. */
+    private int numberOfRows;
+    /** Holds the number of columns last published. */
+    private int numberOfColumns;
+    /** Holds the goblin column last published. */
+    private int goblinX;
+    /** Holds the goblin row last published. */
+    private int goblinY;
+    /** Holds the score last published. */
+    private int score;
+    /** Holds the level last published. */
+    private int level;
+    /** Holds the state of the model last published. */
+    private int state;
+
+    //Constructor.
+    /**
+     * Creates the file, replacing anything in it, and maps it.
+     *
+     * @param file The file.
+     * @throws IOException If the file could not be created or mapped.
+     */
+    public SharedBoard(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(0L);
+            raf.setLength(FILE_SIZE);
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0L, FILE_SIZE);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        //The magic number goes in last so a reader never takes a file that is
+        //part way set up as a board.
+        buffer.putInt(4, VERSION);
+        SEQUENCE.setRelease(buffer, SEQUENCE_OFFSET, 0L);
+        buffer.putInt(0, MAGIC);
+    }
+
+    /**
+     * Method called by the thread running the game after each update to write
+     * the changes into the file.  Nothing is written if nothing changed.
+     *
+     * @param model The model of the game.
+     */
+    public void publish(GoblinModel model) {
+        //Declarations.
+        int rows = model.getNumberOfRows();
+        int cols = model.getNumberOfColumns();
+        int tile, type;
+        boolean newGrid = sequence == 0L || rows != numberOfRows || cols != numberOfColumns;
+        boolean writing = false;
+
+        //Write each tile that changed since the last update, starting the
+        //update when the first change is found.
+        for(int row = 0; row < rows; row++) {
+            for(int col = 0; col < cols; col++) {
+                tile = row * cols + col;
+                type = model.getImageType(row, col);
+                if(newGrid || board[tile] != type) {
+                    if(!writing) {
+                        beginUpdate();
+                        writing = true;
+                    }
+                    board[tile] = (byte)type;
+                    buffer.put(BOARD_OFFSET + tile, (byte)type);
+                }
+            }
+        }
+
+        //Skip the update if nothing a reader can see has changed.
+        if(!writing && goblinX == model.getcurrentGoblinX() && goblinY == model.getcurrentGoblinY() &&
+                score == model.getScore() && level == model.getLevel() && state == model.getCurrentState())
+            return;
+        if(!writing)
+            beginUpdate();
+
+        numberOfRows = rows;
+        numberOfColumns = cols;
+        goblinX = model.getcurrentGoblinX();
+        goblinY = model.getcurrentGoblinY();
+        score = model.getScore();
+        level = model.getLevel();
+        state = model.getCurrentState();
+        buffer.putInt(ROWS_OFFSET, rows);
+        buffer.putInt(COLUMNS_OFFSET, cols);
+        buffer.putInt(GOBLIN_X_OFFSET, goblinX);
+        buffer.putInt(GOBLIN_Y_OFFSET, goblinY);
+        buffer.putInt(SCORE_OFFSET, score);
+        buffer.putInt(LEVEL_OFFSET, level);
+        buffer.putInt(STATE_OFFSET, state);
+
+        //Make the sequence even again, after everything else is written.
+        sequence++;
+        SEQUENCE.setRelease(buffer, SEQUENCE_OFFSET, sequence);
+    }
+
+    /**
+     * Gets the sequence of the last update published.
+     *
+     * @return The sequence, which is always even.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Makes the sequence odd so readers know an update is being written.  No
+     * write of the update can be seen before it.
+     */
+    private void beginUpdate() {
+        sequence++;
+        SEQUENCE.setOpaque(buffer, SEQUENCE_OFFSET, sequence);
+        VarHandle.storeStoreFence();
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package net;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import model.GoblinModel;
+
+/**
+ * Class that reads a game published by a SharedBoard, in this process or
+ * another one.  Each call to read takes a snapshot of one whole update into
+ * this reader, trying again if the game wrote an update while it was being
+ * read, so the game is never held up.  Nothing is created after the reader is.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SharedBoardReader {
+    /** Holds the mapped file. */
+    private final MappedByteBuffer buffer;
+    /** Holds the tile types of the snapshot, row by row. */
+    private final byte[] board = new byte[GoblinModel.LARGE_GRID_SIZE * GoblinModel.LARGE_GRID_SIZE];
+    /** Holds the sequence of the snapshot. */
+    private long sequence;
+    /** Holds the number of rows of the snapshot. */
+    private int numberOfRows;
+    /** Holds the number of columns of the snapshot. */
+    private int numberOfColumns;
+    /** Holds the goblin column of the snapshot. */
+    private int goblinX;
+    /** Holds the goblin row of the snapshot. */
+    private int goblinY;
+    /** Holds the score of the snapshot. */
+    private int score;
+    /** Holds the level of the snapshot. */
+    private int level;
+    /** Holds the state of the snapshot. */
+    private int state;
+
+    //Constructor.
+    /**
+     * Maps a file written by a SharedBoard.
+     *
+     * @param file The file.
+     * @throws IOException If the file could not be mapped or is not a board.
+     */
+    public SharedBoardReader(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if(raf.length() < SharedBoard.FILE_SIZE)
+                throw new IOException("Not a shared board");
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0L, SharedBoard.FILE_SIZE);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if(buffer.getInt(0) != SharedBoard.MAGIC || buffer.getInt(4) != SharedBoard.VERSION)
+            throw new IOException("Not a shared board");
+    }
+
+    /**
+     * Takes a snapshot of the newest update.
+     *
+     * @return True if there was a newer update than the last snapshot, false
+     * if the snapshot is unchanged.
+     */
+    public boolean read() {
+        //Declarations.
+        long before, after;
+        int rows, cols;
+
+        while(true) {
+            //Wait out an update that is being written.
+            before = (long)SharedBoard.SEQUENCE.getAcquire(buffer, SharedBoard.SEQUENCE_OFFSET);
+            if(before == sequence)
+                return false;
+            if((before & 1L) != 0L) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            rows = buffer.getInt(SharedBoard.ROWS_OFFSET);
+            cols = buffer.getInt(SharedBoard.COLUMNS_OFFSET);
+            goblinX = buffer.getInt(SharedBoard.GOBLIN_X_OFFSET);
+            goblinY = buffer.getInt(SharedBoard.GOBLIN_Y_OFFSET);
+            score = buffer.getInt(SharedBoard.SCORE_OFFSET);
+            level = buffer.getInt(SharedBoard.LEVEL_OFFSET);
+            state = buffer.getInt(SharedBoard.STATE_OFFSET);
+
+            //A torn read can give any size, so keep it in bounds until the
+            //sequence says whether it can be kept.
+            if(rows >= 0 && cols >= 0 && rows * cols <= board.length) {
+                for(int tile = 0; tile < rows * cols; tile++)
+                    board[tile] = buffer.get(SharedBoard.BOARD_OFFSET + tile);
+            }
+
+            //Keep the snapshot if no update was written while it was read.
+            VarHandle.loadLoadFence();
+            after = (long)SharedBoard.SEQUENCE.getOpaque(buffer, SharedBoard.SEQUENCE_OFFSET);
+            if(after == before) {
+                sequence = before;
+                numberOfRows = rows;
+                numberOfColumns = cols;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gets the sequence of the snapshot, which goes up by two with each update.
+     *
+     * @return The sequence, zero if nothing has been published.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the image type of a tile of the snapshot.
+     *
+     * @param row The row of the tile.
+     * @param col The column of the tile.
+     * @return The image type, one of the image constants of the Images class.
+     */
+    public int getImageType(int row, int col) {
+        return board[row * numberOfColumns + col];
+    }
+
+    /**
+     * Gets the number of rows of the snapshot.
+     *
+     * @return The number of rows.
+     */
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    /**
+     * Gets the number of columns of the snapshot.
+     *
+     * @return The number of columns.
+     */
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    /**
+     * Gets the goblin column of the snapshot.
+     *
+     * @return The column.
+     */
+    public int getGoblinX() {
+        return goblinX;
+    }
+
+    /**
+     * Gets the goblin row of the snapshot.
+     *
+     * @return The row.
+     */
+    public int getGoblinY() {
+        return goblinY;
+    }
+
+    /**
+     * Gets the score of the snapshot.
+     *
+     * @return The score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the level of the snapshot.
+     *
+     * @return The level.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the state of the snapshot.
+     *
+     * @return One of the state constants of the model.
+     */
+    public int getState() {
+        return state;
+    }
+}
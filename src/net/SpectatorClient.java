@@ -0,0 +1,234 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package net;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import model.GoblinModel;
+
+/**
+ * Simple blocking spectator that connects to a spectator server, asks to watch a
+ * game, and keeps its own copy of the game grid up to date from the frames it
+ * reads.  It can be used to watch a game from another process or to test the
+ * server.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SpectatorClient implements Closeable {
+    /** Holds the connection to the server. */
+    private final SocketChannel channel;
+    /** Holds the buffer the frame header is read into. */
+    private final ByteBuffer header = ByteBuffer.allocate(SpectatorProtocol.HEADER_SIZE);
+    /** Holds the buffer the rest of the frame is read into. */
+    private final ByteBuffer body = ByteBuffer.allocate(GameFeed.MAX_FRAME_SIZE);
+    /** Holds the tile types of the game grid. */
+    private final byte[] board = new byte[GoblinModel.LARGE_GRID_SIZE * GoblinModel.LARGE_GRID_SIZE];
+    /** Holds the number of rows in the game grid. */
+    private int numberOfRows;
+    /** Holds the number of columns in the game grid. */
+    private int numberOfColumns;
+    /** Holds the score. */
+    private int score;
+    /** Holds the level. */
+    private int level;
+    /** Holds the state of the model. */
+    private int state;
+    /** Holds the sequence number of the last update read. */
+    private int sequence;
+    /** Holds the number of key frames read. */
+    private int keyFrames;
+
+    //Constructor.
+    /**
+     * Connects to a server and asks to watch a game.
+     *
+     * @param address The address of the server.
+     * @param gameId The number of the game to watch.
+     * @throws IOException If the connection failed.
+     */
+    public SpectatorClient(InetSocketAddress address, long gameId) throws IOException {
+        //Declarations.
+        ByteBuffer request = ByteBuffer.allocate(8);
+
+        channel = SocketChannel.open(address);
+        request.putLong(gameId);
+        request.flip();
+        while(request.hasRemaining())
+            channel.write(request);
+    }
+
+    /**
+     * Reads the next frame and applies it to the game grid.  Blocks until a
+     * whole frame has arrived.
+     *
+     * @return The frame type.
+     * @throws IOException If the connection failed or was closed.
+     */
+    public int readFrame() throws IOException {
+        //Declarations.
+        int type, count, positionBits, tile;
+        byte[] data;
+        BitBuffer bits;
+
+        header.clear();
+        readFully(header);
+        body.clear();
+        body.limit(header.getInt(0) - (SpectatorProtocol.HEADER_SIZE - 4));
+        readFully(body);
+
+        type = header.get(4);
+        sequence = header.getInt(5);
+        score = header.getInt(9);
+        level = header.getShort(13);
+        state = header.get(15);
+        data = body.array();
+
+        if(type == SpectatorProtocol.FRAME_KEY) {
+            numberOfRows = data[0];
+            numberOfColumns = data[1];
+            bits = new BitBuffer(data, 2);
+            for(tile = 0; tile < numberOfRows * numberOfColumns; tile++)
+                board[tile] = (byte) bits.read(SpectatorProtocol.TYPE_BITS);
+            keyFrames++;
+        } else {
+            count = ((data[0] & 0xFF) << 8) | (data[1] & 0xFF);
+            positionBits = SpectatorProtocol.positionBits(numberOfRows * numberOfColumns);
+            bits = new BitBuffer(data, 2);
+            for(int i = 0; i < count; i++) {
+                tile = bits.read(positionBits);
+                board[tile] = (byte) bits.read(SpectatorProtocol.TYPE_BITS);
+            }
+        }
+
+        return type;
+    }
+
+    /**
+     * Reads until a buffer is full.
+     *
+     * @param buffer The buffer.
+     * @throws IOException If the connection failed or was closed.
+     */
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) {
+            if(channel.read(buffer) < 0)
+                throw new EOFException("Spectator connection closed");
+        }
+    }
+
+    /**
+     * Closes the connection.
+     *
+     * @throws IOException If the connection could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Gets the number of rows in the game grid.
+     *
+     * @return The number of rows.
+     */
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    /**
+     * Gets the number of columns in the game grid.
+     *
+     * @return The number of columns.
+     */
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    /**
+     * Gets the image type of a tile.
+     *
+     * @param row The row of the tile.
+     * @param col The column of the tile.
+     * @return The image type, one of the image type constants of the Images
+     * class.
+     */
+    public int getImageType(int row, int col) {
+        return board[row * numberOfColumns + col];
+    }
+
+    /**
+     * Gets the score.
+     *
+     * @return The score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the level.
+     *
+     * @return The level.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the state of the model.
+     *
+     * @return The state, one of the state constants of the model.
+     */
+    public int getState() {
+        return state;
+    }
+
+    /**
+     * Gets the sequence number of the last update read.
+     *
+     * @return The sequence number.
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the number of key frames read.
+     *
+     * @return The number of key frames.
+     */
+    public int getKeyFrames() {
+        return keyFrames;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package net;
+
+/**
+ * Class that holds the layout of the frames sent to spectators.  Every frame
+ * starts with the same header, with all numbers big endian:
+ *
+ * <pre>
+ * int   length of the frame after this field
+ * byte  frame type
+ * int   sequence number of the game update
+ * int   score
+ * short level
+ * byte  state of the model
+ * </pre>
+ *
+ * A key frame follows the header with a byte for the number of rows and a byte
+ * for the number of columns, then every tile of the game grid, row by row, as
+ * a packed three bit tile type.  A delta frame follows the header with a short
+ * holding the number of changed tiles, then for each one its position, row
+ * times columns plus column, packed in as few bits as the game grid needs
+ * followed by its packed tile type.  A spectator first receives a key frame and
+ * then a delta frame for each game update that changed something.  Another key
+ * frame can arrive at any time, such as when the game grid size changes or the
+ * spectator fell behind, and replaces everything before it.
+ *
+ * Spectators connect and send the number of the game to watch as a big endian
+ * long.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public final class SpectatorProtocol {
+    /** The frame type of a key frame. */
+    public static final int FRAME_KEY = 1;
+    /** The frame type of a delta frame. */
+    public static final int FRAME_DELTA = 2;
+    /** The number of bytes in the frame header, including the length. */
+    public static final int HEADER_SIZE = 16;
+    /** The number of bits a packed tile type takes. */
+    public static final int TYPE_BITS = 3;
+
+    //Constructor.
+    /**
+     * Private constructor since the class only holds constants.
+     */
+    private SpectatorProtocol() {
+    }
+
+    /**
+     * Gets the number of bits a packed tile position takes.
+     *
+     * @param numberOfTiles The number of tiles in the game grid.
+     * @return The number of bits.
+     */
+    public static int positionBits(int numberOfTiles) {
+        return 32 - Integer.numberOfLeadingZeros(numberOfTiles - 1);
+    }
+
+    /**
+     * Writes a frame header.
+     *
+     * @param data The array the frame is built in.
+     * @param length The total length of the frame including the header.
+     * @param type The frame type.
+     * @param sequence The sequence number of the game update.
+     * @param score The score.
+     * @param level The level.
+     * @param state The state of the model.
+     */
+    static void writeHeader(byte[] data, int length, int type, int sequence, int score, int level, int state) {
+        writeInt(data, 0, length - 4);
+        data[4] = (byte) type;
+        writeInt(data, 5, sequence);
+        writeInt(data, 9, score);
+        data[13] = (byte) (level >>> 8);
+        data[14] = (byte) level;
+        data[15] = (byte) state;
+    }
+
+    /**
+     * Writes a big endian int into an array.
+     *
+     * @param data The array.
+     * @param offset The index of the first byte.
+     * @param value The value.
+     */
+    private static void writeInt(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 24);
+        data[offset + 1] = (byte) (value >>> 16);
+        data[offset + 2] = (byte) (value >>> 8);
+        data[offset + 3] = (byte) value;
+    }
+}
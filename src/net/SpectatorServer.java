@@ -0,0 +1,462 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking server that lets spectators in other processes watch live games.
+ * A single thread does all of the network work through a selector.  Games hand
+ * their frames to the server through a queue, and each time the thread wakes up
+ * it adds every queued frame to the output buffer of each spectator of that
+ * game and then does one write per spectator, so the frames of a tick go out
+ * together.
+ *
+ * The output buffer of each spectator has a fixed size.  A spectator that reads
+ * too slowly to keep up has its frames dropped until its buffer has been sent,
+ * and is then sent a new key frame so it catches up without holding memory or
+ * slowing down anyone else.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class SpectatorServer {
+    /** The default size in bytes of the output buffer of each spectator. */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /** Holds the selector used by the server thread. */
+    private final Selector selector;
+    /** Holds the channel that accepts spectators. */
+    private final ServerSocketChannel serverChannel;
+    /** Holds the size in bytes of the output buffer of each spectator. */
+    private final int bufferSize;
+    /** Holds the games that can be watched by game number. */
+    private final ConcurrentHashMap<Long, GameFeed> feeds = new ConcurrentHashMap<Long, GameFeed>();
+    /** Holds the frames waiting to be sent by the server thread. */
+    private final ConcurrentLinkedQueue<Frame> frames = new ConcurrentLinkedQueue<Frame>();
+    /** Holds the boolean value that indicates a wake up is already pending. */
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    /** Holds the spectators of each game.  Only used by the server thread. */
+    private final HashMap<GameFeed, ArrayList<Spectator>> spectators = new HashMap<GameFeed, ArrayList<Spectator>>();
+    /** Holds the spectators with output waiting to be written. */
+    private final ArrayList<Spectator> pendingWrites = new ArrayList<Spectator>();
+    /** Holds the buffer that input after the game number is read into. */
+    private final ByteBuffer discard = ByteBuffer.allocate(256);
+    /** Holds the number of connected spectators. */
+    private volatile int spectatorCount;
+    /** Holds the server thread. */
+    private Thread thread;
+
+    //Constructor.
+    /**
+     * Creates a server bound to an address.  The server does not accept
+     * spectators until it is started.
+     *
+     * @param address The address to listen on.  Port zero picks a free port.
+     * @param bufferSize The size in bytes of the output buffer of each
+     * spectator.  It is made at least big enough for the largest frame.
+     * @throws IOException If the address could not be bound.
+     */
+    public SpectatorServer(InetSocketAddress address, int bufferSize) throws IOException {
+        this.bufferSize = Math.max(bufferSize, GameFeed.MAX_FRAME_SIZE);
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Starts the server thread.
+     */
+    public synchronized void start() {
+        if(thread == null) {
+            thread = new Thread(this::run, "goblin-spectator");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops the server and disconnects all of the spectators.
+     */
+    public void close() {
+        try {
+            selector.close();
+            serverChannel.close();
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Gets the number of connected spectators.
+     *
+     * @return The number of spectators.
+     */
+    public int getSpectatorCount() {
+        return spectatorCount;
+    }
+
+    /**
+     * Adds a game that can be watched.
+     *
+     * @param id The number of the game, which spectators send to watch it.
+     * @return The feed the game publishes its updates to.
+     */
+    public GameFeed addGame(long id) {
+        //Declarations.
+        GameFeed feed = new GameFeed(id, this);
+
+        feeds.put(id, feed);
+        return feed;
+    }
+
+    /**
+     * Removes a game.  Its spectators are disconnected once the frames already
+     * published have been queued for them.
+     *
+     * @param id The number of the game.
+     */
+    public void removeGame(long id) {
+        //Declarations.
+        GameFeed feed = feeds.remove(id);
+
+        if(feed != null) {
+            feed.close();
+            enqueue(new Frame(feed, Integer.MAX_VALUE, null));
+        }
+    }
+
+    /**
+     * Method used by the feeds to hand a frame to the server thread.
+     *
+     * @param frame The frame.
+     */
+    void enqueue(Frame frame) {
+        frames.add(frame);
+
+        //Only wake the server thread if it has not already been woken.
+        if(wakeupPending.compareAndSet(false, true))
+            selector.wakeup();
+    }
+
+    /**
+     * The loop run by the server thread.
+     */
+    private void run() {
+        //Declarations.
+        Iterator<SelectionKey> keys;
+        SelectionKey key;
+        Frame frame;
+
+        try {
+            while(selector.isOpen()) {
+                selector.select();
+                wakeupPending.set(false);
+
+                //Handle the network events.
+                keys = selector.selectedKeys().iterator();
+                while(keys.hasNext()) {
+                    key = keys.next();
+                    keys.remove();
+                    if(!key.isValid())
+                        continue;
+                    if(key.isAcceptable())
+                        accept();
+                    else {
+                        if(key.isReadable())
+                            read((Spectator) key.attachment());
+                        if(key.isValid() && key.isWritable())
+                            write((Spectator) key.attachment());
+                    }
+                }
+
+                //Add the queued frames to the spectators and send them.
+                while((frame = frames.poll()) != null)
+                    deliver(frame);
+                for(Spectator spectator : pendingWrites) {
+                    spectator.writePending = false;
+                    write(spectator);
+                }
+                pendingWrites.clear();
+            }
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        } catch (ClosedSelectorException e) {
+            //The server was closed.
+        }
+    }
+
+    /**
+     * Accepts a new spectator.  It is not watching anything until it sends the
+     * number of a game.
+     *
+     * @throws IOException If the spectator could not be registered.
+     */
+    private void accept() throws IOException {
+        //Declarations.
+        SocketChannel channel = serverChannel.accept();
+        Spectator spectator;
+
+        if(channel == null)
+            return;
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        spectator = new Spectator(channel, bufferSize);
+        spectator.key = channel.register(selector, SelectionKey.OP_READ, spectator);
+        spectatorCount++;
+    }
+
+    /**
+     * Reads from a spectator.  The first eight bytes are the number of the game
+     * to watch, anything after that is ignored.
+     *
+     * @param spectator The spectator.
+     */
+    private void read(Spectator spectator) {
+        //Declarations.
+        int count;
+        GameFeed feed;
+
+        try {
+            if(spectator.feed == null) {
+                count = spectator.channel.read(spectator.gameNumber);
+                if(!spectator.gameNumber.hasRemaining()) {
+                    //Start watching the game with a key frame, or hang up if
+                    //there is no such game.
+                    feed = feeds.get(spectator.gameNumber.getLong(0));
+                    if(feed == null || feed.isClosed()) {
+                        disconnect(spectator);
+                        return;
+                    }
+                    spectator.feed = feed;
+                    spectators.computeIfAbsent(feed, f -> new ArrayList<Spectator>()).add(spectator);
+                    addKeyFrame(spectator);
+                    queueWrite(spectator);
+                }
+            } else {
+                discard.clear();
+                count = spectator.channel.read(discard);
+            }
+            if(count < 0)
+                disconnect(spectator);
+        } catch (IOException e) {
+            disconnect(spectator);
+        }
+    }
+
+    /**
+     * Adds a frame to the output buffer of each spectator of its game.
+     *
+     * @param frame The frame.
+     */
+    private void deliver(Frame frame) {
+        //Declarations.
+        ArrayList<Spectator> watching = spectators.get(frame.feed);
+
+        if(watching == null)
+            return;
+
+        //The game has ended.  Hang up on its spectators once their output has
+        //been sent.
+        if(frame.data == null) {
+            spectators.remove(frame.feed);
+            for(Spectator spectator : watching) {
+                spectator.hangUp = true;
+                queueWrite(spectator);
+            }
+            return;
+        }
+
+        for(Spectator spectator : watching) {
+            //Skip the frame if the spectator already has it in a key frame, or
+            //is waiting to catch up.
+            if(spectator.resync || frame.sequence <= spectator.sequence)
+                continue;
+
+            //If the frame does not fit the spectator has fallen behind.  Drop
+            //frames until its buffer is sent and then send it a key frame.
+            if(frame.data.length > spectator.output.remaining()) {
+                spectator.resync = true;
+                continue;
+            }
+            spectator.output.put(frame.data);
+            spectator.sequence = frame.sequence;
+            queueWrite(spectator);
+        }
+    }
+
+    /**
+     * Adds a new key frame to the output buffer of a spectator.  The buffer
+     * must be empty.
+     *
+     * @param spectator The spectator.
+     */
+    private void addKeyFrame(Spectator spectator) {
+        //Declarations.
+        Frame frame = spectator.feed.getKeyFrame();
+
+        spectator.output.put(frame.data);
+        spectator.sequence = frame.sequence;
+        spectator.resync = false;
+    }
+
+    /**
+     * Marks a spectator as having output to write at the end of the loop.
+     *
+     * @param spectator The spectator.
+     */
+    private void queueWrite(Spectator spectator) {
+        if(!spectator.writePending) {
+            spectator.writePending = true;
+            pendingWrites.add(spectator);
+        }
+    }
+
+    /**
+     * Writes as much of the output buffer of a spectator as the network takes.
+     * Anything left is written when the selector says the spectator can take
+     * more.
+     *
+     * @param spectator The spectator.
+     */
+    private void write(Spectator spectator) {
+        if(!spectator.key.isValid())
+            return;
+
+        try {
+            spectator.output.flip();
+            spectator.channel.write(spectator.output);
+            spectator.output.compact();
+
+            //A spectator that fell behind and has caught up gets a key frame.
+            if(spectator.output.position() == 0 && spectator.resync && !spectator.hangUp) {
+                addKeyFrame(spectator);
+                spectator.output.flip();
+                spectator.channel.write(spectator.output);
+                spectator.output.compact();
+            }
+
+            if(spectator.output.position() == 0) {
+                if(spectator.hangUp)
+                    disconnect(spectator);
+                else
+                    spectator.key.interestOps(SelectionKey.OP_READ);
+            } else
+                spectator.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } catch (IOException e) {
+            disconnect(spectator);
+        }
+    }
+
+    /**
+     * Disconnects a spectator.
+     *
+     * @param spectator The spectator.
+     */
+    private void disconnect(Spectator spectator) {
+        //Declarations.
+        ArrayList<Spectator> watching;
+
+        if(!spectator.channel.isOpen())
+            return;
+
+        if(spectator.feed != null) {
+            watching = spectators.get(spectator.feed);
+            if(watching != null)
+                watching.remove(spectator);
+        }
+        spectator.key.cancel();
+        try {
+            spectator.channel.close();
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+        spectatorCount--;
+    }
+
+    /**
+     * Class that holds the connection and output of one spectator.  Only used
+     * by the server thread.
+     */
+    private static class Spectator {
+        /** Holds the connection to the spectator. */
+        final SocketChannel channel;
+        /** Holds the output waiting to be written, in fill mode. */
+        final ByteBuffer output;
+        /** Holds the number of the game to watch as it is read. */
+        final ByteBuffer gameNumber = ByteBuffer.allocate(8);
+        /** Holds the selection key of the connection. */
+        SelectionKey key;
+        /** Holds the game being watched, or null until the number is read. */
+        GameFeed feed;
+        /** Holds the sequence number of the last update sent. */
+        int sequence;
+        /** Holds the boolean value that indicates frames are being dropped. */
+        boolean resync;
+        /** Holds the boolean value that indicates a write is queued. */
+        boolean writePending;
+        /** Holds the boolean value that indicates the game has ended. */
+        boolean hangUp;
+
+        /**
+         * Sole constructor.
+         *
+         * @param channel The connection to the spectator.
+         * @param bufferSize The size in bytes of the output buffer.
+         */
+        Spectator(SocketChannel channel, int bufferSize) {
+            this.channel = channel;
+            output = ByteBuffer.allocate(bufferSize);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package replay;
+
+import controller.GoblinController;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.imageio.ImageIO;
+import model.GoblinModel;
+
+/**
+ * Class that turns a replay into a sequence of PNG frames without a display,
+ * for tutorials and bug reports.  The replay is played into a model and after
+ * each step the changed tiles are drawn, with the game tile images, into one
+ * offscreen image that is reused for the whole replay.
+ *
+ * Compressing a PNG takes far longer than drawing a frame, so the frames are
+ * copied into a small pool of images and written by a pool of worker threads
+ * while the next frames are drawn.  The pool of images bounds the memory used.
+ * A step that changes nothing on the screen, such as the pause before a level
+ * begins or after an explosion, does not make a new frame but adds its time to
+ * the frame before.  The time each frame is on the screen is written to a
+ * frames.txt file in the ffmpeg concat format, so the frames can be turned into
+ * a video that plays at the speed of the game, for example with
+ * ffmpeg -f concat -i frames.txt goblin.mp4.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class FrameExporter {
+    /** The name of the file that lists the frames and their times. */
+    public static final String FRAME_LIST = "frames.txt";
+    /** The time in milliseconds the last frame is shown for. */
+    private static final int LAST_FRAME_TIME = 1000;
+
+    /** Holds the tile size in pixels. */
+    private final int tileSize;
+    /** Holds the number of threads that write the frames. */
+    private final int workers;
+    /** Holds the number of frames that can wait to be written. */
+    private final int queueSize;
+
+    //Constructor.
+    /**
+     * Sole constructor.
+     *
+     * @param tileSize The tile size in pixels, one of the tile size constants of
+     * the model.
+     * @param workers The number of threads that write the frames.
+     * @param queueSize The number of frames that can wait to be written.
+     */
+    public FrameExporter(int tileSize, int workers, int queueSize) {
+        this.tileSize = tileSize;
+        this.workers = Math.max(1, workers);
+        this.queueSize = Math.max(1, queueSize);
+    }
+
+    /**
+     * Plays a replay and writes its frames to a directory.  Frames are named
+     * frame_000001.png and so on.
+     *
+     * @param replay The replay.
+     * @param directory The directory, which is created if needed.
+     * @return The number of frames written.
+     * @throws IOException If a frame could not be written.
+     * @throws InterruptedException If the export was interrupted.
+     */
+    public int export(Replay replay, File directory) throws IOException, InterruptedException {
+        //Declarations.
+        GoblinModel model = replay.createModel();
+        int width, height, move = 0, frames = 0;
+        long frameTime = 0L;
+        byte[] screen;
+        BufferedImage canvas;
+        Graphics2D graphics;
+        ArrayBlockingQueue<BufferedImage> freeImages;
+        ThreadPoolExecutor encoder;
+        AtomicReference<IOException> failure = new AtomicReference<IOException>();
+        StringBuilder frameList = new StringBuilder("ffconcat version 1.0\n");
+
+        if(!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Could not create " + directory);
+
+        //Set up the offscreen image and the copy of what is drawn on it.
+        model.setTileSize(tileSize);
+        width = model.getNumberOfColumns() * tileSize;
+        height = model.getNumberOfRows() * tileSize;
+        canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        graphics = canvas.createGraphics();
+        screen = new byte[model.getNumberOfRows() * model.getNumberOfColumns()];
+
+        //Set up the images the frames are copied into and the writers.  Since a
+        //frame needs a free image before it is handed to the writers, their
+        //queue can never hold more than the number of images.
+        freeImages = new ArrayBlockingQueue<BufferedImage>(queueSize + workers);
+        for(int i = 0; i < queueSize + workers; i++)
+            freeImages.add(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+        encoder = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueSize + workers));
+
+        try {
+            //The model starts with a blank game grid, so make sure the first
+            //frame draws every tile.
+            for(int tile = 0; tile < screen.length; tile++)
+                screen[tile] = -1;
+
+            while(model.getCurrentState() != GoblinModel.STATE_GAME_OVER) {
+                //Hand the next move to the model if the goblin is about to move.
+                //Stop if the replay ends before the game does.
+                if(isMoveState(model)) {
+                    if(move == replay.getMoveCount())
+                        break;
+                    replay.applyMove(model, move++);
+                }
+                GoblinController.advanceModel(model);
+
+                //A step that changed something on the screen starts a new frame.
+                //Otherwise its time goes to the frame already showing.
+                if(drawChanges(model, graphics, screen)) {
+                    if(frames > 0)
+                        addFrameTime(frameList, frameTime);
+                    frames++;
+                    writeFrame(canvas, new File(directory, String.format("frame_%06d.png", frames)), freeImages, encoder, failure);
+                    frameList.append("file 'frame_").append(String.format("%06d", frames)).append(".png'\n");
+                    frameTime = 0L;
+                }
+                frameTime += GoblinController.getStepDelay(model);
+
+                if(failure.get() != null)
+                    throw failure.get();
+            }
+            if(frames > 0)
+                addFrameTime(frameList, Math.max(frameTime, LAST_FRAME_TIME));
+        } finally {
+            graphics.dispose();
+            encoder.shutdown();
+            encoder.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+        if(failure.get() != null)
+            throw failure.get();
+
+        try (Writer writer = new FileWriter(new File(directory, FRAME_LIST))) {
+            writer.write(frameList.toString());
+        }
+        return frames;
+    }
+
+    /**
+     * Draws the tiles that changed since the last frame onto the offscreen
+     * image.
+     *
+     * @param model The model.
+     * @param graphics The graphics of the offscreen image.
+     * @param screen The image type of each tile as drawn.
+     * @return True if any tile was drawn.
+     */
+    private boolean drawChanges(GoblinModel model, Graphics2D graphics, byte[] screen) {
+        //Declarations.
+        int tile, type;
+        boolean changed = false;
+
+        for(int row = 0; row < model.getNumberOfRows(); row++) {
+            for(int col = 0; col < model.getNumberOfColumns(); col++) {
+                tile = row * model.getNumberOfColumns() + col;
+                type = model.getImageType(row, col);
+                if(screen[tile] != type) {
+                    screen[tile] = (byte)type;
+                    graphics.drawImage(model.getTile(row, col), col * tileSize, row * tileSize, null);
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Copies the offscreen image into a free image and hands it to the writers.
+     * Only waits if every free image is waiting to be written.
+     *
+     * @param canvas The offscreen image.
+     * @param file The file to write the frame to.
+     * @param freeImages The images not being used by a frame.
+     * @param encoder The writers.
+     * @param failure Receives the first error from the writers.
+     * @throws InterruptedException If the wait for a free image was interrupted.
+     */
+    private static void writeFrame(BufferedImage canvas, File file, ArrayBlockingQueue<BufferedImage> freeImages,
+            ThreadPoolExecutor encoder, AtomicReference<IOException> failure) throws InterruptedException {
+        //Declarations.
+        BufferedImage frame = freeImages.take();
+        int[] source = ((DataBufferInt)canvas.getRaster().getDataBuffer()).getData();
+        int[] target = ((DataBufferInt)frame.getRaster().getDataBuffer()).getData();
+
+        System.arraycopy(source, 0, target, 0, source.length);
+        encoder.execute(() -> {
+            try {
+                ImageIO.write(frame, "png", file);
+            } catch (IOException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                freeImages.add(frame);
+            }
+        });
+    }
+
+    /**
+     * Adds the time a frame is shown to the frame list.
+     *
+     * @param frameList The frame list.
+     * @param millis The time in milliseconds.
+     */
+    private static void addFrameTime(StringBuilder frameList, long millis) {
+        frameList.append("duration ").append(String.format(Locale.ROOT, "%.3f", millis / 1000.0)).append('\n');
+    }
+
+    /**
+     * Gets whether the goblin of a model is about to move.
+     *
+     * @param model The model.
+     * @return True if the next step moves the goblin.
+     */
+    private static boolean isMoveState(GoblinModel model) {
+        switch(model.getCurrentState()) {
+            case GoblinModel.STATE_BEGIN_LEVEL:
+            case GoblinModel.STATE_LEVEL_RUNNING:
+            case GoblinModel.STATE_GOBLIN_GOT_FACE:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package replay;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import model.GoblinModel;
+
+/**
+ * A recorded game.  Since the levels are built from a seeded random number
+ * generator, a game is fully described by the seed, the settings that change
+ * how levels are built, and the direction of each goblin move.  Playing those
+ * moves into a new model built the same way gives exactly the same game.
+ *
+ * The file layout, big endian, is a four byte magic number, a version byte, the
+ * seed as a long, a byte each for the grid size, faces per level, and level
+ * check, the number of moves as an int, and then the moves packed four to a
+ * byte, two bits each, first move in the high bits.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class Replay {
+    /** The move value for a move straight up. */
+    public static final int MOVE_STRAIGHT = 0;
+    /** The move value for a move diagonally to the left. */
+    public static final int MOVE_LEFT = 1;
+    /** The move value for a move diagonally to the right. */
+    public static final int MOVE_RIGHT = 2;
+
+    /** The number at the start of every replay file. */
+    private static final int MAGIC = 0x47425250;
+    /** The version of the replay file layout. */
+    private static final int VERSION = 1;
+
+    /** Holds the seed the levels were built from. */
+    private final long seed;
+    /** Holds the size of the game grid. */
+    private final int gridSize;
+    /** Holds the number of shocked faces per level. */
+    private final int facesPerLevel;
+    /** Holds the level check setting. */
+    private final int levelCheck;
+    /** Holds the moves, one per byte. */
+    private byte[] moves = new byte[256];
+    /** Holds the number of moves. */
+    private int moveCount;
+
+    //Constructor.
+    /**
+     * Creates an empty replay.
+     *
+     * @param seed The seed the levels are built from.
+     * @param gridSize The size of the game grid.
+     * @param facesPerLevel The number of shocked faces per level.
+     * @param levelCheck The level check setting of the model.
+     */
+    public Replay(long seed, int gridSize, int facesPerLevel, int levelCheck) {
+        this.seed = seed;
+        this.gridSize = gridSize;
+        this.facesPerLevel = facesPerLevel;
+        this.levelCheck = levelCheck;
+    }
+
+    /**
+     * Adds a goblin move to the end of the replay.
+     *
+     * @param move One of the move constants.
+     */
+    public void addMove(int move) {
+        if(moveCount == moves.length)
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        moves[moveCount++] = (byte)move;
+    }
+
+    /**
+     * Gets a goblin move.
+     *
+     * @param index The number of the move, counting from zero.
+     * @return One of the move constants.
+     */
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Gets the number of goblin moves.
+     *
+     * @return The number of moves.
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Gets the seed the levels are built from.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the size of the game grid.
+     *
+     * @return The grid size.
+     */
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Creates a model set up the way the recorded game was and reset, ready to
+     * build the first level.
+     *
+     * @return The model.
+     */
+    public GoblinModel createModel() {
+        //Declarations.
+        GoblinModel model = new GoblinModel();
+
+        model.setGameGridSize(gridSize);
+        model.buildGameGrid();
+        model.setFacesPerLevel(facesPerLevel);
+        model.setLevelCheck(levelCheck);
+        model.setSeed(seed);
+        model.reset();
+        return model;
+    }
+
+    /**
+     * Hands the key press for a goblin move to a model.  Nothing is needed for
+     * a move straight up.
+     *
+     * @param model The model.
+     * @param index The number of the move, counting from zero.
+     */
+    public void applyMove(GoblinModel model, int index) {
+        if(moves[index] == MOVE_LEFT)
+            model.setKeyPress(GoblinModel.MOVE_LEFT);
+        else if(moves[index] == MOVE_RIGHT)
+            model.setKeyPress(GoblinModel.MOVE_RIGHT);
+    }
+
+    /**
+     * Writes the replay to a stream.
+     *
+     * @param stream The stream.
+     * @throws IOException If the replay could not be written.
+     */
+    public void write(OutputStream stream) throws IOException {
+        //Declarations.
+        DataOutputStream out = new DataOutputStream(stream);
+        int packed = 0;
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(seed);
+        out.writeByte(gridSize);
+        out.writeByte(facesPerLevel);
+        out.writeByte(levelCheck);
+        out.writeInt(moveCount);
+        for(int i = 0; i < moveCount; i++) {
+            packed = (packed << 2) | moves[i];
+            if((i & 3) == 3) {
+                out.writeByte(packed);
+                packed = 0;
+            }
+        }
+        if((moveCount & 3) != 0)
+            out.writeByte(packed << (2 * (4 - (moveCount & 3))));
+        out.flush();
+    }
+
+    /**
+     * Reads a replay from a stream.
+     *
+     * @param stream The stream.
+     * @return The replay.
+     * @throws IOException If the replay could not be read or is not a replay.
+     */
+    public static Replay read(InputStream stream) throws IOException {
+        //Declarations.
+        DataInputStream in = new DataInputStream(stream);
+        Replay replay;
+        int count, packed = 0;
+
+        if(in.readInt() != MAGIC || in.readUnsignedByte() != VERSION)
+            throw new IOException("Not a Goblin replay");
+
+        replay = new Replay(in.readLong(), in.readUnsignedByte(), in.readUnsignedByte(), in.readUnsignedByte());
+        count = in.readInt();
+        replay.moves = new byte[Math.max(count, 1)];
+        for(int i = 0; i < count; i++) {
+            if((i & 3) == 0)
+                packed = in.readUnsignedByte();
+            replay.moves[i] = (byte)((packed >>> (6 - 2 * (i & 3))) & 3);
+        }
+        replay.moveCount = count;
+        return replay;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package replay;
+
+import java.util.concurrent.ThreadLocalRandom;
+import model.GoblinModel;
+import model.GoblinModelAdapter;
+
+/**
+ * Model listener that records a game as it is played.  The direction of each
+ * goblin move is worked out from where the goblin moved to, so it records
+ * games no matter what makes the moves.  A move into a shrub leaves the goblin
+ * in the same column and is recorded as a move straight up, which plays back
+ * the same way.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class ReplayRecorder extends GoblinModelAdapter {
+    /** Holds the replay being recorded, or null before the first game. */
+    private Replay replay;
+
+    /**
+     * Method that starts recording a new game.  It gives the model a new seed
+     * so it must be called just before the model is reset.
+     *
+     * @param model The model, which this recorder must be listening to.
+     */
+    public void begin(GoblinModel model) {
+        //Declarations.
+        long seed = ThreadLocalRandom.current().nextLong();
+
+        model.setSeed(seed);
+        replay = new Replay(seed, model.getNumberOfRows(), model.getFacesPerLevel(), model.getLevelCheck());
+    }
+
+    /**
+     * Gets the replay of the game being recorded or last recorded.
+     *
+     * @return The replay, or null if no game has been started.
+     */
+    public Replay getReplay() {
+        return replay;
+    }
+
+    /**
+     * Records a goblin move.
+     *
+     * @param lastX The column the goblin moved from.
+     * @param lastY The row the goblin moved from.
+     * @param x The column the goblin moved to.
+     * @param y The row the goblin moved to.
+     */
+    @Override
+    public void goblinMoved(int lastX, int lastY, int x, int y) {
+        if(replay == null)
+            return;
+
+        if(x < lastX)
+            replay.addMove(Replay.MOVE_LEFT);
+        else if(x > lastX)
+            replay.addMove(Replay.MOVE_RIGHT);
+        else
+            replay.addMove(Replay.MOVE_STRAIGHT);
+    }
+}
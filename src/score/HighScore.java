@@ -0,0 +1,112 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package score;
+
+/**
+ * One high score.  High scores are kept separately for each game grid size and
+ * tile size since the size of the game grid changes how hard the game is.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class HighScore {
+    /** Holds the score. */
+    private final int score;
+    /** Holds the level reached. */
+    private final int level;
+    /** Holds the size of the game grid. */
+    private final int gridSize;
+    /** Holds the tile size in pixels. */
+    private final int tileSize;
+    /** Holds the time the game ended in milliseconds since the epoch. */
+    private final long time;
+
+    //Constructor.
+    /**
+     * Sole constructor.
+     *
+     * @param score The score.
+     * @param level The level reached.
+     * @param gridSize The size of the game grid.
+     * @param tileSize The tile size in pixels.
+     * @param time The time the game ended in milliseconds since the epoch.
+     */
+    public HighScore(int score, int level, int gridSize, int tileSize, long time) {
+        this.score = score;
+        this.level = level;
+        this.gridSize = gridSize;
+        this.tileSize = tileSize;
+        this.time = time;
+    }
+
+    /**
+     * Gets the score.
+     *
+     * @return The score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the level reached.
+     *
+     * @return The level.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the size of the game grid.
+     *
+     * @return The grid size.
+     */
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Gets the tile size in pixels.
+     *
+     * @return The tile size.
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Gets the time the game ended.
+     *
+     * @return The time in milliseconds since the epoch.
+     */
+    public long getTime() {
+        return time;
+    }
+}
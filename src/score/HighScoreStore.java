@@ -0,0 +1,486 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package score;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import model.GoblinModel;
+
+/**
+ * Persistent high scores kept for each game grid size and tile size.
+ *
+ * Every score is appended to a log file as a fixed size record that ends with a
+ * checksum.  The log is the only thing that has to survive a crash.  When the
+ * store is opened the records are checked from the last one known to be good
+ * and the log is cut off at the first one that is incomplete or fails its
+ * checksum, which is what a crash part way through a write leaves behind.
+ *
+ * The best scores for each size are kept, sorted, in a second file that is
+ * memory mapped, so asking for the top scores only reads memory.  The index
+ * holds how much of the log it covers and a checksum of itself.  If it does not
+ * match it is rebuilt from the log, and any records after the part it covers
+ * are added to it, so it never has to be written to disk safely.
+ *
+ * Scores are written by a thread of their own.  Recording a score just puts it
+ * in a queue, so the game loop never waits for the disk.  The writer takes
+ * everything waiting in the queue, appends it to the log, and forces the log to
+ * disk once for the whole batch.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class HighScoreStore {
+    /** The number of best scores kept for each size. */
+    public static final int TOP_SCORES = 100;
+    /** The name of the log file. */
+    public static final String LOG_FILE = "scores.log";
+    /** The name of the index file. */
+    public static final String INDEX_FILE = "scores.idx";
+
+    /** The number at the start of each log record. */
+    private static final int RECORD_MAGIC = 0x47425353;
+    /** The number of bytes in a log record. */
+    private static final int RECORD_SIZE = 32;
+    /** The number at the start of the index. */
+    private static final int INDEX_MAGIC = 0x47425349;
+    /** The number of bytes in the index header. */
+    private static final int INDEX_HEADER_SIZE = 24;
+    /** The number of bytes in an index entry. */
+    private static final int ENTRY_SIZE = 24;
+    /** The number of bytes in the index table of one size. */
+    private static final int TABLE_SIZE = 8 + TOP_SCORES * ENTRY_SIZE;
+    /** The grid sizes that high scores are kept for. */
+    private static final int[] GRID_SIZES = {GoblinModel.SMALL_GRID_SIZE, GoblinModel.MEDIUM_GRID_SIZE, GoblinModel.LARGE_GRID_SIZE};
+    /** The tile sizes that high scores are kept for. */
+    private static final int[] TILE_SIZES = {GoblinModel.SMALL_TILE_SIZE, GoblinModel.MEDIUM_TILE_SIZE, GoblinModel.LARGE_TILE_SIZE};
+    /** The number of bytes in the index file. */
+    private static final int INDEX_SIZE = INDEX_HEADER_SIZE + GRID_SIZES.length * TILE_SIZES.length * TABLE_SIZE;
+    /** The number of scores that can wait to be written. */
+    private static final int QUEUE_SIZE = 1024;
+    /** The score put in the queue to stop the writer. */
+    private static final HighScore STOP = new HighScore(0, 0, 0, 0, 0L);
+
+    /** Holds the log file. */
+    private final FileChannel log;
+    /** Holds the index file. */
+    private final FileChannel indexFile;
+    /** Holds the memory mapped index. */
+    private final MappedByteBuffer index;
+    /** Holds the scores waiting to be written. */
+    private final ArrayBlockingQueue<HighScore> queue = new ArrayBlockingQueue<HighScore>(QUEUE_SIZE);
+    /** Holds the thread that writes the scores. */
+    private final Thread writer;
+    /** Holds the number of bytes of good records in the log. */
+    private long logLength;
+    /** Holds the number of scores dropped because the queue was full. */
+    private final AtomicLong droppedScores = new AtomicLong();
+    /** Holds the number of batches forced to disk. */
+    private final AtomicLong batches = new AtomicLong();
+    /** Holds the checksum used for the records and the index. */
+    private final CRC32 crc = new CRC32();
+
+    //Constructor.
+    /**
+     * Opens the store in a directory, creating it if needed.  Recovers from an
+     * incomplete last record and brings the index up to date with the log.
+     *
+     * @param directory The directory the files are kept in.
+     * @throws IOException If the files could not be opened.
+     */
+    public HighScoreStore(File directory) throws IOException {
+        if(!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Could not create " + directory);
+
+        log = FileChannel.open(new File(directory, LOG_FILE).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        indexFile = FileChannel.open(new File(directory, INDEX_FILE).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = indexFile.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_SIZE);
+
+        recover();
+
+        writer = new Thread(this::writeScores, "goblin-high-scores");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Records the score of a finished game.  The score is written by the writer
+     * thread, so this never waits.  If too many scores are already waiting the
+     * score is dropped.
+     *
+     * @param score The score.
+     * @param level The level reached.
+     * @param gridSize The size of the game grid.
+     * @param tileSize The tile size in pixels.
+     * @return False if the score was dropped or the sizes are not known.
+     */
+    public boolean record(int score, int level, int gridSize, int tileSize) {
+        if(getTable(gridSize, tileSize) < 0)
+            return false;
+
+        if(!queue.offer(new HighScore(score, level, gridSize, tileSize, System.currentTimeMillis()))) {
+            droppedScores.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the best scores for a size, best first.  Scores still waiting to be
+     * written are not included.
+     *
+     * @param gridSize The size of the game grid.
+     * @param tileSize The tile size in pixels.
+     * @param count The largest number of scores wanted.
+     * @return The scores, which may be fewer than asked for.
+     */
+    public synchronized HighScore[] getTopScores(int gridSize, int tileSize, int count) {
+        //Declarations.
+        int table = getTable(gridSize, tileSize);
+        int entries, entry;
+        HighScore[] scores;
+
+        if(table < 0)
+            return new HighScore[0];
+
+        entries = Math.min(count, index.getInt(table));
+        scores = new HighScore[entries];
+        for(int i = 0; i < entries; i++) {
+            entry = table + 8 + i * ENTRY_SIZE;
+            scores[i] = new HighScore(index.getInt(entry), index.getInt(entry + 4), gridSize, tileSize, index.getLong(entry + 8));
+        }
+        return scores;
+    }
+
+    /**
+     * Gets the best score for a size.
+     *
+     * @param gridSize The size of the game grid.
+     * @param tileSize The tile size in pixels.
+     * @return The best score, or zero if there is none.
+     */
+    public synchronized int getBestScore(int gridSize, int tileSize) {
+        //Declarations.
+        int table = getTable(gridSize, tileSize);
+
+        if(table < 0 || index.getInt(table) == 0)
+            return 0;
+        return index.getInt(table + 8);
+    }
+
+    /**
+     * Gets the number of scores dropped because too many were waiting.
+     *
+     * @return The number of scores.
+     */
+    public long getDroppedScores() {
+        return droppedScores.get();
+    }
+
+    /**
+     * Gets the number of batches of scores forced to disk.
+     *
+     * @return The number of batches.
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * Writes the scores still waiting and closes the files.
+     *
+     * @throws IOException If the files could not be closed.
+     */
+    public void close() throws IOException {
+        try {
+            queue.put(STOP);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized(this) {
+            index.force();
+            indexFile.close();
+            log.close();
+        }
+    }
+
+    /**
+     * The loop run by the writer thread.  Each pass waits for a score, takes
+     * every other score waiting, appends them all, and forces the log once.
+     */
+    private void writeScores() {
+        //Declarations.
+        ArrayList<HighScore> batch = new ArrayList<HighScore>();
+        ByteBuffer records = ByteBuffer.allocate(QUEUE_SIZE * RECORD_SIZE);
+        boolean stop = false;
+
+        while(!stop) {
+            try {
+                batch.clear();
+                batch.add(queue.take());
+                queue.drainTo(batch);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            //Build the records for the batch.
+            records.clear();
+            for(HighScore score : batch) {
+                if(score == STOP)
+                    stop = true;
+                else
+                    putRecord(records, score);
+            }
+            if(records.position() == 0)
+                continue;
+            records.flip();
+
+            try {
+                //Append the batch and force it to disk once.
+                while(records.hasRemaining())
+                    log.write(records, logLength + records.position());
+                log.force(false);
+                batches.incrementAndGet();
+
+                //Only now that the scores are safe add them to the index.
+                synchronized(this) {
+                    for(HighScore score : batch) {
+                        if(score != STOP) {
+                            addToIndex(score, logLength);
+                            logLength += RECORD_SIZE;
+                        }
+                    }
+                    writeIndexHeader();
+                }
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Checks the log from the part the index covers, cuts off anything after
+     * the last good record, and adds the records the index is missing.
+     *
+     * @throws IOException If the log could not be read.
+     */
+    private synchronized void recover() throws IOException {
+        //Declarations.
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        HighScore score;
+        long position;
+
+        //If the index is not good, or covers more than the log holds, start it
+        //again from the start of the log.
+        if(!isIndexGood() || index.getLong(8) > log.size() || index.getLong(8) % RECORD_SIZE != 0) {
+            for(int i = 0; i < INDEX_SIZE; i++)
+                index.put(i, (byte)0);
+            logLength = 0L;
+        } else
+            logLength = index.getLong(8);
+
+        //Read the records after the part the index covers.
+        position = logLength;
+        while(true) {
+            record.clear();
+            while(record.hasRemaining() && log.read(record, position + record.position()) > 0) {
+                //Keep reading until the record is full or the log ends.
+            }
+            if(record.hasRemaining() || (score = getRecord(record)) == null)
+                break;
+            addToIndex(score, position);
+            position += RECORD_SIZE;
+        }
+
+        //Anything after the last good record was left by a crash.
+        if(log.size() > position) {
+            log.truncate(position);
+            log.force(true);
+        }
+        logLength = position;
+        writeIndexHeader();
+    }
+
+    /**
+     * Adds a score to the index table for its size if it is one of the best.
+     * A score already in the table, found by its place in the log, is not added
+     * again.
+     *
+     * @param score The score.
+     * @param offset The place of its record in the log.
+     */
+    private void addToIndex(HighScore score, long offset) {
+        //Declarations.
+        int table = getTable(score.getGridSize(), score.getTileSize());
+        int entries = index.getInt(table);
+        int insert = entries, entry;
+
+        //Find where the score goes.  A higher score goes first, then a higher
+        //level, then the earlier game.
+        for(int i = 0; i < entries; i++) {
+            entry = table + 8 + i * ENTRY_SIZE;
+            if(index.getLong(entry + 16) == offset)
+                return;
+            if(insert == entries && (score.getScore() > index.getInt(entry)
+                    || (score.getScore() == index.getInt(entry) && score.getLevel() > index.getInt(entry + 4))))
+                insert = i;
+        }
+        if(insert >= TOP_SCORES)
+            return;
+
+        //Move the lower scores down one, dropping the last if the table is
+        //full, and put the score in.
+        if(entries == TOP_SCORES)
+            entries--;
+        for(int i = entries; i > insert; i--) {
+            for(int b = 0; b < ENTRY_SIZE; b += 8)
+                index.putLong(table + 8 + i * ENTRY_SIZE + b, index.getLong(table + 8 + (i - 1) * ENTRY_SIZE + b));
+        }
+        entry = table + 8 + insert * ENTRY_SIZE;
+        index.putInt(entry, score.getScore());
+        index.putInt(entry + 4, score.getLevel());
+        index.putLong(entry + 8, score.getTime());
+        index.putLong(entry + 16, offset);
+        index.putInt(table, entries + 1);
+    }
+
+    /**
+     * Writes the index header with the part of the log it covers and the
+     * checksum of the tables.
+     */
+    private void writeIndexHeader() {
+        index.putInt(0, INDEX_MAGIC);
+        index.putLong(8, logLength);
+        index.putLong(16, getIndexChecksum());
+    }
+
+    /**
+     * Gets whether the index header and checksum are good.
+     *
+     * @return True if the index can be used.
+     */
+    private boolean isIndexGood() {
+        return index.getInt(0) == INDEX_MAGIC && index.getLong(16) == getIndexChecksum();
+    }
+
+    /**
+     * Works out the checksum of the part of the log the index covers and the
+     * tables.
+     *
+     * @return The checksum.
+     */
+    private long getIndexChecksum() {
+        //Declarations.
+        ByteBuffer view = index.duplicate();
+
+        crc.reset();
+        view.position(8).limit(16);
+        crc.update(view);
+        view.limit(INDEX_SIZE).position(INDEX_HEADER_SIZE);
+        crc.update(view);
+        return crc.getValue();
+    }
+
+    /**
+     * Adds a log record for a score to a buffer.
+     *
+     * @param buffer The buffer.
+     * @param score The score.
+     */
+    private void putRecord(ByteBuffer buffer, HighScore score) {
+        //Declarations.
+        int start = buffer.position();
+        ByteBuffer view;
+
+        buffer.putInt(RECORD_MAGIC);
+        buffer.putLong(score.getTime());
+        buffer.putInt(score.getScore());
+        buffer.putInt(score.getLevel());
+        buffer.put((byte)score.getGridSize());
+        buffer.put((byte)score.getTileSize());
+        buffer.putShort((short)0);
+        buffer.putInt(0);
+
+        view = buffer.duplicate();
+        view.position(start).limit(start + RECORD_SIZE - 4);
+        crc.reset();
+        crc.update(view);
+        buffer.putInt((int)crc.getValue());
+    }
+
+    /**
+     * Reads a score from a full record buffer.
+     *
+     * @param record The buffer holding the record.
+     * @return The score, or null if the record is not good.
+     */
+    private HighScore getRecord(ByteBuffer record) {
+        //Declarations.
+        ByteBuffer view = record.duplicate();
+        HighScore score;
+
+        view.position(0).limit(RECORD_SIZE - 4);
+        crc.reset();
+        crc.update(view);
+        if(record.getInt(0) != RECORD_MAGIC || record.getInt(RECORD_SIZE - 4) != (int)crc.getValue())
+            return null;
+
+        score = new HighScore(record.getInt(12), record.getInt(16), record.get(20), record.get(21), record.getLong(4));
+        if(getTable(score.getGridSize(), score.getTileSize()) < 0)
+            return null;
+        return score;
+    }
+
+    /**
+     * Gets the place in the index of the table for a size.
+     *
+     * @param gridSize The size of the game grid.
+     * @param tileSize The tile size in pixels.
+     * @return The offset of the table, or -1 if the size is not known.
+     */
+    private static int getTable(int gridSize, int tileSize) {
+        for(int g = 0; g < GRID_SIZES.length; g++) {
+            for(int t = 0; t < TILE_SIZES.length; t++) {
+                if(GRID_SIZES[g] == gridSize && TILE_SIZES[t] == tileSize)
+                    return INDEX_HEADER_SIZE + (g * TILE_SIZES.length + t) * TABLE_SIZE;
+            }
+        }
+        return -1;
+    }
+}
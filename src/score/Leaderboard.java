@@ -0,0 +1,155 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package score;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import model.GoblinModel;
+
+/**
+ * The best scores of many games finishing at the same time on many threads,
+ * such as the sessions of a session host, kept for each game grid size.
+ *
+ * Each grid size holds its best scores as one snapshot that never changes.  A
+ * score is first checked against the lowest score of the snapshot, so once the
+ * leaderboard is full almost every game is turned away by reading one field.
+ * A score that makes the board is put into a copy of the snapshot, and the
+ * copy replaces the snapshot only if no other thread has replaced it first,
+ * otherwise the score is tried again against the newer one.  There is no lock,
+ * and asking for the best scores only reads a field.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class Leaderboard {
+    /** The default number of best scores kept for each size. */
+    public static final int DEFAULT_SIZE = 100;
+
+    /** The grid sizes that best scores are kept for. */
+    private static final int[] GRID_SIZES = {GoblinModel.SMALL_GRID_SIZE, GoblinModel.MEDIUM_GRID_SIZE, GoblinModel.LARGE_GRID_SIZE};
+    /** The snapshot given for a grid size that is not known. */
+    private static final LeaderboardSnapshot EMPTY = new LeaderboardSnapshot(new HighScore[0], 0L);
+
+    /** Holds the number of best scores kept for each size. */
+    private final int size;
+    /** Holds the snapshot of each grid size. */
+    private final AtomicReferenceArray<LeaderboardSnapshot> boards = new AtomicReferenceArray<>(GRID_SIZES.length);
+
+    //Constructor.
+    /**
+     * Sole constructor.
+     *
+     * @param size The number of best scores kept for each grid size.
+     */
+    public Leaderboard(int size) {
+        this.size = Math.max(1, size);
+        for(int g = 0; g < GRID_SIZES.length; g++)
+            boards.set(g, EMPTY);
+    }
+
+    /**
+     * Records the score of a finished game.  Safe to call from any thread.
+     *
+     * @param score The score.
+     * @param level The level reached.
+     * @param gridSize The size of the game grid.
+     * @param tileSize The tile size in pixels.
+     * @return True if the score is one of the best scores, false if not or if
+     * the grid size is not known.
+     */
+    public boolean record(int score, int level, int gridSize, int tileSize) {
+        //Declarations.
+        int board = getBoard(gridSize), rank;
+        LeaderboardSnapshot current;
+        HighScore entry = null;
+        HighScore[] scores;
+
+        if(board < 0)
+            return false;
+
+        do {
+            //Turn away the score if it can not make the board.
+            current = boards.get(board);
+            if(current.getCount() == size && score <= current.getScore(size - 1).getScore())
+                return false;
+            if(entry == null)
+                entry = new HighScore(score, level, gridSize, tileSize, System.currentTimeMillis());
+
+            //Put the score after every score at least as high, so the earlier
+            //game stays first when the scores are equal.
+            rank = current.getCount();
+            while(rank > 0 && current.getScore(rank - 1).getScore() < score)
+                rank--;
+            scores = new HighScore[Math.min(current.getCount() + 1, size)];
+            for(int r = 0; r < rank; r++)
+                scores[r] = current.getScore(r);
+            scores[rank] = entry;
+            for(int r = rank + 1; r < scores.length; r++)
+                scores[r] = current.getScore(r - 1);
+        } while(!boards.compareAndSet(board, current, new LeaderboardSnapshot(scores, current.getVersion() + 1L)));
+
+        return true;
+    }
+
+    /**
+     * Gets the best scores of a grid size.  The snapshot is made when a score
+     * is recorded, so this never waits and only reads a field.
+     *
+     * @param gridSize The size of the game grid.
+     * @return The snapshot, which is empty if the grid size is not known.
+     */
+    public LeaderboardSnapshot getTopScores(int gridSize) {
+        //Declarations.
+        int board = getBoard(gridSize);
+
+        return (board < 0) ? EMPTY : boards.get(board);
+    }
+
+    /**
+     * Gets the number of best scores kept for each grid size.
+     *
+     * @return The number of scores.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets where the snapshot of a grid size is held.
+     *
+     * @param gridSize The size of the game grid.
+     * @return The index of the snapshot, or -1 if the grid size is not known.
+     */
+    private int getBoard(int gridSize) {
+        for(int g = 0; g < GRID_SIZES.length; g++) {
+            if(GRID_SIZES[g] == gridSize)
+                return g;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package score;
+
+/**
+ * The best scores of one game grid size at one moment.  A snapshot never
+ * changes once it has been made, so it can be handed to any number of threads
+ * and read without locking.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class LeaderboardSnapshot {
+    /** Holds the scores, best first. */
+    private final HighScore[] scores;
+    /** Holds the number of scores accepted by the leaderboard when it was made. */
+    private final long version;
+
+    //Constructor.
+    /**
+     * Sole constructor.
+     *
+     * @param scores The scores, best first.  The array is kept.
+     * @param version The number of scores accepted by the leaderboard when the
+     * snapshot was made.
+     */
+    LeaderboardSnapshot(HighScore[] scores, long version) {
+        this.scores = scores;
+        this.version = version;
+    }
+
+    /**
+     * Gets the number of scores in the snapshot.
+     *
+     * @return The number of scores.
+     */
+    public int getCount() {
+        return scores.length;
+    }
+
+    /**
+     * Gets a score.
+     *
+     * @param rank The place of the score, zero for the best.
+     * @return The score.
+     */
+    public HighScore getScore(int rank) {
+        return scores[rank];
+    }
+
+    /**
+     * Gets the number of scores that had been accepted by the leaderboard when
+     * the snapshot was made.  A newer snapshot has a larger number.
+     *
+     * @return The number of scores accepted.
+     */
+    public long getVersion() {
+        return version;
+    }
+}
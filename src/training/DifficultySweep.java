@@ -0,0 +1,642 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package training;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import controller.GoblinController;
+import metrics.Heatmap;
+import model.GoblinModel;
+import model.MoveAdvisor;
+
+/**
+ * Class that plays a very large number of games without a window for every
+ * combination of a set of difficulty settings, to see how each one plays.  The
+ * settings are the grid size, the number of wall obstacles on the first level
+ * and added for each level after it, the number of shocked faces, and the
+ * delay between goblin moves as a percentage of the delays the game uses.  The
+ * games of each combination are split over a fork join pool.
+ *
+ * The games are played by a random player or by a player that follows the
+ * practice mode advice and heads for the nearest shocked face.  Either player takes a reaction time to choose each
+ * move, and when the delay between goblin moves is shorter than that the
+ * goblin goes straight up on the moves in between.  This is how the delay
+ * setting makes a difference without a person playing.  A game also ends when
+ * the goblin has gone round the game grid two hundred times on one level
+ * without clearing it.
+ *
+ * The results are written to a file as each combination finishes.  The file
+ * starts with a header of four ints: the magic number GBSW, the version, the
+ * number of levels, and the number of columns.  Each combination then has a
+ * block of the same size: eight ints, which are the grid size, the walls on
+ * the first level, the walls added per level, the faces per level, the delay
+ * percentage, the player, the reaction time in milliseconds, and the highest
+ * level played; then two longs, the number of games and the nanoseconds the
+ * combination took; then each column in turn as one long per level.  A level
+ * is only played while its walls take up no more than a third of the game
+ * grid, since past that they can not all be placed.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class DifficultySweep {
+    /** The player that turns left or right at random. */
+    public static final int PLAYER_RANDOM = 0;
+    /** The player that follows the practice mode advice. */
+    public static final int PLAYER_ADVISOR = 1;
+
+    /** The column of the number of games that began each level. */
+    public static final int COLUMN_STARTED = 0;
+    /** The column of the number of games that cleared each level. */
+    public static final int COLUMN_CLEARED = 1;
+    /** The column of the number of faces collected on each level. */
+    public static final int COLUMN_FACES = 2;
+    /** The column of the number of goblin moves made on each level. */
+    public static final int COLUMN_MOVES = 3;
+    /** The column of the number of times each level was built. */
+    public static final int COLUMN_BUILD_ATTEMPTS = 4;
+    /** The column of the number of each level that had to be repaired. */
+    public static final int COLUMN_REPAIRED = 5;
+    /**
+     * The column of the number of games that ended on each level because the
+     * goblin had gone round the game grid too many times.
+     */
+    public static final int COLUMN_TIMED_OUT = 6;
+    /** The number of columns. */
+    public static final int NUMBER_OF_COLUMNS = 7;
+
+    /** The number that starts the file, GBSW in ASCII. */
+    public static final int MAGIC = 0x47425357;
+    /** The version of the file layout. */
+    public static final int VERSION = 1;
+    /** The default highest level played. */
+    public static final int DEFAULT_MAX_LEVEL = 30;
+    /** The value of a wall setting that means the one for the grid size. */
+    public static final int GRID_DEFAULT = -1;
+
+    /** The number of games below which a task plays them rather than splits. */
+    private static final int GAMES_PER_TASK = 4096;
+    /** The number of times the goblin may go round the game grid on a level. */
+    private static final int LAPS_PER_LEVEL = 200;
+    /** The percentage of moves the random player turns left or right. */
+    private static final int RANDOM_TURN_PERCENT = 30;
+
+    /** Holds the grid sizes to try. */
+    private int[] gridSizes = { GoblinModel.MEDIUM_GRID_SIZE };
+    /** Holds the numbers of walls on the first level to try. */
+    private int[] baseWalls = { GRID_DEFAULT };
+    /** Holds the numbers of walls added per level to try. */
+    private int[] wallsPerLevel = { GRID_DEFAULT };
+    /** Holds the numbers of faces per level to try. */
+    private int[] facesPerLevel = { GoblinModel.DEFAULT_FACES_PER_LEVEL };
+    /** Holds the delay percentages to try. */
+    private int[] delayPercents = { 100 };
+    /** Holds the player. */
+    private int player = PLAYER_ADVISOR;
+    /** Holds the reaction time of the player in milliseconds. */
+    private int reactionTime = 150;
+    /** Holds the number of games played for each combination. */
+    private long games = 1000000L;
+    /** Holds the highest level played. */
+    private int maxLevel = DEFAULT_MAX_LEVEL;
+    /** Holds the number of threads the games are played on. */
+    private int threads = Runtime.getRuntime().availableProcessors();
+    /** Holds the boolean value that indicates if heatmaps are kept. */
+    private boolean keepHeatmaps;
+    /** Holds the heatmaps of the last run, found by grid size. */
+    private Heatmap[] heatmaps = new Heatmap[GoblinModel.LARGE_GRID_SIZE + 1];
+
+    /**
+     * Makes an array of the values from one value to another.
+     *
+     * @param from The first value.
+     * @param to The last value, which is included if the steps land on it.
+     * @param step The difference between the values, at least one.
+     * @return The values.
+     */
+    public static int[] range(int from, int to, int step) {
+        //Declarations.
+        int[] values;
+
+        step = Math.max(1, step);
+        values = new int[Math.max(0, (to - from) / step + 1)];
+        for(int i = 0; i < values.length; i++)
+            values[i] = from + i * step;
+        return values;
+    }
+
+    /**
+     * Sets the grid sizes to try.
+     *
+     * @param gridSizes Grid size constants of the model.
+     */
+    public void setGridSizes(int[] gridSizes) {
+        this.gridSizes = gridSizes.clone();
+    }
+
+    /**
+     * Sets the numbers of walls on the first level to try.
+     *
+     * @param baseWalls The numbers of walls, or GRID_DEFAULT for the number the
+     * game uses for the grid size.
+     */
+    public void setBaseWalls(int[] baseWalls) {
+        this.baseWalls = baseWalls.clone();
+    }
+
+    /**
+     * Sets the numbers of walls added for each level to try.
+     *
+     * @param wallsPerLevel The numbers of walls, or GRID_DEFAULT for the number
+     * the game uses for the grid size.
+     */
+    public void setWallsPerLevel(int[] wallsPerLevel) {
+        this.wallsPerLevel = wallsPerLevel.clone();
+    }
+
+    /**
+     * Sets the numbers of faces on each level to try.
+     *
+     * @param facesPerLevel The numbers of faces.
+     */
+    public void setFacesPerLevel(int[] facesPerLevel) {
+        this.facesPerLevel = facesPerLevel.clone();
+    }
+
+    /**
+     * Sets the delays between goblin moves to try.
+     *
+     * @param delayPercents The delays as percentages of the ones the game uses.
+     */
+    public void setDelayPercents(int[] delayPercents) {
+        this.delayPercents = delayPercents.clone();
+    }
+
+    /**
+     * Sets the player of the games.
+     *
+     * @param player One of the player constants of this class.
+     */
+    public void setPlayer(int player) {
+        this.player = player;
+    }
+
+    /**
+     * Sets the time the player takes to choose each move.
+     *
+     * @param reactionTime The time in milliseconds.
+     */
+    public void setReactionTime(int reactionTime) {
+        this.reactionTime = Math.max(0, reactionTime);
+    }
+
+    /**
+     * Sets the number of games played for each combination.
+     *
+     * @param games The number of games.
+     */
+    public void setGames(long games) {
+        this.games = Math.max(0L, games);
+    }
+
+    /**
+     * Sets the highest level played.  A game that clears it ends.
+     *
+     * @param maxLevel The level.
+     */
+    public void setMaxLevel(int maxLevel) {
+        this.maxLevel = Math.max(1, maxLevel);
+    }
+
+    /**
+     * Sets the number of threads the games are played on.
+     *
+     * @param threads The number of threads.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Sets whether heatmaps of where the goblins die, move, and collect faces
+     * are kept for each grid size, over all the games of that size.
+     *
+     * @param keepHeatmaps True to keep heatmaps.
+     */
+    public void setKeepHeatmaps(boolean keepHeatmaps) {
+        this.keepHeatmaps = keepHeatmaps;
+    }
+
+    /**
+     * Gets the heatmap of a grid size from the last run.
+     *
+     * @param gridSize The grid size.
+     * @return The heatmap, or null if heatmaps were not kept or the grid size
+     * was not played.
+     */
+    public Heatmap getHeatmap(int gridSize) {
+        return heatmaps[gridSize];
+    }
+
+    /**
+     * Plays the games of every combination of the settings and writes the
+     * results to a file, one block per combination as it finishes.
+     *
+     * @param file The file, which is replaced.
+     * @return The number of combinations.
+     * @throws IOException If the file could not be written.
+     */
+    public int run(File file) throws IOException {
+        //Declarations.
+        int combinations = 0;
+        long start;
+        Combination combination;
+        Tally tally;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+
+        heatmaps = new Heatmap[GoblinModel.LARGE_GRID_SIZE + 1];
+        if(keepHeatmaps) {
+            for(int gridSize : gridSizes)
+                heatmaps[gridSize] = new Heatmap(gridSize);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(maxLevel);
+            out.writeInt(NUMBER_OF_COLUMNS);
+
+            for(int gridSize : gridSizes) {
+                for(int base : baseWalls) {
+                    for(int added : wallsPerLevel) {
+                        for(int faces : facesPerLevel) {
+                            for(int delayPercent : delayPercents) {
+                                combination = new Combination(combinations, gridSize, base, added, faces, delayPercent);
+                                start = System.nanoTime();
+                                tally = pool.invoke(new SweepTask(combination, 0L, games));
+                                writeBlock(out, combination, tally, System.nanoTime() - start);
+                                combinations++;
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        return combinations;
+    }
+
+    /**
+     * Writes the results of one combination and sends them on to the file.
+     *
+     * @param out The stream of the file.
+     * @param combination The combination.
+     * @param tally The results.
+     * @param elapsed The nanoseconds the combination took.
+     * @throws IOException If the file could not be written.
+     */
+    private void writeBlock(DataOutputStream out, Combination combination, Tally tally, long elapsed) throws IOException {
+        out.writeInt(combination.gridSize);
+        out.writeInt(combination.baseWalls);
+        out.writeInt(combination.wallsPerLevel);
+        out.writeInt(combination.facesPerLevel);
+        out.writeInt(combination.delayPercent);
+        out.writeInt(player);
+        out.writeInt(reactionTime);
+        out.writeInt(combination.highestLevel);
+        out.writeLong(games);
+        out.writeLong(elapsed);
+        for(int column = 0; column < NUMBER_OF_COLUMNS; column++) {
+            for(int level = 0; level < maxLevel; level++)
+                out.writeLong(tally.counts[column][level]);
+        }
+        out.flush();
+    }
+
+    /**
+     * Plays one game and adds its results to a tally.
+     *
+     * @param model The model, set up for the combination.
+     * @param combination The combination.
+     * @param random The random numbers of the player.
+     * @param tally The tally.
+     */
+    private void playGame(GoblinModel model, Combination combination, SplittableRandom random, Tally tally) {
+        //Declarations.
+        int level = 0, move = 0, movesPerDecision = 1, score, keyPress;
+        long[][] counts = tally.counts;
+
+        model.reset();
+        while(true) {
+            switch(model.getCurrentState()) {
+                case GoblinModel.STATE_BUILD_LEVEL:
+                    if(model.getLevel() >= combination.highestLevel)
+                        return;
+                    model.buildLevel();
+                    level = model.getLevel() - 1;
+                    counts[COLUMN_STARTED][level]++;
+                    counts[COLUMN_BUILD_ATTEMPTS][level] += model.getBuildAttempts();
+                    if(model.isLevelRepaired())
+                        counts[COLUMN_REPAIRED][level]++;
+
+                    //The player can only choose a move once each reaction
+                    //time.
+                    movesPerDecision = Math.max(1, (reactionTime + combination.getDelay(level + 1) - 1) / combination.getDelay(level + 1));
+                    move = 0;
+                    break;
+                case GoblinModel.STATE_BEGIN_LEVEL:
+                case GoblinModel.STATE_LEVEL_RUNNING:
+                case GoblinModel.STATE_GOBLIN_GOT_FACE:
+                    keyPress = (move % movesPerDecision == 0) ? nextKeyPress(model, random) : 0;
+                    if(keyPress != 0)
+                        model.setKeyPress(keyPress);
+                    score = model.getScore();
+                    model.moveGoblin();
+                    move++;
+                    counts[COLUMN_MOVES][level]++;
+                    counts[COLUMN_FACES][level] += model.getScore() - score;
+                    //A goblin that is still going after too many laps ends the
+                    //game.
+                    if(move >= model.getNumberOfRows() * LAPS_PER_LEVEL && model.getCurrentState() < GoblinModel.STATE_GOBLIN_DESTROYED) {
+                        counts[COLUMN_TIMED_OUT][level]++;
+                        return;
+                    }
+                    break;
+                case GoblinModel.STATE_LEVEL_CLEARED:
+                    counts[COLUMN_CLEARED][level]++;
+                    model.changeStateToBuildLevel();
+                    break;
+                default:
+                    //The goblin was destroyed.
+                    return;
+            }
+        }
+    }
+
+    /**
+     * Gets the key press of the player for the next move.
+     *
+     * @param model The model.
+     * @param random The random numbers of the player.
+     * @return GoblinModel.MOVE_LEFT, GoblinModel.MOVE_RIGHT, or zero.
+     */
+    private int nextKeyPress(GoblinModel model, SplittableRandom random) {
+        //Declarations.
+        int roll, advice, rank, pick, bestRank = -1, directions = 0;
+
+        if(player == PLAYER_RANDOM) {
+            roll = random.nextInt(200);
+            if(roll < RANDOM_TURN_PERCENT)
+                return GoblinModel.MOVE_LEFT;
+            return (roll < RANDOM_TURN_PERCENT * 2) ? GoblinModel.MOVE_RIGHT : 0;
+        }
+
+        //Take one of the moves that are safe and still reach every face, or
+        //else one of the moves that are safe.
+        for(int direction = MoveAdvisor.DIRECTION_LEFT; direction <= MoveAdvisor.DIRECTION_RIGHT; direction++) {
+            advice = model.getAdvice(direction);
+            rank = (advice == (MoveAdvisor.ADVICE_SAFE | MoveAdvisor.ADVICE_REACHES_FACES)) ? 2 : advice & MoveAdvisor.ADVICE_SAFE;
+            if(rank > bestRank) {
+                bestRank = rank;
+                directions = 0;
+            }
+            if(rank == bestRank)
+                directions |= 1 << direction;
+        }
+
+        //Of those take the ones nearest to a face, and one of them at random.
+        if(Integer.bitCount(directions) > 1)
+            directions = model.getNearestToFace(directions);
+        pick = Integer.bitCount(directions);
+        pick = (pick == 1) ? 0 : random.nextInt(pick);
+        while(pick-- > 0)
+            directions &= directions - 1;
+        return toKeyPress(Integer.numberOfTrailingZeros(directions));
+    }
+
+    /**
+     * Turns a direction of the move advisor into a key press.
+     *
+     * @param direction The direction.
+     * @return GoblinModel.MOVE_LEFT, GoblinModel.MOVE_RIGHT, or zero.
+     */
+    private static int toKeyPress(int direction) {
+        if(direction == MoveAdvisor.DIRECTION_LEFT)
+            return GoblinModel.MOVE_LEFT;
+        return (direction == MoveAdvisor.DIRECTION_RIGHT) ? GoblinModel.MOVE_RIGHT : 0;
+    }
+
+    /**
+     * Gets a well mixed seed from a number, with the SplitMix64 finalizer.
+     *
+     * @param value The number.
+     * @return The seed.
+     */
+    private static long mix(long value) {
+        //Declarations.
+        long z = value * 0x9E3779B97F4A7C15L;
+
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Class that holds one combination of the settings.
+     *
+     * @author agent
+     * @version 1.0
+     */
+    private final class Combination {
+        /** Holds the number of the combination, used to seed its games. */
+        final int number;
+        /** Holds the grid size. */
+        final int gridSize;
+        /** Holds the number of walls on the first level. */
+        final int baseWalls;
+        /** Holds the number of walls added per level. */
+        final int wallsPerLevel;
+        /** Holds the number of faces per level. */
+        final int facesPerLevel;
+        /** Holds the delay percentage. */
+        final int delayPercent;
+        /** Holds the highest level played. */
+        final int highestLevel;
+
+        //Constructor.
+        /**
+         * Creates a combination, filling in the grid defaults.
+         *
+         * @param number The number of the combination.
+         * @param gridSize The grid size.
+         * @param baseWalls The walls on the first level or GRID_DEFAULT.
+         * @param wallsPerLevel The walls added per level or GRID_DEFAULT.
+         * @param facesPerLevel The faces per level.
+         * @param delayPercent The delay percentage.
+         */
+        Combination(int number, int gridSize, int baseWalls, int wallsPerLevel, int facesPerLevel, int delayPercent) {
+            //Declarations.
+            GoblinModel model = new GoblinModel();
+
+            model.setGameGridSize(gridSize);
+            this.number = number;
+            this.gridSize = model.getNumberOfRows();
+            this.baseWalls = (baseWalls == GRID_DEFAULT) ? model.getBaseNumberOfWalls() : baseWalls;
+            this.wallsPerLevel = (wallsPerLevel == GRID_DEFAULT) ? model.getAdditionalWallsPerLevel() : wallsPerLevel;
+            this.facesPerLevel = facesPerLevel;
+            this.delayPercent = Math.max(1, delayPercent);
+
+            //Only play the levels whose walls fit.
+            model.setNumberOfWalls(this.baseWalls, this.wallsPerLevel);
+            highestLevel = Math.min(maxLevel, model.getHighestBuildableLevel());
+        }
+
+        /**
+         * Gets the delay between goblin moves on a level.
+         *
+         * @param level The level.
+         * @return The delay in milliseconds, at least one.
+         */
+        int getDelay(int level) {
+            return Math.max(1, GoblinController.getLevelDelay(level) * delayPercent / 100);
+        }
+    }
+
+    /**
+     * Class that holds the results of a number of games, one count per column
+     * and level.
+     *
+     * @author agent
+     * @version 1.0
+     */
+    private final class Tally {
+        /** Holds the counts. */
+        final long[][] counts = new long[NUMBER_OF_COLUMNS][maxLevel];
+
+        /**
+         * Adds the counts of another tally to this one.
+         *
+         * @param other The other tally.
+         */
+        void add(Tally other) {
+            for(int column = 0; column < NUMBER_OF_COLUMNS; column++) {
+                for(int level = 0; level < maxLevel; level++)
+                    counts[column][level] += other.counts[column][level];
+            }
+        }
+    }
+
+    /**
+     * Task that plays a range of the games of a combination, splitting it in
+     * half until it is small enough.  Each game is seeded from the combination
+     * and its number, so the results do not depend on the number of threads.
+     *
+     * @author agent
+     * @version 1.0
+     */
+    private final class SweepTask extends RecursiveTask<Tally> {
+        /** The version of the serialized form of the class. */
+        private static final long serialVersionUID = 1L;
+        /** Holds the combination. */
+        private final Combination combination;
+        /** Holds the number of the first game. */
+        private final long first;
+        /** Holds the number of the game after the last. */
+        private final long last;
+
+        //Constructor.
+        /**
+         * Sole constructor.
+         *
+         * @param combination The combination.
+         * @param first The number of the first game.
+         * @param last The number of the game after the last.
+         */
+        SweepTask(Combination combination, long first, long last) {
+            this.combination = combination;
+            this.first = first;
+            this.last = last;
+        }
+
+        /**
+         * Overrides the compute() method of RecursiveTask.  Plays the games or
+         * splits them between two tasks.
+         *
+         * @return The results of the games.
+         */
+        @Override
+        protected Tally compute() {
+            //Declarations.
+            long middle;
+            SweepTask left;
+            Tally tally;
+            GoblinModel model;
+            SplittableRandom random;
+            Heatmap heatmap = heatmaps[combination.gridSize];
+            Heatmap.Recorder recorder = null;
+
+            if(last - first > GAMES_PER_TASK) {
+                middle = (first + last) >>> 1;
+                left = new SweepTask(combination, first, middle);
+                left.fork();
+                tally = new SweepTask(combination, middle, last).compute();
+                tally.add(left.join());
+                return tally;
+            }
+
+            tally = new Tally();
+            model = new GoblinModel();
+            model.setGameGridSize(combination.gridSize);
+            model.buildGameGrid();
+            model.setNumberOfWalls(combination.baseWalls, combination.wallsPerLevel);
+            model.setFacesPerLevel(combination.facesPerLevel);
+            model.setPracticeMode(player == PLAYER_ADVISOR);
+            if(heatmap != null) {
+                recorder = heatmap.newRecorder();
+                model.addModelListener(recorder);
+            }
+            for(long game = first; game < last; game++) {
+                model.setSeed(mix(((long)combination.number << 40) + game));
+                random = new SplittableRandom(mix(~game));
+                playGame(model, combination, random, tally);
+            }
+            if(recorder != null)
+                heatmap.merge(recorder);
+            return tally;
+        }
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package training;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import model.GoblinModel;
+import model.LevelChecker;
+import model.LevelDedupeFilter;
+
+/**
+ * Class that builds a very large number of levels with the model and checks
+ * each one with the level checker, to make sure a change to the level builder
+ * still follows every rule.  Levels are built for each grid size and each level
+ * number up to the highest buildable level, each from a seed worked out from
+ * the grid size, the level number, and the number of the level being checked.
+ * The levels of each grid size and level number are split over a fork join
+ * pool.  Levels that come out the same as one already built for the same grid
+ * size and level number are counted, by their board hash.
+ *
+ * When a level breaks a rule the check stops and the first level that did, in
+ * the order the levels are numbered, is reported whatever the number of
+ * threads.  It can be built again with:
+ *     model.setGameGridSize(gridSize);
+ *     model.buildGameGrid();
+ *     model.setSeed(seed);
+ *     model.reset();
+ *     model.setLevel(level - 1);
+ *     model.buildLevel();
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class LevelGeneratorCheck {
+    /** The number of levels below which a task checks them rather than splits. */
+    private static final int LEVELS_PER_TASK = 4096;
+    /** The largest number of levels the dedupe filter is made to hold. */
+    private static final int MAX_DEDUPE_LEVELS = 1 << 20;
+
+    /** Holds the grid sizes to check. */
+    private int[] gridSizes = { GoblinModel.SMALL_GRID_SIZE, GoblinModel.MEDIUM_GRID_SIZE, GoblinModel.LARGE_GRID_SIZE };
+    /** Holds the highest level number checked. */
+    private int maxLevel = 50;
+    /** Holds the number of levels checked for each grid size and level number. */
+    private long levels = 100000L;
+    /** Holds the level check the model uses when it builds the levels. */
+    private int levelCheck = GoblinModel.LEVEL_CHECK_REJECT;
+    /** Holds the number of threads the levels are checked on. */
+    private int threads = Runtime.getRuntime().availableProcessors();
+    /** Holds the number of levels checked by the last run. */
+    private long levelsChecked;
+    /** Holds the number of levels of the last run that were built before. */
+    private long duplicateLevels;
+    /** Holds the grid size of the first level that broke a rule. */
+    private int failedGridSize;
+    /** Holds the level number of the first level that broke a rule. */
+    private int failedLevel;
+    /** Holds the seed of the first level that broke a rule. */
+    private long failedSeed;
+    /** Holds the rule the first failed level broke, or VIOLATION_NONE. */
+    private int violation;
+    /** Holds the row of the violation. */
+    private int violationRow;
+    /** Holds the column of the violation. */
+    private int violationColumn;
+
+    /**
+     * Sets the grid sizes to check.
+     *
+     * @param gridSizes Grid size constants of the model.
+     */
+    public void setGridSizes(int[] gridSizes) {
+        this.gridSizes = gridSizes.clone();
+    }
+
+    /**
+     * Sets the highest level number checked.  Levels past the highest buildable
+     * level of a grid size are never checked.
+     *
+     * @param maxLevel The level number.
+     */
+    public void setMaxLevel(int maxLevel) {
+        this.maxLevel = Math.max(1, maxLevel);
+    }
+
+    /**
+     * Sets the number of levels checked for each grid size and level number.
+     *
+     * @param levels The number of levels.
+     */
+    public void setLevels(long levels) {
+        this.levels = Math.max(0L, levels);
+    }
+
+    /**
+     * Sets the level check the model uses when it builds the levels.  Unless it
+     * is LEVEL_CHECK_NONE every face must be reachable.
+     *
+     * @param levelCheck One of the level check constants of the model.
+     */
+    public void setLevelCheck(int levelCheck) {
+        this.levelCheck = levelCheck;
+    }
+
+    /**
+     * Sets the number of threads the levels are checked on.
+     *
+     * @param threads The number of threads.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Builds and checks the levels, stopping at the first grid size and level
+     * number that has a level that breaks a rule.
+     *
+     * @return True if every level followed every rule.
+     */
+    public boolean run() {
+        //Declarations.
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        GoblinModel model = new GoblinModel();
+        AtomicLong firstFailure = new AtomicLong(Long.MAX_VALUE);
+        AtomicLong checked = new AtomicLong();
+        AtomicLong duplicates = new AtomicLong();
+        LevelDedupeFilter filter = new LevelDedupeFilter((int)Math.min(levels, MAX_DEDUPE_LEVELS));
+        int highestLevel;
+
+        levelsChecked = 0L;
+        violation = LevelChecker.VIOLATION_NONE;
+        try {
+            for(int gridSize : gridSizes) {
+                model.setGameGridSize(gridSize);
+                highestLevel = Math.min(maxLevel, model.getHighestBuildableLevel());
+                for(int level = 1; level <= highestLevel; level++) {
+                    filter.clear();
+                    pool.invoke(new CheckTask(gridSize, level, 0L, levels, firstFailure, checked, filter, duplicates));
+                    if(firstFailure.get() != Long.MAX_VALUE) {
+                        recordFailure(gridSize, level, firstFailure.get());
+                        return false;
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+            levelsChecked = checked.get();
+            duplicateLevels = duplicates.get();
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the number of levels checked by the last run.
+     *
+     * @return The number of levels.
+     */
+    public long getLevelsChecked() {
+        return levelsChecked;
+    }
+
+    /**
+     * Gets the number of levels of the last run that came out the same as a
+     * level built before for the same grid size and level number.  Once more
+     * levels are checked than the dedupe filter holds some may be missed.
+     *
+     * @return The number of levels.
+     */
+    public long getDuplicateLevels() {
+        return duplicateLevels;
+    }
+
+    /**
+     * Gets the rule the first failed level of the last run broke.
+     *
+     * @return One of the violation constants of the level checker.
+     */
+    public int getViolation() {
+        return violation;
+    }
+
+    /**
+     * Gets the row of the tile that broke the rule.
+     *
+     * @return The row, or -1 if the violation is not in one row.
+     */
+    public int getViolationRow() {
+        return violationRow;
+    }
+
+    /**
+     * Gets the column of the tile that broke the rule.
+     *
+     * @return The column, or -1 if the violation is not in one column.
+     */
+    public int getViolationColumn() {
+        return violationColumn;
+    }
+
+    /**
+     * Gets the grid size of the first failed level of the last run.
+     *
+     * @return The grid size.
+     */
+    public int getFailedGridSize() {
+        return failedGridSize;
+    }
+
+    /**
+     * Gets the level number of the first failed level of the last run.
+     *
+     * @return The level number.
+     */
+    public int getFailedLevel() {
+        return failedLevel;
+    }
+
+    /**
+     * Gets the seed of the first failed level of the last run.
+     *
+     * @return The seed.
+     */
+    public long getFailedSeed() {
+        return failedSeed;
+    }
+
+    /**
+     * Builds the first failed level again to find out which rule it broke.
+     *
+     * @param gridSize The grid size.
+     * @param level The level number.
+     * @param number The number of the level.
+     */
+    private void recordFailure(int gridSize, int level, long number) {
+        //Declarations.
+        GoblinModel model = new GoblinModel();
+        LevelChecker checker = new LevelChecker();
+
+        failedGridSize = gridSize;
+        failedLevel = level;
+        failedSeed = getSeed(gridSize, level, number);
+        setUp(model, gridSize);
+        violation = build(model, checker, level, failedSeed);
+        violationRow = checker.getViolationRow();
+        violationColumn = checker.getViolationColumn();
+    }
+
+    /**
+     * Sets up a model to build levels of a grid size.
+     *
+     * @param model The model.
+     * @param gridSize The grid size.
+     */
+    private void setUp(GoblinModel model, int gridSize) {
+        model.setGameGridSize(gridSize);
+        model.buildGameGrid();
+        model.setLevelCheck(levelCheck);
+    }
+
+    /**
+     * Builds a level and checks it.
+     *
+     * @param model The model.
+     * @param checker The checker.
+     * @param level The level number.
+     * @param seed The seed.
+     * @return One of the violation constants of the level checker.
+     */
+    private static int build(GoblinModel model, LevelChecker checker, int level, long seed) {
+        model.setSeed(seed);
+        model.reset();
+        model.setLevel(level - 1);
+        model.buildLevel();
+        return checker.check(model);
+    }
+
+    /**
+     * Gets the seed of a level with the SplitMix64 finalizer.
+     *
+     * @param gridSize The grid size.
+     * @param level The level number.
+     * @param number The number of the level.
+     * @return The seed.
+     */
+    private static long getSeed(int gridSize, int level, long number) {
+        //Declarations.
+        long z = (((long)gridSize << 56) ^ ((long)level << 40) ^ number) * 0x9E3779B97F4A7C15L;
+
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Task that checks a range of the levels of a grid size and level number,
+     * splitting it in half until it is small enough.  Once a level has failed
+     * only the levels numbered before it are still checked.
+     *
+     * @author agent
+     * @version 1.0
+     */
+    private final class CheckTask extends RecursiveAction {
+        /** The version of the serialized form of the class. */
+        private static final long serialVersionUID = 1L;
+        /** Holds the grid size. */
+        private final int gridSize;
+        /** Holds the level number. */
+        private final int level;
+        /** Holds the number of the first level. */
+        private final long first;
+        /** Holds the number of the level after the last. */
+        private final long last;
+        /** Holds the number of the first level found to fail. */
+        private final AtomicLong firstFailure;
+        /** Holds the number of levels checked. */
+        private final AtomicLong checked;
+        /** Holds the filter of the levels built so far. */
+        private final LevelDedupeFilter filter;
+        /** Holds the number of levels that were built before. */
+        private final AtomicLong duplicates;
+
+        //Constructor.
+        /**
+         * Sole constructor.
+         *
+         * @param gridSize The grid size.
+         * @param level The level number.
+         * @param first The number of the first level.
+         * @param last The number of the level after the last.
+         * @param firstFailure The number of the first level found to fail.
+         * @param checked The number of levels checked.
+         * @param filter The filter of the levels built so far.
+         * @param duplicates The number of levels that were built before.
+         */
+        CheckTask(int gridSize, int level, long first, long last, AtomicLong firstFailure, AtomicLong checked,
+                LevelDedupeFilter filter, AtomicLong duplicates) {
+            this.gridSize = gridSize;
+            this.level = level;
+            this.first = first;
+            this.last = last;
+            this.firstFailure = firstFailure;
+            this.checked = checked;
+            this.filter = filter;
+            this.duplicates = duplicates;
+        }
+
+        /**
+         * Overrides the compute() method of RecursiveAction.  Checks the levels
+         * or splits them between two tasks.
+         */
+        @Override
+        protected void compute() {
+            //Declarations.
+            long middle, number, failure, repeats = 0L;
+            GoblinModel model;
+            LevelChecker checker;
+
+            if(last - first > LEVELS_PER_TASK) {
+                middle = (first + last) >>> 1;
+                invokeAll(new CheckTask(gridSize, level, first, middle, firstFailure, checked, filter, duplicates),
+                        new CheckTask(gridSize, level, middle, last, firstFailure, checked, filter, duplicates));
+                return;
+            }
+
+            model = new GoblinModel();
+            checker = new LevelChecker();
+            setUp(model, gridSize);
+            for(number = first; number < last && number < firstFailure.get(); number++) {
+                if(build(model, checker, level, getSeed(gridSize, level, number)) != LevelChecker.VIOLATION_NONE) {
+                    //Keep the lowest numbered failure.
+                    failure = firstFailure.get();
+                    while(number < failure && !firstFailure.compareAndSet(failure, number))
+                        failure = firstFailure.get();
+                    break;
+                }
+                if(!filter.add(model))
+                    repeats++;
+            }
+            checked.addAndGet(number - first);
+            duplicates.addAndGet(repeats);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package training;
+
+import model.GoblinModel;
+import model.Images;
+import model.MoveAdvisor;
+
+/**
+ * Class that runs many games of Goblin in lockstep for training agents.  Each
+ * call to step() moves the goblin of every game one row with the action chosen
+ * for it, the same as one goblin move of the model, and fills in the reward
+ * and done flag of every game.
+ *
+ * The games are kept as a structure of arrays.  The position, score, level and
+ * shocked faces left of every game are each in one int array, and the game
+ * grids of all the games are one byte array of tile types, one plane after
+ * another.  Nothing is allocated while stepping.  The step is split into passes
+ * so the ones that are only arithmetic on the arrays, working out where each
+ * goblin moves and what it hit, have no branches and can be vectorized by the
+ * JIT.  Only reading and writing the game grids, which can not be, is done one
+ * game at a time.
+ *
+ * Levels are built by a model, so they follow the same rules as the game, but
+ * there is no pause before a level begins and no explosion to wait for.  A game
+ * that ended is started again on the next step, which ignores its action, so
+ * the last game grid of the game can still be seen.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class VectorEnvironment {
+    /** The action that moves the goblin diagonally to the left. */
+    public static final int ACTION_LEFT = MoveAdvisor.DIRECTION_LEFT;
+    /** The action that moves the goblin straight up. */
+    public static final int ACTION_STRAIGHT = MoveAdvisor.DIRECTION_STRAIGHT;
+    /** The action that moves the goblin diagonally to the right. */
+    public static final int ACTION_RIGHT = MoveAdvisor.DIRECTION_RIGHT;
+
+    /**
+     * The highest level whose wall obstacles are used to build a level.  Levels
+     * past it are built with as many walls as it has, since past a point the
+     * walls no longer fit on the game grid.
+     */
+    public static final int MAX_BUILD_LEVEL = 30;
+
+    /** Holds the number of games. */
+    private final int count;
+    /** Holds the number of rows in each game grid. */
+    private final int numberOfRows;
+    /** Holds the number of columns in each game grid. */
+    private final int numberOfColumns;
+    /** Holds the number of tiles in each game grid. */
+    private final int area;
+    /** Holds the game grids, one after another, as tile types. */
+    private final byte[] boards;
+    /** Holds the column of the goblin of each game. */
+    private final int[] goblinX;
+    /** Holds the row of the goblin of each game. */
+    private final int[] goblinY;
+    /** Holds the score of each game. */
+    private final int[] score;
+    /** Holds the level of each game. */
+    private final int[] level;
+    /** Holds the number of shocked faces left on the level of each game. */
+    private final int[] remainingFaces;
+    /** Holds the state of the random numbers the levels of each game use. */
+    private final long[] randomState;
+    /** Holds the reward of each game from the last step. */
+    private final float[] rewards;
+    /** Holds one for each game that ended on the last step, zero if not. */
+    private final byte[] dones;
+    /** Holds one for each game that moves on this step, zero if not. */
+    private final int[] moving;
+    /** Holds the place in the game grids the goblin of each game moves from. */
+    private final int[] fromTile;
+    /** Holds the place in the game grids the goblin of each game moves to. */
+    private final int[] toTile;
+    /** Holds the tile type each goblin moves onto. */
+    private final int[] hitTile;
+    /** Holds one for each game whose goblin collected a face, zero if not. */
+    private final int[] faceHit;
+    /** Holds one for each game whose goblin hit a wall, zero if not. */
+    private final int[] wallHit;
+    /** Holds the model used to build the levels. */
+    private final GoblinModel builder = new GoblinModel();
+
+    //Constructor.
+    /**
+     * Creates the games.  reset() must be called before the first step.
+     *
+     * @param count The number of games.
+     * @param gridSize The size of every game grid, one of the grid size
+     * constants of the model.
+     */
+    public VectorEnvironment(int count, int gridSize) {
+        this.count = count;
+        builder.setGameGridSize(gridSize);
+        builder.buildGameGrid();
+        numberOfRows = builder.getNumberOfRows();
+        numberOfColumns = builder.getNumberOfColumns();
+        area = numberOfRows * numberOfColumns;
+
+        boards = new byte[count * area];
+        goblinX = new int[count];
+        goblinY = new int[count];
+        score = new int[count];
+        level = new int[count];
+        remainingFaces = new int[count];
+        randomState = new long[count];
+        rewards = new float[count];
+        dones = new byte[count];
+        moving = new int[count];
+        fromTile = new int[count];
+        toTile = new int[count];
+        hitTile = new int[count];
+        faceHit = new int[count];
+        wallHit = new int[count];
+    }
+
+    /**
+     * Starts every game again.  A game given the same seed plays out the same
+     * for the same actions.
+     *
+     * @param seeds The seed of each game.
+     */
+    public void reset(long[] seeds) {
+        if(seeds.length != count)
+            throw new IllegalArgumentException("Expected " + count + " seeds but got " + seeds.length);
+
+        for(int i = 0; i < count; i++) {
+            randomState[i] = seeds[i];
+            newGame(i);
+        }
+    }
+
+    /**
+     * Moves the goblin of every game one row.  The rewards, done flags, game
+     * grids and positions are updated in place.
+     *
+     * @param actions The action of each game, one of the action constants of
+     * this class.  Other values are treated as the nearest one.
+     */
+    public void step(int[] actions) {
+        //Declarations.
+        int x, y, dx, nextX, nextY, hitShrub;
+
+        if(actions.length != count)
+            throw new IllegalArgumentException("Expected " + count + " actions but got " + actions.length);
+
+        //Start the games that ended on the last step again.  They do not move
+        //on this step.
+        for(int i = 0; i < count; i++) {
+            moving[i] = 1 - dones[i];
+            if(dones[i] != 0)
+                newGame(i);
+        }
+
+        //Work out where each goblin moves to.  It moves up one row, wrapping
+        //from the top row to the bottom row, and a move into a shrub leaves it
+        //in the same column.
+        for(int i = 0; i < count; i++) {
+            x = goblinX[i];
+            y = goblinY[i];
+            dx = (Math.min(Math.max(actions[i], ACTION_LEFT), ACTION_RIGHT) - ACTION_STRAIGHT) * moving[i];
+            nextY = y - moving[i];
+            nextY += (nextY >> 31) & numberOfRows;
+            nextX = x + dx;
+            hitShrub = ((nextX - 1) >>> 31) | ((numberOfColumns - 2 - nextX) >>> 31);
+            nextX -= dx * hitShrub;
+            fromTile[i] = i * area + y * numberOfColumns + x;
+            toTile[i] = i * area + nextY * numberOfColumns + nextX;
+            goblinX[i] = nextX;
+            goblinY[i] = nextY;
+        }
+
+        //Read the tile each goblin moves onto.
+        for(int i = 0; i < count; i++)
+            hitTile[i] = boards[toTile[i]];
+
+        //Work out what each goblin hit.  A goblin that did not move is on its
+        //own tile so hits nothing.
+        for(int i = 0; i < count; i++) {
+            faceHit[i] = ((hitTile[i] ^ Images.SHOCKED_FACE) - 1) >>> 31;
+            wallHit[i] = ((hitTile[i] ^ Images.WALL) - 1) >>> 31;
+            score[i] += faceHit[i];
+            remainingFaces[i] -= faceHit[i];
+            rewards[i] = faceHit[i];
+            dones[i] = (byte) wallHit[i];
+        }
+
+        //Move the goblins on the game grids and build the next level of any
+        //game that has no faces left.
+        for(int i = 0; i < count; i++) {
+            boards[fromTile[i]] = Images.STONE;
+            boards[toTile[i]] = (byte) (wallHit[i] != 0 ? Images.EXPLOSION : Images.GOBLIN);
+            if(remainingFaces[i] == 0)
+                buildLevel(i);
+        }
+    }
+
+    /**
+     * Gets the number of games.
+     *
+     * @return The number of games.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the number of rows in each game grid.
+     *
+     * @return The number of rows.
+     */
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    /**
+     * Gets the number of columns in each game grid.
+     *
+     * @return The number of columns.
+     */
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    /**
+     * Gets the game grids of every game, one after another.  The tile in a row
+     * and column of game i is at i * rows * columns + row * columns + column
+     * and holds one of the tile types of the Images class.  The array is
+     * updated in place by each step and must not be changed.
+     *
+     * @return The game grids.
+     */
+    public byte[] getObservations() {
+        return boards;
+    }
+
+    /**
+     * Gets the reward of every game from the last step, which is one if the
+     * goblin collected a shocked face and zero if not.  The array is updated in
+     * place by each step.
+     *
+     * @return The rewards.
+     */
+    public float[] getRewards() {
+        return rewards;
+    }
+
+    /**
+     * Gets the done flag of every game from the last step, which is one if the
+     * goblin hit a wall obstacle and zero if not.  The array is updated in
+     * place by each step.
+     *
+     * @return The done flags.
+     */
+    public byte[] getDones() {
+        return dones;
+    }
+
+    /**
+     * Gets the column of the goblin of every game.  The array is updated in
+     * place by each step and must not be changed.
+     *
+     * @return The columns.
+     */
+    public int[] getGoblinX() {
+        return goblinX;
+    }
+
+    /**
+     * Gets the row of the goblin of every game.  The array is updated in place
+     * by each step and must not be changed.
+     *
+     * @return The rows.
+     */
+    public int[] getGoblinY() {
+        return goblinY;
+    }
+
+    /**
+     * Gets the score of every game.  The array is updated in place by each step
+     * and must not be changed.
+     *
+     * @return The scores.
+     */
+    public int[] getScores() {
+        return score;
+    }
+
+    /**
+     * Gets the level of every game.  The array is updated in place by each step
+     * and must not be changed.
+     *
+     * @return The levels.
+     */
+    public int[] getLevels() {
+        return level;
+    }
+
+    /**
+     * Method that starts a game again from the first level.
+     *
+     * @param game The game.
+     */
+    private void newGame(int game) {
+        score[game] = 0;
+        level[game] = 0;
+        rewards[game] = 0.0f;
+        dones[game] = 0;
+        buildLevel(game);
+    }
+
+    /**
+     * Method that builds the next level of a game with the model and copies it
+     * into the game grid of the game.
+     *
+     * @param game The game.
+     */
+    private void buildLevel(int game) {
+        builder.setSeed(nextSeed(game));
+        builder.setLevel(Math.min(level[game], MAX_BUILD_LEVEL));
+        builder.buildLevel();
+        builder.copyImageTypes(boards, game * area);
+
+        goblinX[game] = builder.getcurrentGoblinX();
+        goblinY[game] = builder.getcurrentGoblinY();
+        remainingFaces[game] = builder.getRemainingFaces();
+        level[game]++;
+    }
+
+    /**
+     * Method that gets the seed for the next level of a game.  The seeds are
+     * a SplitMix64 sequence started from the seed the game was reset with.
+     *
+     * @param game The game.
+     * @return The seed.
+     */
+    private long nextSeed(int game) {
+        //Declarations.
+        long z = randomState[game] += 0x9E3779B97F4A7C15L;
+
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+
+package view;
+
+import model.GoblinModel;
+
+/**
+ * Class that takes the frame snapshots of a model for the window to paint.  Each
+ * time a frame is published the model is copied into the back snapshot of a
+ * snapshot exchange and the area that has to be redrawn is worked out as a
+ * rectangle of tiles.  Nothing here needs a window, so a game loop with no
+ * display does the same work each tick as one with a window.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class FramePublisher {
+    /** Passes the frame snapshots from the game loop to the window. */
+    private final SnapshotExchange frames = new SnapshotExchange();
+    /**
+     * Holds the best score for the size being played, shown when the game is
+     * over.  Zero if there is none.  Only used by the game loop, which copies
+     * it into each frame.
+     */
+    private int bestScore;
+    /** Holds the top row of the area to redraw. */
+    private int topRow;
+    /**
+     * Holds the bottom row of the area to redraw, which is the number of rows
+     * when it takes in the heads up display.
+     */
+    private int bottomRow;
+    /** Holds the left column of the area to redraw. */
+    private int leftColumn;
+    /** Holds the right column of the area to redraw. */
+    private int rightColumn;
+    /** Holds the tile size of the frame published last. */
+    private int tileSize;
+    /** Holds true if the size of the game grid or its tiles changed. */
+    private boolean sizeChanged;
+
+    /**
+     * Publishes a snapshot of the model and works out the area that changed
+     * since the last snapshot.  The area is a rectangle around the tiles that
+     * changed, grown down across the heads up display if it changed too.  Only
+     * called by the game loop, which is the only thread that changes the
+     * model.
+     *
+     * @param model The model.
+     * @return True if anything has to be redrawn, false if nothing changed.
+     */
+    public boolean publish(GoblinModel model) {
+        //Declarations.
+        long changedCols = 0L;
+        FrameSnapshot frame = frames.getBack();
+
+        //Copy the model into the back snapshot and hand it to the window.  The
+        //snapshot can still be read once published, but not changed.
+        frame.capture(model, frames.getPublished(), bestScore);
+        frames.publish();
+        tileSize = frame.tileSize;
+
+        //If the size changed the window has to be resized, so draw it all.
+        sizeChanged = frame.sizeChanged;
+        if(sizeChanged)
+            return true;
+
+        //Find the rows and columns that hold the tiles that changed.
+        topRow = -1;
+        bottomRow = 0;
+        for(int row = 0; row < frame.numberOfRows; row++) {
+            if(frame.dirtyRows[row] != 0L) {
+                if(topRow < 0)
+                    topRow = row;
+                bottomRow = row;
+                changedCols |= frame.dirtyRows[row];
+            }
+        }
+
+        //If the heads up display changed grow the rectangle down to the bottom
+        //of it and across the whole game grid so both are redrawn together.
+        if(frame.hudDirty) {
+            if(topRow < 0)
+                topRow = frame.numberOfRows;
+            bottomRow = frame.numberOfRows;
+            leftColumn = 0;
+            rightColumn = frame.numberOfColumns - 1;
+        } else if(topRow < 0) {
+            //Nothing changed.
+            return false;
+        } else {
+            leftColumn = Long.numberOfTrailingZeros(changedCols);
+            rightColumn = 63 - Long.numberOfLeadingZeros(changedCols);
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the newest frame.  Only called by the window.
+     *
+     * @return The frame.
+     */
+    FrameSnapshot acquire() {
+        return frames.acquire();
+    }
+
+    /**
+     * Sets the best score for the size being played, which is shown in the
+     * heads up display when the game is over.  Takes effect with the next
+     * frame published.
+     *
+     * @param bestScore The best score, or zero if there is none.
+     */
+    public void setBestScore(int bestScore) {
+        this.bestScore = bestScore;
+    }
+
+    /**
+     * Gets whether the size of the game grid or its tiles changed in the frame
+     * published last, in which case all of it has to be redrawn.
+     *
+     * @return True if the size changed, false if not.
+     */
+    public boolean isSizeChanged() {
+        return sizeChanged;
+    }
+
+    /**
+     * Gets the top row of the area to redraw from the frame published last.
+     *
+     * @return The row.
+     */
+    public int getTopRow() {
+        return topRow;
+    }
+
+    /**
+     * Gets the bottom row of the area to redraw from the frame published last.
+     *
+     * @return The row, or the number of rows if it takes in the heads up
+     * display.
+     */
+    public int getBottomRow() {
+        return bottomRow;
+    }
+
+    /**
+     * Gets the left column of the area to redraw from the frame published
+     * last.
+     *
+     * @return The column.
+     */
+    public int getLeftColumn() {
+        return leftColumn;
+    }
+
+    /**
+     * Gets the right column of the area to redraw from the frame published
+     * last.
+     *
+     * @return The column.
+     */
+    public int getRightColumn() {
+        return rightColumn;
+    }
+
+    /**
+     * Gets the tile size of the frame published last.
+     *
+     * @return The tile size in pixels.
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package view;
+
+import model.GoblinModel;
+
+/**
+ * Class that holds everything the window needs to paint one frame of the game,
+ * copied from the model by the game loop after each tick.  Along with the game
+ * grid, goblin, score, and level it holds the tiles that changed since the frame
+ * before it, with each row of the game grid as a bit mask in a long where bit N
+ * is column N.  A snapshot is only ever filled in by the game loop while it is
+ * the back buffer of a snapshot exchange, so the window always paints a whole
+ * tick and never part of one.
+ *
+ * @author agent
+ * @version 1.0
+ */
+class FrameSnapshot {
+    /** Holds the image type of each tile, row by row, with no gaps. */
+    final byte[] board = new byte[GoblinModel.LARGE_GRID_SIZE * GoblinModel.LARGE_GRID_SIZE];
+    /** Holds the bit mask per row of the tiles that changed. */
+    final long[] dirtyRows = new long[GoblinModel.LARGE_GRID_SIZE];
+    /** Holds the advice for each of the three directions. */
+    final int[] advice = new int[3];
+    /** Holds the number of frames published before this one. */
+    long frameNumber;
+    /** Holds the number of rows in the game grid. */
+    int numberOfRows;
+    /** Holds the number of columns in the game grid. */
+    int numberOfColumns;
+    /** Holds the tile size. */
+    int tileSize;
+    /** Holds the column the goblin is in. */
+    int goblinX;
+    /** Holds the row the goblin is in. */
+    int goblinY;
+    /** Holds the score. */
+    int score;
+    /** Holds the level. */
+    int level;
+    /** Holds the state of the model. */
+    int state;
+    /** Holds the best score shown once the game is over. */
+    int bestScore;
+    /** Holds true if the practice mode advice is shown. */
+    boolean showsAdvice;
+    /** Holds true if anything in the heads up display changed. */
+    boolean hudDirty;
+    /** Holds true if the size of the game grid or its tiles changed. */
+    boolean sizeChanged;
+
+    /**
+     * Copies the model into the snapshot and works out what changed since the
+     * frame before it.  Only called by the game loop.
+     *
+     * @param model The model.
+     * @param previous The frame published before this one.
+     * @param bestScore The best score shown once the game is over.
+     */
+    void capture(GoblinModel model, FrameSnapshot previous, int bestScore) {
+        //Declarations.
+        int base;
+        long mask;
+
+        numberOfRows = model.getNumberOfRows();
+        numberOfColumns = model.getNumberOfColumns();
+        tileSize = model.getTileSize();
+        model.copyImageTypes(board, 0);
+        goblinX = model.getcurrentGoblinX();
+        goblinY = model.getcurrentGoblinY();
+        score = model.getScore();
+        level = model.getLevel();
+        state = model.getCurrentState();
+        this.bestScore = bestScore;
+        frameNumber = previous.frameNumber + 1;
+
+        //The advice is only shown while the goblin is able to move.
+        showsAdvice = model.hasAdvice() && (state == GoblinModel.STATE_BEGIN_LEVEL
+                || state == GoblinModel.STATE_LEVEL_RUNNING || state == GoblinModel.STATE_GOBLIN_GOT_FACE);
+        for(int direction = 0; direction < advice.length; direction++)
+            advice[direction] = showsAdvice ? model.getAdvice(direction) : 0;
+
+        sizeChanged = numberOfRows != previous.numberOfRows || numberOfColumns != previous.numberOfColumns
+                || tileSize != previous.tileSize;
+        hudDirty = sizeChanged || score != previous.score || level != previous.level
+                || bestScore != previous.bestScore
+                || (state == GoblinModel.STATE_GAME_OVER) != (previous.state == GoblinModel.STATE_GAME_OVER);
+
+        //If the size changed everything changed.  Otherwise compare the tiles
+        //with the frame before.
+        if(sizeChanged) {
+            mask = (1L << numberOfColumns) - 1L;
+            for(int row = 0; row < numberOfRows; row++)
+                dirtyRows[row] = mask;
+            return;
+        }
+        for(int row = 0; row < numberOfRows; row++) {
+            base = row * numberOfColumns;
+            mask = 0L;
+            for(int col = 0; col < numberOfColumns; col++) {
+                if(board[base + col] != previous.board[base + col])
+                    mask |= 1L << col;
+            }
+            dirtyRows[row] = mask;
+        }
+
+        //The advice is drawn over the tiles, so if it moved or changed the
+        //tiles under both the old and the new advice have to be drawn.
+        if(!sameAdvice(previous)) {
+            markAdvice(previous);
+            markAdvice(this);
+        }
+    }
+
+    /**
+     * Gets the row the advice is drawn on, which is the row above the goblin or
+     * the bottom row if the goblin is on the top row.
+     *
+     * @return The row.
+     */
+    int getAdviceRow() {
+        return (goblinY == 0) ? numberOfRows - 1 : goblinY - 1;
+    }
+
+    /**
+     * Checks if the advice shown in another frame is the same as in this one.
+     *
+     * @param other The other frame.
+     * @return True if the same advice is shown in the same place.
+     */
+    private boolean sameAdvice(FrameSnapshot other) {
+        if(!showsAdvice && !other.showsAdvice)
+            return true;
+        return showsAdvice == other.showsAdvice && goblinX == other.goblinX && goblinY == other.goblinY
+                && advice[0] == other.advice[0] && advice[1] == other.advice[1] && advice[2] == other.advice[2];
+    }
+
+    /**
+     * Marks the tiles under the advice of a frame as changed in this frame.
+     * The first and last columns are shrubs, which never have advice on them.
+     *
+     * @param frame The frame, which must have the same size as this one.
+     */
+    private void markAdvice(FrameSnapshot frame) {
+        if(frame.showsAdvice)
+            dirtyRows[frame.getAdviceRow()] |= (7L << (frame.goblinX - 1)) & ~1L & ~(1L << (numberOfColumns - 1));
+    }
+}
@@ -32,6 +32,8 @@ import java.awt.CheckboxMenuItem;
 import java.awt.Color;
 import java.awt.Frame;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Insets;
 import java.awt.Menu;
 import java.awt.MenuBar;
 import java.awt.MenuItem;
@@ -40,13 +42,24 @@ import java.awt.event.ActionListener;
 import java.awt.event.ItemListener;
 import java.awt.event.KeyListener;
 import java.awt.event.WindowListener;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import metrics.GoblinMetrics;
+import metrics.Heatmap;
+import metrics.PaintEvent;
 import model.GoblinModel;
+import model.Images;
+import model.MoveAdvisor;
 
 /**
  * The view in the game MVC architecture.  This class is responsible for
  * displaying the game playing field and intercepting the user commands for the
  * keyboard and mouse.
  * 
+ * The game loop publishes a snapshot of the model after each tick and the
+ * window only ever paints from the newest snapshot, so it never sees a tick
+ * that is part way done and never has to lock the model.
+ * 
  * @author Donald J Bartley
  * @version 1.0
  */
@@ -67,6 +80,18 @@ public class GoblinView extends Frame {
     public static final String MEDIUM_GRID_MENU_ITEM = "Medium Grid (" + GoblinModel.MEDIUM_GRID_SIZE + " X " + GoblinModel.MEDIUM_GRID_SIZE + ")";
     /** The text string for the large game grid menu item. */
     public static final String LARGE_GRID_MENU_ITEM = "Large Grid (" + GoblinModel.LARGE_GRID_SIZE + " X " + GoblinModel.LARGE_GRID_SIZE + ")";
+    /** The text string for the practice mode menu item. */
+    public static final String PRACTICE_MODE_MENU_ITEM = "Practice Mode";
+    
+    /** The value that indicates the highlight for a safe move. */
+    private static final int HIGHLIGHT_SAFE = 0;
+    /**
+     * The value that indicates the highlight for a safe move that leaves some
+     * shocked faces out of reach.
+     */
+    private static final int HIGHLIGHT_STRANDS_FACES = 1;
+    /** The value that indicates the highlight for a move that is not safe. */
+    private static final int HIGHLIGHT_UNSAFE = 2;
     
     /** Holds a boolean value that indicates if the game grid of the model is
      * ready to be drawn.
@@ -76,11 +101,11 @@ public class GoblinView extends Frame {
      * the current state of the model.
      */
     private boolean sizeSet = false;
-    /** Holds the number of rows in the model game grid. */
+    /** Holds the number of rows in the game grid the window is sized for. */
     private int numberOfRows;
-    /** Holds the number of columns in the model game grid. */
+    /** Holds the number of columns in the game grid the window is sized for. */
     private int numberOfColumns;
-    /** Holds the tile size used by the model. */
+    /** Holds the tile size the window is sized for. */
     private int tileSize;    
     /** Menu bar. */
     private MenuBar gameMenuBar;
@@ -104,6 +129,38 @@ public class GoblinView extends Frame {
     private CheckboxMenuItem mediumGrid;
     /** Medium grid size checkable menu item in the Options pull-down menu. */
     private CheckboxMenuItem largeGrid;
+    /** Practice mode checkable menu item in the Options pull-down menu. */
+    private CheckboxMenuItem practiceMode;
+    /**
+     * An array of the practice mode highlight tiles for each tile size.  They
+     * are created the first time they are drawn and then reused.
+     */
+    private BufferedImage[][] highlightTiles = new BufferedImage[3][3];
+    /**
+     * Holds the area to be drawn by each paint.  It is reused so painting does
+     * not create a new rectangle each time.
+     */
+    private final Rectangle drawArea = new Rectangle();
+    /**
+     * Holds the window frame borders.  They are kept from the last time the
+     * window was laid out rather than asked for on every paint, since asking
+     * creates a new object each time.  Also read by the game loop to work out
+     * the area to repaint.
+     */
+    private volatile Insets insets = new Insets(0, 0, 0, 0);
+    /**
+     * An array of the heads up display digits and labels for each tile size.
+     * They are created the first time they are drawn and then reused.
+     */
+    private HudGlyphs[] hudGlyphs = new HudGlyphs[3];
+    /**
+     * An array of the heatmap overlays, one for each grid size that has one,
+     * with one pixel per tile.  They are stretched over the game grid when it
+     * is drawn.
+     */
+    private volatile BufferedImage[] heatmapOverlays = new BufferedImage[0];
+    /** Takes the frame snapshots of the model for the window. */
+    private final FramePublisher frames = new FramePublisher();
     /** Holds an instance of the model in the game MVC architecture. */
     private GoblinModel model;
     
@@ -153,6 +210,7 @@ public class GoblinView extends Frame {
         smallGrid = new CheckboxMenuItem(SMALL_GRID_MENU_ITEM);
         mediumGrid = new CheckboxMenuItem(MEDIUM_GRID_MENU_ITEM);
         largeGrid = new CheckboxMenuItem(LARGE_GRID_MENU_ITEM);
+        practiceMode = new CheckboxMenuItem(PRACTICE_MODE_MENU_ITEM);
         optionMenu.add(smallTile);
         optionMenu.add(mediumTile);
         optionMenu.add(largeTile);
@@ -160,6 +218,8 @@ public class GoblinView extends Frame {
         optionMenu.add(smallGrid);
         optionMenu.add(mediumGrid);
         optionMenu.add(largeGrid);
+        optionMenu.addSeparator();
+        optionMenu.add(practiceMode);
 
         //Make the frame visible.
         setVisible(true);
@@ -171,6 +231,7 @@ public class GoblinView extends Frame {
         //currently selected in the model.
         setOptionsMenuTileSizeItem();
         setOptionsMenuGridSizeItem();
+        setOptionsMenuPracticeModeItem();
     }
     
     /**
@@ -216,94 +277,49 @@ public class GoblinView extends Frame {
     }
     
     /**
-     * Method used to update the window title bar with information for the user.
-     * The game name, score, level, and game over are all displayed in the title
-     * bar.
+     * Method used to make sure that the practice mode item in the Options
+     * pull-down menu is checked if the model is in practice mode.
      */
-    public void updateTitle() {
-        //If the state of the model is game over than print the game name, score,
-        //level and game over.  Otherwise, print all of the information except
-        //game over.
-        if(model.getCurrentState() == GoblinModel.STATE_GAME_OVER) {
-            this.setTitle("Goblin -- Score: " + model.getScore() + "  Level: " + model.getLevel() + " -- GAME OVER");
-        } else {
-            this.setTitle("Goblin -- Score: " + model.getScore() + "  Level: " + model.getLevel());
-        }
+    public final void setOptionsMenuPracticeModeItem() {
+        practiceMode.setState(model.isPracticeMode());
     }
     
     /**
-     * Method that calculates a specific area of the screen to be redrawn.  It
-     * calculates a rectangular area of the game grid and passes that data off to
-     * the repaint() method.  The data for which tiles have changed is retrieved
-     * from the model.
+     * Method used to publish a snapshot of the model for the window to paint and
+     * ask for the area that changed to be repainted.  The area is a rectangle
+     * around the tiles that changed since the last snapshot, grown down across
+     * the heads up display if it changed too.  This is called by the game loop
+     * after each tick, which is the only thread that changes the model.
      */
-    public void redrawArea() {
+    public void publishFrame() {
         //Declarations.
-        int currentTileX, currentTileY, lastTileX, lastTileY, windowStartX, windowStartY, x, y, width, height;
-        
-        //There are only two tiles that need to be redrawn.  The last one used
-        //and the current one being used.
-        currentTileX = model.getcurrentGoblinX();
-        currentTileY = model.getcurrentGoblinY();
-        lastTileX = model.getLastGoblinX();
-        lastTileY = model.getLastGoblinY();
+        int frameTileSize, topRow;
+        Insets frameInsets = insets;
         
-        //The repaint() method needs an x,y coordinate for each; the width and
-        //height of each tile is already known.  Get the upper left-hand corner
-        //pixel coordinate of the window.
-        windowStartX = this.getInsets().left;
-        windowStartY = this.getInsets().top;
+        if(!frames.publish(model))
+            return;
         
-        //Get the current number of rows and columns, along with the current tile
-        //size, from the model.
-        numberOfRows = model.getNumberOfRows();
-        numberOfColumns = model.getNumberOfColumns();
-        tileSize = model.getTileSize();
-        
-        //A rectangle needs to be found that will encompase both tiles to be
-        //drawn.  The current Y position will always be the top of the rectangle
-        //accept for one condition where the last Y was at position zero (0).
-        if(lastTileY != 0) {
-            //The last Y position was not zero (0).  Get the top of the rectangle
-            //from the current Y position by taking the tile number, multiplying
-            //it by the tile size, and then adding the inset.  Then set the
-            //height to two (2) tiles.
-            y = currentTileY * tileSize + windowStartY;
-            height = tileSize * 2;
-        } else {
-            //The last Y position was zero (0) which means the entire length of Y
-            //needs to be redrawn.  Set the top of the recetangle equal to the
-            //inset and then set the height to the tile size multiplied by the
-            //number of rows.
-            y = windowStartY;
-            height = tileSize * numberOfRows;
+        //If the size changed the window has to be resized, so draw it all.
+        if(frames.isSizeChanged()) {
+            repaint();
+            return;
         }
         
-        //There are three posibilities:
-        //1.  The current X position is a lower number then the last position in
-        //    which case the current X position will be used for the left-side of
-        //    the rectangle and the width will be set to the tile size multiplied
-        //    by two (2).
-        //2.  The last X position is a lower number then the current position in
-        //    which case the last X position will be used for the left-side of
-        //    the rectangle and the width will be set to the tile size multiplied
-        //    by two (2).
-        //3.  The current X position is equal to the last X position in which
-        //    case either can be used for the left-side of the rectangle and the
-        //    width will be set to the tile size.
-        if(currentTileX < lastTileX) {
-            x = currentTileX * tileSize + windowStartX;
-            width = tileSize * 2;
-        } else if(lastTileX < currentTileX) {
-            x = lastTileX * tileSize + windowStartX;
-            width = tileSize * 2;
-        } else {
-            x = currentTileX * tileSize + windowStartX;
-            width = tileSize;
-        }
+        //Repaint with the rectangle.
+        frameTileSize = frames.getTileSize();
+        topRow = frames.getTopRow();
+        repaint(frameInsets.left + frames.getLeftColumn() * frameTileSize, frameInsets.top + topRow * frameTileSize,
+                (frames.getRightColumn() - frames.getLeftColumn() + 1) * frameTileSize, (frames.getBottomRow() - topRow + 1) * frameTileSize);
+    }
 
-        //Repaint with the specified rectangle.
-        repaint(x, y, width, height);
+    /**
+     * Overrides the doLayout() method of Container.  Keeps the window frame
+     * borders, which are only able to change when the window is laid out.
+     */
+    @Override
+    public void doLayout() {
+        insets = getInsets();
+        super.doLayout();
     }
 
     /**
@@ -318,48 +334,79 @@ public class GoblinView extends Frame {
 
     /**
      * Overrides the update() method of Container.  Collects tile and game grid
-     * information from the model and draws it on the screen.  Both full redraws
-     * and specific rectangular area redraws are handled in this method.
+     * information from the newest frame snapshot and draws it on the screen.
+     * Both full redraws and specific rectangular area redraws are handled in
+     * this method.
      * 
      * @param g Graphics container.
      */
     @Override
     public void update(Graphics g) {
         //Declarations.
-        int windowStartX, windowStartY, startingRow, startingCol, endingRow, endingCol;
+        int windowStartX, windowStartY, startingRow, startingCol, endingRow, endingCol, imageSize, tilesDrawn = 0;
+        long paintStart = 0L;
+        boolean fullPaint = false;
+        PaintEvent event = null;
+        FrameSnapshot frame;
+        
+        //If the metrics are on note when the paint started.
+        if(GoblinMetrics.ENABLED)
+            paintStart = System.nanoTime();
         
-        //Get the rectangular area to be drawn.
-        Rectangle drawArea = g.getClipBounds();
+        //Start timing the paint for the flight recorder.  No event is made
+        //unless a recording is taking them.
+        if(PaintEvent.TYPE.isEnabled()) {
+            event = new PaintEvent();
+            event.begin();
+        }
+        
+        //Get the rectangular area to be drawn.  With no clip the area is left
+        //empty, which draws the whole screen.
+        drawArea.setBounds(0, 0, 0, 0);
+        g.getClipBounds(drawArea);
         
         //Get the upper left-hand corner of the drawing area under the menu bar
         //and inside the left window frame border.
-        windowStartX = this.getInsets().left;
-        windowStartY = this.getInsets().top;
+        windowStartX = insets.left;
+        windowStartY = insets.top;
         
-        //Get the current number of rows and columns, along with the current tile
-        //size, of the model.
-        numberOfRows = model.getNumberOfRows();
-        numberOfColumns = model.getNumberOfColumns();
-        tileSize = model.getTileSize();
+        //Get the newest frame published by the game loop.
+        frame = frames.acquire();
 
         //If the model is ready to be drawn then draw it.
-        if(isReady) {
-            //Resize the frame if it has not already been sized.
-            if(!sizeSet) {
-                setSize(getInsets().left + numberOfColumns * tileSize + getInsets().right, getInsets().top + numberOfRows * tileSize + getInsets().bottom);
+        if(isReady && frame.numberOfRows > 0) {
+            //Resize the window if it has not already been sized for the number
+            //of rows and columns, along with the tile size, of the snapshot.
+            if(!sizeSet || frame.numberOfRows != numberOfRows || frame.numberOfColumns != numberOfColumns || frame.tileSize != tileSize) {
+                numberOfRows = frame.numberOfRows;
+                numberOfColumns = frame.numberOfColumns;
+                tileSize = frame.tileSize;
+                insets = getInsets();
+                setSize(insets.left + numberOfColumns * tileSize + insets.right, insets.top + (numberOfRows + 1) * tileSize + insets.bottom);
                 sizeSet = true;
             }
+            imageSize = getTileSizeIndex();
             
             //If the area to be drawn is outside of the game grid area then draw
             //the whole screen.  Otherwise just draw the specific area.
             if(drawArea.x < windowStartX && drawArea.y < windowStartY) {
                 //It is outside the game grid area.  Draw the whole screen by
-                //looping through all rows and columns of the model.
+                //looping through all rows and columns of the frame.
                 for(int row = 0; row < numberOfRows; row++) {
                     for(int col = 0; col < numberOfColumns; col++) {
-                        g.drawImage(model.getTile(row, col), col * tileSize + windowStartX, row * tileSize + windowStartY, this);
+                        g.drawImage(Images.getImage(imageSize, frame.board[row * numberOfColumns + col]), col * tileSize + windowStartX, row * tileSize + windowStartY, this);
                     }
                 }
+                drawHud(g, frame, windowStartX, windowStartY);
+                startingRow = 0;
+                startingCol = 0;
+                endingRow = numberOfRows - 1;
+                endingCol = numberOfColumns - 1;
+                
+                if(GoblinMetrics.ENABLED)
+                    GoblinMetrics.FULL_PAINTS.increment();
+                fullPaint = true;
+                tilesDrawn = numberOfRows * numberOfColumns;
             } else {
                 //Draw only the specific area dictated by draw area.  Calculate
                 //the starting row and column, and the ending row and column that
@@ -368,17 +415,272 @@ public class GoblinView extends Frame {
                 startingCol = (drawArea.x - windowStartX) / tileSize;
                 endingRow = (drawArea.y - windowStartY + (drawArea.height - 1)) / tileSize;
                 endingCol = (drawArea.x - windowStartX + (drawArea.width - 1)) / tileSize;
+                
+                //The row under the game grid is the heads up display.
+                if(endingRow >= numberOfRows) {
+                    endingRow = numberOfRows - 1;
+                    drawHud(g, frame, windowStartX, windowStartY);
+                }
+                if(endingCol >= numberOfColumns)
+                    endingCol = numberOfColumns - 1;
             
                 //Loop through the starting and ending rows and columns.
                 for(int row = startingRow; row <= endingRow; row++) {
                     for(int col = startingCol; col <= endingCol; col++) {
-                        g.drawImage(model.getTile(row, col), col * tileSize + windowStartX, row * tileSize + windowStartY, this);
+                        g.drawImage(Images.getImage(imageSize, frame.board[row * numberOfColumns + col]), col * tileSize + windowStartX, row * tileSize + windowStartY, this);
                     }
                 }
+                
+                if(GoblinMetrics.ENABLED) {
+                    GoblinMetrics.AREA_PAINTS.increment();
+                    GoblinMetrics.DIRTY_AREA.record((long)drawArea.width * drawArea.height);
+                }
+                tilesDrawn = (endingRow - startingRow + 1) * (endingCol - startingCol + 1);
+            }
+            
+            //Draw the heatmap for the grid size, if there is one, over the
+            //tiles that were drawn.
+            drawHeatmap(g, startingRow, startingCol, endingRow, endingCol, windowStartX, windowStartY);
+            
+            //In practice mode draw the move advice over the tiles.
+            if(frame.showsAdvice)
+                drawAdvice(g, frame, windowStartX, windowStartY);
+        }
+        
+        //If the metrics are on record how long the paint took.
+        if(GoblinMetrics.ENABLED)
+            GoblinMetrics.PAINT.record(System.nanoTime() - paintStart);
+        
+        //If the flight recorder wants the event then fill it in and send it.
+        if(event != null) {
+            event.end();
+            if(event.shouldCommit()) {
+                event.fullPaint = fullPaint;
+                event.tilesDrawn = tilesDrawn;
+                event.dirtyArea = drawArea.width * drawArea.height;
+                event.commit();
+            }
+        }
+    }
+    
+    /**
+     * Method that draws the practice mode highlights over the three tiles the
+     * goblin can move to next.
+     * 
+     * @param g Graphics container.
+     * @param frame The frame being drawn.
+     * @param windowStartX The left-hand pixel of the game grid in the window.
+     * @param windowStartY The top pixel of the game grid in the window.
+     */
+    private void drawAdvice(Graphics g, FrameSnapshot frame, int windowStartX, int windowStartY) {
+        //Declarations.
+        int goblinX, row, col, advice, highlight, size;
+        
+        //The tiles are on the row above the goblin, or the bottom row if the
+        //goblin is on the top row.
+        goblinX = frame.goblinX;
+        row = frame.getAdviceRow();
+        
+        //Work out the index of the highlight tiles for the current tile size.
+        size = getTileSizeIndex();
+        
+        for(int direction = MoveAdvisor.DIRECTION_LEFT; direction <= MoveAdvisor.DIRECTION_RIGHT; direction++) {
+            //Moves into the shrubs are not drawn.
+            col = goblinX + direction - MoveAdvisor.DIRECTION_STRAIGHT;
+            if(col <= 0 || col >= numberOfColumns - 1)
+                continue;
+            
+            //Pick the highlight from the advice.
+            advice = frame.advice[direction];
+            if((advice & MoveAdvisor.ADVICE_SAFE) == 0) {
+                highlight = HIGHLIGHT_UNSAFE;
+            } else if((advice & MoveAdvisor.ADVICE_REACHES_FACES) == 0) {
+                highlight = HIGHLIGHT_STRANDS_FACES;
+            } else {
+                highlight = HIGHLIGHT_SAFE;
+            }
+            
+            //Create the highlight tile the first time it is needed.
+            if(highlightTiles[size][highlight] == null)
+                highlightTiles[size][highlight] = createHighlightTile(highlight);
+            
+            g.drawImage(highlightTiles[size][highlight], col * tileSize + windowStartX, row * tileSize + windowStartY, this);
+        }
+    }
+    
+    /**
+     * Method that draws the heatmap overlay for the size of the game grid over
+     * a rectangle of tiles, if there is one for the size.
+     * 
+     * @param g Graphics container.
+     * @param startingRow The top row of the rectangle.
+     * @param startingCol The left-hand column of the rectangle.
+     * @param endingRow The bottom row of the rectangle.
+     * @param endingCol The right-hand column of the rectangle.
+     * @param windowStartX The left-hand pixel of the game grid in the window.
+     * @param windowStartY The top pixel of the game grid in the window.
+     */
+    private void drawHeatmap(Graphics g, int startingRow, int startingCol, int endingRow, int endingCol, int windowStartX, int windowStartY) {
+        for(BufferedImage overlay : heatmapOverlays) {
+            if(overlay.getWidth() == numberOfColumns && overlay.getHeight() == numberOfRows) {
+                //Each pixel of the overlay is stretched over one tile.
+                g.drawImage(overlay, windowStartX + startingCol * tileSize, windowStartY + startingRow * tileSize,
+                        windowStartX + (endingCol + 1) * tileSize, windowStartY + (endingRow + 1) * tileSize,
+                        startingCol, startingRow, endingCol + 1, endingRow + 1, this);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Method that draws the heads up display in the row under the game grid.
+     * The score and level are on the left and, once the game is over, game over
+     * and the best score are on the right.
+     * 
+     * @param g Graphics container.
+     * @param frame The frame being drawn.
+     * @param windowStartX The left-hand pixel of the game grid in the window.
+     * @param windowStartY The top pixel of the game grid in the window.
+     */
+    private void drawHud(Graphics g, FrameSnapshot frame, int windowStartX, int windowStartY) {
+        //Declarations.
+        int x, y, right, size;
+        HudGlyphs glyphs;
+        
+        //Create the digits and labels the first time they are needed.
+        size = getTileSizeIndex();
+        if(hudGlyphs[size] == null)
+            hudGlyphs[size] = new HudGlyphs(tileSize);
+        glyphs = hudGlyphs[size];
+        
+        y = windowStartY + numberOfRows * tileSize;
+        g.setColor(Color.darkGray);
+        g.fillRect(windowStartX, y, numberOfColumns * tileSize, tileSize);
+        
+        x = windowStartX + tileSize / 2;
+        x = glyphs.drawLabel(g, HudGlyphs.LABEL_SCORE, x, y);
+        x = glyphs.drawNumber(g, frame.score, x, y);
+        x += tileSize;
+        x = glyphs.drawLabel(g, HudGlyphs.LABEL_LEVEL, x, y);
+        glyphs.drawNumber(g, frame.level, x, y);
+        
+        if(frame.state == GoblinModel.STATE_GAME_OVER) {
+            right = windowStartX + numberOfColumns * tileSize - tileSize / 2;
+            if(frame.bestScore > 0) {
+                right -= glyphs.getNumberWidth(frame.bestScore);
+                glyphs.drawNumber(g, frame.bestScore, right, y);
+                right -= glyphs.getLabelWidth(HudGlyphs.LABEL_BEST);
+                glyphs.drawLabel(g, HudGlyphs.LABEL_BEST, right, y);
+                right -= tileSize;
             }
+            right -= glyphs.getLabelWidth(HudGlyphs.LABEL_GAME_OVER);
+            glyphs.drawLabel(g, HudGlyphs.LABEL_GAME_OVER, right, y);
+        }
+    }
+    
+    /**
+     * Gets the index of the current tile size for the arrays of tiles created
+     * by the view.
+     * 
+     * @return Zero for the small, one for the medium, and two for the large tile
+     * size.
+     */
+    private int getTileSizeIndex() {
+        if(tileSize == GoblinModel.SMALL_TILE_SIZE) {
+            return 0;
+        } else if(tileSize == GoblinModel.MEDIUM_TILE_SIZE) {
+            return 1;
+        } else {
+            return 2;
         }
     }
     
+    /**
+     * Method that creates a practice mode highlight tile in the current tile
+     * size.  The tile is a see-through color with a solid border.
+     * 
+     * @param highlight The value that indicates which highlight to create.
+     * @return The highlight tile.
+     */
+    private BufferedImage createHighlightTile(int highlight) {
+        //Declarations.
+        BufferedImage image;
+        Graphics2D g;
+        Color color;
+        
+        //Green for safe, yellow for safe but leaving faces out of reach, and red
+        //for not safe.
+        switch(highlight) {
+            case HIGHLIGHT_SAFE:
+                color = Color.green;
+                break;
+            case HIGHLIGHT_STRANDS_FACES:
+                color = Color.yellow;
+                break;
+            default:
+                color = Color.red;
+                break;
+        }
+        
+        image = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_ARGB);
+        g = image.createGraphics();
+        g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 64));
+        g.fillRect(0, 0, tileSize, tileSize);
+        g.setColor(color);
+        g.drawRect(0, 0, tileSize - 1, tileSize - 1);
+        g.dispose();
+        
+        return image;
+    }
+    
+    /**
+     * Sets a heatmap to be drawn over the game grid whenever a grid of its size
+     * is shown, in place of any heatmap of that size set before.  Each tile is
+     * colored by its count, from clear for none to strong for the highest,
+     * red for deaths, blue for moves, and yellow for faces collected.
+     * 
+     * @param heatmap The heatmap.
+     * @param layer One of the layer constants of the Heatmap class.
+     */
+    public void setHeatmapOverlay(Heatmap heatmap, int layer) {
+        //Declarations.
+        int gridSize = heatmap.getGridSize();
+        long[] counts = heatmap.getCounts(layer);
+        long highest = 0L;
+        int rgb, alpha, kept = 0;
+        BufferedImage overlay = new BufferedImage(gridSize, gridSize, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage[] overlays = heatmapOverlays;
+        BufferedImage[] newOverlays = new BufferedImage[overlays.length + 1];
+        
+        if(layer == Heatmap.LAYER_DEATHS) {
+            rgb = 0xFF2020;
+        } else if(layer == Heatmap.LAYER_OCCUPANCY) {
+            rgb = 0x2060FF;
+        } else {
+            rgb = 0xFFD020;
+        }
+        
+        //The counts of a busy tile can be thousands of times those of a quiet
+        //one, so they are shown on a log scale.
+        for(long count : counts)
+            highest = Math.max(highest, count);
+        for(int i = 0; i < counts.length; i++) {
+            if(counts[i] > 0L) {
+                alpha = 32 + (int)(160.0 * Math.log1p(counts[i]) / Math.log1p(highest));
+                overlay.setRGB(i % gridSize, i / gridSize, (alpha << 24) | rgb);
+            }
+        }
+        
+        //Replace the array so painting never sees it part way changed.
+        for(BufferedImage old : overlays) {
+            if(old.getWidth() != gridSize)
+                newOverlays[kept++] = old;
+        }
+        newOverlays[kept++] = overlay;
+        heatmapOverlays = Arrays.copyOf(newOverlays, kept);
+        repaint();
+    }
+    
     /**
      * Method that passes key presses from the keyboard listener to the
      * controller in the game MVC architecture.
@@ -427,6 +729,7 @@ public class GoblinView extends Frame {
         smallGrid.addItemListener(il);
         mediumGrid.addItemListener(il);
         largeGrid.addItemListener(il);
+        practiceMode.addItemListener(il);
     }
     
     /**
@@ -449,4 +752,15 @@ public class GoblinView extends Frame {
     public void setSizeSet(boolean sizeSet) {
         this.sizeSet = sizeSet;
     }
+    
+    /**
+     * Sets the best score for the size being played, which is shown in the
+     * heads up display when the game is over.  Takes effect with the next
+     * frame published.
+     * 
+     * @param bestScore The best score, or zero if there is none.
+     */
+    public void setBestScore(int bestScore) {
+        frames.setBestScore(bestScore);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package view;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * Class that holds the digits and labels of the heads up display drawn in one
+ * tile size.  Each is drawn into an image of its own once, when the cache is
+ * created, so showing a score is only copying a few small images and no text
+ * is laid out while the game is running.
+ *
+ * @author agent
+ * @version 1.0
+ */
+class HudGlyphs {
+    /** The value that indicates the score label. */
+    static final int LABEL_SCORE = 0;
+    /** The value that indicates the level label. */
+    static final int LABEL_LEVEL = 1;
+    /** The value that indicates the game over label. */
+    static final int LABEL_GAME_OVER = 2;
+    /** The value that indicates the best score label. */
+    static final int LABEL_BEST = 3;
+
+    /** The text of each label. */
+    private static final String[] LABELS = {"SCORE ", "LEVEL ", "GAME OVER", "BEST "};
+
+    /** Holds the image of each digit. */
+    private final BufferedImage[] digits = new BufferedImage[10];
+    /** Holds the image of each label. */
+    private final BufferedImage[] labels = new BufferedImage[LABELS.length];
+    /** Holds the width in pixels of every digit. */
+    private final int digitWidth;
+
+    //Constructor.
+    /**
+     * Sole constructor.  Draws all of the digits and labels.
+     *
+     * @param tileSize The tile size in pixels, which is also the height of the
+     * heads up display.
+     */
+    HudGlyphs(int tileSize) {
+        //Declarations.
+        Font font = new Font(Font.MONOSPACED, Font.BOLD, tileSize * 3 / 4);
+        FontMetrics metrics;
+        BufferedImage scratch;
+        Graphics2D g;
+        int baseline;
+
+        //Measure the font so every glyph is centred on the same baseline.
+        scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        g = scratch.createGraphics();
+        metrics = g.getFontMetrics(font);
+        g.dispose();
+        baseline = (tileSize - metrics.getAscent() - metrics.getDescent()) / 2 + metrics.getAscent();
+
+        digitWidth = metrics.charWidth('0');
+        for(int digit = 0; digit < digits.length; digit++)
+            digits[digit] = createGlyph(String.valueOf(digit), digitWidth, tileSize, font, baseline);
+        for(int label = 0; label < labels.length; label++)
+            labels[label] = createGlyph(LABELS[label], metrics.stringWidth(LABELS[label]), tileSize, font, baseline);
+    }
+
+    /**
+     * Draws a label.
+     *
+     * @param g Graphics container.
+     * @param label One of the label constants of this class.
+     * @param x The left-hand pixel to draw at.
+     * @param y The top pixel to draw at.
+     * @return The pixel just to the right of the label.
+     */
+    int drawLabel(Graphics g, int label, int x, int y) {
+        g.drawImage(labels[label], x, y, null);
+        return x + labels[label].getWidth();
+    }
+
+    /**
+     * Draws a number that is zero or more.
+     *
+     * @param g Graphics container.
+     * @param value The number.
+     * @param x The left-hand pixel to draw at.
+     * @param y The top pixel to draw at.
+     * @return The pixel just to the right of the number.
+     */
+    int drawNumber(Graphics g, int value, int x, int y) {
+        //Declarations.
+        int divisor = 1;
+
+        //Find the place of the first digit and then draw from it to the last.
+        while(value / divisor >= 10)
+            divisor *= 10;
+        while(divisor > 0) {
+            g.drawImage(digits[(value / divisor) % 10], x, y, null);
+            x += digitWidth;
+            divisor /= 10;
+        }
+        return x;
+    }
+
+    /**
+     * Gets the width a label is drawn in.
+     *
+     * @param label One of the label constants of this class.
+     * @return The width in pixels.
+     */
+    int getLabelWidth(int label) {
+        return labels[label].getWidth();
+    }
+
+    /**
+     * Gets the width a number is drawn in.
+     *
+     * @param value The number, zero or more.
+     * @return The width in pixels.
+     */
+    int getNumberWidth(int value) {
+        //Declarations.
+        int width = digitWidth;
+
+        while(value >= 10) {
+            value /= 10;
+            width += digitWidth;
+        }
+        return width;
+    }
+
+    /**
+     * Method that draws text into an image of its own.
+     *
+     * @param text The text.
+     * @param width The width of the image in pixels.
+     * @param height The height of the image in pixels.
+     * @param font The font the text is drawn in.
+     * @param baseline The pixel row the text sits on.
+     * @return The image.
+     */
+    private static BufferedImage createGlyph(String text, int width, int height, Font font, int baseline) {
+        //Declarations.
+        BufferedImage image = new BufferedImage(Math.max(1, width), height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setFont(font);
+        g.setColor(Color.white);
+        g.drawString(text, 0, baseline);
+        g.dispose();
+
+        return image;
+    }
+}
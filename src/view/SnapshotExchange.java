@@ -0,0 +1,100 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package view;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class that passes frame snapshots from the game loop to the window with a
+ * triple buffer.  The game loop fills in the back snapshot and swaps it with the
+ * middle one, and the window swaps its front snapshot with the middle one when a
+ * newer frame is there.  Each swap is a single atomic exchange, so neither side
+ * ever waits on the other and the window always has a whole frame to paint.
+ * Frames the window is too slow to paint are skipped.
+ *
+ * @author agent
+ * @version 1.0
+ */
+class SnapshotExchange {
+    /** The bit set in the middle index when it holds a frame not yet taken. */
+    private static final int FRESH = 4;
+    /** The bits of the middle index that hold the snapshot number. */
+    private static final int INDEX_MASK = 3;
+
+    /** Holds the three snapshots. */
+    private final FrameSnapshot[] snapshots = { new FrameSnapshot(), new FrameSnapshot(), new FrameSnapshot() };
+    /** Holds the number of the middle snapshot and the fresh bit. */
+    private final AtomicInteger middle = new AtomicInteger(1);
+    /** Holds the number of the snapshot the game loop fills in. */
+    private int back = 0;
+    /** Holds the number of the snapshot the game loop published last. */
+    private int published = 1;
+    /** Holds the number of the snapshot the window paints. */
+    private int front = 2;
+
+    /**
+     * Gets the snapshot to fill in.  Only called by the game loop.
+     *
+     * @return The back snapshot.
+     */
+    FrameSnapshot getBack() {
+        return snapshots[back];
+    }
+
+    /**
+     * Gets the snapshot published last.  Only called by the game loop, which
+     * may read it but not change it since the window may be painting it.
+     *
+     * @return The snapshot.
+     */
+    FrameSnapshot getPublished() {
+        return snapshots[published];
+    }
+
+    /**
+     * Publishes the back snapshot and takes the middle one as the new back
+     * snapshot.  Only called by the game loop.
+     */
+    void publish() {
+        published = back;
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Gets the newest frame.  If one has been published since the last call it
+     * is swapped in as the front snapshot.  Only called by the window.
+     *
+     * @return The front snapshot.
+     */
+    FrameSnapshot acquire() {
+        if((middle.get() & FRESH) != 0)
+            front = middle.getAndSet(front) & INDEX_MASK;
+        return snapshots[front];
+    }
+}
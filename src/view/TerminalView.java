@@ -0,0 +1,221 @@
+/*
+ ********************************************************************************
+ ** Copyright (C) 2012 Donald J. Bartley <djbcoffee@gmail.com>
+ **
+ ** This source file may be used and distributed without restriction provided
+ ** that this copyright statement is not removed from the file and that any
+ ** derivative work contains the original copyright notice and the associated
+ ** disclaimer.
+ **
+ ** This source file is free software; you can redistribute it and/or modify it
+ ** under the terms of the GNU General Public License as published by the Free
+ ** Software Foundation; either version 2 of the License, or (at your option) any
+ ** later version.
+ **
+ ** This source file is distributed in the hope that it will be useful, but
+ ** WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ ** FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ ** more details.
+ **
+ ** You should have received a copy of the GNU General Public License along with
+ ** this source file.  If not, see <http://www.gnu.org/licenses/> or write to the
+ ** Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ ** 02110-1301, USA.
+ ********************************************************************************
+ ** agent 10/18/2026 Created.
+ ********************************************************************************
+ */
+
+package view;
+
+import java.io.PrintStream;
+import model.GoblinModel;
+
+/**
+ * A view that draws the game in an ANSI terminal for machines with no display.
+ * Each tile is drawn as two characters, so the tiles come out roughly square,
+ * with a colour for each tile type.  The score and level are shown in a status
+ * line under the game grid.
+ *
+ * The view keeps a copy of what is on the terminal and each update only sends
+ * the tiles that changed, each with a cursor move and a colour change only when
+ * they are needed.  A goblin move is usually two or three tiles, which keeps
+ * the output to a few dozen bytes even on the large game grid.
+ *
+ * @author agent
+ * @version 1.0
+ */
+public class TerminalView {
+    /** The escape sequence that starts a control sequence. */
+    private static final String CSI = "\u001b[";
+    /** The characters drawn for each image type, two per tile. */
+    private static final String[] TILE_TEXT = {"**", "@@", "^^", "oo", "%%", "  ", "##"};
+    /** The colour sequence used for each image type. */
+    private static final String[] TILE_COLOUR = {
+        CSI + "1;33;41m",   //Explosion, bold yellow on red.
+        CSI + "1;32;40m",   //Goblin, bold green on black.
+        CSI + "1;33;40m",   //Happy face, bold yellow on black.
+        CSI + "1;37;40m",   //Shocked face, bold white on black.
+        CSI + "32;42m",     //Shrub, green on green.
+        CSI + "40m",        //Stone, black.
+        CSI + "37;41m"      //Wall, white on red.
+    };
+    /** The value in the screen copy of a tile that has not been drawn. */
+    private static final byte NOT_DRAWN = -1;
+
+    /** Holds the model that is drawn. */
+    private final GoblinModel model;
+    /** Holds the stream the terminal output is written to. */
+    private final PrintStream out;
+    /** Holds the image type of each tile as it is on the terminal. */
+    private final byte[] screen = new byte[GoblinModel.LARGE_GRID_SIZE * GoblinModel.LARGE_GRID_SIZE];
+    /** Holds the output of an update while it is built. */
+    private final StringBuilder output = new StringBuilder(1024);
+    /** Holds the status line as it is on the terminal. */
+    private String statusLine = "";
+    /** Holds the image type whose colour is set, or -1 if none is. */
+    private int currentColour;
+    /** Holds the terminal row the cursor is on, counting from zero. */
+    private int cursorRow;
+    /** Holds the terminal column the cursor is on, counting from zero. */
+    private int cursorCol;
+    /** Holds the number of rows drawn last. */
+    private int numberOfRows;
+    /** Holds the number of columns drawn last. */
+    private int numberOfColumns;
+    /** Holds the number of bytes sent by the last update. */
+    private int lastUpdateSize;
+
+    //Constructor.
+    /**
+     * Sole constructor.
+     *
+     * @param model The model to be drawn.
+     * @param out The stream the terminal output is written to.
+     */
+    public TerminalView(GoblinModel model, PrintStream out) {
+        this.model = model;
+        this.out = out;
+    }
+
+    /**
+     * Method that clears the terminal, hides the cursor, and draws everything.
+     */
+    public void redraw() {
+        output.setLength(0);
+        output.append(CSI).append("0m").append(CSI).append("2J").append(CSI).append("?25l");
+        currentColour = -1;
+        cursorRow = -1;
+        statusLine = "";
+        for(int tile = 0; tile < screen.length; tile++)
+            screen[tile] = NOT_DRAWN;
+        drawChanges();
+    }
+
+    /**
+     * Method that draws the tiles and status line that changed since the last
+     * update.  If the size of the game grid changed everything is drawn.
+     */
+    public void update() {
+        if(model.getNumberOfRows() != numberOfRows || model.getNumberOfColumns() != numberOfColumns) {
+            redraw();
+            return;
+        }
+        output.setLength(0);
+        drawChanges();
+    }
+
+    /**
+     * Method that puts the terminal back the way it was, with the cursor shown
+     * under the game grid.
+     */
+    public void restore() {
+        output.setLength(0);
+        moveCursor(numberOfRows + 2, 0);
+        output.append(CSI).append("0m").append(CSI).append("?25h");
+        out.print(output);
+        out.flush();
+    }
+
+    /**
+     * Gets the number of bytes sent by the last update.
+     *
+     * @return The number of bytes.
+     */
+    public int getLastUpdateSize() {
+        return lastUpdateSize;
+    }
+
+    /**
+     * Adds the changed tiles and status line to the output and sends it.
+     */
+    private void drawChanges() {
+        //Declarations.
+        int type, tile;
+        String status;
+
+        numberOfRows = model.getNumberOfRows();
+        numberOfColumns = model.getNumberOfColumns();
+
+        //Draw each tile that is not already on the terminal.
+        for(int row = 0; row < numberOfRows; row++) {
+            for(int col = 0; col < numberOfColumns; col++) {
+                tile = row * GoblinModel.LARGE_GRID_SIZE + col;
+                type = model.getImageType(row, col);
+                if(screen[tile] != type) {
+                    screen[tile] = (byte)type;
+                    moveCursor(row, col * 2);
+                    if(type != currentColour) {
+                        output.append(TILE_COLOUR[type]);
+                        currentColour = type;
+                    }
+                    output.append(TILE_TEXT[type]);
+                    cursorCol += 2;
+                }
+            }
+        }
+
+        //Draw the status line if it changed.
+        status = getStatusLine();
+        if(!status.equals(statusLine)) {
+            statusLine = status;
+            moveCursor(numberOfRows + 1, 0);
+            output.append(CSI).append("0m").append(status).append(CSI).append('K');
+            currentColour = -1;
+            cursorCol += status.length();
+        }
+
+        lastUpdateSize = output.length();
+        if(lastUpdateSize > 0) {
+            out.print(output);
+            out.flush();
+        }
+    }
+
+    /**
+     * Adds a cursor move to the output unless the cursor is already there.
+     *
+     * @param row The terminal row, counting from zero.
+     * @param col The terminal column, counting from zero.
+     */
+    private void moveCursor(int row, int col) {
+        if(row != cursorRow || col != cursorCol) {
+            output.append(CSI).append(row + 1).append(';').append(col + 1).append('H');
+            cursorRow = row;
+            cursorCol = col;
+        }
+    }
+
+    /**
+     * Gets the text of the status line.  Like the strip under the game grid in
+     * the window it shows the score and level, and game over when the game has
+     * ended.
+     *
+     * @return The status line.
+     */
+    private String getStatusLine() {
+        if(model.getCurrentState() == GoblinModel.STATE_GAME_OVER)
+            return "Goblin -- Score: " + model.getScore() + "  Level: " + model.getLevel() + " -- GAME OVER -- Enter: new game  Q: quit";
+        return "Goblin -- Score: " + model.getScore() + "  Level: " + model.getLevel() + " -- A: left  L: right";
+    }
+}